@@ -8,6 +8,7 @@ import com.google.common.collect.Maps;
 import io.levelops.aggregations_shared.database.converters.JobInstanceConverters;
 import io.levelops.aggregations_shared.database.models.DbJobDefinition;
 import io.levelops.aggregations_shared.database.models.DbJobDefinitionUpdate;
+import io.levelops.aggregations_shared.database.models.DbJobInstanceCounts;
 import io.levelops.aggregations_shared.database.models.DbJobInstanceDelete;
 import io.levelops.aggregations_shared.database.models.DbJobInstanceFilter;
 import io.levelops.aggregations_shared.database.models.DbJobInstanceUpdate;
@@ -50,6 +51,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -328,6 +330,115 @@ public class JobInstanceDatabaseService implements DatabaseService<DbJobDefiniti
         return template.update(sql, params) > 0;
     }
 
+    /**
+     * Counts, for every job definition at once, the instances in one of the in-flight statuses and the failed
+     * instances that are still below their max attempts. Job definitions with neither are not returned.
+     */
+    public Map<UUID, DbJobInstanceCounts> countInFlightAndRetryableByJobDefinition(List<JobStatus> inFlightStatuses) {
+        Validate.notEmpty(inFlightStatuses, "in-flight statuses can not be empty");
+        String inFlightCondition = generateJobStatusFilter(inFlightStatuses);
+        String retryableCondition = "(" + generateJobStatusFilter(List.of(JobStatus.FAILURE)) + " AND attempt_count < attempt_max)";
+        String sql = "SELECT job_definition_id," +
+                " COUNT(*) FILTER (WHERE " + inFlightCondition + ") AS in_flight," +
+                " COUNT(*) FILTER (WHERE " + retryableCondition + ") AS retryable" +
+                " FROM " + JOB_INSTANCE_TABLE +
+                " WHERE " + inFlightCondition + " OR " + retryableCondition +
+                " GROUP BY job_definition_id";
+        log.debug("Count SQL = {}", sql);
+        return template.query(sql, Map.of(), (rs, row) -> DbJobInstanceCounts.builder()
+                        .jobDefinitionId((UUID) rs.getObject("job_definition_id"))
+                        .inFlight(rs.getInt("in_flight"))
+                        .retryable(rs.getInt("retryable"))
+                        .build())
+                .stream()
+                .collect(Collectors.toMap(DbJobInstanceCounts::getJobDefinitionId, Function.identity()));
+    }
+
+    /**
+     * Records the same heartbeat for all the given job instances in one statement.
+     *
+     * @return number of job instances updated
+     */
+    public int updateHeartbeats(List<JobInstanceId> ids, Instant heartbeat) {
+        if (ListUtils.isEmpty(ids)) {
+            return 0;
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("heartbeat", Timestamp.from(heartbeat));
+        // jdbc expects a List[Object[]] for tuples
+        params.put("job_instance_ids", ids.stream()
+                .map(id -> new Object[]{id.getJobDefinitionId(), id.getInstanceId()})
+                .collect(Collectors.toList()));
+        String sql = "UPDATE " + JOB_INSTANCE_TABLE +
+                " SET last_heartbeat = :heartbeat, updated_at = now() " +
+                " WHERE (job_definition_id, instance_id) IN (:job_instance_ids)";
+        log.debug("Heartbeat SQL = {}", sql);
+        return template.update(sql, params);
+    }
+
+    /**
+     * Atomically claims up to {@code limit} scheduled jobs for the given worker by moving them to ACCEPTED.
+     * <p>
+     * Jobs are picked by priority first. Within a priority, tenants take turns: every tenant gets its oldest job
+     * picked before any tenant gets a second one. Rows locked by a concurrent claim are skipped rather than waited on,
+     * so concurrent workers never block on or claim the same job.
+     *
+     * @param aggProcessorNames if not null, only jobs for these processors are claimed
+     * @return ids of the claimed jobs, in pick order
+     */
+    public List<JobInstanceId> claimScheduledJobs(String workerId, int limit, @Nullable List<String> aggProcessorNames, Instant now) {
+        Validate.notBlank(workerId, "worker id can not be blank");
+        if (limit <= 0 || (aggProcessorNames != null && aggProcessorNames.isEmpty())) {
+            return List.of();
+        }
+        Map<String, Object> params = new HashMap<>();
+        params.put("worker_id", workerId);
+        params.put("limit", limit);
+        params.put("now", Timestamp.from(now));
+        params.put("scheduled", JobStatus.SCHEDULED.toString());
+        params.put("accepted", JobStatus.ACCEPTED.toString());
+
+        String processorCondition = "";
+        if (aggProcessorNames != null) {
+            processorCondition = " AND ji.agg_processor_name IN (:agg_processor_names)";
+            params.put("agg_processor_names", aggProcessorNames);
+        }
+
+        String sql = "WITH candidates AS (" +
+                "   SELECT ji.job_definition_id, ji.instance_id," +
+                "     ROW_NUMBER() OVER (PARTITION BY jd.tenant_id, ji.priority ORDER BY ji.scheduled_start_time) AS tenant_rank" +
+                "   FROM " + JOB_INSTANCE_TABLE + " ji" +
+                "   JOIN " + JOB_DEFINITION_TABLE + " jd ON jd.id = ji.job_definition_id" +
+                "   WHERE ji.status = :scheduled::etl_job_status_t" +
+                "     AND ji.scheduled_start_time <= :now" +
+                "     AND jd.is_active" + processorCondition +
+                " ), picked AS (" +
+                "   SELECT ji.job_definition_id, ji.instance_id, ji.priority, c.tenant_rank, ji.scheduled_start_time" +
+                "   FROM " + JOB_INSTANCE_TABLE + " ji" +
+                "   JOIN candidates c ON c.job_definition_id = ji.job_definition_id AND c.instance_id = ji.instance_id" +
+                "   WHERE ji.status = :scheduled::etl_job_status_t" +
+                "   ORDER BY ji.priority, c.tenant_rank, ji.scheduled_start_time" +
+                "   LIMIT :limit" +
+                "   FOR UPDATE OF ji SKIP LOCKED" +
+                " ), claimed AS (" +
+                "   UPDATE " + JOB_INSTANCE_TABLE + " ji" +
+                "   SET status = :accepted::etl_job_status_t, worker_id = :worker_id, updated_at = now()" +
+                "   FROM picked" +
+                "   WHERE ji.job_definition_id = picked.job_definition_id AND ji.instance_id = picked.instance_id" +
+                "   RETURNING ji.job_definition_id, ji.instance_id" +
+                " )" +
+                " SELECT claimed.job_definition_id, claimed.instance_id FROM claimed" +
+                " JOIN picked ON picked.job_definition_id = claimed.job_definition_id AND picked.instance_id = claimed.instance_id" +
+                " ORDER BY picked.priority, picked.tenant_rank, picked.scheduled_start_time";
+        log.debug("Claim SQL = {}", sql);
+        log.debug("Params = {} ", params);
+
+        return template.query(sql, params, (rs, row) -> JobInstanceId.builder()
+                .jobDefinitionId((UUID) rs.getObject("job_definition_id"))
+                .instanceId(rs.getInt("instance_id"))
+                .build());
+    }
+
     public JobInstanceId insertAndUpdateJobDefinition(DbJobInstance jobInstance, Map<String, Object> metadataUpdate, Instant now) throws IOException {
         TransactionDefinition txDef = new DefaultTransactionDefinition();
         TransactionStatus txStatus = transactionManager.getTransaction(txDef);
@@ -0,0 +1,17 @@
+package io.levelops.aggregations_shared.database.models;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.UUID;
+
+/**
+ * Number of in-flight and retryable job instances of a job definition.
+ */
+@Value
+@Builder(toBuilder = true)
+public class DbJobInstanceCounts {
+    UUID jobDefinitionId;
+    int inFlight;
+    int retryable;
+}
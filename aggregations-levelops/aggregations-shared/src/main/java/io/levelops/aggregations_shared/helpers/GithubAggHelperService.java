@@ -48,7 +48,9 @@ import org.springframework.stereotype.Service;
 import javax.annotation.Nullable;
 import java.sql.SQLException;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -99,6 +101,10 @@ public class GithubAggHelperService {
     }
 
     public void processRepositoryCommits(GithubRepository repository, String customer, String integrationId) {
+        if (ScmAggUtils.useScmCommitsInsertV2(scmCommitsInsertV2integrationIdWhitelist, customer, integrationId)) {
+            processRepositoryCommitsInBulk(repository, customer, integrationId);
+            return;
+        }
         AtomicInteger commitCount = new AtomicInteger();
         repository.getEvents().stream()
                 .filter(ev -> "PushEvent".equals(ev.getType()))
@@ -110,6 +116,58 @@ public class GithubAggHelperService {
         log.info("Total commit count for repo: {} is {}", repository.getName(), commitCount);
     }
 
+    /**
+     * Inserts the new commits of all the push events of a repository with a single bulk insert.
+     * Commits that already exist, or that show up in more than one push event, go through processCommit
+     * afterwards so that their branch gets updated like in the per-commit path.
+     * If the bulk insert fails, the new commits are inserted one at a time with processCommit instead.
+     */
+    private void processRepositoryCommitsInBulk(GithubRepository repository, String customer, String integrationId) {
+        List<ImmutablePair<DbScmCommit, List<DbScmFile>>> newCommits = new ArrayList<>();
+        List<ImmutablePair<GithubCommit, GithubEvent>> newCommitEvents = new ArrayList<>();
+        List<ImmutablePair<GithubCommit, GithubEvent>> existingCommits = new ArrayList<>();
+        Set<String> newCommitShas = new HashSet<>();
+        repository.getEvents().stream()
+                .filter(ev -> "PushEvent".equals(ev.getType()))
+                .forEach(ev -> ev.getCommits().forEach(commit -> {
+                    if (commit.getGitCommitter() == null) {
+                        log.warn("Ignoring commit because the gitCommitter field was not found.");
+                        return;
+                    }
+                    long committedAt = TimeUnit.MILLISECONDS.toSeconds(commit.getGitCommitter().getDate().getTime());
+                    Long pushEventTime = ev.getCreatedAt().toInstant().getEpochSecond();
+                    DbScmCommit dbScmCommitFromGCS = DbScmCommit.fromGithubCommit(
+                            commit, repository.getId(), integrationId, committedAt, pushEventTime);
+                    if (newCommitShas.contains(dbScmCommitFromGCS.getCommitSha())
+                            || scmAggService.getCommit(customer, dbScmCommitFromGCS.getCommitSha(), repository.getId(), integrationId).isPresent()) {
+                        existingCommits.add(ImmutablePair.of(commit, ev));
+                        return;
+                    }
+                    if (ScmAggUtils.isRelevant(customer, RELEVANT_TENANT_IDS)
+                            && !ScmAggUtils.isChangeVolumeLessThanXLines(dbScmCommitFromGCS, TOTAL_LINES_OF_CHANGE)) {
+                        log.info("Commit not inserted as lines of change greater than {} for Customer {}, integrationId {}," +
+                                " commitSha {} commit ", TOTAL_LINES_OF_CHANGE, customer, integrationId, dbScmCommitFromGCS.getCommitSha());
+                        return;
+                    }
+                    newCommitShas.add(dbScmCommitFromGCS.getCommitSha());
+                    newCommitEvents.add(ImmutablePair.of(commit, ev));
+                    newCommits.add(ImmutablePair.of(dbScmCommitFromGCS,
+                            DbScmFile.fromGithubCommit(commit, repository.getId(), integrationId, committedAt)));
+                }));
+        try {
+            List<String> insertedIds = scmAggService.insertV2Bulk(customer, newCommits);
+            log.info("Process Git Commits Customer {}, integrationId {}, repo {}, {} of {} new commits saved to db",
+                    customer, integrationId, repository.getName(), insertedIds.size(), newCommits.size());
+        } catch (SQLException | RuntimeException e) {
+            // the bulk statements are idempotent, so commits written before the failure are simply found again
+            log.error("Failed to bulk insert SCM commits and files for customer={}, integrationId={}, falling back to per-commit inserts for {} commits",
+                    customer, integrationId, newCommitEvents.size(), e);
+            newCommitEvents.forEach(pair -> processCommit(pair.getLeft(), pair.getRight(), repository, customer, integrationId));
+        }
+        existingCommits.forEach(pair -> processCommit(pair.getLeft(), pair.getRight(), repository, customer, integrationId));
+        log.info("Total commit count for repo: {} is {}", repository.getName(), newCommits.size() + existingCommits.size());
+    }
+
     public void processCommit(
             GithubCommit commit,
             GithubEvent ev,
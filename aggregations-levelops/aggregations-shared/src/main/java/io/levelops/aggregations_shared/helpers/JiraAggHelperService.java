@@ -11,6 +11,7 @@ import io.levelops.commons.databases.models.database.IntegrationConfig;
 import io.levelops.commons.databases.models.database.automation_rules.ObjectType;
 import io.levelops.commons.databases.models.database.jira.DbJiraIssue;
 import io.levelops.commons.databases.models.database.jira.DbJiraIssueSprintMapping;
+import io.levelops.commons.databases.models.database.jira.DbJiraLink;
 import io.levelops.commons.databases.models.database.jira.DbJiraSprint;
 import io.levelops.commons.databases.models.database.jira.DbJiraStatus;
 import io.levelops.commons.databases.models.database.jira.DbJiraStatusMetadata;
@@ -59,6 +60,7 @@ import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.mutable.MutableLong;
+import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -150,7 +152,7 @@ public class JiraAggHelperService {
     }
 
     @lombok.Value
-    @Builder
+    @Builder(toBuilder = true)
     public static class ProcessingStatus {
         boolean success;
         boolean todayIssueIsNew;
@@ -178,29 +180,13 @@ public class JiraAggHelperService {
         ProcessingStatus.ProcessingStatusBuilder processingStatusBuilder = ProcessingStatus.builder()
                 .success(false);
 
-        boolean snapshottingDisabled = !snapshottingSettings.isSnapshottingEnabled(customer, integrationId);
-
         // -- parse issue
-        DbJiraIssue parsedIssue;
-        try {
-            parsedIssue = JiraIssueParser.parseJiraIssue(issue, integrationId, currentTime, parserConfig);
-            parsedIssue = populateDbJiraIssueUserIds(customer, integrationId, issue, parsedIssue, userIdByDisplayNameCache, userIdByCloudIdCache, isEnableToMaskUser);
-            logInfoIfRelevant(customer, parsedIssue, "customer {}, key {}, parsedIssue created", customer, parsedIssue.getKey());
-        } catch (Exception e) {
-            log.error("failed to parse a jira issue: customer={}, integrationId={}, key={}", customer, integrationId, issue.getKey(), e);
-            log.debug("issue = {}, integrationId = {}, currentTime = {}, parserConfig={}",
-                    issue, integrationId, currentTime, parserConfig);
+        DbJiraIssue parsedIssue = parseJiraIssue(customer, integrationId, issue, currentTime, parserConfig,
+                userIdByDisplayNameCache, userIdByCloudIdCache, isEnableToMaskUser);
+        if (parsedIssue == null) {
             return processingStatusBuilder.build();
         }
 
-        if (snapshottingDisabled) {
-            // when snapshotting is disabled, we will overwrite ingestedAt with a special value
-            // Note: we are not passing that value to JiraIssueParser.parseJiraIssue because it is too large and throws an error during truncation
-            parsedIssue = parsedIssue.toBuilder()
-                    .ingestedAt(DISABLE_SNAPSHOTTING)
-                    .build();
-        }
-
         // -- dedupe and insert
         Optional<DbJiraIssue> oldIssue;
         try {
@@ -212,30 +198,16 @@ public class JiraAggHelperService {
 
         logInfoIfRelevant(customer, parsedIssue, "customer {}, key {}, oldIssue {}", customer, parsedIssue.getKey(), oldIssue);
 
-        boolean todayIssueIsNew = oldIssue.isEmpty();
-        boolean issueIsActuallyNewOrUpdated = todayIssueIsNew || oldIssue.get().getIssueUpdatedAt() < parsedIssue.getIssueUpdatedAt();
-        boolean issueNeedsReprocessing = snapshottingDisabled && isReprocessingNeeded(oldIssue.orElse(null), configVersion);
-
-        boolean shouldInsert = issueIsActuallyNewOrUpdated || issueNeedsReprocessing || reprocessingRequested;
-
+        ProcessingStatus dedupeStatus = dedupeJiraIssue(customer, integrationId, parsedIssue, oldIssue.orElse(null), configVersion, reprocessingRequested);
         processingStatusBuilder
-                .todayIssueIsNew(todayIssueIsNew)
-                .issueIsActuallyNewOrUpdated(issueIsActuallyNewOrUpdated)
-                .issueNeedsReprocessing(issueNeedsReprocessing)
-                .shouldInsert(shouldInsert);
-
-        logInfoIfRelevant(customer, parsedIssue, "customer={}, key={}, issueIsActuallyNewOrUpdated={}, todayIssueIsNew={}, issueNeedsReprocessing={}, shouldInsert={}, reprocessingRequested={}", customer, parsedIssue.getKey(), issueIsActuallyNewOrUpdated, todayIssueIsNew, issueNeedsReprocessing, shouldInsert, reprocessingRequested);
-        if (shouldInsert) {
-            DbJiraIssue.DbJiraIssueBuilder builder = parsedIssue.toBuilder();
-
-            // -- inherit parent labels (if enabled)
-            builder = builder.parentLabels(getInheritedParentLabels(customer, integrationId, parsedIssue));
-
-            // -- set issue's config version to current
-            builder = builder.configVersion(configVersion);
+                .todayIssueIsNew(dedupeStatus.isTodayIssueIsNew())
+                .issueIsActuallyNewOrUpdated(dedupeStatus.isIssueIsActuallyNewOrUpdated())
+                .issueNeedsReprocessing(dedupeStatus.isIssueNeedsReprocessing())
+                .shouldInsert(dedupeStatus.isShouldInsert());
 
+        if (dedupeStatus.isShouldInsert()) {
             // -- upsert issue
-            parsedIssue = builder.build();
+            parsedIssue = prepareJiraIssueForInsert(customer, integrationId, parsedIssue, configVersion);
             try {
                 jiraIssueService.insert(customer, parsedIssue);
                 logInfoIfRelevant(customer, parsedIssue, "customer {}, key {}, inserted parsedIssue", customer, parsedIssue.getKey());
@@ -245,15 +217,264 @@ public class JiraAggHelperService {
             }
         }
 
+        log.debug("customer={}, key={}, issueIsActuallyNewOrUpdated={}, issueNeedsReprocessing={}, shouldInsert={}, reprocessingRequested={}", customer, parsedIssue.getKey(), dedupeStatus.isIssueIsActuallyNewOrUpdated(), dedupeStatus.isIssueNeedsReprocessing(), dedupeStatus.isShouldInsert(), reprocessingRequested);
+        logInfoIfRelevant(customer, parsedIssue, "customer={}, key={}, issueIsActuallyNewOrUpdated={}, issueNeedsReprocessing={}, shouldInsert={}, reprocessingRequested={}", customer, parsedIssue.getKey(), dedupeStatus.isIssueIsActuallyNewOrUpdated(), dedupeStatus.isIssueNeedsReprocessing(), dedupeStatus.isShouldInsert(), reprocessingRequested);
 
-        log.debug("customer={}, key={}, issueIsActuallyNewOrUpdated={}, issueNeedsReprocessing={}, shouldInsert={}, reprocessingRequested={}", customer, parsedIssue.getKey(), issueIsActuallyNewOrUpdated, issueNeedsReprocessing, shouldInsert, reprocessingRequested);
-        logInfoIfRelevant(customer, parsedIssue, "customer={}, key={}, issueIsActuallyNewOrUpdated={}, issueNeedsReprocessing={}, shouldInsert={}, reprocessingRequested={}", customer, parsedIssue.getKey(), issueIsActuallyNewOrUpdated, issueNeedsReprocessing, shouldInsert, reprocessingRequested);
-
-        if (!shouldInsert) {
+        if (!dedupeStatus.isShouldInsert()) {
             // if the issue has not changed, no need to update anything else
             return processingStatusBuilder.success(true).build();
         }
 
+        processSprints(customer, integrationId, issue, parsedIssue, parserConfig, sprintIdCache, dbSprintLoadingCache, statusIdToStatusCategoryCache);
+
+        // -- story points logs
+        for (DbJiraStoryPoints item : ListUtils.emptyIfNull(parsedIssue.getStoryPointsLogs())) {
+            try {
+                storyPointsDatabaseService.upsert(customer, item);
+            } catch (SQLException e) {
+                log.warn("Failed to upsert story points log entry for company={}, issue={}", customer, issue.getKey(), e);
+            }
+        }
+
+        // -- versions
+        // As part of SEI-3577: stop aggregation of jira version from issues data source and do from project data source
+        /*try {
+            DbJiraVersion.fromJiraIssue(issue, integrationId)
+                    .forEach(version -> jiraIssueService.insertJiraVersion(customer, version));
+        } catch (Exception e) {
+            log.warn("Failed to insert versions for Jira issue key={}", parsedIssue.getKey(), e);
+        }*/
+
+        // -- links
+        getJiraIssueLinks(integrationId, issue, parsedIssue).forEach(link ->
+                jiraIssueService.insertJiraLinkedIssueRelation(customer, integrationId, link.getFromIssueKey(), link.getToIssueKey(), link.getRelation()));
+
+        // -- populate children's "parent labels"
+        bequeathLabelsToChildren(customer, integrationId, parsedIssue);
+
+        // -- events, automation rules
+        // only if issue is actually new or updated (i.e. for this ingested_at cycle) to avoid double events when retrying
+        if (dedupeStatus.isIssueIsActuallyNewOrUpdated()) {
+            processingStatusBuilder.eventSent(sendJiraIssueEvent(customer, integrationId, jobDTO, issue, parsedIssue, productIds, dedupeStatus.isTodayIssueIsNew()));
+        }
+
+        return processingStatusBuilder.success(true).build();
+    }
+
+    /**
+     * Batch version of processJiraIssue(): the issues are parsed and deduped one by one, but the lookup of
+     * existing issues and the writes of issue rows, story points and links are done with one statement (or JDBC batch) for the whole list.
+     * Sprints, sprint history and events are still handled per issue.
+     *
+     * @return processing status of each issue, in the same order as the input
+     */
+    public List<ProcessingStatus> processJiraIssues(String customer,
+                                                    String integrationId,
+                                                    JobDTO jobDTO,
+                                                    List<JiraIssue> issues,
+                                                    Date currentTime,
+                                                    JiraParserConfig parserConfig,
+                                                    Long configVersion,
+                                                    boolean reprocessingRequested,
+                                                    List<String> productIds,
+                                                    Map<Integer, Long> sprintIdCache,
+                                                    LoadingCache<String, Optional<DbJiraSprint>> dbSprintLoadingCache,
+                                                    LoadingCache<String, Optional<String>> statusIdToStatusCategoryCache,
+                                                    LoadingCache<String, Optional<String>> userIdByDisplayNameCache,
+                                                    LoadingCache<String, Optional<String>> userIdByCloudIdCache,
+                                                    Boolean isEnableToMaskUser) {
+        List<ProcessingStatus> statuses = new ArrayList<>(Collections.nCopies(issues.size(), ProcessingStatus.builder().success(false).build()));
+
+        // -- parse issues
+        List<DbJiraIssue> parsedIssues = new ArrayList<>(issues.size());
+        for (JiraIssue issue : issues) {
+            parsedIssues.add(parseJiraIssue(customer, integrationId, issue, currentTime, parserConfig,
+                    userIdByDisplayNameCache, userIdByCloudIdCache, isEnableToMaskUser));
+        }
+
+        // -- fetch old issues (all parsed issues of a batch normally share the same ingested_at)
+        Map<Pair<String, Long>, DbJiraIssue> oldIssues = new HashMap<>();
+        Map<Long, List<String>> keysByIngestedAt = parsedIssues.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(DbJiraIssue::getIngestedAt, Collectors.mapping(DbJiraIssue::getKey, Collectors.toList())));
+        try {
+            for (Map.Entry<Long, List<String>> entry : keysByIngestedAt.entrySet()) {
+                jiraIssueService.getByKeys(customer, entry.getValue(), integrationId, entry.getKey())
+                        .forEach(oldIssue -> oldIssues.put(Pair.of(oldIssue.getKey(), oldIssue.getIngestedAt()), oldIssue));
+            }
+        } catch (Exception e) {
+            log.warn("Error getting old issues from db for customer={}, integrationId={}, batch size={}: processing issues one by one", customer, integrationId, issues.size(), e);
+            return issues.stream()
+                    .map(issue -> processJiraIssue(customer, integrationId, jobDTO, issue, currentTime, parserConfig, configVersion, reprocessingRequested,
+                            productIds, sprintIdCache, dbSprintLoadingCache, statusIdToStatusCategoryCache, userIdByDisplayNameCache, userIdByCloudIdCache, isEnableToMaskUser))
+                    .collect(Collectors.toList());
+        }
+
+        // -- dedupe
+        List<Integer> indicesToInsert = new ArrayList<>();
+        for (int i = 0; i < parsedIssues.size(); i++) {
+            DbJiraIssue parsedIssue = parsedIssues.get(i);
+            if (parsedIssue == null) {
+                continue;
+            }
+            DbJiraIssue oldIssue = oldIssues.get(Pair.of(parsedIssue.getKey(), parsedIssue.getIngestedAt()));
+            logInfoIfRelevant(customer, parsedIssue, "customer {}, key {}, oldIssue {}", customer, parsedIssue.getKey(), oldIssue);
+            ProcessingStatus dedupeStatus = dedupeJiraIssue(customer, integrationId, parsedIssue, oldIssue, configVersion, reprocessingRequested);
+            if (dedupeStatus.isShouldInsert()) {
+                parsedIssues.set(i, prepareJiraIssueForInsert(customer, integrationId, parsedIssue, configVersion));
+                indicesToInsert.add(i);
+                statuses.set(i, dedupeStatus);
+            } else {
+                // if the issue has not changed, no need to update anything else
+                statuses.set(i, dedupeStatus.toBuilder().success(true).build());
+            }
+        }
+        if (indicesToInsert.isEmpty()) {
+            return statuses;
+        }
+
+        // -- upsert issues
+        try {
+            jiraIssueService.batchInsert(customer, indicesToInsert.stream()
+                    .map(parsedIssues::get)
+                    .collect(Collectors.toList()));
+        } catch (Exception e) {
+            // isolate the issues that cannot be written
+            log.warn("Error upserting batch of issues for customer={}, integrationId={}, batch size={}: upserting them one by one", customer, integrationId, indicesToInsert.size(), e);
+            indicesToInsert.removeIf(i -> {
+                try {
+                    jiraIssueService.insert(customer, parsedIssues.get(i));
+                    return false;
+                } catch (Exception e1) {
+                    log.warn("Error upserting issue with key={}", parsedIssues.get(i).getKey(), e1);
+                    return true;
+                }
+            });
+            if (indicesToInsert.isEmpty()) {
+                return statuses;
+            }
+        }
+
+        // -- sprints
+        for (int i : indicesToInsert) {
+            processSprints(customer, integrationId, issues.get(i), parsedIssues.get(i), parserConfig, sprintIdCache, dbSprintLoadingCache, statusIdToStatusCategoryCache);
+        }
+
+        // -- story points logs
+        try {
+            storyPointsDatabaseService.batchUpsert(customer, indicesToInsert.stream()
+                    .flatMap(i -> ListUtils.emptyIfNull(parsedIssues.get(i).getStoryPointsLogs()).stream())
+                    .collect(Collectors.toList()));
+        } catch (Exception e) {
+            log.warn("Failed to upsert story points log entries for company={}, batch size={}", customer, indicesToInsert.size(), e);
+        }
+
+        // -- links
+        try {
+            jiraIssueService.batchInsertJiraLinkedIssueRelations(customer, indicesToInsert.stream()
+                    .flatMap(i -> getJiraIssueLinks(integrationId, issues.get(i), parsedIssues.get(i)).stream())
+                    .collect(Collectors.toList()));
+        } catch (Exception e) {
+            log.warn("Failed to insert issue links for company={}, batch size={}", customer, indicesToInsert.size(), e);
+        }
+
+        for (int i : indicesToInsert) {
+            DbJiraIssue parsedIssue = parsedIssues.get(i);
+            ProcessingStatus status = statuses.get(i);
+
+            // -- populate children's "parent labels"
+            bequeathLabelsToChildren(customer, integrationId, parsedIssue);
+
+            // -- events, automation rules
+            boolean eventSent = false;
+            if (status.isIssueIsActuallyNewOrUpdated()) {
+                eventSent = sendJiraIssueEvent(customer, integrationId, jobDTO, issues.get(i), parsedIssue, productIds, status.isTodayIssueIsNew());
+            }
+            statuses.set(i, status.toBuilder()
+                    .eventSent(eventSent)
+                    .success(true)
+                    .build());
+        }
+        return statuses;
+    }
+
+    /**
+     * @return the parsed issue, or null if it could not be parsed
+     */
+    @Nullable
+    private DbJiraIssue parseJiraIssue(String customer,
+                                       String integrationId,
+                                       JiraIssue issue,
+                                       Date currentTime,
+                                       JiraParserConfig parserConfig,
+                                       LoadingCache<String, Optional<String>> userIdByDisplayNameCache,
+                                       LoadingCache<String, Optional<String>> userIdByCloudIdCache,
+                                       Boolean isEnableToMaskUser) {
+        DbJiraIssue parsedIssue;
+        try {
+            parsedIssue = JiraIssueParser.parseJiraIssue(issue, integrationId, currentTime, parserConfig);
+            parsedIssue = populateDbJiraIssueUserIds(customer, integrationId, issue, parsedIssue, userIdByDisplayNameCache, userIdByCloudIdCache, isEnableToMaskUser);
+            logInfoIfRelevant(customer, parsedIssue, "customer {}, key {}, parsedIssue created", customer, parsedIssue.getKey());
+        } catch (Exception e) {
+            log.error("failed to parse a jira issue: customer={}, integrationId={}, key={}", customer, integrationId, issue.getKey(), e);
+            log.debug("issue = {}, integrationId = {}, currentTime = {}, parserConfig={}",
+                    issue, integrationId, currentTime, parserConfig);
+            return null;
+        }
+
+        if (!snapshottingSettings.isSnapshottingEnabled(customer, integrationId)) {
+            // when snapshotting is disabled, we will overwrite ingestedAt with a special value
+            // Note: we are not passing that value to JiraIssueParser.parseJiraIssue because it is too large and throws an error during truncation
+            parsedIssue = parsedIssue.toBuilder()
+                    .ingestedAt(DISABLE_SNAPSHOTTING)
+                    .build();
+        }
+        return parsedIssue;
+    }
+
+    /**
+     * Compares the parsed issue with what is already in the db to decide if it needs to be inserted.
+     * The returned status is not marked as successful.
+     */
+    private ProcessingStatus dedupeJiraIssue(String customer, String integrationId, DbJiraIssue parsedIssue, @Nullable DbJiraIssue oldIssue,
+                                             Long configVersion, boolean reprocessingRequested) {
+        boolean snapshottingDisabled = !snapshottingSettings.isSnapshottingEnabled(customer, integrationId);
+        boolean todayIssueIsNew = oldIssue == null;
+        boolean issueIsActuallyNewOrUpdated = todayIssueIsNew || oldIssue.getIssueUpdatedAt() < parsedIssue.getIssueUpdatedAt();
+        boolean issueNeedsReprocessing = snapshottingDisabled && isReprocessingNeeded(oldIssue, configVersion);
+
+        boolean shouldInsert = issueIsActuallyNewOrUpdated || issueNeedsReprocessing || reprocessingRequested;
+
+        logInfoIfRelevant(customer, parsedIssue, "customer={}, key={}, issueIsActuallyNewOrUpdated={}, todayIssueIsNew={}, issueNeedsReprocessing={}, shouldInsert={}, reprocessingRequested={}", customer, parsedIssue.getKey(), issueIsActuallyNewOrUpdated, todayIssueIsNew, issueNeedsReprocessing, shouldInsert, reprocessingRequested);
+        return ProcessingStatus.builder()
+                .success(false)
+                .todayIssueIsNew(todayIssueIsNew)
+                .issueIsActuallyNewOrUpdated(issueIsActuallyNewOrUpdated)
+                .issueNeedsReprocessing(issueNeedsReprocessing)
+                .shouldInsert(shouldInsert)
+                .build();
+    }
+
+    private DbJiraIssue prepareJiraIssueForInsert(String customer, String integrationId, DbJiraIssue parsedIssue, Long configVersion) {
+        DbJiraIssue.DbJiraIssueBuilder builder = parsedIssue.toBuilder();
+
+        // -- inherit parent labels (if enabled)
+        builder = builder.parentLabels(getInheritedParentLabels(customer, integrationId, parsedIssue));
+
+        // -- set issue's config version to current
+        builder = builder.configVersion(configVersion);
+
+        return builder.build();
+    }
+
+    private void processSprints(String customer,
+                                String integrationId,
+                                JiraIssue issue,
+                                DbJiraIssue parsedIssue,
+                                JiraParserConfig parserConfig,
+                                Map<Integer, Long> sprintIdCache,
+                                LoadingCache<String, Optional<DbJiraSprint>> dbSprintLoadingCache,
+                                LoadingCache<String, Optional<String>> statusIdToStatusCategoryCache) {
         if (DUPLICATE_STATUS_OVERLAP_TENANTS.contains(customer)) {
             log.info("customer {},  Check statuses overlap for issue {}", customer, parsedIssue.getKey());
             if (jiraIssueService.doIssueStatusOverlap(customer, parsedIssue)) {
@@ -294,65 +515,60 @@ public class JiraAggHelperService {
         logInfoIfRelevant(customer, parsedIssue, "customer {}, key {}, issueSprintMappings size {}", customer, parsedIssue.getKey(), sprintMappingEvents.getIssueSprintMappings().size());
         handleSprintMappings(customer, parsedIssue, sprintMappingEvents, dbSprintLoadingCache, statusIdToStatusCategoryCache);
         logInfoIfRelevant(customer, parsedIssue, "customer {}, key {}, handleSprintMappings complete", customer, parsedIssue.getKey());
+    }
 
-        // -- story points logs
-        for (DbJiraStoryPoints item : ListUtils.emptyIfNull(parsedIssue.getStoryPointsLogs())) {
-            try {
-                storyPointsDatabaseService.upsert(customer, item);
-            } catch (SQLException e) {
-                log.warn("Failed to upsert story points log entry for company={}, issue={}", customer, issue.getKey(), e);
-            }
-        }
-
-        // -- versions
-        // As part of SEI-3577: stop aggregation of jira version from issues data source and do from project data source
-        /*try {
-            DbJiraVersion.fromJiraIssue(issue, integrationId)
-                    .forEach(version -> jiraIssueService.insertJiraVersion(customer, version));
-        } catch (Exception e) {
-            log.warn("Failed to insert versions for Jira issue key={}", parsedIssue.getKey(), e);
-        }*/
-
-        // -- links
-        if (CollectionUtils.isNotEmpty(issue.getFields().getIssueLinks())) {
-            DbJiraIssue finalParsedIssue = parsedIssue;
-            issue.getFields().getIssueLinks().forEach(jiraIssueLink -> {
-                if (ObjectUtils.isNotEmpty(jiraIssueLink.getOutwardIssue())) {
-                    jiraIssueService.insertJiraLinkedIssueRelation(customer, integrationId, finalParsedIssue.getKey(), jiraIssueLink.getOutwardIssue().getKey(), jiraIssueLink.getType().getOutward());
-                } else if (ObjectUtils.isNotEmpty(jiraIssueLink.getInwardIssue())) {
-                    jiraIssueService.insertJiraLinkedIssueRelation(customer, integrationId, finalParsedIssue.getKey(), jiraIssueLink.getInwardIssue().getKey(), jiraIssueLink.getType().getInward());
-                }
-            });
+    private List<DbJiraLink> getJiraIssueLinks(String integrationId, JiraIssue issue, DbJiraIssue parsedIssue) {
+        if (CollectionUtils.isEmpty(issue.getFields().getIssueLinks())) {
+            return List.of();
         }
+        List<DbJiraLink> links = new ArrayList<>();
+        issue.getFields().getIssueLinks().forEach(jiraIssueLink -> {
+            if (ObjectUtils.isNotEmpty(jiraIssueLink.getOutwardIssue())) {
+                links.add(DbJiraLink.builder()
+                        .integrationId(NumberUtils.toInteger(integrationId, null))
+                        .fromIssueKey(parsedIssue.getKey())
+                        .toIssueKey(jiraIssueLink.getOutwardIssue().getKey())
+                        .relation(jiraIssueLink.getType().getOutward())
+                        .build());
+            } else if (ObjectUtils.isNotEmpty(jiraIssueLink.getInwardIssue())) {
+                links.add(DbJiraLink.builder()
+                        .integrationId(NumberUtils.toInteger(integrationId, null))
+                        .fromIssueKey(parsedIssue.getKey())
+                        .toIssueKey(jiraIssueLink.getInwardIssue().getKey())
+                        .relation(jiraIssueLink.getType().getInward())
+                        .build());
+            }
+        });
+        return links;
+    }
 
-        // -- populate children's "parent labels"
-        bequeathLabelsToChildren(customer, integrationId, parsedIssue);
-
-        // -- events, automation rules
-        // only if issue is actually new or updated (i.e. for this ingested_at cycle) to avoid double events when retrying
-        if (issueIsActuallyNewOrUpdated) {
-            JiraIterativeScanQuery query = mapper.convertValue(jobDTO.getQuery(), JiraIterativeScanQuery.class);
-            EventType eventType = null;
-            Map<String, Object> eventData = null;
-            try {
-                // build event
-                Set<String> customFields = getJiraCustomFieldsConfig(customer, integrationId);
-                eventData = convertIssueToEventData(integrationId, productIds, customFields, Collections.emptyList(), issue);
-                // call automation rule engine
-                automationRulesEngine.scanWithRules(customer, ObjectType.JIRA_ISSUE, issue.getKey(), eventData);
-                // determine event type
-                eventType = determineEventType(customer, integrationId, parsedIssue.getKey(), query, jobDTO.getTags(), todayIssueIsNew);
-                log.debug("Jira issue: determining event type for tenant={}, itId={}, key={}, createdAt={}, from={}, bw={} -> {}", customer, integrationId, parsedIssue.getKey(), issue.getFields().getCreated(), query.getFrom(), SetUtils.emptyIfNull(jobDTO.getTags()).contains(JobTags.BACKWARD_SCAN_TAG), eventType);
-                if (eventType != null) {
-                    eventsClient.emitEvent(customer, eventType, eventData);
-                    processingStatusBuilder.eventSent(true);
-                }
-            } catch (InventoryException | EventsClientException e) {
-                log.error("Error sending event for tenant={}, eventType={}, eventData={}", customer, eventType, eventData, e);
+    /**
+     * Runs automation rules and emits the jira issue event (if any).
+     *
+     * @return true if an event was sent
+     */
+    private boolean sendJiraIssueEvent(String customer, String integrationId, JobDTO jobDTO, JiraIssue issue, DbJiraIssue parsedIssue,
+                                       List<String> productIds, boolean todayIssueIsNew) {
+        JiraIterativeScanQuery query = mapper.convertValue(jobDTO.getQuery(), JiraIterativeScanQuery.class);
+        EventType eventType = null;
+        Map<String, Object> eventData = null;
+        try {
+            // build event
+            Set<String> customFields = getJiraCustomFieldsConfig(customer, integrationId);
+            eventData = convertIssueToEventData(integrationId, productIds, customFields, Collections.emptyList(), issue);
+            // call automation rule engine
+            automationRulesEngine.scanWithRules(customer, ObjectType.JIRA_ISSUE, issue.getKey(), eventData);
+            // determine event type
+            eventType = determineEventType(customer, integrationId, parsedIssue.getKey(), query, jobDTO.getTags(), todayIssueIsNew);
+            log.debug("Jira issue: determining event type for tenant={}, itId={}, key={}, createdAt={}, from={}, bw={} -> {}", customer, integrationId, parsedIssue.getKey(), issue.getFields().getCreated(), query.getFrom(), SetUtils.emptyIfNull(jobDTO.getTags()).contains(JobTags.BACKWARD_SCAN_TAG), eventType);
+            if (eventType != null) {
+                eventsClient.emitEvent(customer, eventType, eventData);
+                return true;
             }
+        } catch (InventoryException | EventsClientException e) {
+            log.error("Error sending event for tenant={}, eventType={}, eventData={}", customer, eventType, eventData, e);
         }
-
-        return processingStatusBuilder.success(true).build();
+        return false;
     }
 
     /**
@@ -375,6 +375,48 @@ public class JobInstanceDatabaseServiceTest {
                 .build());
     }
 
+    @Test
+    public void testUpdateHeartbeats() {
+        var insertedInstances = insert(List.of(
+                createInstance(DbJobInstance.builder().jobDefinitionId(jobDefinitionId).build()),
+                createInstance(DbJobInstance.builder().jobDefinitionId(jobDefinitionId).build()),
+                createInstance(DbJobInstance.builder().jobDefinitionId(jobDefinitionId).build())
+        ));
+        Instant heartbeat = Instant.now().plus(1, ChronoUnit.HOURS).truncatedTo(ChronoUnit.SECONDS);
+        List<JobInstanceId> ids = List.of(insertedInstances.get(0).getJobInstanceId(), insertedInstances.get(2).getJobInstanceId());
+
+        assertThat(jobInstanceDatabaseService.updateHeartbeats(List.of(), heartbeat)).isEqualTo(0);
+        assertThat(jobInstanceDatabaseService.updateHeartbeats(ids, heartbeat)).isEqualTo(2);
+        ids.forEach(id -> assertThat(jobInstanceDatabaseService.get(id).orElseThrow().getLastHeartbeat()).isEqualTo(heartbeat));
+        assertThat(jobInstanceDatabaseService.get(insertedInstances.get(1).getJobInstanceId()).orElseThrow().getLastHeartbeat())
+                .isNotEqualTo(heartbeat);
+    }
+
+    @Test
+    public void testCountInFlightAndRetryableByJobDefinition() throws JsonProcessingException {
+        UUID otherDefinitionId = jobDefinitionDatabaseService.insert(createJobDefinition(null, null, null, null, null));
+        insert(List.of(
+                createInstance(DbJobInstance.builder().jobDefinitionId(jobDefinitionId).status(JobStatus.SCHEDULED).build()),
+                createInstance(DbJobInstance.builder().jobDefinitionId(jobDefinitionId).status(JobStatus.PENDING).build()),
+                createInstance(DbJobInstance.builder().jobDefinitionId(jobDefinitionId).status(JobStatus.FAILURE).attemptCount(1).attemptMax(3).build()),
+                createInstance(DbJobInstance.builder().jobDefinitionId(jobDefinitionId).status(JobStatus.SUCCESS).build()),
+                createInstance(DbJobInstance.builder().jobDefinitionId(otherDefinitionId).status(JobStatus.FAILURE).attemptCount(3).attemptMax(3).build()),
+                createInstance(DbJobInstance.builder().jobDefinitionId(otherDefinitionId).status(JobStatus.FAILURE).attemptCount(0).attemptMax(3).build())
+        ));
+
+        var counts = jobInstanceDatabaseService.countInFlightAndRetryableByJobDefinition(
+                List.of(JobStatus.SCHEDULED, JobStatus.ACCEPTED, JobStatus.PENDING));
+        assertThat(counts).containsOnlyKeys(jobDefinitionId, otherDefinitionId);
+        assertThat(counts.get(jobDefinitionId).getInFlight()).isEqualTo(2);
+        assertThat(counts.get(jobDefinitionId).getRetryable()).isEqualTo(1);
+        assertThat(counts.get(otherDefinitionId).getInFlight()).isEqualTo(0);
+        assertThat(counts.get(otherDefinitionId).getRetryable()).isEqualTo(1);
+
+        assertThat(jobInstanceDatabaseService.countInFlightAndRetryableByJobDefinition(List.of(JobStatus.ACCEPTED)))
+                .containsOnlyKeys(jobDefinitionId, otherDefinitionId)
+                .allSatisfy((id, c) -> assertThat(c.getInFlight()).isEqualTo(0));
+    }
+
     @Test
     public void testUpdateConditions() throws JsonProcessingException {
         var insertedInstances = insert(List.of(
@@ -646,4 +688,40 @@ public class JobInstanceDatabaseServiceTest {
         assertThat(dbJobDefinition.getMetadata()).containsExactlyInAnyOrderEntriesOf(Map.of("a", "b", "c", "d"));
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testClaimScheduledJobs() throws JsonProcessingException {
+        UUID tenantA = jobDefinitionDatabaseService.insert(createJobDefinition(null, "tenantA", null, null, null));
+        UUID tenantB = jobDefinitionDatabaseService.insert(createJobDefinition(null, "tenantB", null, null, null));
+        Instant now = Instant.now();
+        Instant t0 = now.minus(3, ChronoUnit.HOURS);
+        Instant t1 = now.minus(2, ChronoUnit.HOURS);
+        Instant t2 = now.minus(1, ChronoUnit.HOURS);
+        var inserted = insert(List.of(
+                createInstance(DbJobInstance.builder().jobDefinitionId(tenantA).status(JobStatus.SCHEDULED).scheduledStartTime(t0).build()),
+                createInstance(DbJobInstance.builder().jobDefinitionId(tenantA).status(JobStatus.SCHEDULED).scheduledStartTime(t1).build()),
+                createInstance(DbJobInstance.builder().jobDefinitionId(tenantA).status(JobStatus.SCHEDULED).scheduledStartTime(t2).build()),
+                createInstance(DbJobInstance.builder().jobDefinitionId(tenantB).status(JobStatus.SCHEDULED).scheduledStartTime(t2).build()),
+                createInstance(DbJobInstance.builder().jobDefinitionId(tenantB).status(JobStatus.SCHEDULED).scheduledStartTime(t0).priority(JobPriority.LOW).build()),
+                // not claimable: scheduled in the future, or not scheduled
+                createInstance(DbJobInstance.builder().jobDefinitionId(tenantB).status(JobStatus.SCHEDULED).scheduledStartTime(now.plus(1, ChronoUnit.HOURS)).build()),
+                createInstance(DbJobInstance.builder().jobDefinitionId(tenantB).status(JobStatus.PENDING).scheduledStartTime(t0).build())));
+        List<JobInstanceId> ids = inserted.stream().map(DbJobInstance::getJobInstanceId).collect(Collectors.toList());
+
+        assertThat(jobInstanceDatabaseService.claimScheduledJobs("worker1", 10, List.of("unknown"), now)).isEmpty();
+
+        // high priority first, and tenant B gets a turn before tenant A gets its second job
+        assertThat(jobInstanceDatabaseService.claimScheduledJobs("worker1", 2, List.of("jira"), now))
+                .containsExactly(ids.get(0), ids.get(3));
+        assertThat(jobInstanceDatabaseService.claimScheduledJobs("worker2", 10, null, now))
+                .containsExactly(ids.get(1), ids.get(2), ids.get(4));
+        assertThat(jobInstanceDatabaseService.claimScheduledJobs("worker3", 10, null, now)).isEmpty();
+
+        DbJobInstance claimed = jobInstanceDatabaseService.get(ids.get(3)).orElseThrow();
+        assertThat(claimed.getStatus()).isEqualTo(JobStatus.ACCEPTED);
+        assertThat(claimed.getWorkerId()).isEqualTo("worker1");
+        assertThat(jobInstanceDatabaseService.get(ids.get(4)).orElseThrow().getWorkerId()).isEqualTo("worker2");
+        assertThat(jobInstanceDatabaseService.get(ids.get(5)).orElseThrow().getStatus()).isEqualTo(JobStatus.SCHEDULED);
+        assertThat(jobInstanceDatabaseService.get(ids.get(6)).orElseThrow().getStatus()).isEqualTo(JobStatus.PENDING);
+    }
+}
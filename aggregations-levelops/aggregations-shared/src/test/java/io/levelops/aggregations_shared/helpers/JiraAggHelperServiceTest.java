@@ -52,6 +52,7 @@ import static io.levelops.commons.databases.services.JiraIssueSprintMappingDatab
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.never;
@@ -211,6 +212,72 @@ public class JiraAggHelperServiceTest {
 
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void processJiraIssues() throws IOException, ExecutionException, SQLException {
+        // -- mock
+        JiraIssue issue1 = ResourceUtils.getResourceAsObject("jira/jira_issue.json", JiraIssue.class);
+        JiraIssue issue2 = issue1.toBuilder().key("LEV-124").build();
+        JiraIssue issue3 = issue1.toBuilder().key("LEV-125").build();
+        long issueUpdatedAt = issue1.getFields().getUpdated().getTime() / 1000;
+        JiraIssueParser.JiraParserConfig parserConfig = JiraIssueParser.JiraParserConfig.builder().build();
+        JobDTO jobDTO = JobDTO.builder().query(Map.of("from", 123, "to", 456)).build();
+
+        LoadingCache<String, Optional<String>> emptyCache = Mockito.mock(LoadingCache.class);
+        when(emptyCache.get(anyString())).thenReturn(Optional.empty());
+        when(jiraIssueService.list(anyString(), any(), any(), any(), any(), any(), any())).thenReturn(DbListResponse.of(List.of(), 0));
+
+        long currentConfigVersion = 123L;
+        Date fetchTime = new Date(1000L);
+
+        // LEV-123 is new, LEV-124 is out of date in the db, LEV-125 is up-to-date in the db
+        when(jiraIssueService.getByKeys(eq("test"), eq(List.of("LEV-123", "LEV-124", "LEV-125")), eq("1"), any())).thenAnswer(ans -> List.of(
+                DbJiraIssue.builder().key("LEV-124").ingestedAt(ans.getArgument(3)).issueUpdatedAt(issueUpdatedAt - 10).build(),
+                DbJiraIssue.builder().key("LEV-125").ingestedAt(ans.getArgument(3)).issueUpdatedAt(issueUpdatedAt + 10).build()));
+
+        List<ProcessingStatus> output = jiraAggHelperService.processJiraIssues("test", "1", jobDTO, List.of(issue1, issue2, issue3), fetchTime, parserConfig, currentConfigVersion, false, null, null, null, emptyCache, emptyCache, emptyCache, null);
+        assertThat(output).hasSize(3);
+        assertThat(output).allMatch(ProcessingStatus::isSuccess);
+        assertThat(output.get(0).isShouldInsert()).isTrue();
+        assertThat(output.get(0).isTodayIssueIsNew()).isTrue();
+        assertThat(output.get(1).isShouldInsert()).isTrue();
+        assertThat(output.get(1).isTodayIssueIsNew()).isFalse();
+        assertThat(output.get(2).isShouldInsert()).isFalse();
+
+        // only 1 lookup and 1 write for the whole batch
+        verify(jiraIssueService, times(1)).getByKeys(eq("test"), any(), eq("1"), any());
+        verify(jiraIssueService, never()).get(anyString(), anyString(), anyString(), any());
+        verify(jiraIssueService, never()).insert(anyString(), any());
+        ArgumentCaptor<List<DbJiraIssue>> issuesArgCaptor = ArgumentCaptor.forClass(List.class);
+        verify(jiraIssueService, times(1)).batchInsert(eq("test"), issuesArgCaptor.capture());
+        assertThat(issuesArgCaptor.getValue()).extracting(DbJiraIssue::getKey).containsExactly("LEV-123", "LEV-124");
+        assertThat(issuesArgCaptor.getValue()).extracting(DbJiraIssue::getConfigVersion).containsOnly(currentConfigVersion);
+        verify(storyPointsDatabaseService, times(1)).batchUpsert(eq("test"), any());
+        verify(storyPointsDatabaseService, never()).upsert(anyString(), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void processJiraIssuesWithFailedBatchInsert() throws IOException, ExecutionException, SQLException {
+        JiraIssue issue1 = ResourceUtils.getResourceAsObject("jira/jira_issue.json", JiraIssue.class);
+        JiraIssue issue2 = issue1.toBuilder().key("LEV-124").build();
+        JiraIssueParser.JiraParserConfig parserConfig = JiraIssueParser.JiraParserConfig.builder().build();
+        JobDTO jobDTO = JobDTO.builder().query(Map.of("from", 123, "to", 456)).build();
+        LoadingCache<String, Optional<String>> emptyCache = Mockito.mock(LoadingCache.class);
+        when(emptyCache.get(anyString())).thenReturn(Optional.empty());
+        when(jiraIssueService.list(anyString(), any(), any(), any(), any(), any(), any())).thenReturn(DbListResponse.of(List.of(), 0));
+        when(jiraIssueService.getByKeys(eq("test"), any(), eq("1"), any())).thenReturn(List.of());
+
+        // the batch fails because of LEV-124: LEV-123 is still written
+        when(jiraIssueService.batchInsert(eq("test"), any())).thenThrow(new RuntimeException("bad row"));
+        when(jiraIssueService.insert(eq("test"), argThat(issue -> issue != null && "LEV-124".equals(issue.getKey())))).thenThrow(new SQLException("bad row"));
+
+        List<ProcessingStatus> output = jiraAggHelperService.processJiraIssues("test", "1", jobDTO, List.of(issue1, issue2), new Date(1000L), parserConfig, 123L, false, null, null, null, emptyCache, emptyCache, emptyCache, null);
+        assertThat(output).extracting(ProcessingStatus::isSuccess).containsExactly(true, false);
+        verify(jiraIssueService, times(2)).insert(eq("test"), any());
+        verify(storyPointsDatabaseService, times(1)).batchUpsert(eq("test"), any());
+    }
+
     @Test
     public void testProcessJiraIssueToVerifyAddAndRemoveEventTogether() throws IOException, ExecutionException, InventoryException, SQLException {
         // configuration
@@ -23,6 +23,8 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -138,6 +140,39 @@ public class SchedulingController {
         }
     }
 
+    /**
+     * Claims up to {@code limit} scheduled jobs for the worker in one atomic step, so that concurrent workers
+     * never compete for the same job. See {@link JobInstanceDatabaseService#claimScheduledJobs}.
+     *
+     * @param aggProcessorNames processors the worker can run; if omitted, jobs of any processor may be claimed
+     */
+    @PostMapping("/claim_jobs")
+    public ListResponse<JobContext> claimJobs(@RequestParam("worker_id") String workerId,
+                                              @RequestParam(value = "limit", defaultValue = "10") Integer limit,
+                                              @RequestBody(required = false) List<String> aggProcessorNames) {
+        List<JobInstanceId> claimedIds = jobInstanceDatabaseService.claimScheduledJobs(workerId, limit, aggProcessorNames, Instant.now());
+        if (claimedIds.isEmpty()) {
+            return ListResponse.of(List.of());
+        }
+        Map<JobInstanceId, DbJobInstance> jobInstanceMap = jobInstanceDatabaseService.stream(DbJobInstanceFilter.builder()
+                        .jobInstanceIds(claimedIds)
+                        .excludePayload(true)
+                        .build())
+                .collect(Collectors.toMap(DbJobInstance::getJobInstanceId, Function.identity()));
+        Map<UUID, DbJobDefinition> jobDefinitionMap = jobDefinitionDatabaseService.stream(DbJobDefinitionFilter.builder()
+                        .ids(claimedIds.stream().map(JobInstanceId::getJobDefinitionId).distinct().collect(Collectors.toList()))
+                        .build())
+                .collect(Collectors.toMap(DbJobDefinition::getId, Function.identity()));
+
+        List<JobContext> jobContexts = claimedIds.stream()
+                .map(jobInstanceMap::get)
+                .filter(Objects::nonNull)
+                .map(jobInstance -> SchedulingUtils.getJobContext(jobDefinitionMap.get(jobInstance.getJobDefinitionId()), jobInstance))
+                .collect(Collectors.toList());
+        log.info("Worker {} claimed {} jobs (limit={})", workerId, jobContexts.size(), limit);
+        return ListResponse.of(jobContexts);
+    }
+
     @PatchMapping("/unclaim_job")
     public void unclaimJob(@RequestParam("job_instance_id") String jobInstanceIdStr,
                            @RequestParam("worker_id") String workerId) throws JsonProcessingException, InvalidJobInstanceIdException {
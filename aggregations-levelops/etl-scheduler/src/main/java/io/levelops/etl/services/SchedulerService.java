@@ -2,15 +2,13 @@ package io.levelops.etl.services;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.annotations.VisibleForTesting;
-import com.google.common.collect.Iterables;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.levelops.aggregations_shared.database.JobDefinitionDatabaseService;
 import io.levelops.aggregations_shared.database.JobInstanceDatabaseService;
 import io.levelops.aggregations_shared.database.models.DbJobDefinition;
 import io.levelops.aggregations_shared.database.models.DbJobDefinitionFilter;
-import io.levelops.aggregations_shared.database.models.DbJobInstanceFilter;
+import io.levelops.aggregations_shared.database.models.DbJobInstanceCounts;
 import io.levelops.aggregations_shared.utils.MetricUtils;
-import io.levelops.commons.etl.models.DbJobInstance;
 import io.levelops.commons.etl.models.JobInstanceId;
 import io.levelops.commons.etl.models.JobStatus;
 import io.levelops.etl.parameter_suppliers.JobDefinitionParameterSupplierRegistry;
@@ -28,8 +26,9 @@ import org.springframework.stereotype.Service;
 import java.io.IOException;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
+import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -49,6 +48,8 @@ import java.util.concurrent.TimeUnit;
 @Service
 public class SchedulerService {
     private static final int JOB_SCHEDULER_EXECUTOR_THREADS = 10;
+    // Not including unassigned jobs here may have to revisit
+    private static final List<JobStatus> IN_FLIGHT_STATUSES = List.of(JobStatus.SCHEDULED, JobStatus.ACCEPTED, JobStatus.PENDING);
 
     private final JobInstanceDatabaseService jobInstanceDatabaseService;
     private final JobDefinitionDatabaseService jobDefinitionDatabaseService;
@@ -118,6 +119,8 @@ public class SchedulerService {
         MutableLong total = new MutableLong(0);
         MutableLong schedulableCount = new MutableLong(0);
         MutableLong backPressureCount = new MutableLong(0);
+        // one grouped query per tick instead of two counts per schedulable job definition
+        Map<UUID, DbJobInstanceCounts> jobInstanceCounts = jobInstanceDatabaseService.countInFlightAndRetryableByJobDefinition(IN_FLIGHT_STATUSES);
         List<Future<JobInstanceId>> futures = jobDefinitionDatabaseService.stream(
                         DbJobDefinitionFilter.builder().isActive(true).build())
                 .peek(jobDefinition -> {
@@ -133,7 +136,7 @@ public class SchedulerService {
                 })
                 .filter(jobDefinition -> {
                     try {
-                        if (isJobDefinitionBackPressured(jobDefinition)) {
+                        if (isJobDefinitionBackPressured(jobDefinition, jobInstanceCounts)) {
                             log.debug("Job Definition has backpressure, not scheduling more instances: {} {} {}",
                                     jobDefinition.getId(), jobDefinition.getTenantId(), jobDefinition.getIntegrationId());
                             backPressureCount.increment();
@@ -175,15 +178,6 @@ public class SchedulerService {
         }
     }
 
-    private Optional<DbJobInstance> getLastFullJobInstance(DbJobDefinition jobDefinition) {
-        return Optional.ofNullable(
-                Iterables.get(
-                        jobInstanceDatabaseService.filter(0, 1, DbJobInstanceFilter.builder()
-                                .jobDefinitionIds(List.of(jobDefinition.getId()))
-                                .isFull(true)
-                                .build()).getRecords(), 0, null));
-    }
-
     private Future<JobInstanceId> scheduleJobDefinitionInThreadpool(DbJobDefinition jobDefinition, Instant now) {
         return scheduleJobExecutorService.submit(() -> {
             try {
@@ -212,25 +206,17 @@ public class SchedulerService {
      * The backpressure threshold is always 1 here, this is because we don't expect
      * to run jobs in parallel for aggs at the moment.
      */
-    private boolean isJobDefinitionBackPressured(DbJobDefinition jobDefinition) {
-        var currentlyRunningCount = jobInstanceDatabaseService.filter(0, 1, DbJobInstanceFilter.builder()
-                        .jobStatuses(List.of(JobStatus.SCHEDULED, JobStatus.ACCEPTED, JobStatus.PENDING)) // Not including unassigned jobs here may have to revisit
-                        .jobDefinitionIds(List.of(jobDefinition.getId()))
-                        .build())
-                .getCount();
-        if (currentlyRunningCount > 0) {
+    private boolean isJobDefinitionBackPressured(DbJobDefinition jobDefinition, Map<UUID, DbJobInstanceCounts> jobInstanceCounts) {
+        DbJobInstanceCounts counts = jobInstanceCounts.get(jobDefinition.getId());
+        if (counts == null) {
+            return false;
+        }
+        if (counts.getInFlight() > 0) {
             log.debug("Backpressured because running/scheduled jobs exist in the system definition id: {}, tenant: {}, integration id: {}",
                     jobDefinition.getId(), jobDefinition.getTenantId(), jobDefinition.getIntegrationId());
             return true;
         }
-
-        var retryableCount = jobInstanceDatabaseService.filter(0, 1, DbJobInstanceFilter.builder()
-                        .jobDefinitionIds(List.of(jobDefinition.getId()))
-                        .jobStatuses(List.of(JobStatus.FAILURE))
-                        .belowMaxAttempts(true)
-                        .build())
-                .getCount();
-        if (retryableCount > 0) {
+        if (counts.getRetryable() > 0) {
             log.info("Backpressured because retryable jobs exist in the system definition id: {}, tenant: {}, integration id: {}",
                     jobDefinition.getId(), jobDefinition.getTenantId(), jobDefinition.getIntegrationId());
             return true;
@@ -73,6 +73,24 @@ public class EtlSchedulerClient {
         return true;
     }
 
+    /**
+     * Claims up to {@code limit} jobs for the worker in a single call. Only jobs of the given processors are claimed.
+     */
+    public List<JobContext> claimJobs(String workerId, int limit, List<String> aggProcessorNames) throws SchedulerClientException {
+        HttpUrl url = baseUrlBuilder()
+                .addPathSegment("claim_jobs")
+                .addQueryParameter("worker_id", workerId)
+                .addQueryParameter("limit", String.valueOf(limit))
+                .build();
+        Request request = new Request.Builder()
+                .url(url)
+                .post(clientHelper.createJsonRequestBody(aggProcessorNames))
+                .build();
+        ListResponse<JobContext> response = clientHelper.executeAndParse(request,
+                objectMapper.getTypeFactory().constructParametricType(ListResponse.class, JobContext.class));
+        return response.getRecords();
+    }
+
     public boolean unclaimJob(JobInstanceId jobInstanceId, String workerId) {
         HttpUrl url = baseUrlBuilder()
                 .addPathSegment("unclaim_job")
@@ -3,6 +3,7 @@ package io.levelops.etl.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.cloud.storage.Storage;
 import com.google.cloud.storage.StorageOptions;
+import io.levelops.commons.aggregations_cache.services.AggCacheService;
 import io.levelops.commons.databases.services.organization.OrgUsersDatabaseService;
 import io.levelops.commons.databases.services.organization.OrgVersionsDatabaseService;
 import io.levelops.commons.helper.organization.OrgUsersHelper;
@@ -115,6 +116,16 @@ public class WorkerConfig {
         return template;
     }
 
+    @Bean
+    public AggCacheService aggCacheService(@Value("${AGG_CACHE_ENABLED:true}") Boolean enabled,
+                                           RedisConnectionFactory redisConnectionFactory) {
+        // only used to invalidate cached aggregations after a successful job
+        return AggCacheService.builder()
+                .redisConnectionFactory(redisConnectionFactory)
+                .enabled(enabled)
+                .build();
+    }
+
     @Bean
     public OrgUsersLockService orgUsersLockService(RedisConnectionFactory redisConnectionFactory) {
         return new OrgUsersLockService(redisConnectionFactory);
@@ -5,10 +5,10 @@ import com.google.common.base.Stopwatch;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.levelops.aggregations_shared.database.JobInstanceDatabaseService;
 import io.levelops.aggregations_shared.database.models.DbJobInstanceFilter;
-import io.levelops.aggregations_shared.database.models.DbJobInstanceUpdate;
 import io.levelops.aggregations_shared.models.JobContext;
 import io.levelops.aggregations_shared.utils.IngestionResultPayloadUtils;
 import io.levelops.commons.etl.models.DbJobInstance;
+import io.levelops.commons.etl.models.JobInstanceId;
 import io.levelops.commons.etl.models.JobStatus;
 import io.levelops.commons.etl.models.JobType;
 import io.levelops.etl.job_framework.EtlJobRunner;
@@ -97,29 +97,38 @@ public class EtlEngine {
         jobs.values().removeIf(engineJob -> engineJob.f.isDone());
     }
 
+    public Set<String> getSupportedProcessorNames() {
+        return ETLProcessorRegistry.getProcessorNames();
+    }
+
     public boolean canAcceptJobs() {
+        return getAvailableCapacity() > 0;
+    }
+
+    /**
+     * @return number of jobs that can be submitted before the engine is full
+     */
+    public int getAvailableCapacity() {
         if (jobs.size() > JOB_RETENTION_MAX_COUNT) {
             log.warn("Exceeded maximum job retention count... Clearing out jobs marked as done!");
             clearJobs();
         }
-        return jobs.values().stream()
+        long runningJobs = jobs.values().stream()
                 .filter(job -> !job.f.isDone())
-                .count() < nbOfThreads;
+                .count();
+        return (int) Math.max(0, nbOfThreads - runningJobs);
     }
 
     public synchronized void recordHeartbeatForAllThreads() {
-        jobs.values().stream()
+        List<JobInstanceId> runningJobIds = jobs.values().stream()
                 .filter(j -> !j.f.isDone())
-                .forEach(engineJob -> {
-                    try {
-                        jobInstanceDatabaseService.update(engineJob.jobContext.getJobInstanceId(), DbJobInstanceUpdate.builder()
-                                .heartbeat(Instant.now())
-                                .build());
-                    } catch (JsonProcessingException e) {
-                        throw new RuntimeException(e);
-                    }
-                });
-        log.debug("Recorded heartbeat for all threads");
+                .map(engineJob -> engineJob.jobContext.getJobInstanceId())
+                .collect(Collectors.toList());
+        if (runningJobIds.isEmpty()) {
+            return;
+        }
+        int updated = jobInstanceDatabaseService.updateHeartbeats(runningJobIds, Instant.now());
+        log.debug("Recorded heartbeat for all threads ({}/{} jobs)", updated, runningJobIds.size());
     }
 
     public Optional<EngineJob> submitJob(JobContext ctx) {
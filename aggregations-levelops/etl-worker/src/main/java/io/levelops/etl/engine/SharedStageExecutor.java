@@ -0,0 +1,245 @@
+package io.levelops.etl.engine;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.levelops.aggregations_shared.models.JobContext;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Engine-wide thread pool used to process the entities of parallel stages
+ * (see IngestionResultProcessingStage.allowParallelProcessing()).
+ * <p>
+ * All the jobs running on this worker share one bounded pool instead of creating a pool per stage run.
+ * Concurrency is limited at 3 levels, acquired in this order: per job (the stage's thread count), per tenant and
+ * for the whole worker. The worker-wide limit defaults to the size of the DB connection pool since entity
+ * processing is mostly DB bound. Submitters block until all their permits are available, which applies
+ * backpressure to the stage instead of piling up requests for DB connections.
+ * <p>
+ * Tenant permits (and their gauge) only exist while the tenant has job executors that are not terminated.
+ */
+@Log4j2
+@Service
+public class SharedStageExecutor {
+    private static final String METRIC_PREFIX = "etl.worker.stage.executor";
+
+    private final ThreadPoolExecutor executor;
+    private final int maxConcurrency;
+    private final int maxConcurrencyPerTenant;
+    private final Semaphore workerPermits;
+    private final Map<String, TenantPermits> tenantPermits = new ConcurrentHashMap<>();
+    private final AtomicInteger waitingSubmitters = new AtomicInteger();
+    private final MeterRegistry meterRegistry;
+    private final Timer permitWaitTimer;
+
+    @Autowired
+    public SharedStageExecutor(
+            @Value("${ETL_WORKER_STAGE_MAX_CONCURRENCY:${DB_MAX_POOL_SIZE:10}}") int maxConcurrency,
+            @Value("${ETL_WORKER_STAGE_MAX_CONCURRENCY_PER_TENANT:5}") int maxConcurrencyPerTenant,
+            MeterRegistry meterRegistry) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.maxConcurrencyPerTenant = Math.max(1, maxConcurrencyPerTenant);
+        this.meterRegistry = meterRegistry;
+        this.workerPermits = new Semaphore(this.maxConcurrency);
+        this.executor = new ThreadPoolExecutor(this.maxConcurrency, this.maxConcurrency, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new ThreadFactoryBuilder()
+                .setNameFormat("stage-worker-%d")
+                .build());
+        this.executor.allowCoreThreadTimeOut(true);
+        new ExecutorServiceMetrics(executor, METRIC_PREFIX, Tags.empty()).bindTo(meterRegistry);
+        meterRegistry.gauge(METRIC_PREFIX + ".permits.used", Tags.empty(), workerPermits, s -> this.maxConcurrency - s.availablePermits());
+        meterRegistry.gauge(METRIC_PREFIX + ".waiting", Tags.empty(), waitingSubmitters);
+        this.permitWaitTimer = Timer.builder(METRIC_PREFIX + ".permit.wait").register(meterRegistry);
+        log.info("Stage executor initialized with max concurrency {} and max concurrency per tenant {}",
+                this.maxConcurrency, this.maxConcurrencyPerTenant);
+    }
+
+    /**
+     * Returns an executor that runs tasks for one stage run of a job on the shared pool.
+     * <p>
+     * execute() blocks until the task can run within the job, tenant and worker limits.
+     * Shutting the returned executor down only rejects new tasks for this stage run: the shared pool is not affected.
+     */
+    public ExecutorService newJobExecutor(JobContext ctx, int maxConcurrencyForJob) {
+        return new JobExecutor(ctx.getTenantId(), Math.max(1, Math.min(maxConcurrencyForJob, maxConcurrency)));
+    }
+
+    int getTenantCount() {
+        return tenantPermits.size();
+    }
+
+    private Semaphore acquireTenantPermits(String tenantId) {
+        return tenantPermits.compute(tenantId, (t, permits) -> {
+            if (permits == null) {
+                permits = new TenantPermits(t);
+            }
+            permits.executorCount++;
+            return permits;
+        }).semaphore;
+    }
+
+    /**
+     * Called once per job executor, when it is terminated: the tenant's permits are dropped when no executor uses them anymore.
+     */
+    private void releaseTenantPermits(String tenantId) {
+        tenantPermits.computeIfPresent(tenantId, (t, permits) -> {
+            if (--permits.executorCount > 0) {
+                return permits;
+            }
+            meterRegistry.remove(permits.gauge);
+            return null;
+        });
+    }
+
+    private class TenantPermits {
+        private final Semaphore semaphore = new Semaphore(maxConcurrencyPerTenant);
+        private final Gauge gauge;
+        private int executorCount = 0; // guarded by tenantPermits.compute
+
+        private TenantPermits(String tenantId) {
+            this.gauge = Gauge.builder(METRIC_PREFIX + ".tenant.permits.used", semaphore, s -> maxConcurrencyPerTenant - s.availablePermits())
+                    .tags(Tags.of("tenant_id", tenantId))
+                    .register(meterRegistry);
+        }
+    }
+
+    private class JobExecutor extends AbstractExecutorService {
+        private final String tenantId;
+        private final Semaphore jobPermits;
+        private final Semaphore tenantPermits;
+        private final AtomicInteger runningTasks = new AtomicInteger();
+        private final AtomicBoolean released = new AtomicBoolean(false);
+        private volatile boolean shutdown = false;
+
+        private JobExecutor(String tenantId, int maxConcurrencyForJob) {
+            this.tenantId = tenantId;
+            this.jobPermits = new Semaphore(maxConcurrencyForJob);
+            this.tenantPermits = acquireTenantPermits(tenantId);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            if (shutdown) {
+                throw new RejectedExecutionException("Stage executor has been shut down");
+            }
+            acquirePermits();
+            runningTasks.incrementAndGet();
+            try {
+                executor.execute(() -> {
+                    try {
+                        command.run();
+                    } finally {
+                        onTaskDone();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                onTaskDone();
+                throw e;
+            }
+        }
+
+        private void acquirePermits() {
+            Timer.Sample sample = Timer.start(meterRegistry);
+            waitingSubmitters.incrementAndGet();
+            int acquired = 0;
+            try {
+                jobPermits.acquire();
+                acquired++;
+                tenantPermits.acquire();
+                acquired++;
+                workerPermits.acquire();
+            } catch (InterruptedException e) {
+                if (acquired > 1) {
+                    tenantPermits.release();
+                }
+                if (acquired > 0) {
+                    jobPermits.release();
+                }
+                Thread.currentThread().interrupt();
+                throw new RejectedExecutionException("Interrupted while waiting for a stage executor permit", e);
+            } finally {
+                waitingSubmitters.decrementAndGet();
+                sample.stop(permitWaitTimer);
+            }
+        }
+
+        private void onTaskDone() {
+            workerPermits.release();
+            tenantPermits.release();
+            jobPermits.release();
+            if (runningTasks.decrementAndGet() == 0 && shutdown) {
+                onTerminated();
+            }
+        }
+
+        @Override
+        public void shutdown() {
+            shutdown = true;
+            if (runningTasks.get() == 0) {
+                onTerminated();
+            }
+        }
+
+        private void onTerminated() {
+            if (released.compareAndSet(false, true)) {
+                releaseTenantPermits(tenantId);
+            }
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+
+        /**
+         * Tasks already handed to the shared pool cannot be taken back, so this behaves like shutdown()
+         */
+        @Override
+        public List<Runnable> shutdownNow() {
+            shutdown();
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return shutdown;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return shutdown && runningTasks.get() == 0;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            synchronized (this) {
+                while (!isTerminated()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+            }
+            return true;
+        }
+    }
+}
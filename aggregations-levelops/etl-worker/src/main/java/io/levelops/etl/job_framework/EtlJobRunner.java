@@ -9,11 +9,13 @@ import io.levelops.aggregations_shared.database.JobDefinitionDatabaseService;
 import io.levelops.aggregations_shared.database.JobInstanceDatabaseService;
 import io.levelops.aggregations_shared.models.JobContext;
 import io.levelops.aggregations_shared.utils.MetricUtils;
+import io.levelops.commons.aggregations_cache.services.AggCacheService;
 import io.levelops.commons.etl.models.GcsDataResultWithDataType;
 import io.levelops.commons.etl.models.JobStatus;
 import io.levelops.commons.etl.models.JobType;
 import io.levelops.commons.etl.models.job_progress.EntityProgressDetail;
 import io.levelops.commons.etl.models.job_progress.FileProgressDetail;
+import io.levelops.etl.engine.SharedStageExecutor;
 import io.levelops.etl.models.EntityProcessingResult;
 import io.levelops.etl.services.JobTrackingUtilsService;
 import io.levelops.etl.utils.GcsUtils;
@@ -24,14 +26,19 @@ import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Collectors;
 
 @Service
@@ -43,6 +50,8 @@ public class EtlJobRunner {
     private final JobInstanceDatabaseService jobInstanceDatabaseService;
     private final JobDefinitionDatabaseService jobDefinitionDatabaseService;
     private final MeterRegistry meterRegistry;
+    private final SharedStageExecutor sharedStageExecutor;
+    private final AggCacheService aggCacheService;
 
     @Autowired
     public EtlJobRunner(
@@ -51,13 +60,17 @@ public class EtlJobRunner {
             JobInstanceDatabaseService jobInstanceDatabaseService,
             JobTrackingUtilsService jobTrackingUtilsService,
             JobDefinitionDatabaseService jobDefinitionDatabaseService,
-            MeterRegistry meterRegistry) {
+            MeterRegistry meterRegistry,
+            SharedStageExecutor sharedStageExecutor,
+            AggCacheService aggCacheService) {
         this.gcsUtils = gcsUtils;
         this.objectMapper = objectMapper;
         this.jobTrackingUtils = jobTrackingUtilsService;
         this.jobInstanceDatabaseService = jobInstanceDatabaseService;
         this.jobDefinitionDatabaseService = jobDefinitionDatabaseService;
         this.meterRegistry = meterRegistry;
+        this.sharedStageExecutor = sharedStageExecutor;
+        this.aggCacheService = aggCacheService;
     }
 
     private void updateJobInstanceMetrics(JobContext context) {
@@ -120,6 +133,8 @@ public class EtlJobRunner {
             Boolean updated = markJobAsSuccess(context, status);
             if (!updated) {
                 log.warn("Failed to mark job instance {} as success", context.getJobInstanceId());
+            } else {
+                invalidateAggCache(context);
             }
             return status;
         } catch (Exception e) {
@@ -146,6 +161,21 @@ public class EtlJobRunner {
         return true;
     }
 
+    /**
+     * Tells the API that this tenant/integration has new data, so that cached aggregations are not served past this point.
+     */
+    private void invalidateAggCache(JobContext ctx) {
+        if (aggCacheService == null) {
+            return;
+        }
+        try {
+            aggCacheService.invalidate(ctx.getTenantId(), ctx.getIntegrationId());
+            MetricUtils.getTenantCounter(meterRegistry, "etl.worker.job.agg_cache_invalidation", ctx).increment();
+        } catch (Exception e) {
+            log.warn("Failed to invalidate agg cache for tenant {} integration {}", ctx.getTenantId(), ctx.getIntegrationId(), e);
+        }
+    }
+
     private void markJobAsFailed(JobContext ctx) throws JsonProcessingException {
         log.info("Marking job instance {} as failed", ctx.getJobInstanceId());
         Boolean updated = jobTrackingUtils.updateJobInstanceStatus(ctx.getJobInstanceId(), JobStatus.FAILURE);
@@ -184,60 +214,295 @@ public class EtlJobRunner {
         }
     }
 
+    private <T, S> void processEntity(
+            JobContext ctx, S jobState,
+            IngestionResultProcessingStage<T, S> stage,
+            T entity,
+            ExecutorService executorService,
+            GcsDataResultWithDataType fileRecord,
+            AtomicInteger processedCount,
+            AtomicInteger successfulEntities,
+            AtomicInteger failedEntities) {
+        try {
+            stage.process(ctx, jobState, fileRecord.getIngestionJobId(), entity);
+            processedCount.getAndIncrement();
+            MetricUtils.getTenantCounter(meterRegistry, "etl.worker.entity.processed", ctx).increment();
+            successfulEntities.getAndIncrement();
+            throwIfThreadInterrupted(ctx);
+        } catch (InterruptedException e) {
+            executorService.shutdown();
+            throw new RuntimeException(e);
+        } catch (Exception e) {
+            if (!stage.allowFailure()) {
+                throw new RuntimeException(e);
+            }
+            failedEntities.getAndIncrement();
+            log.error("Failed to process entity but still continuing. " +
+                            "Job instance {}, tenant: {}, entity: {} , stage: {}, file index: {}",
+                    ctx.getJobInstanceId(), ctx.getTenantId(), entity, stage.getName(), fileRecord.getIndex(), e);
+        }
+    }
+
+    private <T, S> void processBatch(
+            JobContext ctx, S jobState,
+            IngestionResultProcessingStage<T, S> stage,
+            List<T> entities,
+            ExecutorService executorService,
+            GcsDataResultWithDataType fileRecord,
+            AtomicInteger processedCount,
+            AtomicInteger successfulEntities,
+            AtomicInteger failedEntities) {
+        int failed;
+        try {
+            failed = Math.min(Math.max(0, stage.processBatch(ctx, jobState, fileRecord.getIngestionJobId(), entities)), entities.size());
+        } catch (Exception e) {
+            // isolate the entities that fail
+            log.warn("Failed to process batch of {} entities, retrying them one by one. " +
+                            "Job instance {}, tenant: {}, stage: {}, file index: {}",
+                    entities.size(), ctx.getJobInstanceId(), ctx.getTenantId(), stage.getName(), fileRecord.getIndex(), e);
+            for (T entity : entities) {
+                processEntity(ctx, jobState, stage, entity, executorService, fileRecord, processedCount, successfulEntities, failedEntities);
+            }
+            return;
+        }
+        if (failed > 0) {
+            if (!stage.allowFailure()) {
+                throw new RuntimeException("Failed to process " + failed + " of " + entities.size() + " entities of batch");
+            }
+            log.error("Failed to process {} of {} entities of batch but still continuing. " +
+                            "Job instance {}, tenant: {}, stage: {}, file index: {}",
+                    failed, entities.size(), ctx.getJobInstanceId(), ctx.getTenantId(), stage.getName(), fileRecord.getIndex());
+        }
+        int succeeded = entities.size() - failed;
+        processedCount.getAndAdd(succeeded);
+        MetricUtils.getTenantCounter(meterRegistry, "etl.worker.entity.processed", ctx).increment(succeeded);
+        successfulEntities.getAndAdd(succeeded);
+        failedEntities.getAndAdd(failed);
+        try {
+            throwIfThreadInterrupted(ctx);
+        } catch (InterruptedException e) {
+            executorService.shutdown();
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Streams the entities of one GCS file into the executor as they are deserialized.
+     * At most maxEntitiesInFlight tasks are held in memory at any time (queued or being processed),
+     * so memory usage depends on the size of an entity (or of a batch, see getBatchSize()) rather than on the size of the file.
+     */
     private <T, S> EntityProcessingResult processEntities(
             JobContext ctx, S jobState,
             IngestionResultProcessingStage<T, S> stage,
-            List<T> gcsEntities,
+            JavaType javaType,
             ExecutorService executorService,
-            GcsDataResultWithDataType fileRecord) {
-        AtomicInteger totalEntities = new AtomicInteger();
+            int maxEntitiesInFlight,
+            GcsDataResultWithDataType fileRecord) throws IOException, InterruptedException {
         AtomicInteger successfulEntities = new AtomicInteger();
         AtomicInteger failedEntities = new AtomicInteger();
         AtomicInteger processedCount = new AtomicInteger();
-        totalEntities.set(gcsEntities.size());
-        var futures = gcsEntities.stream().map(entity -> executorService.submit(() -> {
-            try {
-                stage.process(ctx, jobState, fileRecord.getIngestionJobId(), entity);
-                processedCount.getAndIncrement();
-                MetricUtils.getTenantCounter(meterRegistry, "etl.worker.entity.processed", ctx).increment();
-                successfulEntities.getAndIncrement();
-                throwIfThreadInterrupted(ctx);
-            } catch (InterruptedException e) {
-                executorService.shutdown();
-                throw new RuntimeException(e);
-            } catch (Exception e) {
-                if (!stage.allowFailure()) {
-                    throw new RuntimeException(e);
-                }
-                failedEntities.getAndIncrement();
-                log.error("Failed to process entity but still continuing. " +
-                                "Job instance {}, tenant: {}, entity: {} , stage: {}, file index: {}",
-                        ctx.getJobInstanceId(), ctx.getTenantId(), entity, stage.getName(), fileRecord.getIndex(), e);
-            }
-        })).toList();
-
-        futures.forEach(future -> {
-            try {
-                future.get();
-            } catch (InterruptedException e) {
-                throw new RuntimeException(e);
-            } catch (ExecutionException e) {
-                if (!stage.allowFailure()) {
-                    throw new RuntimeException(e);
-                } else {
-                    log.error("Caught exception while running job stage, but continuing: ", e);
-                }
+        AtomicReference<RuntimeException> fatalException = new AtomicReference<>();
+        Semaphore inFlightPermits = new Semaphore(maxEntitiesInFlight);
+        int batchSize = Math.max(1, stage.getBatchSize());
+        // only accessed by the thread reading the file
+        List<T> pendingBatch = new ArrayList<>(batchSize);
+        Integer totalEntities;
+        try {
+            totalEntities = gcsUtils.<T>streamRecordsFromGcs(
+                    fileRecord.getGcsDataResult(),
+                    javaType,
+                    ctx.getTenantId(),
+                    ctx.getIntegrationId(),
+                    entity -> {
+                        throwIfFatal(fatalException);
+                        if (batchSize == 1) {
+                            submitInFlight(stage, executorService, inFlightPermits, fatalException, () ->
+                                    processEntity(ctx, jobState, stage, entity, executorService, fileRecord,
+                                            processedCount, successfulEntities, failedEntities));
+                            return;
+                        }
+                        pendingBatch.add(entity);
+                        if (pendingBatch.size() >= batchSize) {
+                            List<T> batch = new ArrayList<>(pendingBatch);
+                            pendingBatch.clear();
+                            submitInFlight(stage, executorService, inFlightPermits, fatalException, () ->
+                                    processBatch(ctx, jobState, stage, batch, executorService, fileRecord,
+                                            processedCount, successfulEntities, failedEntities));
+                        }
+                    });
+            if (totalEntities != null && !pendingBatch.isEmpty()) {
+                // flush the last batch of this file
+                throwIfFatal(fatalException);
+                List<T> batch = new ArrayList<>(pendingBatch);
+                pendingBatch.clear();
+                submitInFlight(stage, executorService, inFlightPermits, fatalException, () ->
+                        processBatch(ctx, jobState, stage, batch, executorService, fileRecord,
+                                processedCount, successfulEntities, failedEntities));
             }
-        });
+        } finally {
+            // wait for the entities that are still being processed before reporting on this file
+            inFlightPermits.acquire(maxEntitiesInFlight);
+            inFlightPermits.release(maxEntitiesInFlight);
+        }
+        throwIfFatal(fatalException);
+        if (totalEntities == null) {
+            log.error("Failed to read GCS file {}", fileRecord.getGcsDataResult());
+            return EntityProcessingResult.builder()
+                    .totalEntities(0)
+                    .successfulEntities(-1)
+                    .failedEntities(-1)
+                    .build();
+        }
         return EntityProcessingResult.builder()
                 .processedCount(processedCount.get())
                 .successfulEntities(successfulEntities.get())
                 .failedEntities(failedEntities.get())
-                .totalEntities(totalEntities.get())
+                .totalEntities(totalEntities)
                 .build();
     }
 
-    private <T, S> void runIngestionProcessingStage(JobContext ctx, S jobState, IngestionResultProcessingStage<T, S> stage) throws JsonProcessingException, SQLException, InterruptedException {
+    /**
+     * Runs the task on the executor once one of the in-flight permits is available (blocks the caller otherwise).
+     */
+    private <T, S> void submitInFlight(
+            IngestionResultProcessingStage<T, S> stage,
+            ExecutorService executorService,
+            Semaphore inFlightPermits,
+            AtomicReference<RuntimeException> fatalException,
+            Runnable task) {
+        try {
+            inFlightPermits.acquire();
+        } catch (InterruptedException e) {
+            throw new RuntimeException(e);
+        }
+        try {
+            executorService.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    if (!stage.allowFailure()) {
+                        fatalException.compareAndSet(null, e);
+                    } else {
+                        log.error("Caught exception while running job stage, but continuing: ", e);
+                    }
+                } finally {
+                    inFlightPermits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            inFlightPermits.release();
+            throw e;
+        }
+    }
+
+    private void throwIfFatal(AtomicReference<RuntimeException> fatalException) {
+        RuntimeException e = fatalException.get();
+        if (e != null) {
+            throw e;
+        }
+    }
+
+    private <T, S> FileProgressDetail processFile(
+            JobContext ctx, S jobState,
+            IngestionResultProcessingStage<T, S> stage,
+            JavaType javaType,
+            ExecutorService executorService,
+            int maxEntitiesInFlight,
+            GcsDataResultWithDataType fileRecord) throws IOException, InterruptedException {
+        Stopwatch st = Stopwatch.createStarted();
+        EntityProcessingResult entityProcessingResult = processEntities(ctx, jobState, stage, javaType, executorService, maxEntitiesInFlight, fileRecord);
+        st.stop();
+        return FileProgressDetail.builder()
+                .entityProgressDetail(EntityProgressDetail.builder()
+                        .totalEntities(entityProcessingResult.getTotalEntities())
+                        .successful(entityProcessingResult.getSuccessfulEntities())
+                        .failed(entityProcessingResult.getFailedEntities())
+                        .build())
+                .failures(List.of())
+                .durationMilliSeconds(st.elapsed(TimeUnit.MILLISECONDS))
+                .build();
+    }
+
+    private <T, S> void commitFileProgress(
+            JobContext ctx,
+            IngestionResultProcessingStage<T, S> stage,
+            GcsDataResultWithDataType fileRecord,
+            FileProgressDetail fileProgressDetail,
+            AtomicInteger processedCount) {
+        ctx.batchUpdateProgressDetail(stage.getName(), fileRecord.getIndex(), fileProgressDetail, jobInstanceDatabaseService);
+        // Checkpoint progress for this stage since we have completed processing 1 GCS file
+        if (stage.shouldCheckpointIndividualFiles()) {
+            ctx.setStageProgressMap(stage.getName(), fileRecord.getIndex(), jobInstanceDatabaseService);
+        }
+        processedCount.addAndGet(fileProgressDetail.getEntityProgressDetail().getSuccessful());
+    }
+
+    /**
+     * Reads and processes up to maxFilesInFlight files concurrently, so that GCS latency of one file overlaps with
+     * the processing of the others. Files may finish out of order, but their progress is committed in file order:
+     * the stage checkpoint (watermark) only advances past a file once it and every file before it are fully processed.
+     * This keeps the retry and resume semantics of the sequential mode.
+     */
+    private <T, S> void processFilesPipelined(
+            JobContext ctx, S jobState,
+            IngestionResultProcessingStage<T, S> stage,
+            JavaType javaType,
+            List<GcsDataResultWithDataType> fileRecords,
+            ExecutorService executorService,
+            int maxEntitiesInFlight,
+            int maxFilesInFlight,
+            AtomicInteger processedCount) throws IOException, InterruptedException {
+        ExecutorService fileExecutorService = Executors.newFixedThreadPool(maxFilesInFlight);
+        Semaphore fileSlots = new Semaphore(maxFilesInFlight);
+        List<Future<FileProgressDetail>> futures = new ArrayList<>(fileRecords.size());
+        int watermark = 0; // position in fileRecords of the next file to commit
+        try {
+            for (int i = 0; i < fileRecords.size(); i++) {
+                throwIfThreadInterrupted(ctx);
+                fileSlots.acquire();
+                GcsDataResultWithDataType fileRecord = fileRecords.get(i);
+                log.info("Stage {} relevant progress: {}/{} - payload index: {} - datatype: {} - committed: {}",
+                        stage.getName(), i, fileRecords.size(), fileRecord.getIndex(), fileRecord.getDataTypeName(), watermark);
+                futures.add(fileExecutorService.submit(() -> {
+                    try {
+                        return processFile(ctx, jobState, stage, javaType, executorService, maxEntitiesInFlight, fileRecord);
+                    } finally {
+                        fileSlots.release();
+                    }
+                }));
+                for (; watermark < futures.size() && futures.get(watermark).isDone(); watermark++) {
+                    commitFileProgress(ctx, stage, fileRecords.get(watermark), getFileProgressDetail(futures.get(watermark)), processedCount);
+                    futures.set(watermark, null);
+                }
+            }
+            for (; watermark < futures.size(); watermark++) {
+                commitFileProgress(ctx, stage, fileRecords.get(watermark), getFileProgressDetail(futures.get(watermark)), processedCount);
+                futures.set(watermark, null);
+            }
+        } finally {
+            fileExecutorService.shutdownNow();
+        }
+    }
+
+    private FileProgressDetail getFileProgressDetail(Future<FileProgressDetail> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        }
+    }
+
+    private <T, S> void runIngestionProcessingStage(JobContext ctx, S jobState, IngestionResultProcessingStage<T, S> stage) throws IOException, SQLException, InterruptedException {
         int progress = ctx.getStageProgress(stage.getName()).orElse(-1);
         AtomicInteger processedCount = new AtomicInteger();
         List<GcsDataResultWithDataType> fileRecords = getGcsRecordsForStage(ctx, stage);
@@ -258,67 +523,49 @@ public class EtlJobRunner {
             ctx.addStageToProgressDetail(stage.getName(), jobInstanceDatabaseService);
         }
 
-        // Currently we only parallelize the entries within each GCS file.
-        // This is because it simplifies the checkpointing logic dramatically.
-        // However this will not work for some apps like github where there is 1 giant entity
+        // Entities within each GCS file are processed in parallel if the stage allows it.
+        // Files are processed one after another unless the stage allows several files in flight,
+        // in which case progress is still checkpointed in file order (see processFilesPipelined).
+        // Note that this will not help much for some apps like github where there is 1 giant entity
         // at the top level, and the real processing happens to a subentity within
         // this file.
         ExecutorService executorService;
+        int maxEntitiesInFlight;
+        int maxFilesInFlight = 1;
         if (stage.allowParallelProcessing(ctx.getTenantId(), ctx.getIntegrationId())) {
             log.info("Parallel processing is enabled for stage: {}, tenant: {}, integration: {}",
                     stage.getName(), ctx.getTenantId(), ctx.getIntegrationId());
             int threadpoolSize = stage.getParallelProcessingThreadCount();
-            executorService = Executors.newFixedThreadPool(threadpoolSize);
+            executorService = sharedStageExecutor.newJobExecutor(ctx, threadpoolSize);
+            // the job executor only runs up to threadpoolSize entities at once and blocks submitters beyond that
+            maxEntitiesInFlight = threadpoolSize;
+            maxFilesInFlight = Math.max(1, stage.getMaxFilesInFlight());
         } else {
             executorService = MoreExecutors.newDirectExecutorService();
+            maxEntitiesInFlight = 1;
         }
 
-        // This loop processes 1 file at a time
-        for (int i = 0; i < filteredFileRecords.size(); i++) {
-            throwIfThreadInterrupted(ctx);
-            Stopwatch st = Stopwatch.createStarted();
-            EntityProcessingResult entityProcessingResult;
-            GcsDataResultWithDataType fileRecord = filteredFileRecords.get(i);
-            // Only process if the data type in the gcs metadata matches that of the stage
-            log.info("Stage {} relevant progress: {}/{} - payload index: {} - datatype: {}",
-                    stage.getName(), i, filteredFileRecords.size(), fileRecord.getIndex(), fileRecord.getDataTypeName());
-            var storageContent = gcsUtils.fetchRecordsFromGcs(
-                    fileRecord.getGcsDataResult(),
-                    stage.getGcsDataType(),
-                    javaType,
-                    ctx.getTenantId(),
-                    ctx.getIntegrationId()
-            );
-            if (storageContent == null || storageContent.getData() == null) {
-                log.error("Failed to read GCS file {}", fileRecord.getGcsDataResult().toString());
-                entityProcessingResult = EntityProcessingResult.builder()
-                        .totalEntities(0)
-                        .successfulEntities(-1)
-                        .failedEntities(-1)
-                        .build();
+        try {
+            if (maxFilesInFlight > 1) {
+                log.info("Processing up to {} files in parallel for stage: {}", maxFilesInFlight, stage.getName());
+                processFilesPipelined(ctx, jobState, stage, javaType, filteredFileRecords, executorService,
+                        maxEntitiesInFlight, maxFilesInFlight, processedCount);
             } else {
-                List<T> gcsEntities = storageContent.getData().getRecords();
-                entityProcessingResult = processEntities(ctx, jobState, stage, gcsEntities, executorService, fileRecord);
-            }
-            st.stop();
-            FileProgressDetail fileProgressDetail = FileProgressDetail.builder()
-                    .entityProgressDetail(EntityProgressDetail.builder()
-                            .totalEntities(entityProcessingResult.getTotalEntities())
-                            .successful(entityProcessingResult.getSuccessfulEntities())
-                            .failed(entityProcessingResult.getFailedEntities())
-                            .build())
-                    .failures(List.of())
-                    .durationMilliSeconds(st.elapsed(TimeUnit.MILLISECONDS))
-                    .build();
-            ctx.batchUpdateProgressDetail(stage.getName(), fileRecord.getIndex(), fileProgressDetail, jobInstanceDatabaseService);
-            // Checkpoint progress for this stage since we have completed processing 1 GCS file
-            if (stage.shouldCheckpointIndividualFiles()) {
-                ctx.setStageProgressMap(stage.getName(), fileRecord.getIndex(), jobInstanceDatabaseService);
+                // This loop processes 1 file at a time
+                for (int i = 0; i < filteredFileRecords.size(); i++) {
+                    throwIfThreadInterrupted(ctx);
+                    GcsDataResultWithDataType fileRecord = filteredFileRecords.get(i);
+                    // Only process if the data type in the gcs metadata matches that of the stage
+                    log.info("Stage {} relevant progress: {}/{} - payload index: {} - datatype: {}",
+                            stage.getName(), i, filteredFileRecords.size(), fileRecord.getIndex(), fileRecord.getDataTypeName());
+                    FileProgressDetail fileProgressDetail = processFile(ctx, jobState, stage, javaType, executorService, maxEntitiesInFlight, fileRecord);
+                    commitFileProgress(ctx, stage, fileRecord, fileProgressDetail, processedCount);
+                }
             }
-            processedCount.addAndGet(fileProgressDetail.getEntityProgressDetail().getSuccessful());
+        } finally {
+            executorService.shutdown();
         }
         ctx.flushProgressDetailUpdates();
-        executorService.shutdown();
         stage.postStage(ctx, jobState);
         if (!stage.shouldCheckpointIndividualFiles() && fileRecords.size() > 0) {
             ctx.setStageProgressMap(stage.getName(), fileRecords.get(fileRecords.size() - 1).getIndex(), jobInstanceDatabaseService);
@@ -342,7 +589,7 @@ public class EtlJobRunner {
         }
     }
 
-    private <S> void runJobStages(JobContext ctx, EtlProcessor<S> ETLProcessor, S jobState) throws JsonProcessingException, SQLException, InterruptedException {
+    private <S> void runJobStages(JobContext ctx, EtlProcessor<S> ETLProcessor, S jobState) throws IOException, SQLException, InterruptedException {
         for (JobProcessingStageBase<S> stage : ETLProcessor.getJobStages()) {
             try {
                 throwIfThreadInterrupted(ctx);
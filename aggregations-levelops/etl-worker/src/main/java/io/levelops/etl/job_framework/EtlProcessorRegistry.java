@@ -7,6 +7,7 @@ import org.springframework.stereotype.Service;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @Service
 public class EtlProcessorRegistry {
@@ -26,4 +27,8 @@ public class EtlProcessorRegistry {
         }
         throw new NotImplementedException("ETL processor for type " + componentClass + " not implemented");
     }
+
+    public Set<String> getProcessorNames() {
+        return nameToAggProcessorMap.keySet();
+    }
 }
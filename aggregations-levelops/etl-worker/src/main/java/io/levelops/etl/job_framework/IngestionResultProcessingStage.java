@@ -3,6 +3,7 @@ package io.levelops.etl.job_framework;
 import io.levelops.aggregations_shared.models.JobContext;
 
 import java.sql.SQLException;
+import java.util.List;
 
 /**
  * Refer to the documentation for JobDefinition for more details on JobContext
@@ -27,6 +28,23 @@ public interface IngestionResultProcessingStage<T, S> extends JobProcessingStage
      */
     void process(JobContext context, S jobState, String ingestionJobId, T entity) throws SQLException;
 
+    /**
+     * Processes a batch of entities from the same GCS file. Only called when getBatchSize() is greater than 1.
+     * The default implementation calls process() for each entity.
+     * <p>
+     * If this throws, the batch is retried one entity at a time with process(), so that one bad entity does not fail
+     * the others: processing must be idempotent.
+     *
+     * @param entities Up to getBatchSize() entities, in file order
+     * @return number of entities of the batch that could not be processed
+     */
+    default int processBatch(JobContext context, S jobState, String ingestionJobId, List<T> entities) throws SQLException {
+        for (T entity : entities) {
+            process(context, jobState, ingestionJobId, entity);
+        }
+        return 0;
+    }
+
     /**
      * This should correspond to the data type name that exists in the ingestion
      * metadata
@@ -79,4 +97,27 @@ public interface IngestionResultProcessingStage<T, S> extends JobProcessingStage
     default int getParallelProcessingThreadCount() {
         return 1;
     }
+
+    /**
+     * Number of GCS files that can be read and processed at the same time.
+     * Entities from different files may then be processed concurrently and
+     * out of order, so only enable this if process() does not depend on the
+     * order of the files. Checkpointing still happens in file order: the stage
+     * progress only advances past files that are fully processed.
+     * <p>
+     * Only applicable if allowParallelProcessing() is set to true
+     */
+    default int getMaxFilesInFlight() {
+        return 1;
+    }
+
+    /**
+     * Maximum number of entities handed to processBatch() at once. Batches never span several GCS files:
+     * the last batch of a file is flushed when the file has been read, so file checkpointing is unaffected.
+     * <p>
+     * A value of 1 (default) calls process() for each entity instead.
+     */
+    default int getBatchSize() {
+        return 1;
+    }
 }
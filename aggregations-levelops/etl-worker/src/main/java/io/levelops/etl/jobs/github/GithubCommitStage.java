@@ -3,6 +3,7 @@ package io.levelops.etl.jobs.github;
 import io.levelops.aggregations_shared.helpers.GithubAggHelperService;
 import io.levelops.aggregations_shared.models.JobContext;
 import io.levelops.etl.job_framework.BaseIngestionResultProcessingStage;
+import io.levelops.etl.services.ScmRollupRefreshService;
 import io.levelops.integrations.github.models.GithubRepository;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,10 +15,12 @@ import java.sql.SQLException;
 @Service
 public class GithubCommitStage extends BaseIngestionResultProcessingStage<GithubRepository, GithubJobState> {
     private final GithubAggHelperService helper;
+    private final ScmRollupRefreshService scmRollupRefreshService;
 
     @Autowired
-    public GithubCommitStage(GithubAggHelperService helper) {
+    public GithubCommitStage(GithubAggHelperService helper, ScmRollupRefreshService scmRollupRefreshService) {
         this.helper = helper;
+        this.scmRollupRefreshService = scmRollupRefreshService;
     }
 
     @Override
@@ -37,7 +40,7 @@ public class GithubCommitStage extends BaseIngestionResultProcessingStage<Github
 
     @Override
     public void postStage(JobContext context, GithubJobState jobState) {
-
+        scmRollupRefreshService.refreshCommitRollups(context.getTenantId(), context.getIntegrationId());
     }
 
     @Override
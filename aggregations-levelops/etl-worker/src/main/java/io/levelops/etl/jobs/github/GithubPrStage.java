@@ -4,6 +4,7 @@ import io.levelops.aggregations_shared.helpers.GithubAggHelperService;
 import io.levelops.aggregations_shared.models.JobContext;
 import io.levelops.commons.inventory.ProductMappingService;
 import io.levelops.etl.job_framework.BaseIngestionResultProcessingStage;
+import io.levelops.etl.services.ScmRollupRefreshService;
 import io.levelops.ingestion.exceptions.IngestionServiceException;
 import io.levelops.ingestion.models.controlplane.JobDTO;
 import io.levelops.ingestion.services.ControlPlaneService;
@@ -20,13 +21,16 @@ public class GithubPrStage extends BaseIngestionResultProcessingStage<GithubRepo
     private final GithubAggHelperService helper;
     private final ProductMappingService productMappingService;
     private final ControlPlaneService controlPlaneService;
+    private final ScmRollupRefreshService scmRollupRefreshService;
 
 
     @Autowired
-    public GithubPrStage(GithubAggHelperService helper, ProductMappingService productMappingService, ControlPlaneService controlPlaneService) {
+    public GithubPrStage(GithubAggHelperService helper, ProductMappingService productMappingService, ControlPlaneService controlPlaneService,
+                         ScmRollupRefreshService scmRollupRefreshService) {
         this.helper = helper;
         this.productMappingService = productMappingService;
         this.controlPlaneService = controlPlaneService;
+        this.scmRollupRefreshService = scmRollupRefreshService;
     }
 
     @Override
@@ -52,6 +56,7 @@ public class GithubPrStage extends BaseIngestionResultProcessingStage<GithubRepo
 
     @Override
     public void postStage(JobContext context, GithubJobState jobState) {
+        scmRollupRefreshService.refreshPrRollups(context.getTenantId(), context.getIntegrationId());
     }
 
     @Override
@@ -3,6 +3,7 @@ package io.levelops.etl.jobs.gitlab;
 import io.levelops.aggregations_shared.helpers.GitlabAggHelperService;
 import io.levelops.aggregations_shared.models.JobContext;
 import io.levelops.etl.job_framework.BaseIngestionResultProcessingStage;
+import io.levelops.etl.services.ScmRollupRefreshService;
 import io.levelops.integrations.gitlab.models.GitlabProject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -13,10 +14,12 @@ import java.sql.SQLException;
 public class GitlabCommitStage extends BaseIngestionResultProcessingStage<GitlabProject, GitlabState> {
 
     private final GitlabAggHelperService gitlabAggHelperService;
+    private final ScmRollupRefreshService scmRollupRefreshService;
 
     @Autowired
-    public GitlabCommitStage(GitlabAggHelperService gitlabAggHelperService) {
+    public GitlabCommitStage(GitlabAggHelperService gitlabAggHelperService, ScmRollupRefreshService scmRollupRefreshService) {
         this.gitlabAggHelperService = gitlabAggHelperService;
+        this.scmRollupRefreshService = scmRollupRefreshService;
     }
 
     @Override
@@ -46,6 +49,6 @@ public class GitlabCommitStage extends BaseIngestionResultProcessingStage<Gitlab
 
     @Override
     public void postStage(JobContext context, GitlabState jobState) throws SQLException {
-
+        scmRollupRefreshService.refreshCommitRollups(context.getTenantId(), context.getIntegrationId());
     }
 }
@@ -3,6 +3,7 @@ package io.levelops.etl.jobs.gitlab;
 import io.levelops.aggregations_shared.helpers.GitlabAggHelperService;
 import io.levelops.aggregations_shared.models.JobContext;
 import io.levelops.etl.job_framework.BaseIngestionResultProcessingStage;
+import io.levelops.etl.services.ScmRollupRefreshService;
 import io.levelops.integrations.gitlab.models.GitlabProject;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -12,10 +13,12 @@ import java.sql.SQLException;
 @Service
 public class GitlabMergeRequestStage extends BaseIngestionResultProcessingStage<GitlabProject, GitlabState> {
     private final GitlabAggHelperService gitlabAggHelperService;
+    private final ScmRollupRefreshService scmRollupRefreshService;
 
     @Autowired
-    public GitlabMergeRequestStage(GitlabAggHelperService gitlabAggHelperService) {
+    public GitlabMergeRequestStage(GitlabAggHelperService gitlabAggHelperService, ScmRollupRefreshService scmRollupRefreshService) {
         this.gitlabAggHelperService = gitlabAggHelperService;
+        this.scmRollupRefreshService = scmRollupRefreshService;
     }
 
     @Override
@@ -45,6 +48,6 @@ public class GitlabMergeRequestStage extends BaseIngestionResultProcessingStage<
 
     @Override
     public void postStage(JobContext context, GitlabState jobState) throws SQLException {
-
+        scmRollupRefreshService.refreshPrRollups(context.getTenantId(), context.getIntegrationId());
     }
 }
@@ -56,6 +56,8 @@ public class JiraIssuesStage extends BaseIngestionResultProcessingStage<JiraIssu
     private final ProductMappingService productMappingService;
     private final ControlPlaneService controlPlaneService;
     private final int threadCount;
+    private final int maxFilesInFlight;
+    private final int batchSize;
     private final boolean enableParallelWhitelist;
     private final List<IntegrationWhitelistEntry> integrationIdWhitelist;
     private final Set<String> disableStoryPointsBulkUpdateForTenants;
@@ -71,6 +73,8 @@ public class JiraIssuesStage extends BaseIngestionResultProcessingStage<JiraIssu
                            ProductMappingService productMappingService,
                            ControlPlaneService controlPlaneService,
                            @Value("${JIRA_ISSUE_STAGE_THREAD_COUNT:5}") final Integer jiraIssueStageThreadCount,
+                           @Value("${JIRA_ISSUE_STAGE_MAX_FILES_IN_FLIGHT:1}") final Integer jiraIssueStageMaxFilesInFlight,
+                           @Value("${JIRA_ISSUE_STAGE_BATCH_SIZE:1}") final Integer jiraIssueStageBatchSize,
                            @Value("${JIRA_ISSUE_STAGE_PARALLEL_ENABLE_WHITELIST:true}") Boolean enableParallelWhitelist,
                            @Value("${JIRA_ISSUE_STAGE_PARALLEL_INTEGRATION_ID_WHITELIST:}") String integrationIdWhitelist,
                            @Value("${JIRA_ISSUE_STAGE_DISABLE_STORY_POINTS_BULK_UPDATE_FOR_TENANTS:}") String disableStoryPointsBulkUpdateForTenantsString,
@@ -84,6 +88,8 @@ public class JiraIssuesStage extends BaseIngestionResultProcessingStage<JiraIssu
         this.productMappingService = productMappingService;
         this.controlPlaneService = controlPlaneService;
         this.threadCount = jiraIssueStageThreadCount;
+        this.maxFilesInFlight = jiraIssueStageMaxFilesInFlight;
+        this.batchSize = jiraIssueStageBatchSize;
         this.enableParallelWhitelist = enableParallelWhitelist;
         this.integrationIdWhitelist = IntegrationWhitelistEntry.fromCommaSeparatedString(integrationIdWhitelist);
         this.disableStoryPointsBulkUpdateForTenants = CommaListSplitter.splitToSet(disableStoryPointsBulkUpdateForTenantsString);
@@ -140,28 +146,13 @@ public class JiraIssuesStage extends BaseIngestionResultProcessingStage<JiraIssu
 
     @Override
     public void process(JobContext context, JiraJobState state, String ingestionJobId, JiraIssue entity) throws SQLException {
-        JobDTO ingestionJobDto = null;
-        try {
-            ingestionJobDto = context.getIngestionJobDto(ingestionJobId, controlPlaneService);
-        } catch (IngestionServiceException e) {
-            throw new RuntimeException(e);
-        }
         helper.processJiraIssue(
                 context.getTenantId(),
                 context.getIntegrationId(),
-                ingestionJobDto,
+                getIngestionJobDto(context, ingestionJobId),
                 entity,
                 context.getJobScheduledStartTime(),
-                JiraIssueParser.JiraParserConfig.builder()
-                        .epicLinkField(state.getEpicField())
-                        .storyPointsField(state.getStoryPointField())
-                        .sprintFieldKey(state.getSprintField().map(DbJiraField::getFieldKey).orElse(""))
-                        .sprintFieldName(state.getSprintField().map(DbJiraField::getName).orElse(""))
-                        .dueDateField(state.getDueDateField())
-                        .customFieldProperties(state.getCustomFields())
-                        .customFieldConfig(state.getCustomFieldConfigs())
-                        .salesforceConfig(state.getSalesForceFieldConfigs())
-                        .build(),
+                buildParserConfig(state),
                 state.getConfigVersion(),
                 context.getReprocessingRequested(),
                 state.getProductIds(),
@@ -173,6 +164,50 @@ public class JiraIssuesStage extends BaseIngestionResultProcessingStage<JiraIssu
                 state.getIsEnableForMasking());
     }
 
+    @Override
+    public int processBatch(JobContext context, JiraJobState state, String ingestionJobId, List<JiraIssue> entities) throws SQLException {
+        List<JiraAggHelperService.ProcessingStatus> statuses = helper.processJiraIssues(
+                context.getTenantId(),
+                context.getIntegrationId(),
+                getIngestionJobDto(context, ingestionJobId),
+                entities,
+                context.getJobScheduledStartTime(),
+                buildParserConfig(state),
+                state.getConfigVersion(),
+                context.getReprocessingRequested(),
+                state.getProductIds(),
+                state.getSprintIdCache(),
+                state.getDbSprintLoadingCache(),
+                state.getStatusIdToStatusCategoryCache(),
+                state.getUserIdByDisplayNameCache(),
+                state.getUserIdByCloudIdCache(),
+                state.getIsEnableForMasking());
+        return (int) statuses.stream()
+                .filter(status -> !status.isSuccess())
+                .count();
+    }
+
+    private JobDTO getIngestionJobDto(JobContext context, String ingestionJobId) {
+        try {
+            return context.getIngestionJobDto(ingestionJobId, controlPlaneService);
+        } catch (IngestionServiceException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static JiraIssueParser.JiraParserConfig buildParserConfig(JiraJobState state) {
+        return JiraIssueParser.JiraParserConfig.builder()
+                .epicLinkField(state.getEpicField())
+                .storyPointsField(state.getStoryPointField())
+                .sprintFieldKey(state.getSprintField().map(DbJiraField::getFieldKey).orElse(""))
+                .sprintFieldName(state.getSprintField().map(DbJiraField::getName).orElse(""))
+                .dueDateField(state.getDueDateField())
+                .customFieldProperties(state.getCustomFields())
+                .customFieldConfig(state.getCustomFieldConfigs())
+                .salesforceConfig(state.getSalesForceFieldConfigs())
+                .build();
+    }
+
     @Override
     public void postStage(JobContext context, JiraJobState jobState) {
         if (disableStoryPointsBulkUpdateForTenants.contains(context.getTenantId())) {
@@ -233,6 +268,16 @@ public class JiraIssuesStage extends BaseIngestionResultProcessingStage<JiraIssu
         return threadCount;
     }
 
+    @Override
+    public int getMaxFilesInFlight() {
+        return maxFilesInFlight;
+    }
+
+    @Override
+    public int getBatchSize() {
+        return batchSize;
+    }
+
     // region helpers
 
     @NotNull
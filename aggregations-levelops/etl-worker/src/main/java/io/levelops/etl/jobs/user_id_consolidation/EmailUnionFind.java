@@ -0,0 +1,112 @@
+package io.levelops.etl.jobs.user_id_consolidation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Union-find over emails. Each email is mapped to an int, and the forest is kept in int arrays, so that large
+ * tenants don't need an adjacency list per email nor a recursive traversal to find the connected components.
+ * <p>
+ * The members of each component are chained in a circular list (see {@link #next}) so that a component can be
+ * listed without scanning every email.
+ */
+public class EmailUnionFind {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> emails = new ArrayList<>();
+    private int[] parent = new int[INITIAL_CAPACITY];
+    private int[] size = new int[INITIAL_CAPACITY];
+    private int[] next = new int[INITIAL_CAPACITY];
+
+    public int add(String email) {
+        Integer id = ids.get(email);
+        if (id != null) {
+            return id;
+        }
+        id = emails.size();
+        if (id == parent.length) {
+            parent = Arrays.copyOf(parent, id * 2);
+            size = Arrays.copyOf(size, id * 2);
+            next = Arrays.copyOf(next, id * 2);
+        }
+        ids.put(email, id);
+        emails.add(email);
+        parent[id] = id;
+        size[id] = 1;
+        next[id] = id;
+        return id;
+    }
+
+    public boolean contains(String email) {
+        return ids.containsKey(email);
+    }
+
+    /**
+     * @return id of the component of the email; changes when the component is merged into another one
+     */
+    public int find(String email) {
+        Integer id = ids.get(email);
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown email: " + email);
+        }
+        return find(id);
+    }
+
+    private int find(int id) {
+        while (parent[id] != id) {
+            parent[id] = parent[parent[id]];
+            id = parent[id];
+        }
+        return id;
+    }
+
+    /**
+     * @return true if the emails were in different components
+     */
+    public boolean union(String email1, String email2) {
+        int root1 = find(add(email1));
+        int root2 = find(add(email2));
+        if (root1 == root2) {
+            return false;
+        }
+        if (size[root1] < size[root2]) {
+            int tmp = root1;
+            root1 = root2;
+            root2 = tmp;
+        }
+        parent[root2] = root1;
+        size[root1] += size[root2];
+        // splice the two circular member lists
+        int tmp = next[root1];
+        next[root1] = next[root2];
+        next[root2] = tmp;
+        return true;
+    }
+
+    public Set<String> getComponent(String email) {
+        int start = find(email);
+        Set<String> component = new HashSet<>();
+        int id = start;
+        do {
+            component.add(emails.get(id));
+            id = next[id];
+        } while (id != start);
+        return component;
+    }
+
+    public List<Set<String>> getComponents() {
+        List<Set<String>> components = new ArrayList<>();
+        for (int id = 0; id < emails.size(); id++) {
+            if (parent[id] == id) {
+                components.add(getComponent(emails.get(id)));
+            }
+        }
+        return components;
+    }
+}
@@ -4,7 +4,6 @@ import io.levelops.commons.databases.models.database.scm.DbScmUser;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -26,32 +25,13 @@ public class UserConsolidationGraphUtils {
         }
     }
 
-    private static void traverse(
-            Map<String, List<String>> emailGraph,
-            String node,
-            Set<String> visited,
-            Set<String> connectedComponents) {
-        if (visited.contains(node) || !emailGraph.containsKey(node)) {
-            return;
-        }
-        visited.add(node);
-        connectedComponents.add(node);
-        emailGraph.get(node).forEach(neighbor -> {
-            traverse(emailGraph, neighbor, visited, connectedComponents);
-        });
-    }
-
     public static List<Set<String>> getConnectedComponents(Map<String, List<String>> emailGraph) {
-        Set<String> visited = new HashSet<>();
-        List<Set<String>> connectedComponents = new ArrayList<>();
-        emailGraph.keySet().forEach(email -> {
-            if (!visited.contains(email)) {
-                Set<String> connectedComponent = new HashSet<>();
-                traverse(emailGraph, email, visited, connectedComponent);
-                connectedComponents.add(connectedComponent);
-            }
+        EmailUnionFind unionFind = new EmailUnionFind();
+        emailGraph.forEach((email, neighbors) -> {
+            unionFind.add(email);
+            neighbors.forEach(neighbor -> unionFind.union(email, neighbor));
         });
-        return connectedComponents;
+        return unionFind.getComponents();
     }
 
     private static void addEmailsToGraph(List<String> emails, Map<String, List<String>> emailGraph) {
@@ -0,0 +1,111 @@
+package io.levelops.etl.jobs.user_id_consolidation;
+
+import io.levelops.commons.databases.models.database.scm.DbScmUser;
+import lombok.Getter;
+import lombok.Setter;
+import org.apache.commons.collections4.CollectionUtils;
+
+import javax.annotation.Nullable;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Integration users of a tenant grouped by shared emails, kept between runs of {@link UserIdConsolidationStage}
+ * so that a run only has to apply the users that changed since the previous one.
+ * <p>
+ * Union-find can merge groups but not split them: a change that removes an email from a user (or takes the user
+ * out of auto-mapping) can not be applied, and the index has to be rebuilt.
+ */
+public class UserConsolidationIndex {
+    private final EmailUnionFind emails = new EmailUnionFind();
+    private final Map<String, DbScmUser> usersById = new HashMap<>();
+    private final Map<String, Set<String>> userIdsByEmail = new HashMap<>();
+    @Getter
+    private final Instant createdAt;
+    /**
+     * Start of the last run that processed this index; users updated after it are applied by the next run.
+     */
+    @Getter
+    @Setter
+    private Instant lastRunAt;
+    /**
+     * Latest org user version after the last run; if it changed, someone else edited the org users.
+     */
+    @Getter
+    @Setter
+    private UUID lastSeenVersionId;
+
+    public UserConsolidationIndex(Instant createdAt) {
+        this.createdAt = createdAt;
+        this.lastRunAt = createdAt;
+    }
+
+    public static boolean isEligible(DbScmUser user) {
+        return CollectionUtils.isNotEmpty(user.getEmails()) &&
+                (user.getMappingStatus() == null || user.getMappingStatus() == DbScmUser.MappingStatus.AUTO);
+    }
+
+    /**
+     * Adds or updates a user.
+     *
+     * @return false if the change can not be applied incrementally and the index must be rebuilt
+     */
+    public boolean apply(DbScmUser user) {
+        DbScmUser previous = usersById.get(user.getId());
+        if (!isEligible(user)) {
+            return previous == null;
+        }
+        if (previous != null && !user.getEmails().containsAll(previous.getEmails())) {
+            return false;
+        }
+        usersById.put(user.getId(), user);
+        String firstEmail = user.getEmails().get(0);
+        for (String email : user.getEmails()) {
+            userIdsByEmail.computeIfAbsent(email, k -> new HashSet<>()).add(user.getId());
+            emails.union(firstEmail, email);
+        }
+        return true;
+    }
+
+    public int getUserCount() {
+        return usersById.size();
+    }
+
+    /**
+     * @return the groups of the given users (each group once), or every group if userIds is null
+     */
+    public List<Set<DbScmUser>> getUserGroups(@Nullable Collection<String> userIds) {
+        if (userIds == null) {
+            return emails.getComponents().stream()
+                    .map(this::toUserGroup)
+                    .collect(Collectors.toList());
+        }
+        Map<Integer, Set<DbScmUser>> groupsByComponent = new HashMap<>();
+        for (String userId : new LinkedHashSet<>(userIds)) {
+            DbScmUser user = usersById.get(userId);
+            if (user == null) {
+                continue;
+            }
+            String email = user.getEmails().get(0);
+            groupsByComponent.computeIfAbsent(emails.find(email), k -> toUserGroup(emails.getComponent(email)));
+        }
+        return new ArrayList<>(groupsByComponent.values());
+    }
+
+    private Set<DbScmUser> toUserGroup(Set<String> componentEmails) {
+        return componentEmails.stream()
+                .map(userIdsByEmail::get)
+                .flatMap(Set::stream)
+                .map(usersById::get)
+                .collect(Collectors.toSet());
+    }
+}
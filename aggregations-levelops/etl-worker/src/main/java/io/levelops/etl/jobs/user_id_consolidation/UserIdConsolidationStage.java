@@ -1,6 +1,8 @@
 package io.levelops.etl.jobs.user_id_consolidation;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.levelops.aggregations_shared.database.JobDefinitionDatabaseService;
 import io.levelops.aggregations_shared.database.models.DbJobDefinition;
 import io.levelops.aggregations_shared.database.models.DbJobDefinitionUpdate;
@@ -22,30 +24,33 @@ import io.levelops.commons.helper.organization.OrgUsersHelper;
 import io.levelops.commons.helper.organization.OrgUsersLockService;
 import io.levelops.commons.models.DbListResponse;
 import io.levelops.etl.job_framework.GenericJobProcessingStage;
-import lombok.Value;
 import lombok.extern.log4j.Log4j2;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static io.levelops.etl.jobs.user_id_consolidation.UserConsolidationGraphUtils.createGraphs;
-import static io.levelops.etl.jobs.user_id_consolidation.UserConsolidationGraphUtils.getConnectedComponents;
-
 @Service
 @Log4j2
 public class UserIdConsolidationStage implements GenericJobProcessingStage<UserIdConsolidationState> {
     private final String ENABLED_KEY = "AUTO_USER_ID_CONSOLIDATION_ENABLED";
     private final String LAST_AUTO_VERSION_METADATA_KEY = "LAST_AUTO_VERSION";
+    private static final Duration UPDATED_AT_SAFETY_MARGIN = Duration.ofMinutes(5);
     private final UserIdentityService userIdentityService;
     private final OrgUsersDatabaseService orgUsersDatabaseService;
     private final OrgVersionsDatabaseService orgVersionsDatabaseService;
@@ -54,6 +59,10 @@ public class UserIdConsolidationStage implements GenericJobProcessingStage<UserI
     private final TenantConfigService tenantConfigService;
     private final JobDefinitionDatabaseService jobDefinitionDatabaseService;
     private final OrgUsersLockService orgUsersLockService;
+    // periodic rebuild, to drop deleted users and catch changes that don't bump updated_at
+    private final Duration fullRebuildInterval;
+    // kept between runs so that each run only applies the users that changed since the previous one
+    private final Cache<UUID, UserConsolidationIndex> indexesByJobDefinition;
 
     public UserIdConsolidationStage(
             UserIdentityService userIdentityService,
@@ -63,7 +72,12 @@ public class UserIdConsolidationStage implements GenericJobProcessingStage<UserI
             OrgUsersHelper orgUsersHelper,
             TenantConfigService tenantConfigService,
             JobDefinitionDatabaseService jobDefinitionDatabaseService,
-            OrgUsersLockService orgUsersLockService
+            OrgUsersLockService orgUsersLockService,
+            // same as the full job frequency (7 days): the daily runs in between are incremental
+            @Value("${USER_ID_CONSOLIDATION_FULL_REBUILD_HOURS:168}") long fullRebuildHours,
+            // 2x the job frequency (24h): tenants whose job stopped running don't keep their index forever
+            @Value("${USER_ID_CONSOLIDATION_INDEX_IDLE_MINUTES:2880}") long indexIdleMinutes,
+            @Value("${USER_ID_CONSOLIDATION_INDEX_MAX_USERS:2000000}") long indexMaxUsers
     ) {
         this.userIdentityService = userIdentityService;
         this.orgUsersDatabaseService = orgUsersDatabaseService;
@@ -73,7 +87,13 @@ public class UserIdConsolidationStage implements GenericJobProcessingStage<UserI
         this.tenantConfigService = tenantConfigService;
         this.jobDefinitionDatabaseService = jobDefinitionDatabaseService;
         this.orgUsersLockService = orgUsersLockService;
-
+        this.fullRebuildInterval = Duration.ofHours(fullRebuildHours);
+        // when full, the least recently used indexes are dropped and their next run rebuilds them
+        this.indexesByJobDefinition = CacheBuilder.newBuilder()
+                .expireAfterAccess(indexIdleMinutes, TimeUnit.MINUTES)
+                .maximumWeight(indexMaxUsers)
+                .<UUID, UserConsolidationIndex>weigher((jobDefinitionId, index) -> Math.max(1, index.getUserCount()))
+                .build();
     }
 
     @Override
@@ -87,26 +107,17 @@ public class UserIdConsolidationStage implements GenericJobProcessingStage<UserI
         Optional<OrgVersion> latestUserVersion = getLatestVersion(context.getTenantId());
         log.info("Latest user version at start of job: {}", latestUserVersion.map(OrgVersion::getVersion).orElse(null));
 
-        Map<String, DbScmUser> allIntegrationUsersWithEmails = userIdentityService
-                .stream(context.getTenantId(), UserIdentitiesFilter.builder()
-                        .emptyEmails(false)
-                        .build())
-                .filter(user -> user.getMappingStatus() == null || user.getMappingStatus() == DbScmUser.MappingStatus.AUTO)
-                .collect(Collectors.toMap(DbScmUser::getId, user -> user));
-
-        log.info("Found {} integration users with emails to consolidate", allIntegrationUsersWithEmails.size());
-        Map<String, List<String>> emailToUserIds = new HashMap<>();
-        Map<String, List<String>> emailGraph = new HashMap<>();
-        createGraphs(allIntegrationUsersWithEmails.values(), emailToUserIds, emailGraph);
-        List<Set<String>> connectedEmailGroups = getConnectedComponents(emailGraph);
-        List<Set<DbScmUser>> connectedUserGroups = connectedEmailGroups.stream()
-                .map(emails -> emails.stream()
-                        .map(emailToUserIds::get)
-                        .flatMap(List::stream)
-                        .map(allIntegrationUsersWithEmails::get)
-                        .collect(Collectors.toSet())
-                )
-                .collect(Collectors.toList());
+        // the index is only put back once the run succeeded: a failed run rebuilds it next time
+        UUID indexKey = context.getJobInstanceId().getJobDefinitionId();
+        UserConsolidationIndex index = indexesByJobDefinition.asMap().remove(indexKey);
+        Instant runStart = Instant.now();
+        List<Set<DbScmUser>> connectedUserGroups = (index != null && canRunIncrementally(index, latestUserVersion, runStart))
+                ? applyChangedUsers(context.getTenantId(), index)
+                : null;
+        if (connectedUserGroups == null) {
+            index = buildIndex(context.getTenantId(), runStart);
+            connectedUserGroups = index.getUserGroups(null);
+        }
 
         log.info("Found {} connected user groups", connectedUserGroups.size());
 
@@ -118,6 +129,56 @@ public class UserIdConsolidationStage implements GenericJobProcessingStage<UserI
         } catch (SQLException e) {
             throw new RuntimeException(e);
         }
+        index.setLastRunAt(runStart);
+        index.setLastSeenVersionId(getLatestVersion(context.getTenantId()).map(OrgVersion::getId).orElse(null));
+        indexesByJobDefinition.put(indexKey, index);
+    }
+
+    private boolean canRunIncrementally(UserConsolidationIndex index, Optional<OrgVersion> latestUserVersion, Instant now) {
+        if (index.getCreatedAt().plus(fullRebuildInterval).isBefore(now)) {
+            log.info("User consolidation index is older than {}, rebuilding it", fullRebuildInterval);
+            return false;
+        }
+        if (!Objects.equals(index.getLastSeenVersionId(), latestUserVersion.map(OrgVersion::getId).orElse(null))) {
+            log.info("Org users have been edited since the last run, rebuilding the user consolidation index");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Loads every integration user with emails and groups them.
+     */
+    private UserConsolidationIndex buildIndex(String company, Instant runStart) {
+        UserConsolidationIndex index = new UserConsolidationIndex(runStart);
+        userIdentityService.stream(company, UserIdentitiesFilter.builder()
+                        .emptyEmails(false)
+                        .build())
+                .filter(UserConsolidationIndex::isEligible)
+                .forEach(index::apply);
+        log.info("Found {} integration users with emails to consolidate", index.getUserCount());
+        return index;
+    }
+
+    /**
+     * Applies the integration users updated since the last run to the index.
+     *
+     * @return the groups of the updated users, or null if the index has to be rebuilt
+     */
+    private List<Set<DbScmUser>> applyChangedUsers(String company, UserConsolidationIndex index) {
+        long updatedAfter = index.getLastRunAt().minus(UPDATED_AT_SAFETY_MARGIN).getEpochSecond();
+        List<DbScmUser> changedUsers = userIdentityService.stream(company, UserIdentitiesFilter.builder()
+                        .usersUpdatedRange(ImmutablePair.of(updatedAfter, null))
+                        .build())
+                .collect(Collectors.toList());
+        for (DbScmUser user : changedUsers) {
+            if (!index.apply(user)) {
+                log.info("Integration user {} lost emails or is no longer auto-mapped, rebuilding the user consolidation index", user.getId());
+                return null;
+            }
+        }
+        log.info("Applied {} integration users updated since {} to the user consolidation index", changedUsers.size(), index.getLastRunAt());
+        return index.getUserGroups(changedUsers.stream().map(DbScmUser::getId).collect(Collectors.toList()));
     }
 
     protected void updateUsers(JobContext context, List<DBOrgUser> orgUsersToUpdate, Optional<OrgVersion> startingLatestVersion) throws SQLException {
@@ -423,7 +484,7 @@ public class UserIdConsolidationStage implements GenericJobProcessingStage<UserI
         }
     }
 
-    @Value
+    @lombok.Value
     public static class UserMappingWithOrgUser {
         DBOrgUserCloudIdMapping cloudIdMapping;
         DBOrgUser orgUser;
@@ -0,0 +1,104 @@
+package io.levelops.etl.services;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.levelops.commons.databases.services.scm.ScmRollupDatabaseService;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Brings the scm daily rollups up to date after an scm stage.
+ * <p>
+ * The rollup tables record the days touched by any writer of scm_commits / scm_pullrequests, so stages only need
+ * to trigger a refresh of those days in postStage. Until an integration has been fully rebuilt once, the first
+ * stage to finish schedules the rebuild in the background instead, so that it never delays the job. Queries keep
+ * using the raw tables until the rebuild is done.
+ * <p>
+ * Refresh failures are only logged: the ingestion already succeeded, and the days that could not be refreshed stay
+ * dirty, so they are served from the raw tables and retried by the next refresh.
+ */
+@Log4j2
+@Service
+public class ScmRollupRefreshService {
+    private final ScmRollupDatabaseService scmRollupDatabaseService;
+    private final ExecutorService rebuildExecutor;
+    private final Set<String> scheduledRebuilds = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public ScmRollupRefreshService(ScmRollupDatabaseService scmRollupDatabaseService,
+                                   @Value("${SCM_ROLLUP_REBUILD_QUEUE_SIZE:100}") int rebuildQueueSize) {
+        this.scmRollupDatabaseService = scmRollupDatabaseService;
+        // a single thread: rebuilds are heavy and only happen once per integration
+        this.rebuildExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(rebuildQueueSize), new ThreadFactoryBuilder()
+                .setNameFormat("scm-rollup-rebuild-%d")
+                .setDaemon(true)
+                .build());
+    }
+
+    public void refreshCommitRollups(String company, String integrationId) {
+        try {
+            if (scheduleRebuildIfNotReady(company, integrationId)) {
+                return;
+            }
+            int days = scmRollupDatabaseService.refreshCommitRollups(company, integrationId);
+            log.info("Refreshed {} days of commit rollups for company={}, integrationId={}", days, company, integrationId);
+        } catch (Exception e) {
+            log.error("Failed to refresh commit rollups for company={}, integrationId={}", company, integrationId, e);
+        }
+    }
+
+    public void refreshPrRollups(String company, String integrationId) {
+        try {
+            if (scheduleRebuildIfNotReady(company, integrationId)) {
+                return;
+            }
+            int days = scmRollupDatabaseService.refreshPrRollups(company, integrationId);
+            log.info("Refreshed {} days of PR rollups for company={}, integrationId={}", days, company, integrationId);
+        } catch (Exception e) {
+            log.error("Failed to refresh PR rollups for company={}, integrationId={}", company, integrationId, e);
+        }
+    }
+
+    private boolean scheduleRebuildIfNotReady(String company, String integrationId) {
+        if (scmRollupDatabaseService.isReady(company, Set.of(integrationId))) {
+            return false;
+        }
+        String key = company + ":" + integrationId;
+        if (!scheduledRebuilds.add(key)) {
+            return true;
+        }
+        try {
+            rebuildExecutor.execute(() -> {
+                try {
+                    scmRollupDatabaseService.rebuild(company, integrationId);
+                } catch (Exception e) {
+                    log.error("Failed to rebuild scm rollups for company={}, integrationId={}", company, integrationId, e);
+                } finally {
+                    scheduledRebuilds.remove(key);
+                }
+            });
+            log.info("Scheduled scm rollups rebuild for company={}, integrationId={}", company, integrationId);
+        } catch (RejectedExecutionException e) {
+            // the next stage of this integration will try again
+            scheduledRebuilds.remove(key);
+            log.warn("Too many scm rollup rebuilds pending, skipping company={}, integrationId={}", company, integrationId);
+        }
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+}
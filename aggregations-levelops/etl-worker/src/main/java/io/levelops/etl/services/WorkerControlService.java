@@ -36,6 +36,7 @@ public class WorkerControlService {
     private final int heartbeatIntervalInSec;
     private final int warmupDelaySecs;
     private final int maxNewJobsInOneCycle;
+    private final boolean batchClaimEnabled;
     private final ScheduledExecutorService runJobExecutor;
     private final ScheduledExecutorService heartbeatExecutor;
     private Future<?> jobFetcherLoopFuture;
@@ -49,7 +50,8 @@ public class WorkerControlService {
             @Qualifier("workerId") String workerId,
             @Value("${WORKER_CONTROL_INTERVAL_SECONDS:60}") int schedulingIntervalInSec,
             @Value("${HEARTBEAT_INTERVAL_SECONDS:120}") int heartbeatIntervalInSec,
-            @Value("${MAX_NEW_JOBS_IN_ONE_CYCLE:10}") int maxNewJobsInOneCycle) {
+            @Value("${MAX_NEW_JOBS_IN_ONE_CYCLE:10}") int maxNewJobsInOneCycle,
+            @Value("${BATCH_CLAIM_ENABLED:true}") boolean batchClaimEnabled) {
         this.engine = engine;
         this.etlSchedulerClient = etlSchedulerClient;
         this.jobInstanceDatabaseService = jobInstanceDatabaseService;
@@ -58,6 +60,7 @@ public class WorkerControlService {
         this.heartbeatIntervalInSec = heartbeatIntervalInSec;
         this.warmupDelaySecs = DEFAULT_WARMUP_DELAY_SECS;
         this.maxNewJobsInOneCycle = maxNewJobsInOneCycle;
+        this.batchClaimEnabled = batchClaimEnabled;
         runJobExecutor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
                 .setNameFormat("worker-loop-%d")
                 .build());
@@ -101,6 +104,10 @@ public class WorkerControlService {
     }
 
     public synchronized void fetchAndRunJobs() throws EtlSchedulerClient.SchedulerClientException {
+        if (batchClaimEnabled) {
+            claimAndRunJobs();
+            return;
+        }
         List<JobContext> jobContextList = getJobsToRun();
         int newJobsRunCount = 0;
         for (JobContext jobContext : jobContextList) {
@@ -122,6 +129,30 @@ public class WorkerControlService {
         }
     }
 
+    /**
+     * Lets the scheduler pick and claim the jobs in one call, instead of downloading every candidate and
+     * racing the other workers to claim them one by one.
+     */
+    private void claimAndRunJobs() throws EtlSchedulerClient.SchedulerClientException {
+        // This prevents the current worker from hogging up all the queued
+        // jobs leading to imbalanced worker nodes
+        int limit = Math.min(maxNewJobsInOneCycle, engine.getAvailableCapacity());
+        if (limit <= 0) {
+            return;
+        }
+        List<JobContext> claimedJobs = etlSchedulerClient.claimJobs(workerId, limit, List.copyOf(engine.getSupportedProcessorNames()));
+        if (!claimedJobs.isEmpty()) {
+            log.info("Claimed {} jobs on worker {} (limit={})", claimedJobs.size(), workerId, limit);
+        }
+        for (JobContext jobContext : claimedJobs) {
+            Optional<EtlEngine.EngineJob> engineJob = engine.submitJob(jobContext);
+            if (engineJob.isEmpty()) {
+                etlSchedulerClient.unclaimJob(jobContext.getJobInstanceId(), workerId);
+                log.info("Unclaimed job {} on worker {}", jobContext.getJobInstanceId(), workerId);
+            }
+        }
+    }
+
     private class HeartbeatLoop implements Runnable {
         @Override
         public void run() {
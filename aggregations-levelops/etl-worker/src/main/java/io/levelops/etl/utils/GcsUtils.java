@@ -1,26 +1,43 @@
 package io.levelops.etl.utils;
 
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.ReadChannel;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.Storage;
 import dev.failsafe.Failsafe;
+import dev.failsafe.FailsafeException;
 import dev.failsafe.RetryPolicy;
 import io.levelops.commons.models.ListResponse;
 import io.levelops.integrations.gcs.models.GcsDataResult;
 import io.levelops.integrations.storage.models.StorageContent;
+import io.levelops.integrations.storage.models.StorageFormat;
+import io.levelops.integrations.storage.models.StorageMetadata;
+import io.levelops.integrations.storage.utils.NdjsonStorageCodec;
 import lombok.NonNull;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 @Log4j2
 @Service
 public class GcsUtils {
+    private static final String RECORDS_FIELD = "records";
 
     private final Storage storage;
     private final ObjectMapper objectMapper;
@@ -52,10 +69,115 @@ public class GcsUtils {
             log.warn("Error downloading file customer={}, integrationId={}, {}, {}, {}, will skip this file!", customer, integrationId, issuesBucket, issuesPath, issuesGeneration, e);
             return null;
         }
-        StorageContent<ListResponse<C>> response = objectMapper.readValue(new String(bytes),
-                StorageContent.getListStorageContentJavaType(objectMapper, cContentTypeClass));
+        StorageContent<ListResponse<C>> response;
+        if (record.getStorageFormat() == StorageFormat.NDJSON_GZIP) {
+            List<C> records = new ArrayList<>();
+            StorageMetadata storageMetadata;
+            try {
+                storageMetadata = NdjsonStorageCodec.<C>deserialize(objectMapper, new ByteArrayInputStream(bytes), cContentTypeClass, records::add);
+            } catch (JsonProcessingException e) {
+                throw e;
+            } catch (IOException e) {
+                log.warn("Error decompressing file customer={}, integrationId={}, {}, {}, {}, will skip this file!", customer, integrationId, issuesBucket, issuesPath, issuesGeneration, e);
+                return null;
+            }
+            response = StorageContent.<ListResponse<C>>builder()
+                    .storageMetadata(storageMetadata)
+                    .data(ListResponse.of(records))
+                    .build();
+        } else {
+            response = objectMapper.readValue(new String(bytes),
+                    StorageContent.getListStorageContentJavaType(objectMapper, cContentTypeClass));
+        }
         log.info("Fetched {} records from file {}.", response.getData().getRecords().size(), issuesPath);
         return response;
     }
-}
 
+    /**
+     * Streams the records of a {@code StorageContent<ListResponse<C>>} file one at a time instead of loading
+     * the whole file in memory. Reading is only retried if no record has been handed to the consumer yet.
+     *
+     * @param cContentTypeClass type of a single record
+     * @param consumer          called for every record, in file order
+     * @return number of records streamed, or null if the file could not be read (the file should be skipped)
+     */
+    public <C> Integer streamRecordsFromGcs(GcsDataResult record, JavaType cContentTypeClass, String customer, String integrationId, Consumer<C> consumer) throws IOException {
+        String bucket = record.getBlobId().getBucket();
+        String path = record.getBlobId().getName();
+        Long generation = record.getBlobId().getGeneration();
+        AtomicInteger emitted = new AtomicInteger();
+
+        RetryPolicy<Object> retryPolicy = RetryPolicy.builder()
+                .handleIf(e -> emitted.get() == 0 && !(e instanceof JsonProcessingException))
+                .withDelay(Duration.ofSeconds(2))
+                .withMaxRetries(3)
+                .onRetry(e -> log.error("Failure in reading gcs file - retrying", e.getLastException()))
+                .onFailure(e -> log.error("Failed to read gcs file - reties exceeded", e.getException()))
+                .build();
+
+        try {
+            Failsafe.with(retryPolicy).run(() -> {
+                try (ReadChannel reader = storage.reader(BlobId.of(bucket, path, generation));
+                     InputStream inputStream = Channels.newInputStream(reader)) {
+                    this.<C>streamRecords(inputStream, record.getStorageFormat(), cContentTypeClass, entity -> {
+                        emitted.incrementAndGet();
+                        consumer.accept(entity);
+                    });
+                }
+            });
+        } catch (Exception e) {
+            Throwable cause = (e instanceof FailsafeException && e.getCause() != null) ? e.getCause() : e;
+            if (cause instanceof JsonProcessingException) {
+                throw (JsonProcessingException) cause;
+            }
+            if (emitted.get() > 0) {
+                // records were already handed out, so the file cannot be skipped or re-read transparently
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new IOException(String.format("Failed to stream gcs file %s/%s after %d records", bucket, path, emitted.get()), cause);
+            }
+            log.warn("Error downloading file customer={}, integrationId={}, {}, {}, {}, will skip this file!", customer, integrationId, bucket, path, generation, cause);
+            return null;
+        }
+        log.info("Streamed {} records from file {}.", emitted.get(), path);
+        return emitted.get();
+    }
+
+    /**
+     * Parses a serialized {@code StorageContent<ListResponse<C>>} and hands each element of the "records" array
+     * to the consumer as soon as it is deserialized. Other fields (e.g. "_metadata", "count") are skipped.
+     *
+     * @return number of records parsed
+     */
+    public <C> int streamRecords(InputStream inputStream, StorageFormat storageFormat, JavaType cContentTypeClass, Consumer<C> consumer) throws IOException {
+        if (storageFormat == StorageFormat.NDJSON_GZIP) {
+            AtomicInteger count = new AtomicInteger();
+            NdjsonStorageCodec.<C>deserialize(objectMapper, inputStream, cContentTypeClass, entity -> {
+                consumer.accept(entity);
+                count.incrementAndGet();
+            });
+            return count.get();
+        }
+        int count = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(inputStream)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected storage content to be a json object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String fieldName = parser.getCurrentName();
+                JsonToken token = parser.nextToken();
+                if (RECORDS_FIELD.equals(fieldName) && token == JsonToken.START_ARRAY) {
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        C entity = objectMapper.readValue(parser, cContentTypeClass);
+                        consumer.accept(entity);
+                        count++;
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        }
+        return count;
+    }
+}
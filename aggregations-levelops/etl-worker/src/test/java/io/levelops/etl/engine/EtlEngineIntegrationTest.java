@@ -100,7 +100,7 @@ public class EtlEngineIntegrationTest {
         JobTrackingUtilsService jobTrackingUtilsService = new JobTrackingUtilsService(jobInstanceDatabaseService, "test-worker");
         MeterRegistry meterRegistry = new SimpleMeterRegistry();
 
-        EtlJobRunner jobRunner = new EtlJobRunner(gcsUtils, objectMapper, jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry);
+        EtlJobRunner jobRunner = new EtlJobRunner(gcsUtils, objectMapper, jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry, new SharedStageExecutor(10, 10, meterRegistry), null);
         // region jira
         EtlProcessorRegistry etlProcessorRegistry = mock(EtlProcessorRegistry.class);
         EtlProcessor mockJiraEtlProcessor = mock(EtlProcessor.class);
@@ -14,7 +14,6 @@ import io.levelops.commons.etl.models.JobPriority;
 import io.levelops.commons.etl.models.JobStatus;
 import io.levelops.commons.etl.models.JobType;
 import io.levelops.commons.jackson.DefaultObjectMapper;
-import io.levelops.commons.models.ListResponse;
 import io.levelops.etl.job_framework.EtlJobRunner;
 import io.levelops.etl.job_framework.EtlProcessorRegistry;
 import io.levelops.etl.services.JobTrackingUtilsService;
@@ -22,7 +21,7 @@ import io.levelops.etl.utils.GcsUtils;
 import io.levelops.ingestion.exceptions.IngestionServiceException;
 import io.levelops.integrations.gcs.models.BlobId;
 import io.levelops.integrations.gcs.models.GcsDataResult;
-import io.levelops.integrations.storage.models.StorageContent;
+import io.levelops.utils.GcsTestUtils;
 import io.levelops.utils.SampleJobStage;
 import io.levelops.utils.TestEtlProcessor;
 import io.micrometer.core.instrument.MeterRegistry;
@@ -90,18 +89,13 @@ public class EtlEngineTest {
         GcsUtils gcsUtils = mock(GcsUtils.class);
         this.longRunningJobStage = spy(new LongRunningJobStage());
         this.aggProcessor = spy(new TestEtlProcessor(List.of(longRunningJobStage)));
-        when(gcsUtils.fetchRecordsFromGcs(any(), any(), any(), any(), any())).thenReturn(
-                StorageContent.<ListResponse<Object>>builder()
-                        .data(ListResponse.builder()
-                                .records(List.of(
-                                        SampleJobStage.ExampleSerialized.builder()
-                                                .name("test")
-                                                .build(),
-                                        SampleJobStage.ExampleSerialized.builder()
-                                                .name("test2")
-                                                .build()))
-                                .build()).build()
-        );
+        GcsTestUtils.mockGcsRecords(gcsUtils, List.of(
+                SampleJobStage.ExampleSerialized.builder()
+                        .name("test")
+                        .build(),
+                SampleJobStage.ExampleSerialized.builder()
+                        .name("test2")
+                        .build()));
         when(jobTrackingUtilsService.updateJobInstanceStatus(any(), any())).thenReturn(true);
         when(jobTrackingUtilsService.updateJobInstanceToPending(any())).thenReturn(true);
         when(jobInstanceDatabaseService.update(any(), any())).thenReturn(true);
@@ -156,7 +150,7 @@ public class EtlEngineTest {
                 .build());
 
         MeterRegistry meterRegistry = new SimpleMeterRegistry();
-        this.jobRunner = new EtlJobRunner(gcsUtils, DefaultObjectMapper.get(), jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry);
+        this.jobRunner = new EtlJobRunner(gcsUtils, DefaultObjectMapper.get(), jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry, new SharedStageExecutor(10, 10, meterRegistry), null);
         this.engine = new EtlEngine(2, 100000, jobRunner, jobTrackingUtilsService, jobInstanceDatabaseService, new EtlProcessorRegistry(List.of(this.aggProcessor)), meterRegistry, ingestionResultPayloadUtils);
         when(aggProcessor.createState(any())).thenReturn(testJobState);
         this.jobContext = JobContext.builder()
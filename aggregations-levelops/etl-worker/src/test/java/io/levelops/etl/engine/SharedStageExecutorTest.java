@@ -0,0 +1,118 @@
+package io.levelops.etl.engine;
+
+import io.levelops.aggregations_shared.models.JobContext;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class SharedStageExecutorTest {
+
+    private JobContext jobContext(String tenantId) {
+        return JobContext.builder()
+                .tenantId(tenantId)
+                .build();
+    }
+
+    private int runAndGetMaxConcurrency(SharedStageExecutor sharedStageExecutor, int taskCount, ExecutorService... executors) throws InterruptedException {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(taskCount * executors.length);
+        Thread[] submitters = new Thread[executors.length];
+        for (int e = 0; e < executors.length; e++) {
+            ExecutorService executor = executors[e];
+            submitters[e] = new Thread(() -> {
+                for (int i = 0; i < taskCount; i++) {
+                    executor.execute(() -> {
+                        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                        try {
+                            Thread.sleep(20);
+                        } catch (InterruptedException ex) {
+                            throw new RuntimeException(ex);
+                        }
+                        running.decrementAndGet();
+                        done.countDown();
+                    });
+                }
+            });
+            submitters[e].start();
+        }
+        assertThat(done.await(30, TimeUnit.SECONDS)).isTrue();
+        return maxRunning.get();
+    }
+
+    @Test
+    public void testJobLimit() throws InterruptedException {
+        SharedStageExecutor sharedStageExecutor = new SharedStageExecutor(10, 10, new SimpleMeterRegistry());
+        int maxRunning = runAndGetMaxConcurrency(sharedStageExecutor, 20, sharedStageExecutor.newJobExecutor(jobContext("foo"), 3));
+        assertThat(maxRunning).isLessThanOrEqualTo(3);
+    }
+
+    @Test
+    public void testTenantLimit() throws InterruptedException {
+        SharedStageExecutor sharedStageExecutor = new SharedStageExecutor(10, 4, new SimpleMeterRegistry());
+        int maxRunning = runAndGetMaxConcurrency(sharedStageExecutor, 20,
+                sharedStageExecutor.newJobExecutor(jobContext("foo"), 3),
+                sharedStageExecutor.newJobExecutor(jobContext("foo"), 3));
+        assertThat(maxRunning).isLessThanOrEqualTo(4);
+    }
+
+    @Test
+    public void testWorkerLimit() throws InterruptedException {
+        SharedStageExecutor sharedStageExecutor = new SharedStageExecutor(5, 5, new SimpleMeterRegistry());
+        int maxRunning = runAndGetMaxConcurrency(sharedStageExecutor, 20,
+                sharedStageExecutor.newJobExecutor(jobContext("foo"), 4),
+                sharedStageExecutor.newJobExecutor(jobContext("bar"), 4),
+                sharedStageExecutor.newJobExecutor(jobContext("baz"), 4));
+        assertThat(maxRunning).isLessThanOrEqualTo(5);
+    }
+
+    @Test
+    public void testShutdown() throws InterruptedException {
+        SharedStageExecutor sharedStageExecutor = new SharedStageExecutor(5, 5, new SimpleMeterRegistry());
+        ExecutorService executor1 = sharedStageExecutor.newJobExecutor(jobContext("foo"), 2);
+        ExecutorService executor2 = sharedStageExecutor.newJobExecutor(jobContext("foo"), 2);
+        CountDownLatch latch = new CountDownLatch(1);
+        executor1.execute(() -> latch.countDown());
+        executor1.shutdown();
+        assertThat(executor1.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(latch.getCount()).isEqualTo(0);
+        assertThatThrownBy(() -> executor1.execute(() -> { })).isInstanceOf(RejectedExecutionException.class);
+
+        // other jobs are not affected
+        CountDownLatch latch2 = new CountDownLatch(1);
+        executor2.execute(() -> latch2.countDown());
+        assertThat(latch2.await(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void testIdleTenantsAreEvicted() throws InterruptedException {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        SharedStageExecutor sharedStageExecutor = new SharedStageExecutor(5, 5, meterRegistry);
+        ExecutorService executor1 = sharedStageExecutor.newJobExecutor(jobContext("foo"), 2);
+        ExecutorService executor2 = sharedStageExecutor.newJobExecutor(jobContext("foo"), 2);
+        CountDownLatch latch = new CountDownLatch(1);
+        executor1.execute(latch::countDown);
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(sharedStageExecutor.getTenantCount()).isEqualTo(1);
+        assertThat(meterRegistry.find("etl.worker.stage.executor.tenant.permits.used").tag("tenant_id", "foo").gauge()).isNotNull();
+
+        executor1.shutdown();
+        assertThat(executor1.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        // still used by executor2
+        assertThat(sharedStageExecutor.getTenantCount()).isEqualTo(1);
+
+        executor2.shutdown();
+        executor2.shutdown();
+        assertThat(executor2.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(sharedStageExecutor.getTenantCount()).isEqualTo(0);
+        assertThat(meterRegistry.find("etl.worker.stage.executor.tenant.permits.used").tag("tenant_id", "foo").gauge()).isNull();
+    }
+}
@@ -7,17 +7,18 @@ import io.levelops.aggregations_shared.database.JobDefinitionDatabaseService;
 import io.levelops.aggregations_shared.database.JobInstanceDatabaseService;
 import io.levelops.aggregations_shared.database.models.DbJobInstanceUpdate;
 import io.levelops.aggregations_shared.models.JobContext;
+import io.levelops.commons.aggregations_cache.services.AggCacheService;
 import io.levelops.commons.etl.models.GcsDataResultWithDataType;
 import io.levelops.commons.etl.models.JobInstanceId;
 import io.levelops.commons.etl.models.JobStatus;
 import io.levelops.commons.etl.models.JobType;
 import io.levelops.commons.jackson.DefaultObjectMapper;
-import io.levelops.commons.models.ListResponse;
+import io.levelops.etl.engine.SharedStageExecutor;
 import io.levelops.etl.services.JobTrackingUtilsService;
 import io.levelops.etl.utils.GcsUtils;
 import io.levelops.integrations.gcs.models.BlobId;
 import io.levelops.integrations.gcs.models.GcsDataResult;
-import io.levelops.integrations.storage.models.StorageContent;
+import io.levelops.utils.GcsTestUtils;
 import io.levelops.utils.SampleGenericJobStage;
 import io.levelops.utils.SampleJobStage;
 import io.levelops.utils.SampleJobStage.ExampleSerialized;
@@ -37,11 +38,16 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -81,17 +87,14 @@ public class EtlJobRunnerTest {
         when(testEtlProcessor.createState(any())).thenReturn(testJobState);
         ObjectMapper objectMapper = DefaultObjectMapper.get();
         GcsUtils gcsUtils = mock(GcsUtils.class);
-        when(gcsUtils.fetchRecordsFromGcs(any(), any(), any(), any(), any())).thenReturn(
-                StorageContent.<ListResponse<Object>>builder()
-                        .data(ListResponse.builder()
-                                .records(List.of(
-                                        ExampleSerialized.builder()
-                                                .name("test")
-                                                .build()))
-                                .build()).build()
-        );
+        GcsTestUtils.mockGcsRecords(gcsUtils, List.of(
+                ExampleSerialized.builder()
+                        .name("test")
+                        .build()));
         when(jobTrackingUtilsService.updateJobInstanceToPending(any())).thenReturn(true);
-        var jobRunner = new EtlJobRunner(gcsUtils, objectMapper, jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry);
+        when(jobTrackingUtilsService.updateJobInstanceStatus(any(), eq(JobStatus.SUCCESS))).thenReturn(true);
+        AggCacheService aggCacheService = mock(AggCacheService.class);
+        var jobRunner = new EtlJobRunner(gcsUtils, objectMapper, jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry, new SharedStageExecutor(10, 10, meterRegistry), aggCacheService);
         var uuid = UUID.randomUUID();
         var jobContext = createJobContext(uuid, List.of(
                 GcsDataResultWithDataType.builder()
@@ -114,6 +117,8 @@ public class EtlJobRunnerTest {
         assertThat(testJobState.getName()).isEqualTo("testing testing");
         // Since 2 is added in the entity processing stage and there are 2 entities, we should see twice
         assertThat(testJobState.getListPopulatedBeforeJob()).isEqualTo(List.of(1, 2, 2, 3, 4));
+        // cached aggregations of this tenant/integration are invalidated once the job succeeds
+        verify(aggCacheService).invalidate("1", "1");
     }
 
     @Test
@@ -125,17 +130,12 @@ public class EtlJobRunnerTest {
         when(testEtlProcessor.createState(any())).thenReturn(testJobState);
         ObjectMapper objectMapper = DefaultObjectMapper.get();
         GcsUtils gcsUtils = mock(GcsUtils.class);
-        when(gcsUtils.fetchRecordsFromGcs(any(), any(), any(), any(), any())).thenReturn(
-                StorageContent.<ListResponse<Object>>builder()
-                        .data(ListResponse.builder()
-                                .records(List.of(
-                                        ExampleSerialized.builder()
-                                                .name("test")
-                                                .build()))
-                                .build()).build()
-        );
+        GcsTestUtils.mockGcsRecords(gcsUtils, List.of(
+                ExampleSerialized.builder()
+                        .name("test")
+                        .build()));
         when(jobTrackingUtilsService.updateJobInstanceToPending(any())).thenReturn(true);
-        var jobRunner = new EtlJobRunner(gcsUtils, objectMapper, jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry);
+        var jobRunner = new EtlJobRunner(gcsUtils, objectMapper, jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry, new SharedStageExecutor(10, 10, meterRegistry), null);
         var uuid = UUID.randomUUID();
         var jobContext = createJobContext(uuid, List.of(
                 GcsDataResultWithDataType.builder()
@@ -187,17 +187,12 @@ public class EtlJobRunnerTest {
         when(testEtlProcessor.createState(any())).thenReturn(testJobState);
         ObjectMapper objectMapper = DefaultObjectMapper.get();
         GcsUtils gcsUtils = mock(GcsUtils.class);
-        when(gcsUtils.fetchRecordsFromGcs(any(), any(), any(), any(), any())).thenReturn(
-                StorageContent.<ListResponse<Object>>builder()
-                        .data(ListResponse.builder()
-                                .records(List.of(
-                                        ExampleSerialized.builder()
-                                                .name("test")
-                                                .build()))
-                                .build()).build()
-        );
+        GcsTestUtils.mockGcsRecords(gcsUtils, List.of(
+                ExampleSerialized.builder()
+                        .name("test")
+                        .build()));
         when(jobTrackingUtilsService.updateJobInstanceToPending(any())).thenReturn(true);
-        var jobRunner = new EtlJobRunner(gcsUtils, objectMapper, jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry);
+        var jobRunner = new EtlJobRunner(gcsUtils, objectMapper, jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry, new SharedStageExecutor(10, 10, meterRegistry), null);
         var uuid = UUID.randomUUID();
         var jobContext = createJobContext(uuid, List.of(
                 GcsDataResultWithDataType.builder()
@@ -257,17 +252,12 @@ public class EtlJobRunnerTest {
         when(testEtlProcessor.createState(any())).thenReturn(testJobState);
         ObjectMapper objectMapper = DefaultObjectMapper.get();
         GcsUtils gcsUtils = mock(GcsUtils.class);
-        when(gcsUtils.fetchRecordsFromGcs(any(), any(), any(), any(), any())).thenReturn(
-                StorageContent.<ListResponse<Object>>builder()
-                        .data(ListResponse.builder()
-                                .records(List.of(
-                                        ExampleSerialized.builder()
-                                                .name("test")
-                                                .build()))
-                                .build()).build()
-        );
+        GcsTestUtils.mockGcsRecords(gcsUtils, List.of(
+                ExampleSerialized.builder()
+                        .name("test")
+                        .build()));
         when(jobTrackingUtilsService.updateJobInstanceToPending(any())).thenReturn(true);
-        var jobRunner = new EtlJobRunner(gcsUtils, objectMapper, jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry);
+        var jobRunner = new EtlJobRunner(gcsUtils, objectMapper, jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry, new SharedStageExecutor(10, 10, meterRegistry), null);
         var uuid = UUID.randomUUID();
         var jobContext = createJobContext(uuid, List.of(
                 GcsDataResultWithDataType.builder()
@@ -346,29 +336,24 @@ public class EtlJobRunnerTest {
         when(testEtlProcessor.createState(any())).thenReturn(testJobState);
         ObjectMapper objectMapper = DefaultObjectMapper.get();
         GcsUtils gcsUtils = mock(GcsUtils.class);
-        when(gcsUtils.fetchRecordsFromGcs(any(), any(), any(), any(), any())).thenReturn(
-                StorageContent.<ListResponse<Object>>builder()
-                        .data(ListResponse.builder()
-                                .records(List.of(
-                                        ExampleSerialized.builder()
-                                                .name("test")
-                                                .build(),
-                                        ExampleSerialized.builder()
-                                                .name("test1")
-                                                .build(),
-                                        ExampleSerialized.builder()
-                                                .name("test2")
-                                                .build(),
-                                        ExampleSerialized.builder()
-                                                .name("test3")
-                                                .build(),
-                                        ExampleSerialized.builder()
-                                                .name("test4")
-                                                .build()))
-                                .build()).build()
-        );
+        GcsTestUtils.mockGcsRecords(gcsUtils, List.of(
+                ExampleSerialized.builder()
+                        .name("test")
+                        .build(),
+                ExampleSerialized.builder()
+                        .name("test1")
+                        .build(),
+                ExampleSerialized.builder()
+                        .name("test2")
+                        .build(),
+                ExampleSerialized.builder()
+                        .name("test3")
+                        .build(),
+                ExampleSerialized.builder()
+                        .name("test4")
+                        .build()));
         when(jobTrackingUtilsService.updateJobInstanceToPending(any())).thenReturn(true);
-        var jobRunner = new EtlJobRunner(gcsUtils, objectMapper, jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry);
+        var jobRunner = new EtlJobRunner(gcsUtils, objectMapper, jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry, new SharedStageExecutor(10, 10, meterRegistry), null);
         var uuid = UUID.randomUUID();
         var jobContext = createJobContext(uuid, List.of(
                 GcsDataResultWithDataType.builder()
@@ -381,6 +366,189 @@ public class EtlJobRunnerTest {
         jobRunner.run(jobContext, testEtlProcessor);
     }
 
+    @Log4j2
+    public static class PipelinedJobStage extends SampleJobStage {
+        private final String failingIngestionJobId;
+
+        public PipelinedJobStage(String failingIngestionJobId) {
+            this.failingIngestionJobId = failingIngestionJobId;
+        }
+
+        @Override
+        public boolean allowParallelProcessing(String tenantId, String integrationId) {
+            return true;
+        }
+
+        @Override
+        public int getParallelProcessingThreadCount() {
+            return 2;
+        }
+
+        @Override
+        public int getMaxFilesInFlight() {
+            return 3;
+        }
+
+        @Override
+        public boolean allowFailure() {
+            return false;
+        }
+
+        @Override
+        public void process(JobContext context, TestEtlProcessor.TestJobState jobState, String ingestionJobId, SampleJobStage.ExampleSerialized entity) throws SQLException {
+            if (ingestionJobId.equals(failingIngestionJobId)) {
+                throw new SQLException("Failed to process " + ingestionJobId);
+            }
+            try {
+                // make earlier files finish last to exercise the ordered checkpointing
+                Thread.sleep(100L * (5 - Integer.parseInt(ingestionJobId.substring(1))));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
+    private List<GcsDataResultWithDataType> createFileRecords(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> GcsDataResultWithDataType.builder()
+                        .dataTypeName("jira")
+                        .gcsDataResult(null)
+                        .ingestionJobId("j" + i)
+                        .index(i)
+                        .build())
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testPipelinedFileProcessing() throws JsonProcessingException, SQLException {
+        MockitoAnnotations.initMocks(this);
+        TestJobState testJobState = spy(new TestJobState());
+        IngestionResultProcessingStage<ExampleSerialized, TestJobState> testStage = spy(new PipelinedJobStage(null));
+        EtlProcessor<TestJobState> testEtlProcessor = spy(new TestEtlProcessor(List.of(testStage)));
+        when(testEtlProcessor.createState(any())).thenReturn(testJobState);
+        GcsUtils gcsUtils = mock(GcsUtils.class);
+        GcsTestUtils.mockGcsRecords(gcsUtils, List.of(
+                ExampleSerialized.builder().name("test1").build(),
+                ExampleSerialized.builder().name("test2").build()));
+        when(jobTrackingUtilsService.updateJobInstanceToPending(any())).thenReturn(true);
+        var jobRunner = new EtlJobRunner(gcsUtils, DefaultObjectMapper.get(), jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry, new SharedStageExecutor(10, 10, meterRegistry), null);
+        var jobContext = createJobContext(UUID.randomUUID(), createFileRecords(5), JobType.INGESTION_RESULT_PROCESSING_JOB)
+                .toBuilder().jobInstanceDatabaseService(jobInstanceDatabaseService).build();
+
+        jobRunner.run(jobContext, testEtlProcessor);
+
+        verify(testStage, times(10)).process(any(), any(), any(), any());
+        assertThat(jobContext.getStageProgress("test").get()).isEqualTo(4);
+        ArgumentCaptor<DbJobInstanceUpdate> updateCaptor = ArgumentCaptor.forClass(DbJobInstanceUpdate.class);
+        verify(jobInstanceDatabaseService, atLeastOnce()).update(any(), updateCaptor.capture());
+        List<Integer> checkpoints = updateCaptor.getAllValues().stream()
+                .filter(update -> update.getProgress() != null)
+                .map(update -> update.getProgress().get("test"))
+                .collect(Collectors.toList());
+        // the progress map is shared, so only the count of checkpoints can be asserted here
+        assertThat(checkpoints).hasSize(5);
+    }
+
+    @Test
+    public void testPipelinedFileProcessingStopsCheckpointAtFailedFile() throws JsonProcessingException, SQLException {
+        MockitoAnnotations.initMocks(this);
+        TestJobState testJobState = spy(new TestJobState());
+        IngestionResultProcessingStage<ExampleSerialized, TestJobState> testStage = spy(new PipelinedJobStage("j2"));
+        EtlProcessor<TestJobState> testEtlProcessor = spy(new TestEtlProcessor(List.of(testStage)));
+        when(testEtlProcessor.createState(any())).thenReturn(testJobState);
+        GcsUtils gcsUtils = mock(GcsUtils.class);
+        GcsTestUtils.mockGcsRecords(gcsUtils, List.of(ExampleSerialized.builder().name("test").build()));
+        when(jobTrackingUtilsService.updateJobInstanceToPending(any())).thenReturn(true);
+        var jobRunner = new EtlJobRunner(gcsUtils, DefaultObjectMapper.get(), jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry, new SharedStageExecutor(10, 10, meterRegistry), null);
+        var jobContext = createJobContext(UUID.randomUUID(), createFileRecords(5), JobType.INGESTION_RESULT_PROCESSING_JOB)
+                .toBuilder().jobInstanceDatabaseService(jobInstanceDatabaseService).build();
+
+        JobStatus status = jobRunner.run(jobContext, testEtlProcessor);
+
+        assertThat(status).isEqualTo(JobStatus.FAILURE);
+        // files 3 and 4 may have been processed already, but the watermark must not move past the failed file
+        assertThat(jobContext.getStageProgress("test").get()).isEqualTo(1);
+    }
+
+    public static class BatchingJobStage extends SampleJobStage {
+        @Override
+        public int getBatchSize() {
+            return 2;
+        }
+
+        @Override
+        public int processBatch(JobContext context, TestEtlProcessor.TestJobState jobState, String ingestionJobId, List<SampleJobStage.ExampleSerialized> entities) throws SQLException {
+            return 0;
+        }
+    }
+
+    public static class FailingBatchJobStage extends BatchingJobStage {
+        @Override
+        public int processBatch(JobContext context, TestEtlProcessor.TestJobState jobState, String ingestionJobId, List<SampleJobStage.ExampleSerialized> entities) throws SQLException {
+            throw new SQLException("bad row in batch");
+        }
+
+        @Override
+        public void process(JobContext context, TestEtlProcessor.TestJobState jobState, String ingestionJobId, SampleJobStage.ExampleSerialized entity) throws SQLException {
+            if ("bad".equals(entity.getName())) {
+                throw new SQLException("bad row");
+            }
+        }
+    }
+
+    @Test
+    public void testBatchProcessing() throws JsonProcessingException, SQLException {
+        MockitoAnnotations.initMocks(this);
+        TestJobState testJobState = spy(new TestJobState());
+        IngestionResultProcessingStage<ExampleSerialized, TestJobState> testStage = spy(new BatchingJobStage());
+        EtlProcessor<TestJobState> testEtlProcessor = spy(new TestEtlProcessor(List.of(testStage)));
+        when(testEtlProcessor.createState(any())).thenReturn(testJobState);
+        GcsUtils gcsUtils = mock(GcsUtils.class);
+        GcsTestUtils.mockGcsRecords(gcsUtils, List.of(
+                ExampleSerialized.builder().name("test1").build(),
+                ExampleSerialized.builder().name("test2").build(),
+                ExampleSerialized.builder().name("test3").build()));
+        when(jobTrackingUtilsService.updateJobInstanceToPending(any())).thenReturn(true);
+        var jobRunner = new EtlJobRunner(gcsUtils, DefaultObjectMapper.get(), jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry, new SharedStageExecutor(10, 10, meterRegistry), null);
+        var jobContext = createJobContext(UUID.randomUUID(), createFileRecords(2), JobType.INGESTION_RESULT_PROCESSING_JOB)
+                .toBuilder().jobInstanceDatabaseService(jobInstanceDatabaseService).build();
+
+        jobRunner.run(jobContext, testEtlProcessor);
+
+        // 3 entities per file -> 1 full batch and 1 partial batch per file, batches don't span files
+        verify(testStage, never()).process(any(), any(), any(), any());
+        verify(testStage, times(2)).processBatch(any(), any(), eq("j0"), any());
+        verify(testStage, times(2)).processBatch(any(), any(), eq("j1"), any());
+        verify(testStage, times(2)).processBatch(any(), any(), any(), argThat(batch -> batch.size() == 2));
+        verify(testStage, times(2)).processBatch(any(), any(), any(), argThat(batch -> batch.size() == 1));
+        assertThat(jobContext.getStageProgress("test").get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testBatchFailureIsRetriedRowByRow() throws JsonProcessingException, SQLException {
+        MockitoAnnotations.initMocks(this);
+        TestJobState testJobState = spy(new TestJobState());
+        IngestionResultProcessingStage<ExampleSerialized, TestJobState> testStage = spy(new FailingBatchJobStage());
+        EtlProcessor<TestJobState> testEtlProcessor = spy(new TestEtlProcessor(List.of(testStage)));
+        when(testEtlProcessor.createState(any())).thenReturn(testJobState);
+        GcsUtils gcsUtils = mock(GcsUtils.class);
+        GcsTestUtils.mockGcsRecords(gcsUtils, List.of(
+                ExampleSerialized.builder().name("test1").build(),
+                ExampleSerialized.builder().name("bad").build()));
+        when(jobTrackingUtilsService.updateJobInstanceToPending(any())).thenReturn(true);
+        var jobRunner = new EtlJobRunner(gcsUtils, DefaultObjectMapper.get(), jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry, new SharedStageExecutor(10, 10, meterRegistry), null);
+        var jobContext = createJobContext(UUID.randomUUID(), createFileRecords(1), JobType.INGESTION_RESULT_PROCESSING_JOB)
+                .toBuilder().jobInstanceDatabaseService(jobInstanceDatabaseService).build();
+
+        jobRunner.run(jobContext, testEtlProcessor);
+
+        // the good row of the failed batch is still processed
+        verify(testStage, times(1)).processBatch(any(), any(), any(), any());
+        verify(testStage, times(1)).process(any(), any(), any(), argThat(entity -> "test1".equals(entity.getName())));
+        verify(testStage, times(1)).process(any(), any(), any(), argThat(entity -> "bad".equals(entity.getName())));
+        assertThat(jobContext.getStageProgress("test").get()).isEqualTo(0);
+    }
+
     @Test
     public void testFailureToReadGcsFile() throws JsonProcessingException, SQLException {
         MockitoAnnotations.initMocks(this);
@@ -390,9 +558,9 @@ public class EtlJobRunnerTest {
         when(testEtlProcessor.createState(any())).thenReturn(testJobState);
         ObjectMapper objectMapper = DefaultObjectMapper.get();
         GcsUtils gcsUtils = mock(GcsUtils.class);
-        when(gcsUtils.fetchRecordsFromGcs(any(), any(), any(), any(), any())).thenReturn(null);
+        GcsTestUtils.mockUnreadableGcsFiles(gcsUtils);
         when(jobTrackingUtilsService.updateJobInstanceToPending(any())).thenReturn(true);
-        var jobRunner = new EtlJobRunner(gcsUtils, objectMapper, jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry);
+        var jobRunner = new EtlJobRunner(gcsUtils, objectMapper, jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry, new SharedStageExecutor(10, 10, meterRegistry), null);
         var uuid = UUID.randomUUID();
         var jobContext = createJobContext(uuid, List.of(
                 GcsDataResultWithDataType.builder()
@@ -423,7 +591,7 @@ public class EtlJobRunnerTest {
         ObjectMapper objectMapper = DefaultObjectMapper.get();
         GcsUtils gcsUtils = mock(GcsUtils.class);
         when(jobTrackingUtilsService.updateJobInstanceToPending(any())).thenReturn(true);
-        var jobRunner = new EtlJobRunner(gcsUtils, objectMapper, jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry);
+        var jobRunner = new EtlJobRunner(gcsUtils, objectMapper, jobInstanceDatabaseService, jobTrackingUtilsService, jobDefinitionDatabaseService, meterRegistry, new SharedStageExecutor(10, 10, meterRegistry), null);
         var uuid = UUID.randomUUID();
         var jobContext = createJobContext(uuid, List.of(), JobType.GENERIC_INTEGRATION_JOB);
         JobStatus status = jobRunner.run(jobContext, testEtlProcessor);
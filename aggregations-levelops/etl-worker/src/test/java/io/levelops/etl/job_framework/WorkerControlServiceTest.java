@@ -17,10 +17,13 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -43,7 +46,7 @@ public class WorkerControlServiceTest {
         EtlSchedulerClient schedulerService = mock(EtlSchedulerClient.class);
         when(schedulerService.getJobsToRun()).thenReturn(List.of());
         WorkerControlService controlService = new WorkerControlService(
-                ETLEngine, schedulerService, jobInstanceDatabaseService, "test", 2, 2, 10
+                ETLEngine, schedulerService, jobInstanceDatabaseService, "test", 2, 2, 10, false
         );
 
         Thread.sleep(3 * 1000);
@@ -79,9 +82,31 @@ public class WorkerControlServiceTest {
         when(schedulerService.getJobsToRun()).thenReturn(List.of(createJobContext(), createJobContext(), createJobContext()));
         when(schedulerService.claimJob(any(), any())).thenReturn(true);
         WorkerControlService controlService = new WorkerControlService(
-                ETLEngine, schedulerService, jobInstanceDatabaseService, "test", 0, 0, 1
+                ETLEngine, schedulerService, jobInstanceDatabaseService, "test", 0, 0, 1, false
         );
         controlService.fetchAndRunJobs();
         verify(ETLEngine, times(1)).submitJob(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testBatchClaim() throws EtlSchedulerClient.SchedulerClientException {
+        EtlEngine ETLEngine = mock(EtlEngine.class);
+        EtlSchedulerClient schedulerService = mock(EtlSchedulerClient.class);
+        EtlEngine.EngineJob engineJob = mock(EtlEngine.EngineJob.class);
+        JobContext accepted = createJobContext();
+        JobContext rejected = createJobContext();
+        when(ETLEngine.getAvailableCapacity()).thenReturn(2);
+        when(ETLEngine.getSupportedProcessorNames()).thenReturn(Set.of("TestJobDefinition"));
+        when(ETLEngine.submitJob(accepted)).thenReturn(Optional.of(engineJob));
+        when(ETLEngine.submitJob(rejected)).thenReturn(Optional.empty());
+        when(schedulerService.claimJobs(eq("test"), eq(2), eq(List.of("TestJobDefinition")))).thenReturn(List.of(accepted, rejected));
+        WorkerControlService controlService = new WorkerControlService(
+                ETLEngine, schedulerService, jobInstanceDatabaseService, "test", 0, 0, 10, true
+        );
+        controlService.fetchAndRunJobs();
+        verify(schedulerService, never()).getJobsToRun();
+        verify(ETLEngine, times(2)).submitJob(any());
+        verify(schedulerService, times(1)).unclaimJob(rejected.getJobInstanceId(), "test");
+        verify(schedulerService, never()).unclaimJob(accepted.getJobInstanceId(), "test");
+    }
+}
@@ -46,7 +46,7 @@ public class JiraIssuesStageTest {
     public void name() throws SQLException, InvalidJobInstanceIdException, JsonProcessingException {
 
         int readPageSize = 1000;
-        JiraIssuesStage jiraIssuesStage = new JiraIssuesStage(null, null, issueService, null, null, null, null, 1, false, null, null,
+        JiraIssuesStage jiraIssuesStage = new JiraIssuesStage(null, null, issueService, null, null, null, null, 1, 1, 1, false, null, null,
                 readPageSize, 100);
         JobInstanceId jobInstanceId = JobInstanceId.builder()
                 .jobDefinitionId(UUID.randomUUID())
@@ -4,6 +4,7 @@ import io.levelops.commons.databases.models.database.scm.DbScmUser;
 import org.apache.commons.lang3.RandomStringUtils;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -154,5 +155,19 @@ public class UserConsolidationGraphUtilsTest {
         );
     }
 
+    @Test
+    public void testGetConnectedComponentsLongChain() {
+        // used to overflow the stack with the recursive traversal
+        List<DbScmUser> users = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            users.add(createUser(List.of("email" + i, "email" + (i + 1)), String.valueOf(i)));
+        }
+        Map<String, List<String>> emailToUserIds = new HashMap<>();
+        Map<String, List<String>> emailGraph = new HashMap<>();
+        UserConsolidationGraphUtils.createGraphs(users, emailToUserIds, emailGraph);
 
-}
\ No newline at end of file
+        var connectedComponents = UserConsolidationGraphUtils.getConnectedComponents(emailGraph);
+        assertThat(connectedComponents).hasSize(1);
+        assertThat(connectedComponents.get(0)).hasSize(100001);
+    }
+}
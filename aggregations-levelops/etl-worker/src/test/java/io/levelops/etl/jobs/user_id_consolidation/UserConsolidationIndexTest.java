@@ -0,0 +1,67 @@
+package io.levelops.etl.jobs.user_id_consolidation;
+
+import io.levelops.commons.databases.models.database.scm.DbScmUser;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UserConsolidationIndexTest {
+    private DbScmUser createUser(List<String> emails, String id) {
+        return DbScmUser.builder()
+                .id(id)
+                .integrationId("1")
+                .cloudId("cloud-" + id)
+                .emails(emails)
+                .build();
+    }
+
+    private Set<Set<String>> toUserIds(List<Set<DbScmUser>> groups) {
+        return groups.stream()
+                .map(group -> group.stream().map(DbScmUser::getId).collect(Collectors.toSet()))
+                .collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testIncrementalUpdates() {
+        UserConsolidationIndex index = new UserConsolidationIndex(Instant.now());
+        index.apply(createUser(List.of("a", "b"), "1"));
+        index.apply(createUser(List.of("c"), "2"));
+        index.apply(createUser(List.of("d"), "3"));
+        assertThat(toUserIds(index.getUserGroups(null))).containsExactlyInAnyOrder(
+                Set.of("1"), Set.of("2"), Set.of("3"));
+
+        // user 2 gets a new email linking it to user 1
+        assertThat(index.apply(createUser(List.of("c", "b"), "2"))).isTrue();
+        // new user
+        assertThat(index.apply(createUser(List.of("e"), "4"))).isTrue();
+
+        // only the groups of the changed users are returned
+        assertThat(toUserIds(index.getUserGroups(List.of("2", "4")))).containsExactlyInAnyOrder(
+                Set.of("1", "2"), Set.of("4"));
+        assertThat(toUserIds(index.getUserGroups(null))).containsExactlyInAnyOrder(
+                Set.of("1", "2"), Set.of("3"), Set.of("4"));
+        assertThat(index.getUserCount()).isEqualTo(4);
+    }
+
+    @Test
+    public void testChangesRequiringRebuild() {
+        UserConsolidationIndex index = new UserConsolidationIndex(Instant.now());
+        index.apply(createUser(List.of("a", "b"), "1"));
+
+        // a group can not be split
+        assertThat(index.apply(createUser(List.of("a"), "1"))).isFalse();
+        assertThat(index.apply(createUser(List.of(), "1"))).isFalse();
+        assertThat(index.apply(createUser(List.of("a", "b"), "1").toBuilder()
+                .mappingStatus(DbScmUser.MappingStatus.MANUAL)
+                .build())).isFalse();
+
+        // users that were never consolidated are ignored
+        assertThat(index.apply(createUser(List.of(), "2"))).isTrue();
+        assertThat(index.getUserCount()).isEqualTo(1);
+    }
+}
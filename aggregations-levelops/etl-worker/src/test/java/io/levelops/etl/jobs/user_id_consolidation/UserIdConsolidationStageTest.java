@@ -11,6 +11,7 @@ import io.levelops.commons.databases.models.database.TenantConfig;
 import io.levelops.commons.databases.models.database.organization.DBOrgUser;
 import io.levelops.commons.databases.models.database.organization.OrgVersion;
 import io.levelops.commons.databases.models.database.scm.DbScmUser;
+import io.levelops.commons.databases.models.filters.UserIdentitiesFilter;
 import io.levelops.commons.databases.services.IntegrationService;
 import io.levelops.commons.databases.services.TagItemDBService;
 import io.levelops.commons.databases.services.TagsService;
@@ -32,6 +33,7 @@ import org.junit.Before;
 import org.junit.BeforeClass;
 import org.junit.ClassRule;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
 import javax.sql.DataSource;
@@ -50,7 +52,11 @@ import java.util.stream.Stream;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class UserIdConsolidationStageTest {
@@ -71,6 +77,8 @@ public class UserIdConsolidationStageTest {
     private static OrgUsersHelper orgUsersHelper;
     private static UserIdConsolidationStage userIdConsolidationStage;
     private static JobDefinitionDatabaseService jobDefinitionDatabaseService;
+    private static TenantConfigService tenantConfigService;
+    private static OrgUsersLockService orgUsersLockService;
 
 
     private static Integration integration1, integration2, integration3;
@@ -94,14 +102,14 @@ public class UserIdConsolidationStageTest {
         orgVersionsService = new OrgVersionsDatabaseService(dataSource);
         orgVersionsService.ensureTableExistence(company);
         orgUsersService = new OrgUsersDatabaseService(dataSource, mapper, orgVersionsService, userIdentityService);
-        OrgUsersLockService orgUsersLockService = mock(OrgUsersLockService.class);
+        orgUsersLockService = mock(OrgUsersLockService.class);
         when(orgUsersLockService.lock(anyString(), anyInt())).thenReturn(true);
         when(orgUsersLockService.unlock(anyString())).thenReturn(true);
         orgUsersHelper = new OrgUsersHelper(orgUsersService, orgVersionsService, orgUsersLockService);
         orgUsersService.ensureTableExistence(company);
         new TagsService(dataSource).ensureTableExistence(company);
         new TagItemDBService(dataSource).ensureTableExistence(company);
-        var tenantConfigService = new TenantConfigService(dataSource);
+        tenantConfigService = new TenantConfigService(dataSource);
         tenantConfigService.ensureTableExistence(company);
         tenantConfigService.insert(company, TenantConfig.builder()
                 .name("AUTO_USER_ID_CONSOLIDATION_ENABLED")
@@ -118,7 +126,10 @@ public class UserIdConsolidationStageTest {
                 orgUsersHelper,
                 tenantConfigService,
                 jobDefinitionDatabaseService,
-                orgUsersLockService
+                orgUsersLockService,
+                168,
+                60,
+                100_000
         );
 
         integration1 = Integration.builder()
@@ -609,6 +620,47 @@ public class UserIdConsolidationStageTest {
         allOrgUsers.stream().map(u -> u.getVersions()).forEach(versions -> assertThat(versions).contains(version2.getVersion()));
     }
 
+    @Test
+    public void testSecondRunWithinRebuildIntervalIsIncremental() throws SQLException, JsonProcessingException {
+        insertNewUserVersionAndActivate();
+        DbJobDefinition jobDefinition = createAndInsertJobDefinition();
+        UserIdentityService spiedUserIdentityService = spy(userIdentityService);
+        UserIdConsolidationStage stage = new UserIdConsolidationStage(
+                spiedUserIdentityService,
+                orgUsersService,
+                orgVersionsService,
+                integrationService,
+                orgUsersHelper,
+                tenantConfigService,
+                jobDefinitionDatabaseService,
+                orgUsersLockService,
+                168,
+                60,
+                100_000
+        );
+        createAndInsert(List.of("email1"));
+        createAndInsert(List.of("email2"));
+
+        JobContext context = createJobContext(jobDefinition.getId());
+        stage.process(context, new UserIdConsolidationState());
+        assertThat(orgUsersService.list(company, 0, 100).getRecords()).hasSize(2);
+
+        createAndInsert(List.of("email1"));
+        stage.process(context, new UserIdConsolidationState());
+
+        // the first run loads every user, the second one only the users updated since the first run
+        ArgumentCaptor<UserIdentitiesFilter> filters = ArgumentCaptor.forClass(UserIdentitiesFilter.class);
+        verify(spiedUserIdentityService, times(2)).stream(eq(company), filters.capture());
+        assertThat(filters.getAllValues().get(0).getUsersUpdatedRange()).isNull();
+        assertThat(filters.getAllValues().get(1).getUsersUpdatedRange()).isNotNull();
+        assertThat(filters.getAllValues().get(1).getUsersUpdatedRange().getRight()).isNull();
+
+        // the new user still joined the existing org user
+        assertThat(orgUsersService.list(company, 0, 100).getRecords()).hasSize(2);
+        assertThat(orgUsersService.streamOrgUserCloudIdMappings(company, OrgUsersDatabaseService.OrgUserCloudIdMappingFilter.builder().build())
+                .collect(Collectors.toList())).hasSize(3);
+    }
+
     private JobContext createJobContext(UUID jobDefinitionId) {
         return JobContext.builder()
                 .jobInstanceId(JobInstanceId.builder().jobDefinitionId(jobDefinitionId).instanceId(1).build())
@@ -0,0 +1,91 @@
+package io.levelops.etl.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.cloud.storage.Storage;
+import io.levelops.commons.jackson.DefaultObjectMapper;
+import io.levelops.commons.models.ListResponse;
+import io.levelops.integrations.storage.models.StorageContent;
+import io.levelops.integrations.storage.models.StorageFormat;
+import io.levelops.integrations.storage.models.StorageMetadata;
+import io.levelops.integrations.storage.utils.NdjsonStorageCodec;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+public class GcsUtilsTest {
+    private final ObjectMapper objectMapper = DefaultObjectMapper.get();
+    private GcsUtils gcsUtils;
+    private JavaType mapType;
+
+    @Before
+    public void setup() {
+        gcsUtils = new GcsUtils(mock(Storage.class), objectMapper);
+        mapType = objectMapper.getTypeFactory().constructMapType(Map.class, String.class, Object.class);
+    }
+
+    @Test
+    public void testStreamRecords() throws IOException {
+        String json = objectMapper.writeValueAsString(StorageContent.builder()
+                .storageMetadata(StorageMetadata.builder()
+                        .dataType("issues")
+                        .integrationType("jira")
+                        .pageNumber(3)
+                        .build())
+                .data(ListResponse.of(List.of(
+                        Map.of("key", "LEV-1", "fields", Map.of("labels", List.of("a", "b"))),
+                        Map.of("key", "LEV-2"),
+                        Map.of("key", "LEV-3"))))
+                .build());
+
+        List<Map<String, Object>> records = new ArrayList<>();
+        int count = gcsUtils.<Map<String, Object>>streamRecords(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), StorageFormat.JSON, mapType, records::add);
+
+        assertThat(count).isEqualTo(3);
+        assertThat(records).extracting(r -> r.get("key")).containsExactly("LEV-1", "LEV-2", "LEV-3");
+        assertThat(records.get(0).get("fields")).isEqualTo(Map.of("labels", List.of("a", "b")));
+    }
+
+    @Test
+    public void testStreamRecordsNoRecords() throws IOException {
+        String json = "{\"_metadata\":{\"data_type\":\"issues\"},\"count\":0}";
+        List<Object> records = new ArrayList<>();
+        int count = gcsUtils.streamRecords(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), StorageFormat.JSON, mapType, records::add);
+        assertThat(count).isEqualTo(0);
+        assertThat(records).isEmpty();
+    }
+
+    @Test
+    public void testStreamRecordsNdjson() throws IOException {
+        byte[] content = NdjsonStorageCodec.serialize(objectMapper,
+                StorageMetadata.builder().dataType("issues").build(),
+                List.of(Map.of("key", "LEV-1"), Map.of("key", "LEV-2")));
+
+        List<Map<String, Object>> records = new ArrayList<>();
+        int count = gcsUtils.<Map<String, Object>>streamRecords(
+                new ByteArrayInputStream(content), StorageFormat.NDJSON_GZIP, mapType, records::add);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(records).extracting(r -> r.get("key")).containsExactly("LEV-1", "LEV-2");
+    }
+
+    @Test
+    public void testStreamRecordsInvalidContent() {
+        assertThatThrownBy(() -> gcsUtils.streamRecords(
+                new ByteArrayInputStream("[1, 2]".getBytes(StandardCharsets.UTF_8)), StorageFormat.JSON, mapType, r -> { }))
+                .isInstanceOf(JsonProcessingException.class);
+    }
+}
@@ -0,0 +1,40 @@
+package io.levelops.utils;
+
+import io.levelops.etl.utils.GcsUtils;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+
+public class GcsTestUtils {
+
+    /**
+     * Stubs GcsUtils so that every streamed GCS file yields the given records
+     */
+    public static void mockGcsRecords(GcsUtils gcsUtils, List<?> records) {
+        try {
+            doAnswer(invocation -> {
+                Consumer<Object> consumer = invocation.getArgument(4);
+                records.forEach(consumer);
+                return records.size();
+            }).when(gcsUtils).streamRecordsFromGcs(any(), any(), any(), any(), any());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Stubs GcsUtils so that every GCS file is reported as unreadable
+     */
+    public static void mockUnreadableGcsFiles(GcsUtils gcsUtils) {
+        try {
+            doReturn(null).when(gcsUtils).streamRecordsFromGcs(any(), any(), any(), any(), any());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -3,6 +3,8 @@ package io.levelops.aggregations.services;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.Storage;
 import com.google.common.base.MoreObjects;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.levelops.cicd.services.CiCdService;
 import io.levelops.commons.databases.models.database.EventType;
 import io.levelops.commons.databases.models.database.TriageRule;
@@ -15,10 +17,13 @@ import io.levelops.commons.databases.services.TriageRuleHitsService;
 import io.levelops.commons.databases.services.TriageRulesService;
 import io.levelops.commons.exceptions.RuntimeStreamException;
 import io.levelops.commons.functional.PaginationUtils;
+import io.levelops.commons.models.RegexResult;
+import io.levelops.commons.regex.RegexRuleSet;
 import io.levelops.commons.regex.RegexService;
 import io.levelops.events.clients.EventsClient;
 import io.levelops.events.models.EventsClientException;
 import lombok.extern.log4j.Log4j2;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
@@ -28,15 +33,18 @@ import org.springframework.stereotype.Service;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
-import java.nio.charset.Charset;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.channels.Channels;
 import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -47,6 +55,7 @@ public class TriageLocalService {
     private static final String DEFAULT_JOB_NAME = "Unknown Job";
     private static final String DEFAULT_INSTANCE_NAME = "Unknown Instance";
     private final static List<String> FAILED_STATES = List.of("ABORTED", "FAILURE");
+    private static final long RULES_CACHE_IDLE_MINUTES = 30;
     private final Storage storage;
     private final TriageRulesService triageRulesService;
     private final TriageRuleHitsService triageRuleHitsService;
@@ -56,6 +65,10 @@ public class TriageLocalService {
     private final CiCdJobRunStageDatabaseService jobRunStageDatabaseService;
     private final RedisConnectionFactory redisConnectionFactory;
     private final CiCdService ciCdService;
+    private final Cache<String, CompiledTriageRules> compiledRulesCache = CacheBuilder.newBuilder()
+            .maximumSize(1000)
+            .expireAfterAccess(RULES_CACHE_IDLE_MINUTES, TimeUnit.MINUTES)
+            .build();
 
     @Autowired
     public TriageLocalService(
@@ -93,8 +106,12 @@ public class TriageLocalService {
             @Nonnull final String logBucket,
             final String url) throws IOException {
         log.debug("analyzing: {}", gcsLogsLocation);
-        String logsContents = new String(storage.readAllBytes(BlobId.of(MoreObjects.firstNonNull(logBucket, jenkinsLogsBucket), gcsLogsLocation)), StandardCharsets.UTF_8);
-        analyzeJenkinsLogsContents(company, instanceId, instanceName, jobId, jobRunId, jobName, jobStatus, stageId, stepId, logsContents, url);
+        BlobId blobId = BlobId.of(MoreObjects.firstNonNull(logBucket, jenkinsLogsBucket), gcsLogsLocation);
+        // stream the logs: they can be hundreds of MB
+        // (InputStreamReader replaces malformed input, like new String(bytes, UTF_8) does, instead of failing)
+        try (Reader logs = new InputStreamReader(Channels.newInputStream(storage.reader(blobId)), StandardCharsets.UTF_8)) {
+            analyzeJenkinsLogs(company, instanceId, instanceName, jobId, jobRunId, jobName, jobStatus, stageId, stepId, logs, url);
+        }
     }
 
     public void analyzeJenkinsLogsContents(
@@ -109,39 +126,53 @@ public class TriageLocalService {
             final String stepId,
             @Nonnull final String logsContents,
             final String url) throws IOException {
+        analyzeJenkinsLogs(company, instanceId, instanceName, jobId, jobRunId, jobName, jobStatus, stageId, stepId, new StringReader(logsContents), url);
+    }
+
+    private void analyzeJenkinsLogs(
+            @Nonnull final String company,
+            @Nonnull final String instanceId,
+            @Nonnull final String instanceName,
+            @Nonnull final String jobId,
+            @Nonnull final String jobRunId,
+            @Nonnull final String jobName,
+            @Nonnull final String jobStatus,
+            final String stageId,
+            final String stepId,
+            @Nonnull final Reader logs,
+            final String url) throws IOException {
         try {
-            long numberOfRulesHit = getRulesForJob(company, jobId)
-                    .filter(rule -> rule != null)
-                    .map(rule -> {
-                        log.debug("Running regex: name={}, regex={}", rule.getName(), rule.getRegexes());
-                        var ruleHit = regexService.findRegexHits(new HashSet<>(rule.getRegexes()), logsContents);
-                        if (ruleHit == null || ruleHit.getTotalMatches() == null || ruleHit.getTotalMatches() < 1) {
-                            log.debug("no match..");
-                            return null;
-                        }
-                        try {
-                            log.debug("Insering match results...");
-                            triageRuleHitsService.insert(company, TriageRuleHit.builder()
-                                    .count(ruleHit.getTotalMatches())
-                                    .hitContent(ruleHit.getFirstHitContext())
-                                    .context(Map.of(
-                                            "line", ruleHit.getFirstHitLineNumber(),
-                                            "step", StringUtils.defaultString(stepId)
-                                    ))
-                                    .jobRunId(jobRunId)
-                                    .ruleId(rule.getId())
-                                    .stageId(stageId)
-                                    .stepId(stepId)
-                                    .type(RuleHitType.JENKINS)
-                                    .build()
-                            );
-                        } catch (SQLException e) {
-                            log.error("Unable to persist rule results: {}", ruleHit, e);
-                        }
-                        return ruleHit;
-                    })
-                    .filter(Objects::nonNull)
-                    .count();
+            CompiledTriageRules triageRules = getCompiledRules(company, jobId);
+            log.debug("Running {} triage rules", triageRules.rules.size());
+            List<RegexResult> ruleHits = triageRules.ruleSet.scan(logs);
+            long numberOfRulesHit = 0;
+            for (int i = 0; i < ruleHits.size(); i++) {
+                TriageRule rule = triageRules.rules.get(i);
+                RegexResult ruleHit = ruleHits.get(i);
+                if (ruleHit == null || ruleHit.getTotalMatches() == null || ruleHit.getTotalMatches() < 1) {
+                    continue;
+                }
+                numberOfRulesHit++;
+                try {
+                    log.debug("Insering match results for rule name={}...", rule.getName());
+                    triageRuleHitsService.insert(company, TriageRuleHit.builder()
+                            .count(ruleHit.getTotalMatches())
+                            .hitContent(ruleHit.getFirstHitContext())
+                            .context(Map.of(
+                                    "line", ruleHit.getFirstHitLineNumber(),
+                                    "step", StringUtils.defaultString(stepId)
+                            ))
+                            .jobRunId(jobRunId)
+                            .ruleId(rule.getId())
+                            .stageId(stageId)
+                            .stepId(stepId)
+                            .type(RuleHitType.JENKINS)
+                            .build()
+                    );
+                } catch (SQLException e) {
+                    log.error("Unable to persist rule results: {}", ruleHit, e);
+                }
+            }
             if (numberOfRulesHit > 0) {
                 log.info("Jenkins job id={} has hit {} triage rules; emitting jenkins_triage_rules_hit event", jobId, numberOfRulesHit);
                 emitJenkinsTriageRulesHitEvent(company, instanceName, jobId, jobName, jobRunId, stageId, url);
@@ -244,9 +275,38 @@ public class TriageLocalService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Rules are still listed for every log, so that edits apply right away, but they are only compiled again when
+     * they differ from the last rules compiled for the tenant.
+     */
+    private CompiledTriageRules getCompiledRules(final String company, final String jobId) throws RuntimeStreamException {
+        List<TriageRule> rules = getRulesForJob(company, jobId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        CompiledTriageRules compiledRules = compiledRulesCache.getIfPresent(company);
+        if (compiledRules == null || !compiledRules.rules.equals(rules)) {
+            RegexRuleSet ruleSet = regexService.compileRuleSet(rules.stream()
+                    .map(rule -> ListUtils.emptyIfNull(rule.getRegexes()))
+                    .collect(Collectors.toList()));
+            compiledRules = new CompiledTriageRules(rules, ruleSet);
+            compiledRulesCache.put(company, compiledRules);
+        }
+        return compiledRules;
+    }
+
     public Stream<TriageRule> getRulesForJob(final String company, final String jobId) throws RuntimeStreamException {
         return PaginationUtils.stream(0, 1, RuntimeStreamException.wrap(page ->
                 triageRulesService.list(company, null, null, null, null,
                         page, 200).getRecords()));
     }
-}
\ No newline at end of file
+
+    private static class CompiledTriageRules {
+        private final List<TriageRule> rules;
+        private final RegexRuleSet ruleSet;
+
+        private CompiledTriageRules(List<TriageRule> rules, RegexRuleSet ruleSet) {
+            this.rules = rules;
+            this.ruleSet = ruleSet;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package io.levelops.aggregations.services;
 
+import com.google.cloud.ReadChannel;
 import com.google.cloud.storage.BlobId;
 import com.google.cloud.storage.Storage;
 import io.levelops.cicd.services.CiCdService;
@@ -19,6 +20,8 @@ import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.jedis.JedisConnectionFactory;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.util.List;
 
@@ -28,6 +31,8 @@ import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -66,7 +71,7 @@ public class TriageLocalServiceTest {
         redisConnectionFactory = Mockito.mock(JedisConnectionFactory.class);
         triageService = new TriageLocalService("jenkinsLogsBucket", triageRulesService, triageRuleHitsService, regexService, storage, eventsClient, jobRunStageDatabaseService, redisConnectionFactory, ciCdService);
 
-        when(storage.readAllBytes(any(BlobId.class))).thenReturn(contents.getBytes());
+        when(storage.reader(any(BlobId.class))).thenAnswer(ans -> mockReadChannel(contents.getBytes(StandardCharsets.UTF_8)));
 
         when(triageRulesService.list(eq(company), any(), any(), any(), any(), eq(0), anyInt()))
                 .thenReturn(DbListResponse.of(List.of(TriageRule.builder()
@@ -80,6 +85,23 @@ public class TriageLocalServiceTest {
     }
 
 
+    private static ReadChannel mockReadChannel(byte[] bytes) throws IOException {
+        ByteBuffer source = ByteBuffer.wrap(bytes);
+        ReadChannel readChannel = Mockito.mock(ReadChannel.class);
+        when(readChannel.isOpen()).thenReturn(true);
+        when(readChannel.read(any(ByteBuffer.class))).thenAnswer(ans -> {
+            if (!source.hasRemaining()) {
+                return -1;
+            }
+            ByteBuffer target = ans.getArgument(0);
+            int n = Math.min(target.remaining(), source.remaining());
+            target.put(source.array(), source.position(), n);
+            source.position(source.position() + n);
+            return n;
+        });
+        return readChannel;
+    }
+
     @Test
     public void testAnalyzeJenkinsGCSLogs() throws IOException, SQLException {
         var instanceId = "";
@@ -114,4 +136,45 @@ public class TriageLocalServiceTest {
         verify(triageRuleHitsService, atLeastOnce()).insert(any(), any());
         verify(triageRuleHitsService, atMost(2)).insert(any(), any());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testEditedRulesApplyRightAway() throws IOException, SQLException {
+        String editedCompany = "edited";
+        TriageRuleHitsService ruleHitsService = Mockito.mock(TriageRuleHitsService.class);
+        TriageLocalService service = new TriageLocalService("jenkinsLogsBucket", triageRulesService, ruleHitsService, regexService, storage, eventsClient, jobRunStageDatabaseService, redisConnectionFactory, ciCdService);
+        when(triageRulesService.list(eq(editedCompany), any(), any(), any(), any(), eq(0), anyInt()))
+                .thenReturn(DbListResponse.of(List.of(TriageRule.builder()
+                        .id("1")
+                        .regexes(List.of("goodbye"))
+                        .build()), 1))
+                .thenReturn(DbListResponse.of(List.of(TriageRule.builder()
+                        .id("1")
+                        .regexes(List.of("hello"))
+                        .build()), 1));
+        when(triageRulesService.list(eq(editedCompany), any(), any(), any(), any(), eq(1), anyInt()))
+                .thenReturn(DbListResponse.of(List.of(), 0));
+
+        service.analyzeJenkinsLogsContents(editedCompany, "", "", "", "", "", "", "", "", contents, "");
+        verify(ruleHitsService, never()).insert(any(), any());
+
+        service.analyzeJenkinsLogsContents(editedCompany, "", "", "", "", "", "", "", "", contents, "");
+        verify(ruleHitsService, times(1)).insert(eq(editedCompany), any());
+    }
+
+    @Test
+    public void testMalformedUtf8InGCSLogs() throws IOException, SQLException {
+        byte[] hello = "hello".getBytes(StandardCharsets.UTF_8);
+        byte[] logs = new byte[hello.length + 3];
+        logs[0] = (byte) 0xff;
+        logs[1] = (byte) 0xc3;
+        logs[2] = '\n';
+        System.arraycopy(hello, 0, logs, 3, hello.length);
+        Storage malformedStorage = Mockito.mock(Storage.class);
+        when(malformedStorage.reader(any(BlobId.class))).thenAnswer(ans -> mockReadChannel(logs));
+        TriageRuleHitsService ruleHitsService = Mockito.mock(TriageRuleHitsService.class);
+        TriageLocalService service = new TriageLocalService("jenkinsLogsBucket", triageRulesService, ruleHitsService, regexService, malformedStorage, eventsClient, jobRunStageDatabaseService, redisConnectionFactory, ciCdService);
+
+        service.analyzeJenkinsGCSLogs(company, "", "", "", "", "", "", "", "", "", "", "");
+        verify(ruleHitsService, times(1)).insert(eq(company), any());
+    }
+}
@@ -1,6 +1,9 @@
 package io.levelops.api.config;
 
+import io.levelops.commons.aggregations_cache.codec.AggCacheCodecs;
 import io.levelops.commons.aggregations_cache.services.AggCacheService;
+import io.levelops.commons.aggregations_cache.services.AggNearCache;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.levelops.notification.services.SlackQuestionnaireCacheService;
 import io.levelops.notification.services.SlackWorkItemCacheService;
 import org.springframework.beans.factory.annotation.Value;
@@ -32,11 +35,37 @@ public class RedisConfig {
         return SlackWorkItemCacheService.builder().redisConnectionFactory(redisConnectionFactory).build();
     }
 
+    @Bean(destroyMethod = "stop")
+    public AggNearCache aggNearCache(@Value("${AGG_CACHE_ENABLED:true}") Boolean enabled,
+                                     @Value("${AGG_NEAR_CACHE_ENABLED:true}") Boolean nearCacheEnabled,
+                                     @Value("${AGG_NEAR_CACHE_MAX_BYTES:67108864}") Long maxWeightBytes,
+                                     @Value("${AGG_NEAR_CACHE_TTL_SECONDS:120}") Long ttlSeconds,
+                                     RedisConnectionFactory redisConnectionFactory,
+                                     MeterRegistry meterRegistry) {
+        AggNearCache nearCache = AggNearCache.builder()
+                .maxWeightBytes(maxWeightBytes)
+                .ttlSeconds(ttlSeconds)
+                .redisConnectionFactory(redisConnectionFactory)
+                .meterRegistry(meterRegistry)
+                .build();
+        // only listen for invalidations when the near cache is actually used (see aggCacheService)
+        if (Boolean.TRUE.equals(enabled) && Boolean.TRUE.equals(nearCacheEnabled)) {
+            nearCache.start();
+        }
+        return nearCache;
+    }
+
     @Bean
     public AggCacheService aggCacheService(@Value("${AGG_CACHE_ENABLED:true}") Boolean enabled,
-                                           RedisConnectionFactory redisConnectionFactory) {
+                                           @Value("${AGG_NEAR_CACHE_ENABLED:true}") Boolean nearCacheEnabled,
+                                           @Value("${AGG_CACHE_CODEC:json}") String codec,
+                                           RedisConnectionFactory redisConnectionFactory,
+                                           AggNearCache aggNearCache) {
         return AggCacheService.builder().redisConnectionFactory(redisConnectionFactory)
-                .enabled(enabled).build();
+                .enabled(enabled)
+                .codec(AggCacheCodecs.fromName(codec))
+                .nearCache(Boolean.TRUE.equals(nearCacheEnabled) ? aggNearCache : null)
+                .build();
     }
 
     @Bean
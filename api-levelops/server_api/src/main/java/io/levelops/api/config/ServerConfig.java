@@ -43,8 +43,12 @@ import io.levelops.services.EmailService;
 import io.levelops.services.TemplateService;
 import io.levelops.tenant_config.clients.TenantConfigClient;
 import io.levelops.triggers.clients.TriggersRESTClient;
+import io.levelops.web.util.DeferredResponseLimiter;
 import io.levelops.web.util.SpringUtils;
 import io.levelops.workflow.converters.WorkflowUiDataParser;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.propelo.trellis_framework.client.TrellisAPIControllerClient;
 import lombok.extern.log4j.Log4j2;
 import okhttp3.OkHttpClient;
@@ -113,9 +117,32 @@ public class ServerConfig {
     }
 
     @Bean("deferredResponseForkJoinPool")
-    public ForkJoinPool deferredResponseForkJoinPool(@Value("${deferred_response_thread_count:32}") int threadCount) {
+    public ForkJoinPool deferredResponseForkJoinPool(@Value("${deferred_response_thread_count:32}") int threadCount,
+                                                     @Value("${deferred_response_max_pending:512}") int maxPending,
+                                                     @Value("${deferred_response_max_pending_per_tenant:128}") int maxPendingPerTenant,
+                                                     @Value("${deferred_response_max_running_per_tenant:0}") int maxRunningPerTenant,
+                                                     @Value("${deferred_response_retry_after_seconds:5}") int retryAfterSeconds,
+                                                     @Value("${deferred_response_timeout_ms:0}") long timeoutMs,
+                                                     MeterRegistry meterRegistry) {
         var forkJoinPool = new TraceEnabledForkJoinPool(threadCount);
+        var limiter = DeferredResponseLimiter.builder()
+                .maxPending(maxPending)
+                .maxPendingPerTenant(maxPendingPerTenant)
+                // by default a single tenant can use a quarter of the pool, the rest of its requests wait in its queue
+                .maxRunningPerTenant(maxRunningPerTenant > 0 ? maxRunningPerTenant : Math.max(1, threadCount / 4))
+                .retryAfterSeconds(retryAfterSeconds)
+                .build();
         SpringUtils.setForkJoinPool(forkJoinPool);
+        SpringUtils.setLimiter(limiter);
+        SpringUtils.setTimeoutMs(timeoutMs);
+        Gauge.builder("deferred_response.pending", limiter, DeferredResponseLimiter::getPendingCount).register(meterRegistry);
+        Gauge.builder("deferred_response.queued", forkJoinPool, ForkJoinPool::getQueuedSubmissionCount).register(meterRegistry);
+        Gauge.builder("deferred_response.tenant_queued", limiter, DeferredResponseLimiter::getWaitingCount).register(meterRegistry);
+        Gauge.builder("deferred_response.active_threads", forkJoinPool, ForkJoinPool::getActiveThreadCount).register(meterRegistry);
+        FunctionCounter.builder("deferred_response.rejected", limiter, DeferredResponseLimiter::getRejectedCount).register(meterRegistry);
+        SpringUtils.setCancellationListener((reportType, reason) -> meterRegistry
+                .counter("deferred_response.cancelled", "report", reportType, "reason", reason)
+                .increment());
         return forkJoinPool;
     }
 
@@ -0,0 +1,83 @@
+package io.levelops.api.services;
+
+import io.levelops.api.services.dev_productivity.UserDevProductivityReportService;
+import io.levelops.commons.aggregations_cache.services.AggCacheService;
+import io.levelops.commons.databases.models.database.TenantSCMSettings;
+import io.levelops.commons.databases.models.database.dev_productivity.DevProductivityProfile;
+import io.levelops.commons.databases.models.database.dev_productivity.OrgUserDetails;
+import io.levelops.commons.databases.models.filters.DevProductivityFilter;
+import io.levelops.commons.databases.services.dev_productivity.engine.DevProductivityEngine;
+import io.levelops.commons.databases.services.dev_productivity.handlers.DevProductivityFeatureHandler;
+import io.levelops.commons.jackson.DefaultObjectMapper;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class UserDevProductivityReportServiceTest {
+
+    private static final String company = "test";
+
+    @Test
+    public void testSaturatedEngineResponseIsNotCached() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        DevProductivityFeatureHandler handler = Mockito.mock(DevProductivityFeatureHandler.class);
+        when(handler.calculateFeature(any(), any(), any(), any(), any(), any(), any(), any())).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        });
+        // 1 thread + 1 queued feature: the third feature of the profile is rejected
+        DevProductivityEngine engine = new DevProductivityEngine(Map.of(DevProductivityProfile.FeatureType.NUMBER_OF_PRS_PER_MONTH, handler), 1, 1);
+
+        AggCacheService cacheService = Mockito.mock(AggCacheService.class);
+        when(cacheService.getQueryBytes(any(), any(), any(), any(), any())).thenReturn(Optional.empty());
+        when(cacheService.loadOnce(any(), any(), any(), any(), any(), any()))
+                .thenAnswer(invocation -> invocation.<Callable<byte[]>>getArgument(5).call());
+
+        UserDevProductivityReportService service = new UserDevProductivityReportService(DefaultObjectMapper.get(), engine,
+                null, null, null, null, null, cacheService, null, null, Runnable::run, null, null, Set.of(), null,
+                false, false, Set.of(), null, null);
+        try {
+            DevProductivityProfile profile = DevProductivityProfile.builder()
+                    .id(UUID.randomUUID())
+                    .sections(List.of(DevProductivityProfile.Section.builder()
+                            .order(0)
+                            .enabled(true)
+                            .features(IntStream.range(0, 3)
+                                    .mapToObj(i -> DevProductivityProfile.Feature.builder()
+                                            .order(i)
+                                            .enabled(true)
+                                            .featureType(DevProductivityProfile.FeatureType.NUMBER_OF_PRS_PER_MONTH)
+                                            .build())
+                                    .collect(Collectors.toList()))
+                            .build()))
+                    .build();
+
+            assertThatThrownBy(() -> service.calculateDevProductivitySingleUser(false, company, profile, DevProductivityFilter.builder().build(),
+                    Map.of(), TenantSCMSettings.builder().build(), OrgUserDetails.builder().orgUserId(UUID.randomUUID()).build()).join())
+                    .isInstanceOf(CompletionException.class)
+                    .hasRootCauseInstanceOf(RejectedExecutionException.class);
+            verify(cacheService, never()).saveQueryBytes(any(), any(), any(), any(), any(), any(), any(), any());
+        } finally {
+            release.countDown();
+            engine.shutdown();
+        }
+    }
+}
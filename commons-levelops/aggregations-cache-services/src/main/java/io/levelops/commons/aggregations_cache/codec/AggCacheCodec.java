@@ -0,0 +1,28 @@
+package io.levelops.commons.aggregations_cache.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * Encodes aggregation results for the Redis cache.
+ * <p>
+ * Values are serialized with the caller's {@link ObjectMapper} so that naming strategy and custom
+ * serializers are the same as for the API response; codecs only change the wire format.
+ */
+public interface AggCacheCodec {
+
+    /**
+     * Version byte written in front of every value produced by this codec.
+     * Version 0 is reserved for legacy, headerless JSON.
+     */
+    byte getVersion();
+
+    byte[] encode(ObjectMapper mapper, Object value) throws IOException;
+
+    /**
+     * @param data encoded payload, starting at {@code offset} (after the version byte, if any)
+     */
+    <T> T decode(ObjectMapper mapper, byte[] data, int offset, JavaType type) throws IOException;
+}
@@ -0,0 +1,73 @@
+package io.levelops.commons.aggregations_cache.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Frames cache values with a version byte so that readers pick the right codec,
+ * and entries written by an unknown (newer) version are ignored instead of failing the request.
+ * <p>
+ * Legacy JSON values have no header and live under their own key space (see AggCacheService).
+ */
+@Log4j2
+public final class AggCacheCodecs {
+    public static final AggCacheCodec JSON = new JsonAggCacheCodec();
+    public static final AggCacheCodec SMILE_LZ4 = new SmileLz4AggCacheCodec();
+
+    private static final Map<Byte, AggCacheCodec> VERSIONED_CODECS = Map.of(
+            SMILE_LZ4.getVersion(), SMILE_LZ4);
+
+    private AggCacheCodecs() {
+    }
+
+    /**
+     * @param name "json" or "smile_lz4" (case insensitive); defaults to json
+     */
+    public static AggCacheCodec fromName(String name) {
+        if ("smile_lz4".equalsIgnoreCase(StringUtils.trimToEmpty(name))) {
+            return SMILE_LZ4;
+        }
+        return JSON;
+    }
+
+    public static boolean isVersioned(AggCacheCodec codec) {
+        return codec.getVersion() != JsonAggCacheCodec.VERSION;
+    }
+
+    public static byte[] encode(AggCacheCodec codec, ObjectMapper mapper, Object value) throws IOException {
+        byte[] payload = codec.encode(mapper, value);
+        if (!isVersioned(codec)) {
+            return payload;
+        }
+        byte[] framed = new byte[payload.length + 1];
+        framed[0] = codec.getVersion();
+        System.arraycopy(payload, 0, framed, 1, payload.length);
+        return framed;
+    }
+
+    /**
+     * Decodes a value written with {@link #encode}. Returns empty if the value was written by an unknown codec version.
+     *
+     * @param codec codec configured for the key space the value was read from
+     */
+    public static <T> Optional<T> decode(AggCacheCodec codec, ObjectMapper mapper, byte[] data, JavaType type) throws IOException {
+        if (data == null || data.length == 0) {
+            return Optional.empty();
+        }
+        if (!isVersioned(codec)) {
+            return Optional.ofNullable(codec.decode(mapper, data, 0, type));
+        }
+        AggCacheCodec versionCodec = VERSIONED_CODECS.get(data[0]);
+        if (versionCodec == null) {
+            log.warn("Ignoring agg cache value with unknown codec version {}", data[0]);
+            return Optional.empty();
+        }
+        return Optional.ofNullable(versionCodec.decode(mapper, data, 1, type));
+    }
+}
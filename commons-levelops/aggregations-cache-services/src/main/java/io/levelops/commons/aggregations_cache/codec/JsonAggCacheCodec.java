@@ -0,0 +1,28 @@
+package io.levelops.commons.aggregations_cache.codec;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+
+/**
+ * Plain UTF-8 JSON, as historically stored by the aggregation cache. Values carry no version byte.
+ */
+public class JsonAggCacheCodec implements AggCacheCodec {
+    public static final byte VERSION = 0;
+
+    @Override
+    public byte getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public byte[] encode(ObjectMapper mapper, Object value) throws IOException {
+        return mapper.writeValueAsBytes(value);
+    }
+
+    @Override
+    public <T> T decode(ObjectMapper mapper, byte[] data, int offset, JavaType type) throws IOException {
+        return mapper.readValue(data, offset, data.length - offset, type);
+    }
+}
@@ -0,0 +1,48 @@
+package io.levelops.commons.aggregations_cache.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+/**
+ * Binary Smile encoding compressed with LZ4 frames.
+ * <p>
+ * The caller's mapper drives (de)serialization through a Smile generator/parser,
+ * so the data model is identical to the JSON codec.
+ */
+public class SmileLz4AggCacheCodec implements AggCacheCodec {
+    public static final byte VERSION = 1;
+
+    private static final SmileFactory SMILE_FACTORY = new SmileFactory();
+
+    @Override
+    public byte getVersion() {
+        return VERSION;
+    }
+
+    @Override
+    public byte[] encode(ObjectMapper mapper, Object value) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // closing the generator also finishes the LZ4 frame
+        try (JsonGenerator generator = SMILE_FACTORY.createGenerator(new LZ4FrameOutputStream(out))) {
+            mapper.writeValue(generator, value);
+        }
+        return out.toByteArray();
+    }
+
+    @Override
+    public <T> T decode(ObjectMapper mapper, byte[] data, int offset, JavaType type) throws IOException {
+        try (JsonParser parser = SMILE_FACTORY.createParser(
+                new LZ4FrameInputStream(new ByteArrayInputStream(data, offset, data.length - offset)))) {
+            return mapper.readValue(parser, type);
+        }
+    }
+}
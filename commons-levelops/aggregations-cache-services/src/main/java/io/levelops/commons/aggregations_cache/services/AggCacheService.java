@@ -1,5 +1,9 @@
 package io.levelops.commons.aggregations_cache.services;
 
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.levelops.commons.aggregations_cache.codec.AggCacheCodec;
+import io.levelops.commons.aggregations_cache.codec.AggCacheCodecs;
 import lombok.Builder;
 import lombok.extern.log4j.Log4j2;
 import org.apache.commons.lang3.Validate;
@@ -7,8 +11,11 @@ import org.springframework.data.redis.connection.RedisConnection;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -17,26 +24,136 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 @Log4j2
 @Builder
 public class AggCacheService {
-    private static final String REDIS_KEY_FORMAT = "jira_%s_%s_%s_%s";
+    // company, misc, integration ids, generation, query hash
+    private static final String REDIS_KEY_FORMAT = "jira_%s_%s_%s_g%s_%s";
+    // values framed with a codec version byte are kept apart from legacy JSON values
+    private static final String VERSIONED_REDIS_KEY_FORMAT = "jira_bin_%s_%s_%s_g%s_%s";
+    private static final String GENERATION_KEY_FORMAT = "agg_cache_gen_%s";
+    // scope of the values cached without integration ids: they may depend on any integration of the company
+    static final String ANY_INTEGRATION = "*";
     private static final Long CACHE_TTL_VALUE_DEFAULT = 60L;
     private static final TimeUnit CACHE_TTL_UNIT_DEFAULT = TimeUnit.MINUTES;
 
     private final Boolean enabled;
     private final RedisConnectionFactory redisConnectionFactory;
+    /**
+     * Optional in-process cache consulted before Redis. Null disables it.
+     */
+    private final AggNearCache nearCache;
+    /**
+     * Value encoding; defaults to legacy JSON.
+     */
+    private final AggCacheCodec codec;
 
-    private String buildKey(String company, String misc, List<String> integrationIds, String hash) {
-        String key = String.format(REDIS_KEY_FORMAT, company, misc,
-                integrationIds.stream().sorted().collect(Collectors.joining(",")), hash);
+    private String buildKey(String company, String misc, List<String> integrationIds, String generation, String hash) {
+        String key = String.format(AggCacheCodecs.isVersioned(getCodec()) ? VERSIONED_REDIS_KEY_FORMAT : REDIS_KEY_FORMAT,
+                company, misc, integrationIds.stream().sorted().collect(Collectors.joining(",")), generation, hash);
         log.debug("key = {}", key);
         return key;
     }
 
+    /**
+     * Scope of a generation counter: "company" for company-wide changes, "company:integrationId" otherwise.
+     * This is also the message format of {@link AggNearCache#INVALIDATION_CHANNEL}.
+     * <p>
+     * "company:*" is bumped along with every integration of the company, and only used by values cached
+     * without integration ids.
+     */
+    static String generationScope(String company, String integrationId) {
+        return integrationId == null ? company : company + ":" + integrationId;
+    }
+
+    /**
+     * Returns the current data generation of a company and its integrations, to be embedded in cache keys.
+     * Bumping any of these generations (see {@link #invalidate}) makes every key built from the old value unreachable.
+     * Without integration ids, the value is assumed to depend on all the integrations of the company.
+     * <p>
+     * Callers that compute a value on a miss should read the generation before running the query and save with
+     * that same generation, so that a result computed on data older than an invalidation is never stored as fresh.
+     */
+    public String getGeneration(String company, List<String> integrationIds) {
+        if (!enabled) {
+            return "";
+        }
+        Validate.notBlank(company, "company cannot be null or empty!");
+        Validate.notNull(integrationIds, "integrationIds cannot be null!");
+        List<String> scopes = new ArrayList<>();
+        scopes.add(generationScope(company, null));
+        integrationIds.stream()
+                .distinct()
+                .sorted()
+                .map(integrationId -> generationScope(company, integrationId))
+                .forEach(scopes::add);
+        if (integrationIds.isEmpty()) {
+            scopes.add(generationScope(company, ANY_INTEGRATION));
+        }
+
+        Long[] generations = new Long[scopes.size()];
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < scopes.size(); i++) {
+            generations[i] = (nearCache != null) ? nearCache.getGeneration(scopes.get(i)) : null;
+            if (generations[i] == null) {
+                missing.add(i);
+            }
+        }
+        if (!missing.isEmpty()) {
+            byte[][] keys = missing.stream()
+                    .map(i -> String.format(GENERATION_KEY_FORMAT, scopes.get(i)).getBytes(UTF_8))
+                    .toArray(byte[][]::new);
+            List<byte[]> values;
+            try (RedisConnection redis = redisConnectionFactory.getConnection()) {
+                values = redis.stringCommands().mGet(keys);
+            }
+            for (int j = 0; j < missing.size(); j++) {
+                byte[] value = (values != null && j < values.size()) ? values.get(j) : null;
+                long generation = (value == null) ? 0L : Long.parseLong(new String(value, UTF_8));
+                generations[missing.get(j)] = generation;
+                if (nearCache != null) {
+                    nearCache.putGeneration(scopes.get(missing.get(j)), generation);
+                }
+            }
+        }
+        return Arrays.stream(generations).map(String::valueOf).collect(Collectors.joining("-"));
+    }
+
+    public AggCacheCodec getCodec() {
+        return codec != null ? codec : AggCacheCodecs.JSON;
+    }
+
+    public byte[] encode(ObjectMapper mapper, Object value) throws IOException {
+        return AggCacheCodecs.encode(getCodec(), mapper, value);
+    }
+
+    public <T> Optional<T> decode(ObjectMapper mapper, byte[] data, JavaType type) throws IOException {
+        return AggCacheCodecs.decode(getCodec(), mapper, data, type);
+    }
+
     public void saveQueryData(String company, String misc, List<String> integrationIds, String queryHash, String data)
             throws IOException {
         saveQueryData(company, misc, integrationIds, queryHash, data, CACHE_TTL_VALUE_DEFAULT, CACHE_TTL_UNIT_DEFAULT);
     }
 
     public void saveQueryData(String company, String misc, List<String> integrationIds, String queryHash, String data, Long cacheTTLValue, TimeUnit cacheTTLUnit)throws IOException {
+        saveQueryBytes(company, misc, integrationIds, queryHash, data == null ? null : data.getBytes(UTF_8), cacheTTLValue, cacheTTLUnit);
+    }
+
+    public void saveQueryBytes(String company, String misc, List<String> integrationIds, String queryHash, byte[] data)
+            throws IOException {
+        saveQueryBytes(company, misc, integrationIds, queryHash, data, CACHE_TTL_VALUE_DEFAULT, CACHE_TTL_UNIT_DEFAULT);
+    }
+
+    /**
+     * Saves a value already encoded with {@link #encode}.
+     */
+    public void saveQueryBytes(String company, String misc, List<String> integrationIds, String queryHash, byte[] data, Long cacheTTLValue, TimeUnit cacheTTLUnit) throws IOException {
+        saveQueryBytes(company, misc, integrationIds, queryHash, null, data, cacheTTLValue, cacheTTLUnit);
+    }
+
+    /**
+     * @param generation value of {@link #getGeneration} read before the data was computed; if null, the current one is used
+     * @param cacheTTLValue if null, the default TTL is used
+     */
+    public void saveQueryBytes(String company, String misc, List<String> integrationIds, String queryHash, String generation, byte[] data, Long cacheTTLValue, TimeUnit cacheTTLUnit) throws IOException {
         if (!enabled) {
             log.debug("Caching flag is disabled.");
             return;
@@ -47,12 +164,21 @@ public class AggCacheService {
         Validate.notNull(integrationIds, "integrationIds cannot be null!");
         Validate.notNull(queryHash, "query cannot be null!");
         Validate.notNull(data, "data cannot be null!");
-        Validate.notNull(cacheTTLValue, "cacheTTLValue cannot be null!");
-        Validate.notNull(cacheTTLUnit, "cacheTTLUnit cannot be null!");
+        if (cacheTTLValue == null || cacheTTLUnit == null) {
+            cacheTTLValue = CACHE_TTL_VALUE_DEFAULT;
+            cacheTTLUnit = CACHE_TTL_UNIT_DEFAULT;
+        }
 
-        String key = buildKey(company, misc, integrationIds, queryHash);
+        if (generation == null) {
+            generation = getGeneration(company, integrationIds);
+        }
+        String key = buildKey(company, misc, integrationIds, generation, queryHash);
+        if (nearCache != null) {
+            // keyed by generation too: a result computed before an invalidation is never served after it
+            nearCache.put(AggNearCache.key(company, misc, integrationIds, generation, queryHash), data);
+        }
         try (RedisConnection redis = redisConnectionFactory.getConnection()) {
-            Boolean success = redis.stringCommands().setEx(key.getBytes(UTF_8), cacheTTLUnit.toSeconds(cacheTTLValue), data.getBytes(UTF_8));
+            Boolean success = redis.stringCommands().setEx(key.getBytes(UTF_8), cacheTTLUnit.toSeconds(cacheTTLValue), data);
             if (!Boolean.TRUE.equals(success)) {
                 throw new IOException(String.format("Failed to save cache, company %s, integrationid %s, query %s",
                         company, integrationIds, queryHash));
@@ -61,6 +187,20 @@ public class AggCacheService {
     }
 
     public Optional<String> getQueryData(String company, String misc, List<String> integrationIds, String queryHash) {
+        return getQueryBytes(company, misc, integrationIds, queryHash).map(data -> new String(data, UTF_8));
+    }
+
+    /**
+     * Returns the raw value, to be read back with {@link #decode}.
+     */
+    public Optional<byte[]> getQueryBytes(String company, String misc, List<String> integrationIds, String queryHash) {
+        return getQueryBytes(company, misc, integrationIds, queryHash, null);
+    }
+
+    /**
+     * @param generation value of {@link #getGeneration}; if null, the current one is used
+     */
+    public Optional<byte[]> getQueryBytes(String company, String misc, List<String> integrationIds, String queryHash, String generation) {
         if (!enabled) {
             log.debug("Caching flag is disabled.");
             return Optional.empty();
@@ -71,10 +211,76 @@ public class AggCacheService {
         Validate.notNull(integrationIds, "integrationIds cannot be null!");
         Validate.notNull(queryHash, "queryhash cannot be null!");
 
-        String key = buildKey(company, misc, integrationIds, queryHash);
+        if (generation == null) {
+            generation = getGeneration(company, integrationIds);
+        }
+        AggNearCache.AggCacheKey nearCacheKey = null;
+        if (nearCache != null) {
+            nearCacheKey = AggNearCache.key(company, misc, integrationIds, generation, queryHash);
+            Optional<byte[]> local = nearCache.get(nearCacheKey);
+            if (local.isPresent()) {
+                return local;
+            }
+        }
+        String key = buildKey(company, misc, integrationIds, generation, queryHash);
         try (RedisConnection redis = redisConnectionFactory.getConnection()) {
             byte[] data = redis.stringCommands().get(key.getBytes(UTF_8));
-            return (data == null) ? Optional.empty() : Optional.of(new String(data, UTF_8));
+            if (data == null) {
+                return Optional.empty();
+            }
+            if (nearCacheKey != null) {
+                nearCache.put(nearCacheKey, data);
+            }
+            return Optional.of(data);
+        }
+    }
+
+    /**
+     * Runs the loader on a cache miss. When the near cache is enabled, concurrent callers missing on the
+     * same key share a single loader invocation and all receive its result.
+     */
+    public byte[] loadOnce(String company, String misc, List<String> integrationIds, String queryHash,
+                           Callable<byte[]> loader) throws Exception {
+        return loadOnce(company, misc, integrationIds, queryHash, null, loader);
+    }
+
+    /**
+     * @param generation value of {@link #getGeneration} read before the miss; if null, the current one is used
+     */
+    public byte[] loadOnce(String company, String misc, List<String> integrationIds, String queryHash, String generation,
+                           Callable<byte[]> loader) throws Exception {
+        if (!enabled || nearCache == null) {
+            return loader.call();
+        }
+        if (generation == null) {
+            generation = getGeneration(company, integrationIds);
+        }
+        return nearCache.coalesce(AggNearCache.key(company, misc, integrationIds, generation, queryHash), loader);
+    }
+
+    /**
+     * Signals that the data of a company (or of one of its integrations) changed.
+     * <p>
+     * Bumps the matching generation so that every Redis entry built with the previous one is no longer reachable
+     * (they are left to expire on their own TTL), and tells every instance to drop its near-cached entries.
+     */
+    public void invalidate(String company, String integrationId) {
+        Validate.notBlank(company, "company cannot be null or empty!");
+        if (nearCache != null) {
+            nearCache.invalidateLocal(company, integrationId);
+        }
+        if (!enabled) {
+            return;
+        }
+        String scope = generationScope(company, integrationId);
+        try (RedisConnection redis = redisConnectionFactory.getConnection()) {
+            Long generation = redis.stringCommands().incr(String.format(GENERATION_KEY_FORMAT, scope).getBytes(UTF_8));
+            if (integrationId != null) {
+                // values cached without integration ids may depend on this integration too
+                redis.stringCommands().incr(String.format(GENERATION_KEY_FORMAT, generationScope(company, ANY_INTEGRATION)).getBytes(UTF_8));
+            }
+            redis.publish(AggNearCache.INVALIDATION_CHANNEL.getBytes(UTF_8), scope.getBytes(UTF_8));
+            log.debug("Invalidated agg cache for {}, generation={}", scope, generation);
         }
     }
 }
@@ -1,6 +1,7 @@
 package io.levelops.commons.aggregations_cache.services;
 
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.levelops.commons.models.DbListResponse;
 import lombok.extern.log4j.Log4j2;
@@ -9,6 +10,8 @@ import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import redis.clients.jedis.exceptions.JedisException;
 
 @Log4j2
@@ -17,75 +20,86 @@ public class AggCacheUtils {
     public static <T> DbListResponse<T> cacheOrCall(Boolean disableCache, String company, String misc, String cacheHash,
                                                     List<String> integrationIds, ObjectMapper mapper, AggCacheService cacheService,
                                                     Callable<DbListResponse<T>> callable) throws Exception {
-        DbListResponse<T> resp = null;
         if (Boolean.TRUE.equals(disableCache))
             return callable.call();
-        Optional<String> data = Optional.empty();
-        try {
-            data = cacheService.getQueryData(company, misc, integrationIds, cacheHash);
-        } catch (Exception e) {
-            if (!(e instanceof JedisException)) {
-                log.debug("failed to use cache due to jedis error.");
-            }
-            log.warn("failed to use cache due to unknown error.", e);
-        }
-        if (data.isPresent())
-            resp = mapper.readValue(data.get(), new TypeReference<>() {
-            });
-        else {
-            resp = callable.call();
-            try {
-                cacheService.saveQueryData(company, misc, integrationIds,
-                        cacheHash, mapper.writeValueAsString(resp));
-            } catch (Exception e) {
-                if (!(e instanceof JedisException)) {
-                    log.debug("failed to save in cache due to jedis error.");
-                }
-                log.warn("failed to save in cache due to unknown error.", e);
-            }
-        }
-        return resp;
+        JavaType type = mapper.getTypeFactory().constructType(new TypeReference<DbListResponse<T>>() {
+        });
+        return cacheOrCallInternal(company, misc, cacheHash, integrationIds, mapper, cacheService, type, null, null, callable);
     }
 
     public static <T> T cacheOrCallGeneric(Boolean disableCache, String company, String misc, String cacheHash,
                                            List<String> integrationIds, ObjectMapper mapper, AggCacheService cacheService,
                                            Class clazz, Long cacheTTLValue, TimeUnit cacheTTLTimeUnit,
                                            Callable<T> callable) throws Exception {
-        T resp = null;
         if (Boolean.TRUE.equals(disableCache))
             return callable.call();
-        Optional<String> data = Optional.empty();
+        JavaType type = (clazz != null)
+                ? mapper.getTypeFactory().constructType(clazz)
+                : mapper.getTypeFactory().constructType(new TypeReference<T>() {
+        });
+        return cacheOrCallInternal(company, misc, cacheHash, integrationIds, mapper, cacheService, type, cacheTTLValue, cacheTTLTimeUnit, callable);
+    }
+
+    private static <T> T cacheOrCallInternal(String company, String misc, String cacheHash, List<String> integrationIds,
+                                             ObjectMapper mapper, AggCacheService cacheService, JavaType type,
+                                             Long cacheTTLValue, TimeUnit cacheTTLTimeUnit,
+                                             Callable<T> callable) throws Exception {
+        Optional<T> cached = Optional.empty();
+        String generation = null;
         try {
-            data = cacheService.getQueryData(company, misc, integrationIds, cacheHash);
+            // read once so that the result is saved under the generation it was computed for
+            generation = cacheService.getGeneration(company, integrationIds);
+            Optional<byte[]> data = cacheService.getQueryBytes(company, misc, integrationIds, cacheHash, generation);
+            if (data.isPresent()) {
+                cached = cacheService.decode(mapper, data.get(), type);
+            }
         } catch (Exception e) {
             if (!(e instanceof JedisException)) {
                 log.debug("failed to use cache due to jedis error.");
             }
             log.warn("failed to use cache due to unknown error.", e);
         }
+        if (cached.isPresent()) {
+            log.debug("data present in cache");
+            return cached.get();
+        }
 
-        if (data.isPresent()) {
-            log.info("data present in cache");
-            if(clazz != null)
-                resp = (T) mapper.readValue(data.get(), clazz);
-            else
-                resp = mapper.readValue(data.get(), new TypeReference<>() {});
+        AtomicReference<T> computed = new AtomicReference<>();
+        AtomicBoolean called = new AtomicBoolean(false);
+        String computedGeneration = generation;
+        byte[] encoded = cacheService.loadOnce(company, misc, integrationIds, cacheHash, generation, () -> {
+            T result = callable.call();
+            computed.set(result);
+            called.set(true);
+            return encodeAndSave(company, misc, cacheHash, integrationIds, computedGeneration, mapper, cacheService, result, cacheTTLValue, cacheTTLTimeUnit);
+        });
+        if (called.get()) {
+            return computed.get();
+        }
+        if (encoded != null) {
+            // another caller ran the query for us
+            Optional<T> shared = cacheService.decode(mapper, encoded, type);
+            if (shared.isPresent()) {
+                return shared.get();
+            }
+        }
+        // the shared result could not be encoded
+        return callable.call();
+    }
 
-        } else {
-            resp = callable.call();
-            try {
-                if ((cacheTTLValue != null) && (cacheTTLTimeUnit != null)) {
-                    cacheService.saveQueryData(company, misc, integrationIds, cacheHash, mapper.writeValueAsString(resp), cacheTTLValue, cacheTTLTimeUnit);
-                } else {
-                    cacheService.saveQueryData(company, misc, integrationIds, cacheHash, mapper.writeValueAsString(resp));
-                }
-            } catch (Exception e) {
-                if (!(e instanceof JedisException)) {
-                    log.debug("failed to save in cache due to jedis error.");
-                }
-                log.warn("failed to save in cache due to unknown error.", e);
+    private static byte[] encodeAndSave(String company, String misc, String cacheHash, List<String> integrationIds,
+                                        String generation, ObjectMapper mapper, AggCacheService cacheService, Object result,
+                                        Long cacheTTLValue, TimeUnit cacheTTLTimeUnit) {
+        byte[] encoded = null;
+        try {
+            encoded = cacheService.encode(mapper, result);
+            cacheService.saveQueryBytes(company, misc, integrationIds, cacheHash, generation, encoded, cacheTTLValue, cacheTTLTimeUnit);
+        } catch (Exception e) {
+            if (!(e instanceof JedisException)) {
+                log.debug("failed to save in cache due to jedis error.");
             }
+            log.warn("failed to save in cache due to unknown error.", e);
         }
-        return resp;
+        return encoded;
     }
 }
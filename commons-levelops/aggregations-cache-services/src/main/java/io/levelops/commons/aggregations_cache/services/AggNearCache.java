@@ -0,0 +1,250 @@
+package io.levelops.commons.aggregations_cache.services;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * In-process cache sitting in front of Redis for {@link AggCacheService}.
+ * <p>
+ * Entries are bounded by their approximate size in bytes and expire after a short TTL.
+ * Concurrent misses on the same key are coalesced so that only one caller runs the underlying query.
+ * Invalidations are broadcast to every instance through a Redis pub/sub channel (see {@link AggCacheService#invalidate}).
+ * <p>
+ * Messages on the invalidation channel are either "company" (drop everything for that tenant)
+ * or "company:integrationId" (drop entries that involve that integration).
+ */
+@Log4j2
+public class AggNearCache {
+    public static final String INVALIDATION_CHANNEL = "agg_cache_invalidation";
+    private static final long DEFAULT_MAX_WEIGHT_BYTES = 64 * 1024 * 1024L;
+    private static final long DEFAULT_TTL_SECONDS = 120L;
+    private static final long SUBSCRIBER_RETRY_DELAY_MS = 5000L;
+    private static final long DEFAULT_MAX_GENERATIONS = 10000L;
+    private static final long GENERATION_TTL_SECONDS = 30L;
+
+    private static final String METRIC_NEAR_HIT = "agg.cache.near.hit";
+    private static final String METRIC_NEAR_MISS = "agg.cache.near.miss";
+    private static final String METRIC_COALESCED = "agg.cache.coalesced";
+    private static final String METRIC_INVALIDATION = "agg.cache.near.invalidation";
+    private static final String REPORT_TAG = "report";
+
+    private final Cache<AggCacheKey, byte[]> cache;
+    // generation numbers are kept briefly so that near misses don't need an extra Redis round trip
+    private final Cache<String, Long> generations;
+    private final Map<AggCacheKey, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+    private final RedisConnectionFactory redisConnectionFactory;
+    private final MeterRegistry meterRegistry;
+    private volatile boolean running;
+    private volatile RedisConnection subscriberConnection;
+
+    @Builder
+    public AggNearCache(Long maxWeightBytes,
+                        Long ttlSeconds,
+                        RedisConnectionFactory redisConnectionFactory,
+                        MeterRegistry meterRegistry) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxWeightBytes != null ? maxWeightBytes : DEFAULT_MAX_WEIGHT_BYTES)
+                .weigher((AggCacheKey key, byte[] value) -> estimateWeight(key, value))
+                .expireAfterWrite(ttlSeconds != null ? ttlSeconds : DEFAULT_TTL_SECONDS, TimeUnit.SECONDS)
+                .build();
+        this.generations = CacheBuilder.newBuilder()
+                .maximumSize(DEFAULT_MAX_GENERATIONS)
+                .expireAfterWrite(GENERATION_TTL_SECONDS, TimeUnit.SECONDS)
+                .build();
+        this.redisConnectionFactory = redisConnectionFactory;
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Optional<byte[]> get(AggCacheKey key) {
+        byte[] value = cache.getIfPresent(key);
+        increment(value != null ? METRIC_NEAR_HIT : METRIC_NEAR_MISS, key.getMisc());
+        return Optional.ofNullable(value);
+    }
+
+    public void put(AggCacheKey key, byte[] value) {
+        if (value == null) {
+            return;
+        }
+        cache.put(key, value);
+    }
+
+    /**
+     * Runs the loader for the given key, unless another thread is already loading it,
+     * in which case this waits for and returns that thread's result.
+     */
+    public byte[] coalesce(AggCacheKey key, Callable<byte[]> loader) throws Exception {
+        CompletableFuture<byte[]> future = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            increment(METRIC_COALESCED, key.getMisc());
+            try {
+                return existing.get();
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+            }
+        }
+        try {
+            byte[] value = loader.call();
+            future.complete(value);
+            return value;
+        } catch (Exception e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Locally known generation of a scope (see {@link AggCacheService#getGeneration}), or null.
+     */
+    public Long getGeneration(String scope) {
+        return generations.getIfPresent(scope);
+    }
+
+    public void putGeneration(String scope, long generation) {
+        generations.put(scope, generation);
+    }
+
+    /**
+     * Drops entries of a company, or only those involving the given integration. Other instances are notified
+     * through {@link AggCacheService#invalidate}.
+     */
+    public void invalidateLocal(String company, String integrationId) {
+        if (StringUtils.isEmpty(company)) {
+            return;
+        }
+        // entries without integration ids may depend on any integration
+        cache.asMap().keySet().removeIf(key -> company.equals(key.getCompany())
+                && (integrationId == null || key.getIntegrationIds().isEmpty() || key.getIntegrationIds().contains(integrationId)));
+        if (integrationId == null) {
+            generations.asMap().keySet().removeIf(scope -> scope.equals(company) || scope.startsWith(company + ":"));
+        } else {
+            generations.invalidate(AggCacheService.generationScope(company, integrationId));
+            generations.invalidate(AggCacheService.generationScope(company, AggCacheService.ANY_INTEGRATION));
+        }
+        increment(METRIC_INVALIDATION, "");
+    }
+
+    void onInvalidationMessage(Message message) {
+        String body = new String(message.getBody(), UTF_8);
+        String company = StringUtils.substringBefore(body, ":");
+        String integrationId = body.contains(":") ? StringUtils.substringAfter(body, ":") : null;
+        log.debug("Received agg cache invalidation: company={}, integrationId={}", company, integrationId);
+        invalidateLocal(company, integrationId);
+    }
+
+    /**
+     * Starts listening for invalidations from other instances. Jedis subscriptions block,
+     * so this runs on its own daemon thread and re-subscribes if the connection drops.
+     */
+    public void start() {
+        if (redisConnectionFactory == null || running) {
+            return;
+        }
+        running = true;
+        Thread thread = new Thread(this::subscribeLoop, "agg-near-cache-invalidation");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        RedisConnection connection = subscriberConnection;
+        if (connection != null) {
+            try {
+                connection.close();
+            } catch (Exception e) {
+                log.debug("Failed to close agg cache invalidation subscriber", e);
+            }
+        }
+    }
+
+    private void subscribeLoop() {
+        while (running) {
+            try (RedisConnection redis = redisConnectionFactory.getConnection()) {
+                subscriberConnection = redis;
+                // drop everything we may have missed while not subscribed
+                cache.invalidateAll();
+                generations.invalidateAll();
+                redis.subscribe((message, pattern) -> onInvalidationMessage(message), INVALIDATION_CHANNEL.getBytes(UTF_8));
+            } catch (Exception e) {
+                if (running) {
+                    log.warn("Agg cache invalidation subscriber failed, retrying in {}ms", SUBSCRIBER_RETRY_DELAY_MS, e);
+                }
+            } finally {
+                subscriberConnection = null;
+            }
+            if (running) {
+                try {
+                    Thread.sleep(SUBSCRIBER_RETRY_DELAY_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    long size() {
+        cache.cleanUp();
+        return cache.size();
+    }
+
+    private void increment(String metric, String misc) {
+        if (meterRegistry == null) {
+            return;
+        }
+        meterRegistry.counter(metric, REPORT_TAG, StringUtils.defaultString(misc)).increment();
+    }
+
+    private static int estimateWeight(AggCacheKey key, byte[] value) {
+        long bytes = value.length + 2L * (key.getHash().length() + key.getMisc().length() + key.getGeneration().length())
+                + 8L * key.getIntegrationIds().size();
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    /**
+     * @param generation value of {@link AggCacheService#getGeneration} the data was computed for: like in Redis keys,
+     *                   entries saved for an older generation are never read again
+     */
+    public static AggCacheKey key(String company, String misc, List<String> integrationIds, String generation, String hash) {
+        return AggCacheKey.builder()
+                .company(company)
+                .misc(StringUtils.defaultString(misc))
+                .integrationIds(integrationIds.stream().sorted().collect(Collectors.toList()))
+                .generation(StringUtils.defaultString(generation))
+                .hash(hash)
+                .build();
+    }
+
+    @Value
+    @Builder
+    public static class AggCacheKey {
+        String company;
+        String misc;
+        List<String> integrationIds;
+        String generation;
+        String hash;
+    }
+}
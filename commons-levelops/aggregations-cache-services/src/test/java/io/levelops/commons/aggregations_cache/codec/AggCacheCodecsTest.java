@@ -0,0 +1,118 @@
+package io.levelops.commons.aggregations_cache.codec;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.levelops.commons.databases.models.response.DbAggregationResult;
+import io.levelops.commons.jackson.DefaultObjectMapper;
+import io.levelops.commons.models.DbListResponse;
+import lombok.extern.log4j.Log4j2;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Log4j2
+public class AggCacheCodecsTest {
+
+    private static final ObjectMapper MAPPER = DefaultObjectMapper.get();
+    private static final JavaType TYPE = MAPPER.getTypeFactory().constructType(new TypeReference<DbListResponse<DbAggregationResult>>() {
+    });
+
+    private static DbListResponse<DbAggregationResult> buildPage(int size) {
+        List<DbAggregationResult> records = IntStream.range(0, size)
+                .mapToObj(i -> DbAggregationResult.builder()
+                        .key("assignee-" + i)
+                        .additionalKey("Assignee Name " + i)
+                        .count((long) i * 3)
+                        .totalTickets((long) i * 5)
+                        .median(1000L * i)
+                        .min(10L)
+                        .max(100_000L + i)
+                        .mean(i * 1.5)
+                        .p90(90_000L)
+                        .stacks(List.of(
+                                DbAggregationResult.builder().key("TODO").count(1L).build(),
+                                DbAggregationResult.builder().key("IN PROGRESS").count(2L).build(),
+                                DbAggregationResult.builder().key("DONE").count((long) i).build()))
+                        .build())
+                .collect(Collectors.toList());
+        return DbListResponse.of(records, size);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        DbListResponse<DbAggregationResult> page = buildPage(50);
+        for (AggCacheCodec codec : List.of(AggCacheCodecs.JSON, AggCacheCodecs.SMILE_LZ4)) {
+            byte[] encoded = AggCacheCodecs.encode(codec, MAPPER, page);
+            Optional<DbListResponse<DbAggregationResult>> decoded = AggCacheCodecs.decode(codec, MAPPER, encoded, TYPE);
+            assertThat(decoded).contains(page);
+        }
+    }
+
+    @Test
+    public void testVersionByte() throws IOException {
+        DbListResponse<DbAggregationResult> page = buildPage(5);
+
+        byte[] json = AggCacheCodecs.encode(AggCacheCodecs.JSON, MAPPER, page);
+        assertThat(json[0]).isEqualTo((byte) '{');
+
+        byte[] smile = AggCacheCodecs.encode(AggCacheCodecs.SMILE_LZ4, MAPPER, page);
+        assertThat(smile[0]).isEqualTo(SmileLz4AggCacheCodec.VERSION);
+
+        // unknown versions and stray legacy json in the binary key space are ignored
+        smile[0] = 42;
+        assertThat(AggCacheCodecs.decode(AggCacheCodecs.SMILE_LZ4, MAPPER, smile, TYPE)).isEmpty();
+        assertThat(AggCacheCodecs.decode(AggCacheCodecs.SMILE_LZ4, MAPPER, json, TYPE)).isEmpty();
+        assertThat(AggCacheCodecs.decode(AggCacheCodecs.SMILE_LZ4, MAPPER, new byte[0], TYPE)).isEmpty();
+    }
+
+    @Test
+    public void testFromName() {
+        assertThat(AggCacheCodecs.fromName("smile_lz4")).isSameAs(AggCacheCodecs.SMILE_LZ4);
+        assertThat(AggCacheCodecs.fromName("SMILE_LZ4")).isSameAs(AggCacheCodecs.SMILE_LZ4);
+        assertThat(AggCacheCodecs.fromName("json")).isSameAs(AggCacheCodecs.JSON);
+        assertThat(AggCacheCodecs.fromName(null)).isSameAs(AggCacheCodecs.JSON);
+    }
+
+    /**
+     * Compares value size and decode latency for typical widget pages. Numbers are logged, not asserted,
+     * except that the binary encoding must not be larger than JSON.
+     */
+    @Test
+    public void benchmark() throws IOException {
+        int iterations = 200;
+        for (int pageSize : List.of(10, 100, 1000, 10000)) {
+            DbListResponse<DbAggregationResult> page = buildPage(pageSize);
+            long jsonSize = 0;
+            long smileSize = 0;
+            for (AggCacheCodec codec : List.of(AggCacheCodecs.JSON, AggCacheCodecs.SMILE_LZ4)) {
+                byte[] encoded = AggCacheCodecs.encode(codec, MAPPER, page);
+                // warm up
+                for (int i = 0; i < 20; i++) {
+                    AggCacheCodecs.decode(codec, MAPPER, encoded, TYPE);
+                }
+                int runs = Math.max(1, iterations * 10 / pageSize);
+                long start = System.nanoTime();
+                for (int i = 0; i < runs; i++) {
+                    AggCacheCodecs.decode(codec, MAPPER, encoded, TYPE);
+                }
+                double decodeMicros = (System.nanoTime() - start) / 1000.0 / runs;
+                log.info("codec={} records={} size={} bytes decode={} us", codec.getClass().getSimpleName(), pageSize,
+                        encoded.length, String.format("%.1f", decodeMicros));
+                if (codec == AggCacheCodecs.JSON) {
+                    jsonSize = encoded.length;
+                } else {
+                    smileSize = encoded.length;
+                }
+            }
+            log.info("records={} smile+lz4 is {}% of json", pageSize, String.format("%.1f", 100.0 * smileSize / jsonSize));
+            assertThat(smileSize).isLessThanOrEqualTo(jsonSize);
+        }
+    }
+}
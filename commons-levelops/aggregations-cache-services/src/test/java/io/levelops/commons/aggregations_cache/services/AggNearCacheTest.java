@@ -0,0 +1,157 @@
+package io.levelops.commons.aggregations_cache.services;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.redis.connection.DefaultMessage;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class AggNearCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AggNearCache nearCache;
+
+    @Before
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        nearCache = AggNearCache.builder()
+                .maxWeightBytes(10_000L)
+                .ttlSeconds(60L)
+                .meterRegistry(meterRegistry)
+                .build();
+    }
+
+    @Test
+    public void testGetPut() {
+        AggNearCache.AggCacheKey key = AggNearCache.key("foo", "tickets_report", List.of("2", "1"), "0", "hash");
+        assertThat(get(key)).isEmpty();
+        nearCache.put(key, bytes("data"));
+        assertThat(get(AggNearCache.key("foo", "tickets_report", List.of("1", "2"), "0", "hash"))).contains("data");
+
+        assertThat(meterRegistry.counter("agg.cache.near.hit", "report", "tickets_report").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("agg.cache.near.miss", "report", "tickets_report").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void testEvictsBySize() {
+        byte[] big = new byte[2000];
+        for (int i = 0; i < 20; i++) {
+            nearCache.put(AggNearCache.key("foo", "r", List.of("1"), "0", "hash" + i), big);
+        }
+        assertThat(nearCache.size()).isLessThan(10);
+    }
+
+    @Test
+    public void testCoalesce() throws Exception {
+        AggNearCache.AggCacheKey key = AggNearCache.key("foo", "r", List.of("1"), "0", "hash");
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<byte[]> leader = executor.submit(() -> nearCache.coalesce(key, () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                release.await(5, TimeUnit.SECONDS);
+                return bytes("result");
+            }));
+            started.await(5, TimeUnit.SECONDS);
+            Future<byte[]> follower = executor.submit(() -> nearCache.coalesce(key, () -> {
+                calls.incrementAndGet();
+                return bytes("other");
+            }));
+            // give the follower time to attach to the in-flight load
+            while (meterRegistry.counter("agg.cache.coalesced", "report", "r").count() < 1) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(bytes("result"));
+            assertThat(follower.get(5, TimeUnit.SECONDS)).isSameAs(leader.get());
+            assertThat(calls.get()).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // once finished, the next miss loads again
+        assertThat(nearCache.coalesce(key, () -> bytes("again"))).isEqualTo(bytes("again"));
+    }
+
+    @Test
+    public void testCoalesceFailure() {
+        AggNearCache.AggCacheKey key = AggNearCache.key("foo", "r", List.of("1"), "0", "hash");
+        assertThatThrownBy(() -> nearCache.coalesce(key, () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void testInvalidation() {
+        AggNearCache.AggCacheKey foo1 = AggNearCache.key("foo", "r", List.of("1"), "0", "a");
+        AggNearCache.AggCacheKey foo2 = AggNearCache.key("foo", "r", List.of("2"), "0", "a");
+        AggNearCache.AggCacheKey bar1 = AggNearCache.key("bar", "r", List.of("1"), "0", "a");
+        AggNearCache.AggCacheKey fooAll = AggNearCache.key("foo", "r", List.of(), "0", "a");
+        nearCache.put(foo1, bytes("1"));
+        nearCache.put(foo2, bytes("2"));
+        nearCache.put(bar1, bytes("3"));
+        nearCache.put(fooAll, bytes("4"));
+
+        nearCache.onInvalidationMessage(new DefaultMessage(AggNearCache.INVALIDATION_CHANNEL.getBytes(UTF_8), "foo:1".getBytes(UTF_8)));
+        assertThat(get(foo1)).isEmpty();
+        assertThat(get(fooAll)).isEmpty();
+        assertThat(get(foo2)).contains("2");
+        assertThat(get(bar1)).contains("3");
+
+        nearCache.invalidateLocal("foo", null);
+        assertThat(get(foo2)).isEmpty();
+        assertThat(get(bar1)).contains("3");
+    }
+
+    @Test
+    public void testKeyedByGeneration() {
+        // a result computed before an invalidation and saved after it stays under the old generation
+        nearCache.put(AggNearCache.key("foo", "r", List.of("1"), "0-0", "a"), bytes("stale"));
+        assertThat(get(AggNearCache.key("foo", "r", List.of("1"), "0-1", "a"))).isEmpty();
+        assertThat(get(AggNearCache.key("foo", "r", List.of("1"), "0-0", "a"))).contains("stale");
+    }
+
+    @Test
+    public void testInvalidationDropsGenerations() {
+        nearCache.putGeneration("foo", 1L);
+        nearCache.putGeneration("foo:1", 2L);
+        nearCache.putGeneration("foo:2", 3L);
+        nearCache.putGeneration("bar:1", 4L);
+        nearCache.putGeneration("foo:*", 5L);
+
+        nearCache.onInvalidationMessage(new DefaultMessage(AggNearCache.INVALIDATION_CHANNEL.getBytes(UTF_8), "foo:1".getBytes(UTF_8)));
+        assertThat(nearCache.getGeneration("foo:1")).isNull();
+        assertThat(nearCache.getGeneration("foo:*")).isNull();
+        assertThat(nearCache.getGeneration("foo:2")).isEqualTo(3L);
+        assertThat(nearCache.getGeneration("foo")).isEqualTo(1L);
+
+        nearCache.onInvalidationMessage(new DefaultMessage(AggNearCache.INVALIDATION_CHANNEL.getBytes(UTF_8), "foo".getBytes(UTF_8)));
+        assertThat(nearCache.getGeneration("foo")).isNull();
+        assertThat(nearCache.getGeneration("foo:2")).isNull();
+        assertThat(nearCache.getGeneration("bar:1")).isEqualTo(4L);
+    }
+
+    private Optional<String> get(AggNearCache.AggCacheKey key) {
+        return nearCache.get(key).map(data -> new String(data, UTF_8));
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(UTF_8);
+    }
+}
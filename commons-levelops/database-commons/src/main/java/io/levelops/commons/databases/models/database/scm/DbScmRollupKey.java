@@ -0,0 +1,26 @@
+package io.levelops.commons.databases.models.database.scm;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDate;
+
+/**
+ * Identifies one (integration, day) of the SCM daily rollup tables.
+ * Days are UTC, matching how scm timestamps are stored.
+ */
+@Value
+@Builder(toBuilder = true)
+@JsonDeserialize(builder = DbScmRollupKey.DbScmRollupKeyBuilder.class)
+public class DbScmRollupKey {
+    @JsonProperty("integration_id")
+    private final Integer integrationId;
+
+    @JsonProperty("kind")
+    private final String kind;
+
+    @JsonProperty("day")
+    private final LocalDate day;
+}
@@ -3,6 +3,7 @@ package io.levelops.commons.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import io.levelops.commons.databases.utils.CancellableDataSource;
 import io.levelops.commons.jackson.DefaultObjectMapper;
 
 import org.apache.commons.logging.Log;
@@ -67,7 +68,8 @@ public class CommonConfig {
         config.setMaximumPoolSize(maxPoolSize);
         config.setConnectionTimeout(DB_CONNECTION_TIMEOUT);
         config.setLeakDetectionThreshold(DB_LEAK_DETECTION_THRESHOLD);
-        return new HikariDataSource(config);
+        // statements run by cancelled requests get cancelled on the server (see SpringUtils.deferResponse)
+        return new CancellableDataSource(new HikariDataSource(config));
     }
 
     @Bean(name = "simple_data_source")
@@ -128,6 +128,10 @@ public class JiraIssueService extends DatabaseService<DbJiraIssue> {
         return writeService.insert(company, issue);
     }
 
+    public int batchInsert(String company, List<DbJiraIssue> issues) {
+        return writeService.batchInsert(company, issues);
+    }
+
     public void bulkUpdateEpicStoryPoints(String company, String integrationId, Long ingestedDate)
             throws SQLException {
         writeService.bulkUpdateEpicStoryPoints(company, integrationId, ingestedDate);
@@ -141,6 +145,10 @@ public class JiraIssueService extends DatabaseService<DbJiraIssue> {
         return writeService.insertJiraLinkedIssueRelation(company, integrationId, fromIssueKey, toIssueKey, relation);
     }
 
+    public int batchInsertJiraLinkedIssueRelations(String company, List<DbJiraLink> links) {
+        return writeService.batchInsertJiraLinkedIssueRelations(company, links);
+    }
+
     public Boolean insertJiraUser(String company, DbJiraUser user) {
         return userService.insertJiraUser(company, user);
     }
@@ -236,6 +244,10 @@ public class JiraIssueService extends DatabaseService<DbJiraIssue> {
         return readService.get(company, key, integrationId, ingestedAt);
     }
 
+    public List<DbJiraIssue> getByKeys(String company, List<String> keys, String integrationId, Long ingestedAt) {
+        return readService.getByKeys(company, keys, integrationId, ingestedAt);
+    }
+
     @Override
     public DbListResponse<DbJiraIssue> list(String company, Integer pageNumber,
                                             Integer pageSize) throws SQLException {
@@ -9,6 +9,7 @@ import io.levelops.commons.models.DbListResponse;
 import lombok.Builder;
 import lombok.Value;
 import lombok.extern.log4j.Log4j2;
+import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.jetbrains.annotations.Nullable;
@@ -68,7 +69,29 @@ public class JiraIssueStoryPointsDatabaseService extends FilteredDatabaseService
     }
 
     public String upsert(String company, DbJiraStoryPoints o) throws SQLException {
-        String sql = "INSERT INTO " + company + ".jira_issue_story_points AS sp " +
+        String sql = getUpsertSql(company) + " RETURNING id";
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int updatedRows = template.update(sql, toUpsertParams(o), keyHolder);
+        if (updatedRows <= 0 || keyHolder.getKeys() == null) {
+            return null;
+        }
+        return String.valueOf(keyHolder.getKeys().get("id"));
+    }
+
+    /**
+     * Upserts several story points log entries in one JDBC batch.
+     */
+    public void batchUpsert(String company, List<DbJiraStoryPoints> storyPoints) {
+        if (CollectionUtils.isEmpty(storyPoints)) {
+            return;
+        }
+        template.batchUpdate(getUpsertSql(company), storyPoints.stream()
+                .map(this::toUpsertParams)
+                .toArray(MapSqlParameterSource[]::new));
+    }
+
+    private String getUpsertSql(String company) {
+        return "INSERT INTO " + company + ".jira_issue_story_points AS sp " +
                 " (integration_id, issue_key, start_time, end_time, story_points)" +
                 " VALUES " +
                 " (:integration_id, :issue_key, :start_time, :end_time, :story_points)" +
@@ -79,22 +102,17 @@ public class JiraIssueStoryPointsDatabaseService extends FilteredDatabaseService
                 " WHERE" +
                 " (sp.end_time, sp.story_points) " +
                 " IS DISTINCT FROM " +
-                " (EXCLUDED.end_time, EXCLUDED.story_points) " +
-                " RETURNING id";
+                " (EXCLUDED.end_time, EXCLUDED.story_points) ";
+    }
 
-        Map<String, Object> params = Map.of(
+    private MapSqlParameterSource toUpsertParams(DbJiraStoryPoints o) {
+        return new MapSqlParameterSource(Map.of(
                 "integration_id", Integer.valueOf(o.getIntegrationId()),
                 "issue_key", o.getIssueKey(),
                 "start_time", o.getStartTime(),
                 "end_time", o.getEndTime(),
                 "story_points", o.getStoryPoints()
-        );
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-        int updatedRows = template.update(sql, new MapSqlParameterSource(params), keyHolder);
-        if (updatedRows <= 0 || keyHolder.getKeys() == null) {
-            return null;
-        }
-        return String.valueOf(keyHolder.getKeys().get("id"));
+        ));
     }
 
     @Override
@@ -37,6 +37,7 @@ import io.levelops.commons.databases.services.parsers.ScmFilterParserCommons;
 import io.levelops.commons.databases.services.parsers.ScmIssuesFilterParser;
 import io.levelops.commons.databases.services.parsers.ScmPrsFilterParser;
 import io.levelops.commons.databases.services.parsers.ScmReposFilterParser;
+import io.levelops.commons.databases.services.scm.ScmRollupDatabaseService;
 import io.levelops.commons.databases.utils.AggTimeQueryHelper;
 import io.levelops.commons.databases.utils.CriteriaUtils;
 import io.levelops.commons.databases.utils.TeamUtils;
@@ -84,6 +85,7 @@ import java.sql.Timestamp;
 import java.text.MessageFormat;
 import java.time.Duration;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZoneOffset;
@@ -95,6 +97,7 @@ import java.util.Comparator;
 import java.util.Date;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -156,7 +159,7 @@ public class ScmAggService extends DatabaseService<DbScmPullRequest> {
     private static final String ISSUES_TABLE = "scm_issues";
     public static final String COMMITS_TABLE = "scm_commits";
     public static final String PRS_TABLE = "scm_pullrequests";
-    private static final String FILE_COMMITS_TABLE = "scm_file_commits";
+    public static final String FILE_COMMITS_TABLE = "scm_file_commits";
     public static final String REVIEWS_TABLE = "scm_pullrequest_reviews";
     public static final String PR_LABELS_TABLE = "scm_pullrequest_labels";
     public static final String COMMIT_WORKITEM_TABLE = "scm_commit_workitem_mappings";
@@ -237,6 +240,10 @@ public class ScmAggService extends DatabaseService<DbScmPullRequest> {
             ScmPrFilter.DISTINCT.pr_closed,
             ScmPrFilter.DISTINCT.pr_merged,
             ScmPrFilter.DISTINCT.pr_created);
+    private static final Set<ScmCommitFilter.DISTINCT> ROLLUP_COMMIT_ACROSS = Set.of(
+            ScmCommitFilter.DISTINCT.repo_id,
+            ScmCommitFilter.DISTINCT.author
+    );
     private final Set<ScmCommitFilter.DISTINCT> stackSupportedForCommits = Set.of(
             ScmCommitFilter.DISTINCT.code_change,
             ScmCommitFilter.DISTINCT.project,
@@ -259,6 +266,7 @@ public class ScmAggService extends DatabaseService<DbScmPullRequest> {
     private ScmFilterParserCommons scmFilterParserCommons;
     private UserIdentityService userIdentityService;
     private Integer scmCommitInsertV2SyncFileCommitsThreadCount;
+    private ScmRollupDatabaseService scmRollupDatabaseService;
     private ObjectMapper objectMapper = DefaultObjectMapper.get();
 
     public ScmAggService(final DataSource dataSource, final UserIdentityService userIdentityService) {
@@ -279,6 +287,7 @@ public class ScmAggService extends DatabaseService<DbScmPullRequest> {
         scmContributorsFilterParser = new ScmContributorsFilterParser();
         this.userIdentityService = userIdentityService;
         this.scmCommitInsertV2SyncFileCommitsThreadCount = scmCommitInsertV2SyncFileCommitsThreadCount;
+        this.scmRollupDatabaseService = new ScmRollupDatabaseService(dataSource);
     }
 
     @Override
@@ -1174,6 +1183,12 @@ public class ScmAggService extends DatabaseService<DbScmPullRequest> {
         String prsSelect = ScmQueryUtils.PRS_SELECT;
         String daysOfWeekSelect = getDaysOfweekSelect(filter) ;
         String creatorsSelect = needCreators ? ScmQueryUtils.CREATORS_SQL : StringUtils.EMPTY;
+        boolean needJoins = needCommitsTable || needIssueKeys || needReviewedAt || needCreators;
+        if (StringUtils.isEmpty(filterByProductSQL)
+                && canUsePrRollups(company, filter, calculation, DISTINCT, valuesOnly, needJoins, conditions)) {
+            filterByProductSQL = getPrRollupsSql(company, filter, params, prsWhere);
+            calculationCountComponent = "SUM(prs_created) AS ct";
+        }
         if (StringUtils.isEmpty(filterByProductSQL)) {
             filterByProductSQL = "SELECT *  FROM (SELECT " + intervalColumn + " unnest(scm_pullrequests.repo_id) AS repo_ids, " + prsSelect + creatorsSelect
                     + commitsTableSelect + reviewsTableSelect + approversTableSelect + commentersSelect + prReviewerCountSelect + prApproversCountSelect + jiraWorkItemSelect
@@ -3339,6 +3354,11 @@ public class ScmAggService extends DatabaseService<DbScmPullRequest> {
                     Instant.now().minus(60, ChronoUnit.DAYS).getEpochSecond());
         }
 
+        if (StringUtils.isEmpty(filterByProductSQL)
+                && canUseCommitRollups(company, filter, valuesOnly, needFiles, ouConfig, conditions.get(COMMITS_TABLE))) {
+            filterByProductSQL = getCommitRollupsSql(company, filter, params, fileTableJoin, commitsWhere);
+            calculationComponent = " COUNT(DISTINCT(date(committed_at))) as coding_days, SUM(commit_size) as commit_size";
+        }
         if (StringUtils.isEmpty(filterByProductSQL)) {
             String innerSelect = " SELECT " + intervalColumn + " Unnest(scm_commits.repo_id) AS repo_ids,"
                     + commitsSelect + authorsSelect + committersSelect + ", commit_files.file_type, file_id";
@@ -3402,6 +3422,134 @@ public class ScmAggService extends DatabaseService<DbScmPullRequest> {
         return DbListResponse.of(results, count);
     }
 
+    //region Rollups
+
+    /**
+     * Coding days across repo or author can be answered from the daily commit rollups when every filter
+     * is one the rollups keep (integration, repo, author and the commit time range).
+     * Anything else falls back to the raw tables.
+     */
+    private boolean canUseCommitRollups(String company, ScmCommitFilter filter, boolean valuesOnly, boolean needFiles,
+                                        OUConfiguration ouConfig, List<String> commitsConditions) {
+        if (valuesOnly || needFiles
+                || filter.getCalculation() != ScmCommitFilter.CALCULATION.commit_days
+                || !ROLLUP_COMMIT_ACROSS.contains(filter.getAcross())
+                || CollectionUtils.isNotEmpty(filter.getOrgProductIds())
+                || OrgUnitHelper.doesOuConfigHaveCommitCommitters(ouConfig)) {
+            return false;
+        }
+        ScmCommitFilter rollupFilter = ScmCommitFilter.builder()
+                .integrationIds(filter.getIntegrationIds())
+                .repoIds(filter.getRepoIds())
+                .authors(filter.getAuthors())
+                .excludeAuthors(filter.getExcludeAuthors())
+                .committedAtRange(filter.getCommittedAtRange())
+                .isApplyOuOnVelocityReport(filter.getIsApplyOuOnVelocityReport())
+                .build();
+        List<String> rollupConditions = createCommitsWhereClauseAndUpdateParams(company, new HashMap<>(), rollupFilter,
+                null, "", false, ouConfig).get(COMMITS_TABLE);
+        if (!rollupConditions.equals(commitsConditions)) {
+            return false;
+        }
+        return scmRollupDatabaseService.isReady(company, filter.getIntegrationIds());
+    }
+
+    /**
+     * Rows for the coding days calculation, with the same coding days and commit size as the raw rows:
+     * rollup rows for the whole days inside the committed_at range, and raw commit rows (repeated once per file,
+     * like the raw query) for the partial days at the ends of the range and for the days whose rollups are stale.
+     * Both only carry the columns the calculation and the where clause use; commit_size replaces additions,
+     * deletions and changes.
+     */
+    private String getCommitRollupsSql(String company, ScmCommitFilter filter, Map<String, Object> params,
+                                       String fileTableJoin, String commitsWhere) {
+        // a day is whole when all of it is within committed_at > left AND committed_at < right
+        List<String> wholeDayConditions = new ArrayList<>();
+        ImmutablePair<Long, Long> range = filter.getCommittedAtRange();
+        if (range != null && range.getLeft() != null) {
+            params.put("rollup_from_day", java.sql.Date.valueOf(LocalDate.ofEpochDay(Math.floorDiv(range.getLeft(), 86400L) + 1)));
+            wholeDayConditions.add("%1$s >= :rollup_from_day");
+        }
+        if (range != null && range.getRight() != null) {
+            params.put("rollup_to_day", java.sql.Date.valueOf(LocalDate.ofEpochDay(Math.floorDiv(range.getRight(), 86400L))));
+            wholeDayConditions.add("%1$s < :rollup_to_day");
+        }
+        params.put("rollup_integration_ids", filter.getIntegrationIds().stream().map(NumberUtils::toInt).collect(Collectors.toSet()));
+        String wholeDay = wholeDayConditions.isEmpty() ? "true" : "(" + String.join(" AND ", wholeDayConditions) + ")";
+        String staleDay = "EXISTS (SELECT 1 FROM " + company + "." + ScmRollupDatabaseService.DIRTY_DAYS_TABLE + " dirty_days"
+                + " WHERE dirty_days.integration_id = scm_commits.integration_id AND dirty_days.kind = '" + ScmRollupDatabaseService.COMMIT_KIND + "'"
+                + " AND dirty_days.day = %1$s)";
+        String rollupRows = " SELECT scm_commits.id, ARRAY[scm_commits.repo_id]::varchar[] AS repo_id, scm_commits.repo_id AS repo_ids,"
+                + " scm_commits.integration_id, scm_commits.day::timestamp AS committed_at, scm_commits.lines_changed_by_file AS commit_size"
+                + ScmQueryUtils.AUTHORS_SELECT
+                + " FROM " + company + "." + ScmRollupDatabaseService.COMMIT_ROLLUPS_TABLE + " scm_commits"
+                + ScmQueryUtils.sqlForAuthorTableJoin(company)
+                + " WHERE scm_commits.integration_id IN (:rollup_integration_ids)"
+                + " AND " + String.format(wholeDay, "scm_commits.day") + " AND NOT " + String.format(staleDay, "scm_commits.day");
+        String rawRows = " SELECT scm_commits.id, scm_commits.repo_id, Unnest(scm_commits.repo_id) AS repo_ids,"
+                + " scm_commits.integration_id, scm_commits.committed_at, scm_commits.additions + scm_commits.deletions + scm_commits.changes AS commit_size"
+                + ScmQueryUtils.AUTHORS_SELECT
+                + " FROM " + company + "." + COMMITS_TABLE
+                + ScmQueryUtils.sqlForAuthorTableJoin(company) + fileTableJoin
+                + " WHERE scm_commits.integration_id IN (:rollup_integration_ids)"
+                + " AND (NOT " + String.format(wholeDay, "date(scm_commits.committed_at)") + " OR " + String.format(staleDay, "date(scm_commits.committed_at)") + ")";
+        return "SELECT * FROM (" + rollupRows + " UNION ALL " + rawRows + " ) a " + commitsWhere;
+    }
+
+    /**
+     * PR counts across repo only need the number of PRs created per repo, which the daily PR rollups keep,
+     * as long as the only filters are integrations and repos.
+     */
+    private boolean canUsePrRollups(String company, ScmPrFilter filter, ScmPrFilter.CALCULATION calculation,
+                                    ScmPrFilter.DISTINCT across, boolean valuesOnly, boolean needJoins,
+                                    Map<String, List<String>> conditions) {
+        if (!valuesOnly || needJoins
+                || calculation != ScmPrFilter.CALCULATION.count
+                || across != ScmPrFilter.DISTINCT.repo_id
+                || CollectionUtils.isNotEmpty(filter.getOrgProductIds())) {
+            return false;
+        }
+        boolean onlyPrConditions = conditions.entrySet().stream()
+                .allMatch(entry -> PRS_TABLE.equals(entry.getKey()) || entry.getValue().isEmpty());
+        if (!onlyPrConditions) {
+            return false;
+        }
+        ScmPrFilter rollupFilter = ScmPrFilter.builder()
+                .integrationIds(filter.getIntegrationIds())
+                .repoIds(filter.getRepoIds())
+                .isApplyOuOnVelocityReport(filter.getIsApplyOuOnVelocityReport())
+                .build();
+        List<String> rollupConditions = createPrWhereClauseAndUpdateParams(company, new HashMap<>(), rollupFilter,
+                null, "", null).get(PRS_TABLE);
+        if (!rollupConditions.equals(conditions.get(PRS_TABLE))) {
+            return false;
+        }
+        return scmRollupDatabaseService.isReady(company, filter.getIntegrationIds());
+    }
+
+    /**
+     * Rollup rows for the days whose PR rollups are current, and one raw row per PR created on a stale day.
+     */
+    private String getPrRollupsSql(String company, ScmPrFilter filter, Map<String, Object> params, String prsWhere) {
+        params.put("rollup_integration_ids", filter.getIntegrationIds().stream().map(NumberUtils::toInt).collect(Collectors.toSet()));
+        String staleDay = "EXISTS (SELECT 1 FROM " + company + "." + ScmRollupDatabaseService.DIRTY_DAYS_TABLE + " dirty_days"
+                + " WHERE dirty_days.integration_id = scm_pullrequests.integration_id AND dirty_days.kind = '" + ScmRollupDatabaseService.PR_KIND + "'"
+                + " AND dirty_days.day = %1$s)";
+        String rollupRows = "SELECT scm_pullrequests.id, ARRAY[scm_pullrequests.repo_id]::varchar[] AS repo_id," +
+                " scm_pullrequests.repo_id AS repo_ids, scm_pullrequests.integration_id, scm_pullrequests.prs_created" +
+                " FROM " + company + "." + ScmRollupDatabaseService.PR_ROLLUPS_TABLE + " scm_pullrequests" +
+                " WHERE scm_pullrequests.integration_id IN (:rollup_integration_ids)" +
+                " AND NOT " + String.format(staleDay, "scm_pullrequests.day");
+        String rawRows = "SELECT scm_pullrequests.id, scm_pullrequests.repo_id, unnest(scm_pullrequests.repo_id) AS repo_ids," +
+                " scm_pullrequests.integration_id, 1 AS prs_created" +
+                " FROM " + company + "." + PRS_TABLE +
+                " WHERE scm_pullrequests.integration_id IN (:rollup_integration_ids)" +
+                " AND " + String.format(staleDay, "date(scm_pullrequests.pr_created_at)");
+        return "SELECT * FROM (" + rollupRows + " UNION ALL " + rawRows + " ) a" + prsWhere;
+    }
+
+    //endregion
+
     // LEV-5240: Need to update the project column.
     public void updateCommitProject(String company, UUID commitId, DbScmCommit commit) {
         if (StringUtils.isEmpty(commit.getProject())) {
@@ -3651,6 +3799,150 @@ public class ScmAggService extends DatabaseService<DbScmPullRequest> {
     }
     //endregion
 
+    //region Bulk Insert V2
+    private static final int BULK_INSERT_ROWS_PER_STATEMENT = 500;
+
+    /**
+     * Bulk variant of {@link #insertV2(String, DbScmCommit, List)}.
+     * The files of all the commits are deduped in memory and written, together with their file commits, using
+     * multi-row upserts. The previous_committed_at of the touched file commits is then recomputed in one pass
+     * per partition instead of one statement per file commit.
+     *
+     * @return ids of the inserted commits; commits without valid files or that already existed are skipped
+     */
+    public List<String> insertV2Bulk(String company, List<ImmutablePair<DbScmCommit, List<DbScmFile>>> commitsWithFiles) throws SQLException {
+        Stopwatch st = Stopwatch.createStarted();
+        List<DbScmCommit> commits = new ArrayList<>();
+        Map<List<String>, DbScmFile> filesByKey = new LinkedHashMap<>();
+        for (ImmutablePair<DbScmCommit, List<DbScmFile>> commitWithFiles : ListUtils.emptyIfNull(commitsWithFiles)) {
+            DbScmCommit commit = commitWithFiles.getLeft();
+            List<DbScmFile> files = ListUtils.emptyIfNull(commitWithFiles.getRight());
+            List<DbScmFile> filteredFiles = files.stream()
+                    .filter(this::scmFileHasChanges)
+                    .collect(toList());
+            if (filteredFiles.isEmpty()) {
+                log.info("insertV2Bulk company {}, integrationId {}, commitSha {}, skipped doesn't have valid files", company, commit.getIntegrationId(), commit.getCommitSha());
+                continue;
+            }
+            commits.add(commit.toBuilder()
+                    .fileTypes(files.stream().map(DbScmFile::getFiletype).distinct().collect(toList()))
+                    .build());
+            for (DbScmFile file : filteredFiles) {
+                filesByKey.merge(List.of(file.getIntegrationId(), file.getProject(), file.getRepoId(), file.getFilename()), file,
+                        (existing, other) -> existing.toBuilder()
+                                .fileCommits(ListUtils.union(ListUtils.emptyIfNull(existing.getFileCommits()), ListUtils.emptyIfNull(other.getFileCommits())))
+                                .build());
+            }
+        }
+        if (commits.isEmpty()) {
+            return List.of();
+        }
+        String integrationId = commits.get(0).getIntegrationId();
+        String batchName = commits.size() + " commits";
+        List<DbScmFile> files = new ArrayList<>(filesByKey.values());
+
+        int insertFilesCount = bulkInsertFiles(company, files);
+        List<DbScmFile> filesWithIds = enrichScmFiles(company, integrationId, batchName, files);
+        int insertFileCommitsCount = bulkInsertFileCommits(company, filesWithIds);
+        int updatePrevFileCommitCount = bulkUpdatePrevCommittedAt(company, filesWithIds);
+        log.info("insertV2Bulk files company {}, integrationId {}, commits {}, filesCount {}, insertFilesCount {}, insertFileCommitsCount {}, updatePrevFileCommitCount {}, time {}",
+                company, integrationId, commits.size(), files.size(), insertFilesCount, insertFileCommitsCount, updatePrevFileCommitCount, st.elapsed(TimeUnit.MILLISECONDS));
+
+        List<String> rowIds = new ArrayList<>();
+        for (DbScmCommit commit : commits) {
+            String rowId = insertCommit(company, commit);
+            if (rowId != null) {
+                rowIds.add(rowId);
+            }
+        }
+        log.info("insertV2Bulk company {}, integrationId {}, commits {}, insertedCommits {}, time {}",
+                company, integrationId, commits.size(), rowIds.size(), st.elapsed(TimeUnit.MILLISECONDS));
+        return rowIds;
+    }
+
+    private int bulkInsertFiles(String company, List<DbScmFile> files) {
+        int totalCount = 0;
+        for (List<DbScmFile> partition : ListUtils.partition(files, BULK_INSERT_ROWS_PER_STATEMENT)) {
+            List<String> values = new ArrayList<>();
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            for (int i = 0; i < partition.size(); i++) {
+                DbScmFile file = partition.get(i);
+                values.add(String.format("(:repo_id%d,:project%d,:integration_id%d,:filename%d,:filetype%d)", i, i, i, i, i));
+                params.addValue("repo_id" + i, file.getRepoId())
+                        .addValue("project" + i, file.getProject())
+                        .addValue("integration_id" + i, NumberUtils.toInt(file.getIntegrationId()))
+                        .addValue("filename" + i, file.getFilename())
+                        .addValue("filetype" + i, file.getFiletype());
+            }
+            String sql = "INSERT INTO " + company + "." + FILES_TABLE + " (repo_id,project,integration_id,filename,filetype)" +
+                    " VALUES " + String.join(",", values) +
+                    " ON CONFLICT (filename,integration_id,repo_id,project) DO NOTHING";
+            totalCount += template.update(sql, params);
+        }
+        return totalCount;
+    }
+
+    private int bulkInsertFileCommits(String company, List<DbScmFile> filesWithIds) {
+        List<ImmutablePair<UUID, DbScmFileCommit>> fileCommits = filesWithIds.stream()
+                .flatMap(file -> ListUtils.emptyIfNull(file.getFileCommits()).stream()
+                        .map(fc -> ImmutablePair.of(UUID.fromString(file.getId()), fc)))
+                .collect(toList());
+        int totalCount = 0;
+        for (List<ImmutablePair<UUID, DbScmFileCommit>> partition : ListUtils.partition(fileCommits, BULK_INSERT_ROWS_PER_STATEMENT)) {
+            List<String> values = new ArrayList<>();
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            for (int i = 0; i < partition.size(); i++) {
+                DbScmFileCommit fc = partition.get(i).getRight();
+                values.add(String.format("(:file_id%d,:commit_sha%d,:change%d,:addition%d,:deletion%d,:committed_at%d)", i, i, i, i, i, i));
+                params.addValue("file_id" + i, partition.get(i).getLeft())
+                        .addValue("commit_sha" + i, fc.getCommitSha())
+                        .addValue("change" + i, fc.getChange())
+                        .addValue("addition" + i, fc.getAddition())
+                        .addValue("deletion" + i, fc.getDeletion())
+                        .addValue("committed_at" + i, LocalDateTime.ofEpochSecond(fc.getCommittedAt(), 0, ZoneOffset.UTC));
+            }
+            String sql = "INSERT INTO " + company + "." + FILE_COMMITS_TABLE + " (file_id,commit_sha,change,addition,deletion,committed_at)" +
+                    " VALUES " + String.join(",", values) +
+                    " ON CONFLICT (file_id,commit_sha) DO NOTHING";
+            totalCount += template.update(sql, params);
+        }
+        return totalCount;
+    }
+
+    /**
+     * Sets previous_committed_at of every file commit at or after the earliest new file commit of its file,
+     * which covers both the new rows and the rows that directly follow them.
+     */
+    private int bulkUpdatePrevCommittedAt(String company, List<DbScmFile> filesWithIds) {
+        List<ImmutablePair<UUID, Long>> fromByFile = filesWithIds.stream()
+                .filter(file -> CollectionUtils.isNotEmpty(file.getFileCommits()))
+                .map(file -> ImmutablePair.of(UUID.fromString(file.getId()), file.getFileCommits().stream()
+                        .map(DbScmFileCommit::getCommittedAt)
+                        .min(Long::compare)
+                        .orElseThrow()))
+                .collect(toList());
+        int totalCount = 0;
+        for (List<ImmutablePair<UUID, Long>> partition : ListUtils.partition(fromByFile, BULK_INSERT_ROWS_PER_STATEMENT)) {
+            List<String> values = new ArrayList<>();
+            MapSqlParameterSource params = new MapSqlParameterSource();
+            for (int i = 0; i < partition.size(); i++) {
+                values.add(String.format("(CAST(:file_id%d AS UUID),CAST(:from_committed_at%d AS TIMESTAMP))", i, i));
+                params.addValue("file_id" + i, partition.get(i).getLeft())
+                        .addValue("from_committed_at" + i, LocalDateTime.ofEpochSecond(partition.get(i).getRight(), 0, ZoneOffset.UTC));
+            }
+            String sql = "UPDATE " + company + "." + FILE_COMMITS_TABLE + " sfc SET previous_committed_at = prev.previous_committed_at" +
+                    " FROM ( SELECT fc.id, ( SELECT MAX(p.committed_at) FROM " + company + "." + FILE_COMMITS_TABLE + " p" +
+                    " WHERE p.file_id = fc.file_id AND p.committed_at < fc.committed_at ) AS previous_committed_at" +
+                    " FROM " + company + "." + FILE_COMMITS_TABLE + " fc" +
+                    " INNER JOIN ( VALUES " + String.join(",", values) + " ) AS touched(file_id, from_committed_at)" +
+                    " ON fc.file_id = touched.file_id AND fc.committed_at >= touched.from_committed_at ) prev" +
+                    " WHERE sfc.id = prev.id AND sfc.previous_committed_at IS DISTINCT FROM prev.previous_committed_at";
+            totalCount += template.update(sql, params);
+        }
+        return totalCount;
+    }
+    //endregion
+
     //region File Insert
     public String insertFile(String company, DbScmFile file) {
         String fileId = template.getJdbcOperations().execute(TransactionCallback.of(conn -> {
@@ -5939,6 +6231,7 @@ public class ScmAggService extends DatabaseService<DbScmPullRequest> {
         );
 
         sqlList.forEach(template.getJdbcTemplate()::execute);
+        scmRollupDatabaseService.ensureTableExistence(company);
         return true;
     }
 
@@ -121,6 +121,24 @@ public class JiraIssueReadService {
         return data.stream().findFirst();
     }
 
+    /**
+     * Same as get() for several keys at once. Keys that do not exist are omitted.
+     */
+    public List<DbJiraIssue> getByKeys(String company, List<String> keys, String integrationId, Long ingestedAt) {
+        Validate.notNull(ingestedAt, "Missing ingestedAt.");
+        Validate.notNull(integrationId, "Missing integrationId.");
+        if (CollectionUtils.isEmpty(keys)) {
+            return List.of();
+        }
+        return template.query(
+                "SELECT * FROM " + company + "." + ISSUES_TABLE
+                        + " WHERE jira_issues.key IN (:keys)"
+                        + " AND jira_issues.ingested_at = :ingestedat"
+                        + " AND jira_issues.integration_id = :integid",
+                Map.of("keys", keys, "integid", NumberUtils.toInt(integrationId), "ingestedat", ingestedAt),
+                DbJiraIssueConverters.listRowMapper(false, false, false, false, false, false, false));
+    }
+
     public Stream<DbJiraIssue> stream(@Nonnull String company,
                                       @Nonnull JiraIssuesFilter filter,
                                       @Nullable JiraSprintFilter jiraSprintFilter,
@@ -8,6 +8,7 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.google.common.base.MoreObjects;
 import io.levelops.commons.databases.models.database.jira.DbJiraAssignee;
 import io.levelops.commons.databases.models.database.jira.DbJiraIssue;
+import io.levelops.commons.databases.models.database.jira.DbJiraLink;
 import io.levelops.commons.databases.models.database.jira.DbJiraStatus;
 import io.levelops.commons.databases.utils.DatabaseUtils;
 import io.levelops.commons.databases.utils.TransactionCallback;
@@ -25,8 +26,11 @@ import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.commons.lang3.tuple.Pair;
+import org.apache.commons.lang3.tuple.Triple;
 import org.apache.commons.text.StringSubstitutor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
@@ -43,9 +47,13 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static io.levelops.commons.databases.services.JiraIssueService.ASSIGNEES_TABLE;
@@ -98,28 +106,28 @@ public class JiraIssueWriteService {
         }
 
         try {
-            markOldIssuesAsInactive(company, issue);
+            markOldIssuesAsInactive(company, List.of(issue));
         } catch (Exception e) {
             log.warn("Failed to mark old issues as inactive for company={}, integration_id={}, issue_key={}, ingested_at={}",
                     company, issue.getIntegrationId(), issue.getKey(), issue.getIngestedAt(), e);
         }
 
         try {
-            insertPrioritySla(company, issue);
+            insertPrioritySla(company, List.of(issue));
         } catch (Exception e) {
             log.warn("Failed to insert priority sla for company={}, integration_id={}, issue_key={}, ingested_at={}",
                     company, issue.getIntegrationId(), issue.getKey(), issue.getIngestedAt(), e);
         }
 
         try {
-            insertAssignees(company, issue);
+            insertAssignees(company, List.of(issue));
         } catch (Exception e) {
             log.warn("Failed to insert assignees for company={}, integration_id={}, issue_key={}, ingested_at={}",
                     company, issue.getIntegrationId(), issue.getKey(), issue.getIngestedAt(), e);
         }
 
         try {
-            insertStatuses(company, issue);
+            insertStatuses(company, List.of(issue));
         } catch (Exception e) {
             log.warn("Failed to insert statuses for company={}, integration_id={}, issue_key={}, ingested_at={}",
                     company, issue.getIntegrationId(), issue.getKey(), issue.getIngestedAt(), e);
@@ -127,8 +135,8 @@ public class JiraIssueWriteService {
 
         TransactionStatus txStatus = transactionManager.getTransaction(new DefaultTransactionDefinition());
         try {
-            insertSalesforceFields(company, issue);
-            cleanUpRemovedSalesforceFields(company, issue);
+            insertSalesforceFields(company, List.of(issue));
+            cleanUpRemovedSalesforceFields(company, List.of(issue));
             transactionManager.commit(txStatus);
         } catch (Exception e) {
             transactionManager.rollback(txStatus);
@@ -139,8 +147,83 @@ public class JiraIssueWriteService {
         return insertedRowId;
     }
 
-    private String insertIssue(String company, DbJiraIssue issue) {
+    /**
+     * Upserts several issues using a constant number of statements per batch instead of several statements per issue.
+     * The issue rows and their priority SLAs, assignees, statuses and salesforce fields are written exactly like insert() does.
+     * <p>
+     * Issues with the same (integration_id, key, ingested_at) are de-duplicated, keeping the last one.
+     *
+     * @return number of issue rows that were inserted or updated
+     */
+    public int batchInsert(String company, List<DbJiraIssue> issues) {
         Validate.notBlank(company, "company cannot be null or empty.");
+        if (CollectionUtils.isEmpty(issues)) {
+            return 0;
+        }
+        issues.forEach(this::validateIssue);
+        // ON CONFLICT cannot affect the same row twice in one statement
+        List<DbJiraIssue> dedupedIssues = new ArrayList<>(issues.stream()
+                .collect(Collectors.toMap(
+                        issue -> Triple.of(issue.getIntegrationId(), issue.getKey(), issue.getIngestedAt()),
+                        issue -> issue,
+                        (a, b) -> b,
+                        LinkedHashMap::new))
+                .values());
+
+        int upsertCount = batchInsertIssues(company, dedupedIssues);
+
+        try {
+            batchInsertJiraLinkedIssueRelations(company, dedupedIssues.stream()
+                    .filter(issue -> issue.getOldIssueKey() != null)
+                    .map(issue -> DbJiraLink.builder()
+                            .integrationId(NumberUtils.toInt(issue.getIntegrationId()))
+                            .fromIssueKey(issue.getOldIssueKey())
+                            .toIssueKey(issue.getKey())
+                            .relation("moved")
+                            .build())
+                    .collect(Collectors.toList()));
+        } catch (Exception e) {
+            log.warn("Failed to insert old issue keys for company={}, batch size={}", company, dedupedIssues.size(), e);
+        }
+
+        try {
+            markOldIssuesAsInactive(company, dedupedIssues);
+        } catch (Exception e) {
+            log.warn("Failed to mark old issues as inactive for company={}, batch size={}", company, dedupedIssues.size(), e);
+        }
+
+        try {
+            insertPrioritySla(company, dedupedIssues);
+        } catch (Exception e) {
+            log.warn("Failed to insert priority sla for company={}, batch size={}", company, dedupedIssues.size(), e);
+        }
+
+        try {
+            insertAssignees(company, dedupedIssues);
+        } catch (Exception e) {
+            log.warn("Failed to insert assignees for company={}, batch size={}", company, dedupedIssues.size(), e);
+        }
+
+        try {
+            insertStatuses(company, dedupedIssues);
+        } catch (Exception e) {
+            log.warn("Failed to insert statuses for company={}, batch size={}", company, dedupedIssues.size(), e);
+        }
+
+        TransactionStatus txStatus = transactionManager.getTransaction(new DefaultTransactionDefinition());
+        try {
+            insertSalesforceFields(company, dedupedIssues);
+            cleanUpRemovedSalesforceFields(company, dedupedIssues);
+            transactionManager.commit(txStatus);
+        } catch (Exception e) {
+            transactionManager.rollback(txStatus);
+            log.warn("Failed to insert Salesforce fields for company={}, batch size={}", company, dedupedIssues.size(), e);
+        }
+
+        return upsertCount;
+    }
+
+    private void validateIssue(DbJiraIssue issue) {
         Validate.notNull(issue, "issue cannot be null.");
         Validate.notBlank(issue.getIntegrationId(), "issue.getIntegrationId() cannot be null or empty.");
         Validate.notBlank(issue.getKey(), "issue.getKey() cannot be null or empty.");
@@ -151,8 +234,56 @@ public class JiraIssueWriteService {
         Validate.notBlank(issue.getStatus(), "issue.getStatus() cannot be null or empty.");
         Validate.notNull(issue.getIssueCreatedAt(), "issue.getIssueCreatedAt() cannot be null or empty.");
         Validate.notNull(issue.getIssueUpdatedAt(), "issue.getIssueUpdatedAt() cannot be null or empty.");
+    }
+
+    private int batchInsertIssues(String company, List<DbJiraIssue> issues) {
+        // look up which of these keys were moved (i.e. are old issue keys) in one query
+        Map<Integer, List<String>> keysByIntegrationId = issues.stream()
+                .collect(Collectors.groupingBy(issue -> NumberUtils.toInt(issue.getIntegrationId()),
+                        Collectors.mapping(DbJiraIssue::getKey, Collectors.toList())));
+        Set<Pair<Integer, String>> movedKeys = new HashSet<>();
+        keysByIntegrationId.forEach((integrationId, keys) -> template.query(
+                "SELECT DISTINCT from_issue_key FROM " + company + "." + JIRA_ISSUE_LINKS +
+                        " WHERE from_issue_key IN (:keys) AND integration_id = :integration_id AND relation = 'moved' ",
+                Map.of("keys", keys, "integration_id", integrationId),
+                (RowCallbackHandler) rs -> movedKeys.add(Pair.of(integrationId, rs.getString("from_issue_key")))));
+
+        MapSqlParameterSource[] batchParams = issues.stream()
+                .map(issue -> toIssueUpsertParams(issue)
+                        .addValue("is_active", !movedKeys.contains(Pair.of(NumberUtils.toInt(issue.getIntegrationId()), issue.getKey()))))
+                .toArray(MapSqlParameterSource[]::new);
+        int[] count = template.batchUpdate(getIssueUpsertSql(company), batchParams);
+        return countUpdatedRows(count);
+    }
+
+    private static int countUpdatedRows(int[] count) {
+        // the driver may report SUCCESS_NO_INFO (-2) for batched statements
+        return (count == null) ? 0 : Arrays.stream(count).map(c -> c == Statement.SUCCESS_NO_INFO ? 1 : Math.max(c, 0)).sum();
+    }
+
+    private String insertIssue(String company, DbJiraIssue issue) {
+        Validate.notBlank(company, "company cannot be null or empty.");
+        validateIssue(issue);
+
+        String isOldIssueKeySql = "SELECT from_issue_key FROM " + company + "." + JIRA_ISSUE_LINKS
+                + " WHERE from_issue_key = :key AND integration_id = :integration_id AND relation = 'moved' ";
+
+        MapSqlParameterSource params = toIssueUpsertParams(issue);
+
+        List<String> oldIssueList = template.queryForList(isOldIssueKeySql, params, String.class);
+
+        params.addValue("is_active", CollectionUtils.isEmpty(oldIssueList));
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int updatedRows = template.update(getIssueUpsertSql(company), params, keyHolder);
+        if (updatedRows <= 0 || keyHolder.getKeys() == null) {
+            return null;
+        }
+        return String.valueOf(keyHolder.getKeys().get("id"));
+    }
 
-        String sql = "INSERT INTO " + company + "." + ISSUES_TABLE + " as issues " +
+    private String getIssueUpsertSql(String company) {
+        return "INSERT INTO " + company + "." + ISSUES_TABLE + " as issues " +
                 " (key, integration_id, project, summary, labels, versions, fix_versions, sprint_ids, resolution, status_category, desc_size, issue_created_at, " +
                 "  issue_updated_at, status, issue_type, priority, assignee, assignee_id, issue_resolved_at, issue_due_at, reporter, reporter_id, " +
                 "  original_estimate, bounces, components, hops, epic, custom_fields, config_version, num_attachments, first_attachment_at, " +
@@ -214,10 +345,12 @@ public class JiraIssueWriteService {
                 "  EXCLUDED.num_attachments, EXCLUDED.first_attachment_at, EXCLUDED.first_comment_at, EXCLUDED.first_assigned_at, EXCLUDED.story_points, EXCLUDED.first_assignee, EXCLUDED.first_assignee_id," +
                 "  EXCLUDED.parent_key, EXCLUDED.parent_issue_type, EXCLUDED.parent_labels" +
                 " )";
+    }
 
-        String isOldIssueKeySql = "SELECT from_issue_key FROM " + company + "." + JIRA_ISSUE_LINKS
-                + " WHERE from_issue_key = :key AND integration_id = :integration_id AND relation = 'moved' ";
-
+    /**
+     * Builds the parameters of the issue upsert, except for "is_active" which depends on the issue links.
+     */
+    private MapSqlParameterSource toIssueUpsertParams(DbJiraIssue issue) {
         MapSqlParameterSource params = new MapSqlParameterSource();
         params.addValue("key", issue.getKey());
         params.addValue("integration_id", NumberUtils.toInt(issue.getIntegrationId()));
@@ -259,42 +392,39 @@ public class JiraIssueWriteService {
         params.addValue("parent_key", issue.getParentKey());
         params.addValue("parent_issue_type", StringUtils.upperCase(issue.getParentIssueType()));
         params.addValue("parent_labels", DatabaseUtils.toSqlArray(issue.getParentLabels()));
-
-        List<String> oldIssueList = template.queryForList(isOldIssueKeySql, params, String.class);
-
-        params.addValue("is_active", CollectionUtils.isEmpty(oldIssueList));
-
-        KeyHolder keyHolder = new GeneratedKeyHolder();
-        int updatedRows = template.update(sql, params, keyHolder);
-        if (updatedRows <= 0 || keyHolder.getKeys() == null) {
-            return null;
-        }
-        return String.valueOf(keyHolder.getKeys().get("id"));
+        return params;
     }
 
-    private void insertPrioritySla(String company, DbJiraIssue issue) {
-        if (StringUtils.isEmpty(issue.getPriority())) {
-            return;
-        }
-
+    private void insertPrioritySla(String company, List<DbJiraIssue> issues) {
         String prioritySlaInsert = "INSERT INTO " + company + "." + PRIORITIES_SLA_TABLE +
                 " (priority, task_type, project, integration_id) " +
                 " VALUES " +
                 " (:priority, :task_type, :project, :integration_id) " +
                 " ON CONFLICT (priority, task_type, project, integration_id) DO NOTHING";
 
-        MapSqlParameterSource params = new MapSqlParameterSource();
-        params.addValue("priority", issue.getPriority());
-        params.addValue("task_type", issue.getIssueType());
-        params.addValue("project", issue.getProject());
-        params.addValue("integration_id", NumberUtils.toInt(issue.getIntegrationId()));
+        MapSqlParameterSource[] batchParams = issues.stream()
+                .filter(issue -> StringUtils.isNotEmpty(issue.getPriority()))
+                .map(issue -> Arrays.asList(issue.getPriority(), issue.getIssueType(), issue.getProject(), issue.getIntegrationId()))
+                .distinct()
+                .map(row -> new MapSqlParameterSource()
+                        .addValue("priority", row.get(0))
+                        .addValue("task_type", row.get(1))
+                        .addValue("project", row.get(2))
+                        .addValue("integration_id", NumberUtils.toInt(row.get(3))))
+                .toArray(MapSqlParameterSource[]::new);
+        if (batchParams.length == 0) {
+            return;
+        }
 
-        template.update(prioritySlaInsert, params);
+        template.batchUpdate(prioritySlaInsert, batchParams);
     }
 
 
-    private void insertAssignees(String company, DbJiraIssue issue) {
-        if (CollectionUtils.isEmpty(issue.getAssigneeList())) {
+    private void insertAssignees(String company, List<DbJiraIssue> issues) {
+        List<DbJiraAssignee> assignees = issues.stream()
+                .flatMap(issue -> ListUtils.emptyIfNull(issue.getAssigneeList()).stream())
+                .collect(Collectors.toList());
+        if (CollectionUtils.isEmpty(assignees)) {
             return;
         }
 
@@ -310,7 +440,7 @@ public class JiraIssueWriteService {
                 " (EXCLUDED.end_time) ";
 
         List<MapSqlParameterSource> batchParams = new ArrayList<>();
-        for (DbJiraAssignee assignee : issue.getAssigneeList()) {
+        for (DbJiraAssignee assignee : assignees) {
             MapSqlParameterSource params = new MapSqlParameterSource();
             params.addValue("issue_key", assignee.getIssueKey());
             params.addValue("integration_id", NumberUtils.toInt(assignee.getIntegrationId()));
@@ -323,11 +453,7 @@ public class JiraIssueWriteService {
         template.batchUpdate(assigneeSql, batchParams.toArray(new MapSqlParameterSource[0]));
     }
 
-    private void insertSalesforceFields(String company, DbJiraIssue issue) {
-        if (MapUtils.isEmpty(issue.getSalesforceFields())) {
-            return;
-        }
-
+    private void insertSalesforceFields(String company, List<DbJiraIssue> issues) {
         String sql = "INSERT INTO " + company + "." + JIRA_ISSUE_SALESFORCE_CASES +
                 " (issue_key, integration_id, fieldkey, fieldvalue) " +
                 " VALUES " +
@@ -335,43 +461,43 @@ public class JiraIssueWriteService {
                 " ON CONFLICT (integration_id, issue_key, fieldkey, fieldvalue) DO NOTHING";
 
         List<MapSqlParameterSource> batchParams = new ArrayList<>();
-        issue.getSalesforceFields().forEach((key, valueList) -> valueList.forEach(value -> {
+        issues.forEach(issue -> MapUtils.emptyIfNull(issue.getSalesforceFields()).forEach((key, valueList) -> valueList.forEach(value -> {
             MapSqlParameterSource params = new MapSqlParameterSource();
             params.addValue("issue_key", issue.getKey());
             params.addValue("integration_id", NumberUtils.toInt(issue.getIntegrationId()));
             params.addValue("fieldkey", key);
             params.addValue("fieldvalue", value);
             batchParams.add(params);
-        }));
+        })));
+        if (batchParams.isEmpty()) {
+            return;
+        }
 
         template.batchUpdate(sql, batchParams.toArray(new MapSqlParameterSource[0]));
     }
 
-    private void cleanUpRemovedSalesforceFields(String company, DbJiraIssue issue) {
-
-        List<String> conditions = new ArrayList<>();
-        MapSqlParameterSource params = new MapSqlParameterSource();
-
-        conditions.add("integration_id = :integration_id");
-        params.addValue("integration_id", NumberUtils.toInt(issue.getIntegrationId()));
-
-        conditions.add("issue_key = :issue_key");
-        params.addValue("issue_key", issue.getKey());
-
+    private void cleanUpRemovedSalesforceFields(String company, List<DbJiraIssue> issues) {
         // if empty, delete everything; otherwise only delete keys not inside the current keys
-        if (MapUtils.isNotEmpty(issue.getSalesforceFields())) {
-            conditions.add("fieldkey NOT IN (:fieldkeys)");
-            params.addValue("fieldkeys", issue.getSalesforceFields().keySet());
-        }
-
         String sql = "DELETE FROM " + company + "." + JIRA_ISSUE_SALESFORCE_CASES +
-                " WHERE " + String.join(" AND ", conditions);
-
-        template.update(sql, params);
+                " WHERE integration_id = :integration_id" +
+                " AND issue_key = :issue_key" +
+                " AND NOT (fieldkey = ANY(:fieldkeys::VARCHAR[]))";
+
+        MapSqlParameterSource[] batchParams = issues.stream()
+                .map(issue -> new MapSqlParameterSource()
+                        .addValue("integration_id", NumberUtils.toInt(issue.getIntegrationId()))
+                        .addValue("issue_key", issue.getKey())
+                        .addValue("fieldkeys", DatabaseUtils.toSqlArray(MapUtils.emptyIfNull(issue.getSalesforceFields()).keySet())))
+                .toArray(MapSqlParameterSource[]::new);
+
+        template.batchUpdate(sql, batchParams);
     }
 
-    private int insertStatuses(String company, DbJiraIssue issue) {
-        if (CollectionUtils.isEmpty(issue.getStatuses())) {
+    private int insertStatuses(String company, List<DbJiraIssue> issues) {
+        List<DbJiraStatus> statuses = issues.stream()
+                .flatMap(issue -> ListUtils.emptyIfNull(issue.getStatuses()).stream())
+                .collect(Collectors.toList());
+        if (CollectionUtils.isEmpty(statuses)) {
             return 0;
         }
 
@@ -387,7 +513,7 @@ public class JiraIssueWriteService {
                 " (EXCLUDED.end_time, EXCLUDED.status_id) ";
 
         List<MapSqlParameterSource> batchParams = new ArrayList<>();
-        for (DbJiraStatus status : issue.getStatuses()) {
+        for (DbJiraStatus status : statuses) {
             MapSqlParameterSource params = new MapSqlParameterSource();
             params.addValue("issue_key", status.getIssueKey());
             params.addValue("integration_id", NumberUtils.toInt(status.getIntegrationId()));
@@ -403,21 +529,41 @@ public class JiraIssueWriteService {
         return upsertCount;
     }
 
-    private void markOldIssuesAsInactive(String company, DbJiraIssue issue) {
-        if (StringUtils.isEmpty(issue.getOldIssueKey())) {
-            return;
-        }
+    private void markOldIssuesAsInactive(String company, List<DbJiraIssue> issues) {
         String updateIssueKeySql = "UPDATE " + company + "." + ISSUES_TABLE +
                 " SET is_active = false " +
                 " WHERE key = :key " +
                 " AND integration_id = :integration_id " +
                 " AND ingested_at = :ingested_at ";
-        Map<String, Object> params = Map.of(
-                "integration_id", NumberUtils.toInt(issue.getIntegrationId()),
-                "key", issue.getOldIssueKey(),
-                "ingested_at", issue.getIngestedAt()
-        );
-        template.update(updateIssueKeySql, params);
+        MapSqlParameterSource[] batchParams = issues.stream()
+                .filter(issue -> StringUtils.isNotEmpty(issue.getOldIssueKey()))
+                .map(issue -> new MapSqlParameterSource()
+                        .addValue("integration_id", NumberUtils.toInt(issue.getIntegrationId()))
+                        .addValue("key", issue.getOldIssueKey())
+                        .addValue("ingested_at", issue.getIngestedAt()))
+                .toArray(MapSqlParameterSource[]::new);
+        if (batchParams.length == 0) {
+            return;
+        }
+        template.batchUpdate(updateIssueKeySql, batchParams);
+    }
+
+    public int batchInsertJiraLinkedIssueRelations(String company, List<DbJiraLink> links) {
+        if (CollectionUtils.isEmpty(links)) {
+            return 0;
+        }
+        String jiraLinkedIssuesSql = "INSERT INTO " + company + "." + JIRA_ISSUE_LINKS +
+                " (integration_id, from_issue_key, to_issue_key, relation)" +
+                " VALUES (:integration_id, :from_issue_key, :to_issue_key, :relation)" +
+                " ON CONFLICT (integration_id, from_issue_key, to_issue_key, relation) DO NOTHING";
+        MapSqlParameterSource[] batchParams = links.stream()
+                .map(link -> new MapSqlParameterSource()
+                        .addValue("integration_id", link.getIntegrationId())
+                        .addValue("from_issue_key", link.getFromIssueKey())
+                        .addValue("to_issue_key", link.getToIssueKey())
+                        .addValue("relation", link.getRelation()))
+                .toArray(MapSqlParameterSource[]::new);
+        return countUpdatedRows(template.batchUpdate(jiraLinkedIssuesSql, batchParams));
     }
 
     public boolean insertJiraLinkedIssueRelation(String company, String integrationId, String fromIssueKey, String toIssueKey, String relation) {
@@ -0,0 +1,433 @@
+package io.levelops.commons.databases.services.scm;
+
+import io.levelops.commons.databases.models.database.scm.DbScmRollupKey;
+import io.levelops.commons.databases.services.DatabaseService;
+import io.levelops.commons.databases.services.IntegrationService;
+import io.levelops.commons.databases.services.ScmAggService;
+import io.levelops.commons.models.DbListResponse;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static io.levelops.commons.databases.services.ScmAggService.COMMITS_TABLE;
+import static io.levelops.commons.databases.services.ScmAggService.FILE_COMMITS_TABLE;
+import static io.levelops.commons.databases.services.ScmAggService.PRS_TABLE;
+
+/**
+ * Daily rollups of scm commits and pull requests, keyed by (integration, repo, author/creator, day).
+ * <p>
+ * Triggers on scm_commits, scm_file_commits and scm_pullrequests record every (integration, day) whose raw rows
+ * changed in scm_rollup_dirty_days, whichever code path wrote them. Readers serve those days from the raw tables,
+ * and {@link #refreshCommitRollups} / {@link #refreshPrRollups} recompute them, so the rollups never serve stale
+ * rows. An integration is only served from the rollups once it has been fully rebuilt at least once
+ * (see {@link #isReady}).
+ */
+@Log4j2
+@Service
+public class ScmRollupDatabaseService extends DatabaseService<DbScmRollupKey> {
+    public static final String COMMIT_ROLLUPS_TABLE = "scm_commit_daily_rollups";
+    public static final String PR_ROLLUPS_TABLE = "scm_pr_daily_rollups";
+    public static final String ROLLUP_INTEGRATIONS_TABLE = "scm_rollup_integrations";
+    public static final String DIRTY_DAYS_TABLE = "scm_rollup_dirty_days";
+    public static final String COMMIT_KIND = "commit";
+    public static final String PR_KIND = "pr";
+    // days refreshed per transaction, so that a large backlog of dirty days does not hold locks for long
+    private static final int REFRESH_BATCH_DAYS = 31;
+
+    // matches the scm_files join of the raw coding days query, which repeats a commit once per file
+    private static final String COMMIT_ROLLUP_SELECT_SQL = "SELECT c.integration_id, r.repo_id, c.author_id, c.author, date(c.committed_at) AS day," +
+            " COUNT(*) AS commit_count," +
+            " SUM(c.additions + c.deletions + c.changes) AS lines_changed," +
+            " SUM((c.additions + c.deletions + c.changes) * GREATEST(1, f.file_ct)) AS lines_changed_by_file" +
+            " FROM %1$s." + COMMITS_TABLE + " c" +
+            " CROSS JOIN LATERAL unnest(c.repo_id) AS r(repo_id)" +
+            " LEFT JOIN LATERAL (SELECT COUNT(*) AS file_ct FROM %1$s.scm_file_commits fc" +
+            "   INNER JOIN %1$s.scm_files sf ON sf.id = fc.file_id WHERE fc.commit_sha = c.commit_sha) f ON true" +
+            " WHERE c.integration_id = :integration_id %2$s" +
+            " GROUP BY c.integration_id, r.repo_id, c.author_id, c.author, date(c.committed_at)";
+    private static final String COMMIT_ROLLUP_DAYS_CONDITION =
+            " AND c.committed_at >= :from_ts AND c.committed_at < :to_ts AND date(c.committed_at) IN (:days)";
+
+    private static final String PR_EVENT_SELECT_SQL = "SELECT p.integration_id, r.repo_id, p.creator_id, p.creator, date(p.%2$s) AS day," +
+            " %3$s AS prs_created, %4$s AS prs_merged, %5$s AS prs_closed" +
+            " FROM %1$s." + PRS_TABLE + " p" +
+            " CROSS JOIN LATERAL unnest(p.repo_id) AS r(repo_id)" +
+            " WHERE p.integration_id = :integration_id AND p.%2$s IS NOT NULL %6$s";
+    private static final String PR_ROLLUP_DAYS_CONDITION =
+            " AND p.%1$s >= :from_ts AND p.%1$s < :to_ts AND date(p.%1$s) IN (:days)";
+
+    // statement level triggers: the transition tables hold every row written by the statement
+    private static final String MARK_COMMIT_DAYS_FUNCTION = "CREATE OR REPLACE FUNCTION %1$s.scm_rollup_mark_commit_days() RETURNS TRIGGER AS $$\n" +
+            "BEGIN\n" +
+            "    IF TG_OP = 'INSERT' THEN\n" +
+            "        INSERT INTO %1$s." + DIRTY_DAYS_TABLE + " (integration_id, kind, day)\n" +
+            "        SELECT DISTINCT n.integration_id, '" + COMMIT_KIND + "', date(n.committed_at) FROM new_rows n\n" +
+            "        ON CONFLICT DO NOTHING;\n" +
+            "    ELSIF TG_OP = 'DELETE' THEN\n" +
+            "        INSERT INTO %1$s." + DIRTY_DAYS_TABLE + " (integration_id, kind, day)\n" +
+            "        SELECT DISTINCT o.integration_id, '" + COMMIT_KIND + "', date(o.committed_at) FROM old_rows o\n" +
+            "        ON CONFLICT DO NOTHING;\n" +
+            "    ELSE\n" +
+            // upserts rewrite every commit on each ingestion, only mark the days of rows whose rollup columns changed
+            "        INSERT INTO %1$s." + DIRTY_DAYS_TABLE + " (integration_id, kind, day)\n" +
+            "        SELECT DISTINCT d.integration_id, '" + COMMIT_KIND + "', d.day\n" +
+            "        FROM old_rows o INNER JOIN new_rows n ON n.id = o.id\n" +
+            "        CROSS JOIN LATERAL (VALUES (o.integration_id, date(o.committed_at)), (n.integration_id, date(n.committed_at))) AS d(integration_id, day)\n" +
+            "        WHERE (o.integration_id, o.repo_id, o.commit_sha, o.author, o.author_id, o.committed_at, o.additions, o.deletions, o.changes)\n" +
+            "            IS DISTINCT FROM (n.integration_id, n.repo_id, n.commit_sha, n.author, n.author_id, n.committed_at, n.additions, n.deletions, n.changes)\n" +
+            "        ON CONFLICT DO NOTHING;\n" +
+            "    END IF;\n" +
+            "    RETURN NULL;\n" +
+            "END\n" +
+            "$$ LANGUAGE plpgsql";
+    // the rollups repeat a commit once per file, so adding or removing a file changes the days of its commits
+    private static final String MARK_FILE_COMMIT_DAYS_FUNCTION = "CREATE OR REPLACE FUNCTION %1$s.scm_rollup_mark_file_commit_days() RETURNS TRIGGER AS $$\n" +
+            "BEGIN\n" +
+            "    IF TG_OP = 'INSERT' THEN\n" +
+            "        INSERT INTO %1$s." + DIRTY_DAYS_TABLE + " (integration_id, kind, day)\n" +
+            "        SELECT DISTINCT c.integration_id, '" + COMMIT_KIND + "', date(c.committed_at) FROM %1$s." + COMMITS_TABLE + " c\n" +
+            "        WHERE c.commit_sha IN (SELECT n.commit_sha FROM new_rows n)\n" +
+            "        ON CONFLICT DO NOTHING;\n" +
+            "    ELSE\n" +
+            "        INSERT INTO %1$s." + DIRTY_DAYS_TABLE + " (integration_id, kind, day)\n" +
+            "        SELECT DISTINCT c.integration_id, '" + COMMIT_KIND + "', date(c.committed_at) FROM %1$s." + COMMITS_TABLE + " c\n" +
+            "        WHERE c.commit_sha IN (SELECT o.commit_sha FROM old_rows o)\n" +
+            "        ON CONFLICT DO NOTHING;\n" +
+            "    END IF;\n" +
+            "    RETURN NULL;\n" +
+            "END\n" +
+            "$$ LANGUAGE plpgsql";
+    // a PR counts towards the days it was created, merged and closed
+    private static final String MARK_PR_DAYS_FUNCTION = "CREATE OR REPLACE FUNCTION %1$s.scm_rollup_mark_pr_days() RETURNS TRIGGER AS $$\n" +
+            "BEGIN\n" +
+            "    IF TG_OP = 'INSERT' THEN\n" +
+            "        INSERT INTO %1$s." + DIRTY_DAYS_TABLE + " (integration_id, kind, day)\n" +
+            "        SELECT DISTINCT d.integration_id, '" + PR_KIND + "', d.day FROM new_rows n\n" +
+            "        CROSS JOIN LATERAL (VALUES " + prDays("n") + ") AS d(integration_id, day)\n" +
+            "        WHERE d.day IS NOT NULL\n" +
+            "        ON CONFLICT DO NOTHING;\n" +
+            "    ELSIF TG_OP = 'DELETE' THEN\n" +
+            "        INSERT INTO %1$s." + DIRTY_DAYS_TABLE + " (integration_id, kind, day)\n" +
+            "        SELECT DISTINCT d.integration_id, '" + PR_KIND + "', d.day FROM old_rows o\n" +
+            "        CROSS JOIN LATERAL (VALUES " + prDays("o") + ") AS d(integration_id, day)\n" +
+            "        WHERE d.day IS NOT NULL\n" +
+            "        ON CONFLICT DO NOTHING;\n" +
+            "    ELSE\n" +
+            "        INSERT INTO %1$s." + DIRTY_DAYS_TABLE + " (integration_id, kind, day)\n" +
+            "        SELECT DISTINCT d.integration_id, '" + PR_KIND + "', d.day\n" +
+            "        FROM old_rows o INNER JOIN new_rows n ON n.id = o.id\n" +
+            "        CROSS JOIN LATERAL (VALUES " + prDays("o") + ", " + prDays("n") + ") AS d(integration_id, day)\n" +
+            "        WHERE d.day IS NOT NULL\n" +
+            "            AND (o.integration_id, o.repo_id, o.creator, o.creator_id, o.merged, o.pr_created_at, o.pr_merged_at, o.pr_closed_at)\n" +
+            "            IS DISTINCT FROM (n.integration_id, n.repo_id, n.creator, n.creator_id, n.merged, n.pr_created_at, n.pr_merged_at, n.pr_closed_at)\n" +
+            "        ON CONFLICT DO NOTHING;\n" +
+            "    END IF;\n" +
+            "    RETURN NULL;\n" +
+            "END\n" +
+            "$$ LANGUAGE plpgsql";
+
+    private final NamedParameterJdbcTemplate template;
+    private final PlatformTransactionManager transactionManager;
+
+    @Autowired
+    public ScmRollupDatabaseService(DataSource dataSource) {
+        super(dataSource);
+        this.template = new NamedParameterJdbcTemplate(dataSource);
+        this.transactionManager = new DataSourceTransactionManager(dataSource);
+    }
+
+    @Override
+    public Set<Class<? extends DatabaseService<?>>> getReferences() {
+        return Set.of(IntegrationService.class, ScmAggService.class);
+    }
+
+    //region unsupported
+    @Override
+    public String insert(String company, DbScmRollupKey t) throws SQLException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Boolean update(String company, DbScmRollupKey t) throws SQLException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<DbScmRollupKey> get(String company, String param) throws SQLException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public DbListResponse<DbScmRollupKey> list(String company, Integer pageNumber, Integer pageSize) throws SQLException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Boolean delete(String company, String id) throws SQLException {
+        throw new UnsupportedOperationException();
+    }
+    //endregion
+
+    //region readiness
+
+    /**
+     * @return true if every integration has been fully rebuilt, i.e. the rollups are complete for it
+     */
+    public boolean isReady(String company, Collection<String> integrationIds) {
+        if (CollectionUtils.isEmpty(integrationIds)) {
+            return false;
+        }
+        Set<Integer> ids = integrationIds.stream()
+                .map(NumberUtils::toInt)
+                .collect(Collectors.toSet());
+        String sql = "SELECT COUNT(*) FROM " + company + "." + ROLLUP_INTEGRATIONS_TABLE + " WHERE integration_id IN (:integration_ids)";
+        Integer count = template.queryForObject(sql, Map.of("integration_ids", ids), Integer.class);
+        return count != null && count == ids.size();
+    }
+
+    /**
+     * @return the days of the integration whose rollups are stale, until they are refreshed
+     */
+    public List<DbScmRollupKey> listDirtyDays(String company, String integrationId) {
+        String sql = "SELECT integration_id, kind, day FROM " + company + "." + DIRTY_DAYS_TABLE +
+                " WHERE integration_id = :integration_id ORDER BY kind, day";
+        return template.query(sql, Map.of("integration_id", NumberUtils.toInt(integrationId)), (rs, rowNum) -> DbScmRollupKey.builder()
+                .integrationId(rs.getInt("integration_id"))
+                .kind(rs.getString("kind"))
+                .day(rs.getDate("day").toLocalDate())
+                .build());
+    }
+    //endregion
+
+    //region refresh
+
+    /**
+     * Rebuilds all commit and PR rollups of an integration and marks it as ready to serve queries.
+     */
+    public void rebuild(String company, String integrationId) {
+        int id = NumberUtils.toInt(integrationId);
+        MapSqlParameterSource params = new MapSqlParameterSource("integration_id", id);
+        inTransaction(() -> {
+            // rows written after this point mark their days again, so nothing is lost by clearing them up front
+            template.update("DELETE FROM " + company + "." + DIRTY_DAYS_TABLE + " WHERE integration_id = :integration_id", params);
+            template.update("DELETE FROM " + company + "." + COMMIT_ROLLUPS_TABLE + " WHERE integration_id = :integration_id", params);
+            template.update(insertCommitRollupsSql(company, ""), params);
+            template.update("DELETE FROM " + company + "." + PR_ROLLUPS_TABLE + " WHERE integration_id = :integration_id", params);
+            template.update(insertPrRollupsSql(company, null), params);
+            template.update("INSERT INTO " + company + "." + ROLLUP_INTEGRATIONS_TABLE + " (integration_id) VALUES (:integration_id)" +
+                    " ON CONFLICT (integration_id) DO UPDATE SET rebuilt_at = now()", params);
+        });
+        log.info("Rebuilt scm rollups for company={}, integrationId={}", company, integrationId);
+    }
+
+    /**
+     * Recomputes the commit rollup rows of every day of the integration whose commits changed since the last refresh.
+     *
+     * @return the number of days refreshed
+     */
+    public int refreshCommitRollups(String company, String integrationId) {
+        return refreshDirtyDays(company, integrationId, COMMIT_KIND, COMMIT_ROLLUPS_TABLE,
+                insertCommitRollupsSql(company, COMMIT_ROLLUP_DAYS_CONDITION));
+    }
+
+    /**
+     * Recomputes the PR rollup rows of every day of the integration whose PRs changed since the last refresh.
+     *
+     * @return the number of days refreshed
+     */
+    public int refreshPrRollups(String company, String integrationId) {
+        return refreshDirtyDays(company, integrationId, PR_KIND, PR_ROLLUPS_TABLE,
+                insertPrRollupsSql(company, PR_ROLLUP_DAYS_CONDITION));
+    }
+
+    private int refreshDirtyDays(String company, String integrationId, String kind, String table, String insertSql) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("integration_id", NumberUtils.toInt(integrationId))
+                .addValue("kind", kind)
+                .addValue("limit", REFRESH_BATCH_DAYS);
+        // claiming the days and recomputing them in one transaction: a concurrent write marks its day again
+        String claimSql = "DELETE FROM " + company + "." + DIRTY_DAYS_TABLE +
+                " WHERE (integration_id, kind, day) IN (SELECT integration_id, kind, day FROM " + company + "." + DIRTY_DAYS_TABLE +
+                " WHERE integration_id = :integration_id AND kind = :kind ORDER BY day LIMIT :limit FOR UPDATE SKIP LOCKED)" +
+                " RETURNING day";
+        int refreshed = 0;
+        while (true) {
+            List<LocalDate> claimed = new ArrayList<>();
+            inTransaction(() -> {
+                TreeSet<LocalDate> days = template.queryForList(claimSql, params, Date.class).stream()
+                        .map(Date::toLocalDate)
+                        .collect(Collectors.toCollection(TreeSet::new));
+                if (days.isEmpty()) {
+                    return;
+                }
+                MapSqlParameterSource dayParams = new MapSqlParameterSource(params.getValues())
+                        .addValue("days", days.stream().map(Date::valueOf).collect(Collectors.toList()))
+                        .addValue("from_ts", Timestamp.valueOf(days.first().atStartOfDay()))
+                        .addValue("to_ts", Timestamp.valueOf(days.last().plusDays(1).atStartOfDay()));
+                template.update("DELETE FROM " + company + "." + table + " WHERE integration_id = :integration_id" +
+                        " AND day IN (:days)", dayParams);
+                template.update(insertSql, dayParams);
+                claimed.addAll(days);
+            });
+            if (claimed.isEmpty()) {
+                break;
+            }
+            refreshed += claimed.size();
+        }
+        log.debug("Refreshed {} days of {}.{} for integrationId={}", refreshed, company, table, integrationId);
+        return refreshed;
+    }
+
+    private static String insertCommitRollupsSql(String company, String daysCondition) {
+        return "INSERT INTO " + company + "." + COMMIT_ROLLUPS_TABLE +
+                " (integration_id, repo_id, author_id, author, day, commit_count, lines_changed, lines_changed_by_file) " +
+                String.format(COMMIT_ROLLUP_SELECT_SQL, company, daysCondition);
+    }
+
+    /**
+     * @param daysCondition format taking the timestamp column, or null to rebuild the whole integration
+     */
+    private static String insertPrRollupsSql(String company, String daysCondition) {
+        String events = String.join(" UNION ALL ",
+                prEventSelect(company, "pr_created_at", "1", "0", "0", daysCondition),
+                prEventSelect(company, "pr_merged_at", "0", "CASE WHEN p.merged THEN 1 ELSE 0 END", "0", daysCondition),
+                prEventSelect(company, "pr_closed_at", "0", "0", "1", daysCondition));
+        return "INSERT INTO " + company + "." + PR_ROLLUPS_TABLE +
+                " (integration_id, repo_id, creator_id, creator, day, prs_created, prs_merged, prs_closed)" +
+                " SELECT integration_id, repo_id, creator_id, creator, day," +
+                " SUM(prs_created), SUM(prs_merged), SUM(prs_closed)" +
+                " FROM (" + events + ") e" +
+                " GROUP BY integration_id, repo_id, creator_id, creator, day";
+    }
+
+    private static String prEventSelect(String company, String column, String created, String merged, String closed, String daysCondition) {
+        String condition = daysCondition == null ? "" : String.format(daysCondition, column);
+        return String.format(PR_EVENT_SELECT_SQL, company, column, created, merged, closed, condition);
+    }
+
+    private static String prDays(String alias) {
+        return Stream.of("pr_created_at", "pr_merged_at", "pr_closed_at")
+                .map(column -> "(" + alias + ".integration_id, date(" + alias + "." + column + "))")
+                .collect(Collectors.joining(", "));
+    }
+
+    private void inTransaction(Runnable runnable) {
+        TransactionDefinition txDef = new DefaultTransactionDefinition();
+        TransactionStatus txStatus = transactionManager.getTransaction(txDef);
+        try {
+            runnable.run();
+            transactionManager.commit(txStatus);
+        } catch (Exception e) {
+            transactionManager.rollback(txStatus);
+            throw e;
+        }
+    }
+    //endregion
+
+    //region Ensure Table Existence
+    @Override
+    public Boolean ensureTableExistence(String company) throws SQLException {
+        List<String> sqlList = List.of(
+                "CREATE TABLE IF NOT EXISTS " + company + "." + COMMIT_ROLLUPS_TABLE + "(\n" +
+                        "    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),\n" +
+                        "    integration_id INTEGER NOT NULL REFERENCES "
+                        + company + ".integrations(id) ON DELETE CASCADE,\n" +
+                        "    repo_id VARCHAR NOT NULL,\n" +
+                        "    author_id UUID,\n" +
+                        "    author VARCHAR NOT NULL,\n" +
+                        "    day DATE NOT NULL,\n" +
+                        "    commit_count INTEGER NOT NULL,\n" +
+                        "    lines_changed BIGINT NOT NULL,\n" +
+                        "    lines_changed_by_file BIGINT NOT NULL\n" +
+                        ")",
+                "CREATE INDEX IF NOT EXISTS " + COMMIT_ROLLUPS_TABLE + "_integration_repo_day_idx " +
+                        "ON " + company + "." + COMMIT_ROLLUPS_TABLE + " (integration_id, repo_id, day)",
+                "CREATE INDEX IF NOT EXISTS " + COMMIT_ROLLUPS_TABLE + "_integration_day_idx " +
+                        "ON " + company + "." + COMMIT_ROLLUPS_TABLE + " (integration_id, day)",
+                "CREATE TABLE IF NOT EXISTS " + company + "." + PR_ROLLUPS_TABLE + "(\n" +
+                        "    id UUID PRIMARY KEY DEFAULT uuid_generate_v4(),\n" +
+                        "    integration_id INTEGER NOT NULL REFERENCES "
+                        + company + ".integrations(id) ON DELETE CASCADE,\n" +
+                        "    repo_id VARCHAR NOT NULL,\n" +
+                        "    creator_id UUID,\n" +
+                        "    creator VARCHAR NOT NULL,\n" +
+                        "    day DATE NOT NULL,\n" +
+                        "    prs_created INTEGER NOT NULL,\n" +
+                        "    prs_merged INTEGER NOT NULL,\n" +
+                        "    prs_closed INTEGER NOT NULL\n" +
+                        ")",
+                "CREATE INDEX IF NOT EXISTS " + PR_ROLLUPS_TABLE + "_integration_repo_day_idx " +
+                        "ON " + company + "." + PR_ROLLUPS_TABLE + " (integration_id, repo_id, day)",
+                "CREATE TABLE IF NOT EXISTS " + company + "." + ROLLUP_INTEGRATIONS_TABLE + "(\n" +
+                        "    integration_id INTEGER PRIMARY KEY REFERENCES "
+                        + company + ".integrations(id) ON DELETE CASCADE,\n" +
+                        "    rebuilt_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()\n" +
+                        ")",
+                // slice refreshes read the raw tables by integration and time
+                "CREATE INDEX IF NOT EXISTS " + COMMITS_TABLE + "_integration_committed_at_idx " +
+                        "ON " + company + "." + COMMITS_TABLE + " (integration_id, committed_at)",
+                "CREATE INDEX IF NOT EXISTS " + PRS_TABLE + "_integration_pr_created_at_idx " +
+                        "ON " + company + "." + PRS_TABLE + " (integration_id, pr_created_at)",
+                // no foreign key: deleting an integration cascades to its commits, whose triggers then mark days here
+                "CREATE TABLE IF NOT EXISTS " + company + "." + DIRTY_DAYS_TABLE + "(\n" +
+                        "    integration_id INTEGER NOT NULL,\n" +
+                        "    kind VARCHAR NOT NULL,\n" +
+                        "    day DATE NOT NULL,\n" +
+                        "    marked_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),\n" +
+                        "    PRIMARY KEY (integration_id, kind, day)\n" +
+                        ")",
+                String.format(MARK_COMMIT_DAYS_FUNCTION, company),
+                String.format(MARK_FILE_COMMIT_DAYS_FUNCTION, company),
+                String.format(MARK_PR_DAYS_FUNCTION, company),
+                // transition tables are only allowed on triggers with a single event
+                createTriggerSql(company, COMMITS_TABLE, "scm_rollup_commits_insert", "INSERT", "NEW TABLE AS new_rows", "scm_rollup_mark_commit_days"),
+                createTriggerSql(company, COMMITS_TABLE, "scm_rollup_commits_update", "UPDATE", "OLD TABLE AS old_rows NEW TABLE AS new_rows", "scm_rollup_mark_commit_days"),
+                createTriggerSql(company, COMMITS_TABLE, "scm_rollup_commits_delete", "DELETE", "OLD TABLE AS old_rows", "scm_rollup_mark_commit_days"),
+                createTriggerSql(company, FILE_COMMITS_TABLE, "scm_rollup_file_commits_insert", "INSERT", "NEW TABLE AS new_rows", "scm_rollup_mark_file_commit_days"),
+                createTriggerSql(company, FILE_COMMITS_TABLE, "scm_rollup_file_commits_delete", "DELETE", "OLD TABLE AS old_rows", "scm_rollup_mark_file_commit_days"),
+                createTriggerSql(company, PRS_TABLE, "scm_rollup_prs_insert", "INSERT", "NEW TABLE AS new_rows", "scm_rollup_mark_pr_days"),
+                createTriggerSql(company, PRS_TABLE, "scm_rollup_prs_update", "UPDATE", "OLD TABLE AS old_rows NEW TABLE AS new_rows", "scm_rollup_mark_pr_days"),
+                createTriggerSql(company, PRS_TABLE, "scm_rollup_prs_delete", "DELETE", "OLD TABLE AS old_rows", "scm_rollup_mark_pr_days")
+        );
+
+        sqlList.forEach(template.getJdbcTemplate()::execute);
+        return true;
+    }
+
+    private static String createTriggerSql(String company, String table, String trigger, String event, String referencing, String function) {
+        return "DO $$\n" +
+                "BEGIN\n" +
+                "    IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgname = '" + trigger + "'" +
+                " AND tgrelid = '" + company + "." + table + "'::regclass) THEN\n" +
+                "        CREATE TRIGGER " + trigger + " AFTER " + event + " ON " + company + "." + table +
+                " REFERENCING " + referencing + " FOR EACH STATEMENT EXECUTE PROCEDURE " + company + "." + function + "();\n" +
+                "    END IF;\n" +
+                "END\n" +
+                "$$";
+    }
+    //endregion
+}
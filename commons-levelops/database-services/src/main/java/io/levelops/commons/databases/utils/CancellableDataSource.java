@@ -0,0 +1,108 @@
+package io.levelops.commons.databases.utils;
+
+import io.levelops.commons.functional.CancellationToken;
+import io.levelops.commons.functional.UncheckedCloseable;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Makes the statements executed under a {@link CancellationToken} cancellable: while a statement executes, it is
+ * registered with the token bound to the thread, and cancelling the token calls {@link Statement#cancel()} on it.
+ * <p>
+ * Connections obtained without a token are returned as is, so there is no overhead outside of cancellable work.
+ * The canceller is only registered for the duration of an execute call, so a pooled connection that has moved on
+ * to other work is never cancelled by mistake.
+ */
+@Log4j2
+public class CancellableDataSource extends DelegatingDataSource implements Closeable {
+
+    private static final Set<String> STATEMENT_FACTORY_METHODS = Set.of("createStatement", "prepareStatement", "prepareCall");
+
+    public CancellableDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrapConnection(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrapConnection(super.getConnection(username, password));
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (getTargetDataSource() instanceof Closeable) {
+            ((Closeable) getTargetDataSource()).close();
+        }
+    }
+
+    private static Connection wrapConnection(Connection connection) {
+        Optional<CancellationToken> token = CancellationToken.current();
+        if (token.isEmpty()) {
+            return connection;
+        }
+        return (Connection) Proxy.newProxyInstance(CancellableDataSource.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(proxy, connection, method, args);
+                    if (result instanceof Statement && STATEMENT_FACTORY_METHODS.contains(method.getName())) {
+                        return wrapStatement((Statement) result, method.getReturnType(), token.get());
+                    }
+                    return result;
+                });
+    }
+
+    private static Object wrapStatement(Statement statement, Class<?> statementInterface, CancellationToken token) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute")) {
+                return invoke(proxy, statement, method, args);
+            }
+            try (UncheckedCloseable registration = token.register(() -> cancel(statement))) {
+                return invoke(proxy, statement, method, args);
+            }
+        };
+        return Proxy.newProxyInstance(CancellableDataSource.class.getClassLoader(), new Class<?>[]{statementInterface}, handler);
+    }
+
+    private static void cancel(Statement statement) {
+        try {
+            log.info("Cancelling statement of a cancelled request");
+            statement.cancel();
+        } catch (SQLException e) {
+            log.warn("Failed to cancel statement", e);
+        }
+    }
+
+    /**
+     * Proxies are compared by identity, like the objects they wrap: forwarding equals to the target would make a
+     * proxy unequal to itself (the target is never equal to the proxy), and break collections of connections.
+     */
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        if ("equals".equals(method.getName()) && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+        if ("hashCode".equals(method.getName()) && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
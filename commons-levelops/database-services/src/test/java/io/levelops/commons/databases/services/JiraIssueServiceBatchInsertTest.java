@@ -0,0 +1,234 @@
+package io.levelops.commons.databases.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Stopwatch;
+import io.levelops.commons.databases.DatabaseTestUtils;
+import io.levelops.commons.databases.models.database.Integration;
+import io.levelops.commons.databases.models.database.jira.DbJiraAssignee;
+import io.levelops.commons.databases.models.database.jira.DbJiraIssue;
+import io.levelops.commons.databases.models.database.jira.DbJiraStatus;
+import io.levelops.commons.databases.services.jira.JiraIssueAggService;
+import io.levelops.commons.databases.services.jira.JiraIssuePrioritySlaService;
+import io.levelops.commons.databases.services.jira.JiraIssueReadService;
+import io.levelops.commons.databases.services.jira.JiraIssueSprintService;
+import io.levelops.commons.databases.services.jira.JiraIssueStatusService;
+import io.levelops.commons.databases.services.jira.JiraIssueUserService;
+import io.levelops.commons.databases.services.jira.JiraIssueVersionService;
+import io.levelops.commons.databases.services.jira.JiraIssueWriteService;
+import io.levelops.commons.databases.services.jira.conditions.JiraConditionsBuilder;
+import io.levelops.commons.databases.services.jira.conditions.JiraCustomFieldConditionsBuilder;
+import io.levelops.commons.databases.services.jira.conditions.JiraFieldConditionsBuilder;
+import io.levelops.commons.databases.services.jira.conditions.JiraPartialMatchConditionsBuilder;
+import io.levelops.commons.databases.services.jira.utils.JiraIssueQueryBuilder;
+import io.levelops.commons.jackson.DefaultObjectMapper;
+import io.zonky.test.db.postgres.junit.EmbeddedPostgresRules;
+import io.zonky.test.db.postgres.junit.SingleInstancePostgresRule;
+import lombok.extern.log4j.Log4j2;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Log4j2
+public class JiraIssueServiceBatchInsertTest {
+    private static final String SINGLE_COMPANY = "jira_single";
+    private static final String BATCH_COMPANY = "jira_batch";
+    private static final Long INGESTED_AT = 1647138501L;
+    private static final ObjectMapper m = DefaultObjectMapper.get();
+    @ClassRule
+    public static SingleInstancePostgresRule pg = EmbeddedPostgresRules.singleInstance();
+
+    private static JiraIssueService singleJiraIssueService;
+    private static JiraIssueService batchJiraIssueService;
+    private static JdbcTemplate singleTemplate;
+    private static JdbcTemplate batchTemplate;
+
+    @BeforeClass
+    public static void setup() throws SQLException, IOException {
+        DataSource singleDataSource = DatabaseTestUtils.setUpDataSource(pg, SINGLE_COMPANY);
+        singleJiraIssueService = setupCompany(singleDataSource, SINGLE_COMPANY);
+        singleTemplate = new JdbcTemplate(singleDataSource);
+        DataSource batchDataSource = DatabaseTestUtils.setUpDataSource(pg, BATCH_COMPANY);
+        batchJiraIssueService = setupCompany(batchDataSource, BATCH_COMPANY);
+        batchTemplate = new JdbcTemplate(batchDataSource);
+    }
+
+    private static JiraIssueService setupCompany(DataSource dataSource, String company) throws SQLException {
+        JdbcTemplate t = new JdbcTemplate(dataSource);
+        List.of(
+                "CREATE EXTENSION IF NOT EXISTS \"uuid-ossp\";",
+                "DROP SCHEMA IF EXISTS " + company + " CASCADE; ",
+                "CREATE SCHEMA " + company + " ; "
+        ).forEach(t::execute);
+
+        IntegrationService integrationService = new IntegrationService(dataSource);
+        integrationService.ensureTableExistence(company);
+        UserIdentityService userIdentityService = new UserIdentityService(dataSource);
+        userIdentityService.ensureTableExistence(company);
+        JiraFieldService jiraFieldService = new JiraFieldService(dataSource);
+        jiraFieldService.ensureTableExistence(company);
+        JiraProjectService jiraProjectService = new JiraProjectService(dataSource);
+        jiraProjectService.ensureTableExistence(company);
+        JiraStatusMetadataDatabaseService jiraStatusMetadataDatabaseService = new JiraStatusMetadataDatabaseService(dataSource);
+        jiraStatusMetadataDatabaseService.ensureTableExistence(company);
+
+        JiraCustomFieldConditionsBuilder customFieldConditionsBuilder = new JiraCustomFieldConditionsBuilder(dataSource, jiraFieldService, integrationService);
+        JiraFieldConditionsBuilder fieldConditionsBuilder = new JiraFieldConditionsBuilder(jiraFieldService);
+        JiraPartialMatchConditionsBuilder partialMatchConditionsBuilder = new JiraPartialMatchConditionsBuilder(dataSource, fieldConditionsBuilder, customFieldConditionsBuilder);
+        JiraConditionsBuilder jiraConditionsBuilder = new JiraConditionsBuilder(dataSource, fieldConditionsBuilder, customFieldConditionsBuilder, partialMatchConditionsBuilder, true);
+        JiraIssueQueryBuilder jiraIssueQueryBuilder = new JiraIssueQueryBuilder(jiraConditionsBuilder);
+
+        JiraIssuePrioritySlaService prioritySlaService = new JiraIssuePrioritySlaService(dataSource);
+        JiraIssueSprintService sprintService = new JiraIssueSprintService(dataSource);
+        JiraIssueVersionService versionService = new JiraIssueVersionService(dataSource);
+        JiraIssueUserService jiraIssueUserService = new JiraIssueUserService(dataSource);
+        JiraIssueAggService aggService = new JiraIssueAggService(dataSource, jiraProjectService, customFieldConditionsBuilder, jiraConditionsBuilder, jiraIssueQueryBuilder, jiraStatusMetadataDatabaseService, 1);
+        JiraIssueStatusService statusService = new JiraIssueStatusService(dataSource, jiraConditionsBuilder);
+        JiraIssueReadService jiraIssueReadService = new JiraIssueReadService(dataSource, sprintService, statusService, jiraConditionsBuilder, jiraIssueQueryBuilder, jiraStatusMetadataDatabaseService);
+        JiraIssueWriteService jiraIssueWriteService = new JiraIssueWriteService(dataSource, m, aggService, jiraIssueReadService);
+        JiraIssueService jiraIssueService = new JiraIssueService(dataSource, jiraIssueWriteService, jiraIssueReadService, aggService, jiraIssueUserService, sprintService, versionService, prioritySlaService, statusService);
+
+        integrationService.insert(company, Integration.builder()
+                .id("1")
+                .application("jira")
+                .name("jira test")
+                .status("enabled")
+                .build());
+        jiraIssueService.ensureTableExistence(company);
+        return jiraIssueService;
+    }
+
+    private static DbJiraIssue buildIssue(int i) {
+        String key = "KEY-" + i;
+        return DbJiraIssue.builder()
+                .key(key)
+                .integrationId("1")
+                .ingestedAt(INGESTED_AT)
+                .project("p" + (i % 5))
+                .summary("summary " + i)
+                .components(List.of("comp1", "comp2"))
+                .labels(List.of("label" + (i % 3)))
+                .fixVersions(List.of())
+                .versions(List.of("v1"))
+                .sprintIds(List.of(i % 4))
+                .storyPoints(i % 8)
+                .epic("epic" + (i % 10))
+                .statusCategory("category1")
+                .descSize(4)
+                .resolution("IN PROGRESS")
+                .priority(i % 2 == 0 ? "LOW" : "HIGH")
+                .reporter("reporter")
+                .assignee("assignee" + (i % 7))
+                .assigneeList(List.of(DbJiraAssignee.builder()
+                        .assignee("assignee" + (i % 7))
+                        .integrationId("1")
+                        .issueKey(key)
+                        .startTime(1613658414L)
+                        .endTime(1613658414L)
+                        .build()))
+                .customFields(Map.of("customfield_10048", i))
+                .salesforceFields(Map.of("k1", List.of("f" + (i % 3))))
+                .status("s1")
+                .statuses(List.of(DbJiraStatus.builder()
+                                .status("s0")
+                                .statusId("212")
+                                .integrationId("1")
+                                .issueKey(key)
+                                .startTime(1613650000L)
+                                .endTime(1613658414L)
+                                .build(),
+                        DbJiraStatus.builder()
+                                .status("s1")
+                                .statusId("213")
+                                .integrationId("1")
+                                .issueKey(key)
+                                .startTime(1613658414L)
+                                .endTime(1613658414L)
+                                .build()))
+                .issueType("task")
+                .hops(1)
+                .bounces(0)
+                .numAttachments(2)
+                .issueCreatedAt(1513658414L)
+                .issueUpdatedAt(1613657908L + i)
+                // every 50th issue was moved from the previous key
+                .oldIssueKey(i > 0 && i % 50 == 0 ? "KEY-" + (i - 1) : null)
+                .build();
+    }
+
+    private static List<Map<String, Object>> dump(JdbcTemplate template, String company, String table, String columns) {
+        return template.queryForList("SELECT " + columns + " FROM " + company + "." + table + " ORDER BY " + columns);
+    }
+
+    @Test
+    public void testBatchInsertMatchesSingleInsert() throws SQLException {
+        int count = 1000;
+        int batchSize = 100;
+        List<DbJiraIssue> issues = IntStream.range(0, count)
+                .mapToObj(JiraIssueServiceBatchInsertTest::buildIssue)
+                .collect(Collectors.toList());
+
+        Stopwatch single = Stopwatch.createStarted();
+        for (DbJiraIssue issue : issues) {
+            singleJiraIssueService.insert(SINGLE_COMPANY, issue);
+        }
+        single.stop();
+
+        Stopwatch batch = Stopwatch.createStarted();
+        int upserted = 0;
+        for (int i = 0; i < count; i += batchSize) {
+            upserted += batchJiraIssueService.batchInsert(BATCH_COMPANY, issues.subList(i, Math.min(count, i + batchSize)));
+        }
+        batch.stop();
+
+        log.info("Upserted {} issues: one by one in {}ms, in batches of {} in {}ms",
+                count, single.elapsed(TimeUnit.MILLISECONDS), batchSize, batch.elapsed(TimeUnit.MILLISECONDS));
+        assertThat(upserted).isEqualTo(count);
+
+        // -- both paths must write exactly the same data
+        // arrays and jsonb are compared as text
+        String issueColumns = "key, integration_id, project, summary, labels::text, versions::text, sprint_ids::text, priority, assignee, story_points, epic, custom_fields::text, issue_updated_at, is_active";
+        assertThat(dump(batchTemplate, BATCH_COMPANY, JiraIssueService.ISSUES_TABLE, issueColumns))
+                .isEqualTo(dump(singleTemplate, SINGLE_COMPANY, JiraIssueService.ISSUES_TABLE, issueColumns));
+        assertThat(dump(batchTemplate, BATCH_COMPANY, JiraIssueService.STATUSES_TABLE, "issue_key, status, status_id, start_time, end_time"))
+                .isEqualTo(dump(singleTemplate, SINGLE_COMPANY, JiraIssueService.STATUSES_TABLE, "issue_key, status, status_id, start_time, end_time"))
+                .hasSize(2 * count);
+        assertThat(dump(batchTemplate, BATCH_COMPANY, JiraIssueService.ASSIGNEES_TABLE, "issue_key, assignee, start_time, end_time"))
+                .isEqualTo(dump(singleTemplate, SINGLE_COMPANY, JiraIssueService.ASSIGNEES_TABLE, "issue_key, assignee, start_time, end_time"))
+                .hasSize(count);
+        assertThat(dump(batchTemplate, BATCH_COMPANY, JiraIssueService.JIRA_ISSUE_SALESFORCE_CASES, "issue_key, fieldkey, fieldvalue"))
+                .isEqualTo(dump(singleTemplate, SINGLE_COMPANY, JiraIssueService.JIRA_ISSUE_SALESFORCE_CASES, "issue_key, fieldkey, fieldvalue"));
+        assertThat(dump(batchTemplate, BATCH_COMPANY, JiraIssueService.JIRA_ISSUE_LINKS, "from_issue_key, to_issue_key, relation"))
+                .isEqualTo(dump(singleTemplate, SINGLE_COMPANY, JiraIssueService.JIRA_ISSUE_LINKS, "from_issue_key, to_issue_key, relation"))
+                .hasSize(count / 50 - 1);
+        assertThat(dump(batchTemplate, BATCH_COMPANY, JiraIssueService.PRIORITIES_SLA_TABLE, "priority, task_type, project"))
+                .isEqualTo(dump(singleTemplate, SINGLE_COMPANY, JiraIssueService.PRIORITIES_SLA_TABLE, "priority, task_type, project"));
+        // moved issues are marked as inactive
+        assertThat(batchTemplate.queryForObject("SELECT count(*) FROM " + BATCH_COMPANY + "." + JiraIssueService.ISSUES_TABLE + " WHERE NOT is_active", Integer.class))
+                .isEqualTo(count / 50 - 1);
+
+        // -- removed salesforce fields are cleaned up
+        batchJiraIssueService.batchInsert(BATCH_COMPANY, List.of(buildIssue(1).toBuilder().salesforceFields(Map.of()).build()));
+        assertThat(batchTemplate.queryForObject("SELECT count(*) FROM " + BATCH_COMPANY + "." + JiraIssueService.JIRA_ISSUE_SALESFORCE_CASES + " WHERE issue_key = 'KEY-1'", Integer.class))
+                .isEqualTo(0);
+
+        // -- duplicate keys within a batch are upserted once (last one wins)
+        DbJiraIssue issue = buildIssue(2000);
+        int dedupedUpserted = batchJiraIssueService.batchInsert(BATCH_COMPANY, List.of(issue, issue.toBuilder().summary("updated").build()));
+        assertThat(dedupedUpserted).isEqualTo(1);
+        assertThat(batchJiraIssueService.getByKeys(BATCH_COMPANY, List.of("KEY-2000"), "1", INGESTED_AT))
+                .extracting(DbJiraIssue::getSummary)
+                .containsExactly("updated");
+    }
+}
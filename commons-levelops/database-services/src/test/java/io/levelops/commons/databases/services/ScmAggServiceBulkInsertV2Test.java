@@ -0,0 +1,148 @@
+package io.levelops.commons.databases.services;
+
+import com.google.common.base.Stopwatch;
+import io.levelops.commons.databases.DatabaseTestUtils;
+import io.levelops.commons.databases.models.database.scm.DbScmCommit;
+import io.levelops.commons.databases.models.database.scm.DbScmFile;
+import io.levelops.commons.databases.models.database.scm.DbScmFileCommit;
+import io.levelops.commons.databases.models.database.scm.DbScmUser;
+import io.levelops.commons.databases.models.filters.VCS_TYPE;
+import io.zonky.test.db.postgres.junit.EmbeddedPostgresRules;
+import io.zonky.test.db.postgres.junit.SingleInstancePostgresRule;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Log4j2
+public class ScmAggServiceBulkInsertV2Test {
+    private static final String company = "test";
+    // 2023-01-01T00:00:00Z
+    private static final long START = 1672531200L;
+    private static final int COMMITS = 40;
+    private static final int FILES = 200;
+    private static final int FILES_PER_COMMIT = 50;
+
+    @ClassRule
+    public static SingleInstancePostgresRule pg = EmbeddedPostgresRules.singleInstance();
+
+    private static DataSource dataSource;
+    private static IntegrationService integrationService;
+    private static ScmAggService scmAggService;
+
+    @BeforeClass
+    public static void setup() throws Exception {
+        dataSource = DatabaseTestUtils.setUpDataSource(pg, company);
+        integrationService = new IntegrationService(dataSource);
+        UserIdentityService userIdentityService = new UserIdentityService(dataSource);
+        scmAggService = new ScmAggService(dataSource, userIdentityService);
+        integrationService.ensureTableExistence(company);
+        userIdentityService.ensureTableExistence(company);
+        scmAggService.ensureTableExistence(company);
+    }
+
+    private static ImmutablePair<DbScmCommit, List<DbScmFile>> commitWithFiles(String integrationId, int i) {
+        // commits are not created in time order, so that later inserts land between existing file commits
+        long committedAt = START + ((i * 7L) % COMMITS) * 3600;
+        String sha = "sha-" + i;
+        DbScmUser user = DbScmUser.builder()
+                .integrationId(integrationId)
+                .cloudId("user-" + (i % 3))
+                .displayName("user-" + (i % 3))
+                .originalDisplayName("user-" + (i % 3))
+                .build();
+        List<DbScmFile> files = IntStream.range(0, FILES_PER_COMMIT)
+                .mapToObj(f -> "src/file-" + ((i * 13 + f) % FILES) + ".java")
+                .distinct()
+                .map(filename -> DbScmFile.builder()
+                        .integrationId(integrationId)
+                        .repoId("levelops/api-levelops")
+                        .project("levelops/api-levelops")
+                        .filename(filename)
+                        .filetype("java")
+                        .totalAdditions(1L)
+                        .totalDeletions(1L)
+                        .totalChanges(0L)
+                        .fileCommits(List.of(DbScmFileCommit.builder()
+                                .commitSha(sha)
+                                .addition(1)
+                                .deletion(1)
+                                .change(0)
+                                .committedAt(committedAt)
+                                .build()))
+                        .build())
+                .collect(Collectors.toList());
+        DbScmCommit commit = DbScmCommit.builder()
+                .integrationId(integrationId)
+                .repoIds(List.of("levelops/api-levelops"))
+                .project("levelops/api-levelops")
+                .commitSha(sha)
+                .commitUrl("url")
+                .message("message " + i)
+                .author(user.getDisplayName())
+                .authorInfo(user)
+                .committer(user.getDisplayName())
+                .committerInfo(user)
+                .vcsType(VCS_TYPE.GIT)
+                .filesCt(files.size())
+                .additions(files.size())
+                .deletions(files.size())
+                .changes(0)
+                .committedAt(committedAt)
+                .ingestedAt(START)
+                .build();
+        return ImmutablePair.of(commit, files);
+    }
+
+    private static List<Map<String, Object>> getFileCommits(String integrationId) {
+        return new JdbcTemplate(dataSource).queryForList("SELECT f.filename, fc.commit_sha, fc.committed_at, fc.previous_committed_at" +
+                " FROM " + company + ".scm_file_commits fc INNER JOIN " + company + ".scm_files f ON f.id = fc.file_id" +
+                " WHERE f.integration_id = ? ORDER BY f.filename, fc.commit_sha", Integer.parseInt(integrationId));
+    }
+
+    @Test
+    public void testBulkInsertMatchesInsertV2() throws SQLException {
+        String perCommitIntegrationId = IntegrationUtils.createIntegration(integrationService, company, 0, "github").getId();
+        String bulkIntegrationId = IntegrationUtils.createIntegration(integrationService, company, 1, "github").getId();
+
+        Stopwatch st = Stopwatch.createStarted();
+        for (int i = 0; i < COMMITS; i++) {
+            ImmutablePair<DbScmCommit, List<DbScmFile>> commitWithFiles = commitWithFiles(perCommitIntegrationId, i);
+            assertThat(scmAggService.insertV2(company, commitWithFiles.getLeft(), commitWithFiles.getRight())).isNotNull();
+        }
+        long perCommitMillis = st.elapsed(TimeUnit.MILLISECONDS);
+
+        // two batches, so that the second one has to fix the previous_committed_at of rows written by the first
+        List<ImmutablePair<DbScmCommit, List<DbScmFile>>> firstBatch = new ArrayList<>();
+        List<ImmutablePair<DbScmCommit, List<DbScmFile>>> secondBatch = new ArrayList<>();
+        for (int i = 0; i < COMMITS; i++) {
+            (i % 2 == 0 ? firstBatch : secondBatch).add(commitWithFiles(bulkIntegrationId, i));
+        }
+        st.reset().start();
+        assertThat(scmAggService.insertV2Bulk(company, firstBatch)).hasSize(firstBatch.size());
+        assertThat(scmAggService.insertV2Bulk(company, secondBatch)).hasSize(secondBatch.size());
+        long bulkMillis = st.elapsed(TimeUnit.MILLISECONDS);
+        log.info("insertV2: {} ms, insertV2Bulk: {} ms for {} commits x {} files", perCommitMillis, bulkMillis, COMMITS, FILES_PER_COMMIT);
+
+        List<Map<String, Object>> expected = getFileCommits(perCommitIntegrationId);
+        assertThat(expected).hasSize(COMMITS * FILES_PER_COMMIT);
+        assertThat(getFileCommits(bulkIntegrationId)).isEqualTo(expected);
+
+        // already inserted commits are skipped
+        assertThat(scmAggService.insertV2Bulk(company, secondBatch)).isEmpty();
+        assertThat(getFileCommits(bulkIntegrationId)).isEqualTo(expected);
+    }
+}
@@ -0,0 +1,175 @@
+package io.levelops.commons.databases.services.scm;
+
+import io.levelops.commons.databases.models.database.Integration;
+import io.levelops.commons.databases.models.database.scm.DbScmRollupKey;
+import io.levelops.commons.databases.models.database.scm.DbScmUser;
+import io.levelops.commons.databases.models.filters.AGG_INTERVAL;
+import io.levelops.commons.databases.models.filters.ScmCommitFilter;
+import io.levelops.commons.databases.models.filters.ScmPrFilter;
+import io.levelops.commons.databases.models.response.DbAggregationResult;
+import io.levelops.commons.databases.services.DatabaseSchemaService;
+import io.levelops.commons.databases.services.IntegrationService;
+import io.levelops.commons.databases.services.IntegrationUtils;
+import io.levelops.commons.databases.services.ScmAggService;
+import io.levelops.commons.databases.services.UserIdentityService;
+import io.zonky.test.db.postgres.junit.EmbeddedPostgresRules;
+import io.zonky.test.db.postgres.junit.SingleInstancePostgresRule;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+public class ScmRollupDatabaseServiceTest {
+    private static final String company = "test";
+    private static final long DAY = 86400L;
+    // 2023-01-01T00:00:00Z
+    private static final long START = 1672531200L;
+
+    @ClassRule
+    public static SingleInstancePostgresRule pg = EmbeddedPostgresRules.singleInstance();
+
+    private static DataSource dataSource;
+    private static IntegrationService integrationService;
+    private static UserIdentityService userIdentityService;
+    private static ScmAggService scmAggService;
+    private static ScmRollupDatabaseService scmRollupDatabaseService;
+
+    @BeforeClass
+    public static void setup() throws SQLException {
+        dataSource = pg.getEmbeddedPostgres().getPostgresDatabase();
+        dataSource.getConnection().prepareStatement("CREATE EXTENSION IF NOT EXISTS \"uuid-ossp\";").execute();
+
+        integrationService = new IntegrationService(dataSource);
+        userIdentityService = new UserIdentityService(dataSource);
+        scmAggService = new ScmAggService(dataSource, userIdentityService);
+        scmRollupDatabaseService = new ScmRollupDatabaseService(dataSource);
+
+        new DatabaseSchemaService(dataSource)
+                .ensureSchemaExistence(company);
+        integrationService.ensureTableExistence(company);
+        userIdentityService.ensureTableExistence(company);
+        scmAggService.ensureTableExistence(company);
+        scmRollupDatabaseService.ensureTableExistence(company);
+    }
+
+    private static ScmCommitFilter codingDaysFilter(String integrationId, ScmCommitFilter.DISTINCT across, long from, long to) {
+        return ScmCommitFilter.builder()
+                .integrationIds(List.of(integrationId))
+                .across(across)
+                .calculation(ScmCommitFilter.CALCULATION.commit_days)
+                .aggInterval(AGG_INTERVAL.week)
+                .committedAtRange(ImmutablePair.of(from, to))
+                .build();
+    }
+
+    // an extra condition the rollups do not keep, so the query is answered from the raw tables
+    private static ScmCommitFilter raw(ScmCommitFilter filter) {
+        return filter.toBuilder().excludeCommitShas(List.of("unknown")).build();
+    }
+
+    private List<DbAggregationResult> codingDays(ScmCommitFilter filter) throws SQLException {
+        return scmAggService.groupByAndCalculateCodingDays(company, filter, null).getRecords();
+    }
+
+    private void assertSameAsRaw(String integrationId, long from, long to) throws SQLException {
+        for (ScmCommitFilter.DISTINCT across : List.of(ScmCommitFilter.DISTINCT.repo_id, ScmCommitFilter.DISTINCT.author)) {
+            ScmCommitFilter filter = codingDaysFilter(integrationId, across, from, to);
+            assertThat(codingDays(filter)).isEqualTo(codingDays(raw(filter)));
+        }
+    }
+
+    @Test
+    public void testCodingDaysFromRollups() throws SQLException {
+        Integration integration = IntegrationUtils.createIntegration(integrationService, company, 0, "github");
+        String integrationId = integration.getId();
+        DbScmUser user = UserIdentityUtils.createUser(userIdentityService, company, Integer.parseInt(integrationId), 0);
+        // commits at noon on days 0, 0, 2 and 5, and at the very first and last second of the range
+        long[] times = {START + DAY / 2, START + DAY / 2, START + 2 * DAY + DAY / 2, START + 5 * DAY + DAY / 2, START, START + 10 * DAY - 1};
+        for (int i = 0; i < times.length; i++) {
+            ScmAggUtils.createScmCommit(scmAggService, company, user, times[i], i);
+        }
+        long to = START + 10 * DAY - 1;
+        List<DbAggregationResult> before = codingDays(codingDaysFilter(integrationId, ScmCommitFilter.DISTINCT.repo_id, START, to));
+        assertThat(before).hasSize(1);
+        assertThat(scmRollupDatabaseService.isReady(company, List.of(integrationId))).isFalse();
+
+        scmRollupDatabaseService.rebuild(company, integrationId);
+        assertThat(scmRollupDatabaseService.isReady(company, List.of(integrationId))).isTrue();
+        assertThat(scmRollupDatabaseService.listDirtyDays(company, integrationId)).isEmpty();
+        assertThat(codingDays(codingDaysFilter(integrationId, ScmCommitFilter.DISTINCT.repo_id, START, to))).isEqualTo(before);
+        // partial days at either end of the range come from the raw tables
+        assertSameAsRaw(integrationId, START, to);
+        assertSameAsRaw(integrationId, START + 1, to);
+        assertSameAsRaw(integrationId, START + DAY / 2, START + 5 * DAY + DAY / 2);
+        assertSameAsRaw(integrationId, START - 1, START + 10 * DAY);
+
+        // a new commit marks its day stale, which is served from the raw tables until refreshed
+        ScmAggUtils.createScmCommit(scmAggService, company, user, START + 7 * DAY + DAY / 2, times.length);
+        assertThat(scmRollupDatabaseService.listDirtyDays(company, integrationId))
+                .extracting(DbScmRollupKey::getDay)
+                .containsExactly(LocalDate.of(2023, 1, 8));
+        assertThat(codingDays(codingDaysFilter(integrationId, ScmCommitFilter.DISTINCT.repo_id, START, to))).isNotEqualTo(before);
+        assertSameAsRaw(integrationId, START, to);
+
+        assertThat(scmRollupDatabaseService.refreshCommitRollups(company, integrationId)).isEqualTo(1);
+        assertThat(scmRollupDatabaseService.listDirtyDays(company, integrationId)).isEmpty();
+        assertSameAsRaw(integrationId, START, to);
+
+        // re-ingesting an unchanged commit does not mark anything
+        ScmAggUtils.createScmCommit(scmAggService, company, user, START + 7 * DAY + DAY / 2, times.length);
+        assertThat(scmRollupDatabaseService.listDirtyDays(company, integrationId)).isEmpty();
+
+        // writes outside of the ETL stages, e.g. moving a commit to another day, mark both days
+        new NamedParameterJdbcTemplate(dataSource).update("UPDATE " + company + ".scm_commits SET committed_at = committed_at + interval '1 day'" +
+                " WHERE commit_sha = 'commit-sha-2' AND integration_id = :integration_id", Map.of("integration_id", Integer.parseInt(integrationId)));
+        assertThat(scmRollupDatabaseService.listDirtyDays(company, integrationId))
+                .extracting(DbScmRollupKey::getDay)
+                .containsExactly(LocalDate.of(2023, 1, 3), LocalDate.of(2023, 1, 4));
+        assertSameAsRaw(integrationId, START, to);
+        assertThat(scmRollupDatabaseService.refreshCommitRollups(company, integrationId)).isEqualTo(2);
+        assertSameAsRaw(integrationId, START, to);
+    }
+
+    @Test
+    public void testPrCountFromRollups() throws SQLException {
+        Integration integration = IntegrationUtils.createIntegration(integrationService, company, 1, "github");
+        String integrationId = integration.getId();
+        DbScmUser user = UserIdentityUtils.createUser(userIdentityService, company, Integer.parseInt(integrationId), 1);
+        ScmAggUtils.createPullRequests(scmAggService, company, user, 3);
+
+        ScmPrFilter filter = ScmPrFilter.builder()
+                .integrationIds(List.of(integrationId))
+                .across(ScmPrFilter.DISTINCT.repo_id)
+                .calculation(ScmPrFilter.CALCULATION.count)
+                .build();
+        List<DbAggregationResult> raw = scmAggService.groupByAndCalculatePrs(company, filter, true, null).getRecords();
+        assertThat(raw).hasSize(2);
+
+        scmRollupDatabaseService.rebuild(company, integrationId);
+        List<DbAggregationResult> rollup = scmAggService.groupByAndCalculatePrs(company, filter, true, null).getRecords();
+        assertThat(rollup).containsExactlyInAnyOrderElementsOf(raw);
+
+        // PRs created after the rebuild are counted from the raw tables until their day is refreshed
+        ScmAggUtils.createPullRequest(scmAggService, company, user, START, 10);
+        assertThat(scmRollupDatabaseService.listDirtyDays(company, integrationId))
+                .extracting(DbScmRollupKey::getKind, DbScmRollupKey::getDay)
+                .containsExactly(tuple(ScmRollupDatabaseService.PR_KIND, LocalDate.of(2023, 1, 1)));
+        List<DbAggregationResult> updated = scmAggService.groupByAndCalculatePrs(company,
+                filter.toBuilder().excludeStates(List.of("unknown")).build(), true, null).getRecords();
+        assertThat(updated).isNotEqualTo(raw);
+        assertThat(scmAggService.groupByAndCalculatePrs(company, filter, true, null).getRecords()).containsExactlyInAnyOrderElementsOf(updated);
+
+        assertThat(scmRollupDatabaseService.refreshPrRollups(company, integrationId)).isEqualTo(1);
+        assertThat(scmAggService.groupByAndCalculatePrs(company, filter, true, null).getRecords()).containsExactlyInAnyOrderElementsOf(updated);
+    }
+}
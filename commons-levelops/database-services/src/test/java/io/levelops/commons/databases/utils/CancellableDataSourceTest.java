@@ -0,0 +1,82 @@
+package io.levelops.commons.databases.utils;
+
+import io.levelops.commons.functional.CancellationToken;
+import io.levelops.commons.functional.UncheckedCloseable;
+import io.zonky.test.db.postgres.junit.EmbeddedPostgresRules;
+import io.zonky.test.db.postgres.junit.SingleInstancePostgresRule;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class CancellableDataSourceTest {
+
+    @ClassRule
+    public static SingleInstancePostgresRule pg = EmbeddedPostgresRules.singleInstance();
+
+    private static CancellableDataSource dataSource;
+    private static JdbcTemplate template;
+
+    @BeforeClass
+    public static void setup() {
+        dataSource = new CancellableDataSource(pg.getEmbeddedPostgres().getPostgresDatabase());
+        template = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        CancellationToken token = new CancellationToken();
+        CompletableFuture.runAsync(() -> {
+            try {
+                TimeUnit.MILLISECONDS.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            token.cancel();
+        });
+        long start = System.currentTimeMillis();
+        try (UncheckedCloseable binding = token.bind()) {
+            assertThatThrownBy(() -> template.queryForObject("SELECT pg_sleep(30)", Object.class))
+                    .isInstanceOf(DataAccessException.class);
+        }
+        assertThat(System.currentTimeMillis() - start).isLessThan(TimeUnit.SECONDS.toMillis(20));
+    }
+
+    @Test
+    public void testWithoutToken() {
+        assertThat(template.queryForObject("SELECT 1", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    public void testProxyEqualsAndHashCode() throws Exception {
+        CancellationToken token = new CancellationToken();
+        try (UncheckedCloseable binding = token.bind();
+             Connection connection = dataSource.getConnection();
+             Connection otherConnection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            assertThat(Proxy.isProxyClass(connection.getClass())).isTrue();
+            assertThat(Proxy.isProxyClass(statement.getClass())).isTrue();
+            assertThat(connection.equals(connection)).isTrue();
+            assertThat(connection.equals(otherConnection)).isFalse();
+            assertThat(connection.hashCode()).isEqualTo(System.identityHashCode(connection));
+            assertThat(statement.equals(statement)).isTrue();
+            assertThat(statement.hashCode()).isEqualTo(System.identityHashCode(statement));
+
+            Set<Connection> connections = new HashSet<>(Set.of(connection, otherConnection));
+            assertThat(connections.remove(connection)).isTrue();
+            assertThat(connections).containsExactly(otherConnection);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package io.levelops.commons.databases.services.dev_productivity.engine;
 
 import com.google.common.base.MoreObjects;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.levelops.commons.databases.models.database.SortingOrder;
 import io.levelops.commons.databases.models.database.TenantSCMSettings;
 import io.levelops.commons.databases.models.database.dev_productivity.*;
@@ -11,10 +12,13 @@ import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.SetUtils;
 import org.apache.commons.lang3.BooleanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PreDestroy;
 import java.io.IOException;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -26,8 +30,10 @@ import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
@@ -36,12 +42,36 @@ import java.util.stream.Collectors;
 @Service
 public class DevProductivityEngine {
     private static final Long DEFAULT_TIMEOUT_IN_SECS = TimeUnit.MINUTES.toSeconds(5);
+    private static final int DEFAULT_MAX_THREADS = 64;
+    private static final int DEFAULT_QUEUE_SIZE = 2000;
 
     private final Map<DevProductivityProfile.FeatureType, DevProductivityFeatureHandler> featureHandlers;
+    private final ExecutorService executorService;
 
-    @Autowired
     public DevProductivityEngine(Map<DevProductivityProfile.FeatureType, DevProductivityFeatureHandler> featureHandlers) {
+        this(featureHandlers, DEFAULT_MAX_THREADS, DEFAULT_QUEUE_SIZE);
+    }
+
+    /**
+     * Features of all the users being calculated share one bounded pool. When it is saturated, the calculation of the
+     * user fails instead of returning a partial response, which would otherwise be cached like a complete one.
+     */
+    @Autowired
+    public DevProductivityEngine(Map<DevProductivityProfile.FeatureType, DevProductivityFeatureHandler> featureHandlers,
+                                 @Value("${DEV_PRODUCTIVITY_FEATURE_MAX_THREADS:64}") int maxThreads,
+                                 @Value("${DEV_PRODUCTIVITY_FEATURE_QUEUE_SIZE:2000}") int queueSize) {
         this.featureHandlers = featureHandlers;
+        ThreadPoolExecutor threadPoolExecutor = new ThreadPoolExecutor(maxThreads, maxThreads, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueSize),
+                new ThreadFactoryBuilder().setNameFormat("dev-productivity-feature-%d").setDaemon(true).build());
+        threadPoolExecutor.allowCoreThreadTimeOut(true);
+        this.executorService = threadPoolExecutor;
+        log.info("Dev productivity engine: maxThreads={}, queueSize={}", maxThreads, queueSize);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdownNow();
     }
 
     private Future<FeatureResponse> processFeature(final ExecutorService executorService, final String company, final Integer sectionOrder, final DevProductivityProfile.Feature feature, final DevProductivityProfile devProductivityProfile, final DevProductivityFilter devProductivityFilter, final OrgUserDetails orgUserDetails, final Map<String, Long> latestIngestedAtByIntegrationId, final TenantSCMSettings tenantSCMSettings) {
@@ -68,13 +98,11 @@ public class DevProductivityEngine {
         });
     }
 
-    private List<Future<FeatureResponse>> processSection(final ExecutorService executorService, final String company, final DevProductivityProfile.Section section, final DevProductivityProfile devProductivityProfile, final DevProductivityFilter devProductivityFilter, final OrgUserDetails orgUserDetails, final Map<String, Long> latestIngestedAtByIntegrationId, final TenantSCMSettings tenantSCMSettings, final Set<DevProductivityProfile.FeatureType> selectFeatureTypes) {
-        List<Future<FeatureResponse>> futures = CollectionUtils.emptyIfNull(section.getFeatures()).stream()
+    private void processSection(final ExecutorService executorService, final String company, final DevProductivityProfile.Section section, final DevProductivityProfile devProductivityProfile, final DevProductivityFilter devProductivityFilter, final OrgUserDetails orgUserDetails, final Map<String, Long> latestIngestedAtByIntegrationId, final TenantSCMSettings tenantSCMSettings, final Set<DevProductivityProfile.FeatureType> selectFeatureTypes, final List<Future<FeatureResponse>> futures) {
+        CollectionUtils.emptyIfNull(section.getFeatures()).stream()
                 //.filter(feature -> Boolean.TRUE.equals(feature.getEnabled()))
                 .filter(feature -> shouldCalculateFeature(feature, selectFeatureTypes))
-                .map(feature -> processFeature(executorService, company, section.getOrder(), feature, devProductivityProfile, devProductivityFilter, orgUserDetails, latestIngestedAtByIntegrationId, tenantSCMSettings))
-                .collect(Collectors.toList());
-        return futures;
+                .forEach(feature -> futures.add(processFeature(executorService, company, section.getOrder(), feature, devProductivityProfile, devProductivityFilter, orgUserDetails, latestIngestedAtByIntegrationId, tenantSCMSettings)));
     }
 
     public DevProductivityResponse calculateDevProductivity(final String company, final DevProductivityProfile devProductivityProfile, final DevProductivityFilter devProductivityFilter, final OrgUserDetails orgUserDetails, final Map<String, Long> latestIngestedAtByIntegrationId, final TenantSCMSettings tenantSCMSettings, final Long timeOutInSeconds) {
@@ -103,13 +131,18 @@ public class DevProductivityEngine {
                 .filter(f -> shouldCalculateFeature(f, selectFeatureTypesSanitized))
                 .collect(Collectors.toList()).size();
         log.info("featuresCount = {}", featuresCount);
-        ExecutorService executorService = Executors.newFixedThreadPool(featuresCount);
 
-        List<Future<FeatureResponse>> futures = CollectionUtils.emptyIfNull(devProductivityProfile.getSections()).stream()
-                //.filter(section -> Boolean.TRUE.equals(section.getEnabled()))
-                .map(section -> processSection(executorService, company, section, devProductivityProfile, devProductivityFilter, orgUserDetails, latestIngestedAtByIntegrationId, tenantSCMSettings, selectFeatureTypesSanitized))
-                .filter(CollectionUtils::isNotEmpty)
-                .flatMap(Collection::stream).collect(Collectors.toList());
+        List<Future<FeatureResponse>> futures = new ArrayList<>();
+        try {
+            CollectionUtils.emptyIfNull(devProductivityProfile.getSections())
+                    //.filter(section -> Boolean.TRUE.equals(section.getEnabled()))
+                    .forEach(section -> processSection(executorService, company, section, devProductivityProfile, devProductivityFilter, orgUserDetails, latestIngestedAtByIntegrationId, tenantSCMSettings, selectFeatureTypesSanitized, futures));
+        } catch (RejectedExecutionException e) {
+            // a response missing features must not be returned (and cached) as if it were complete
+            log.warn("Dev productivity feature pool is saturated, failing calculation for company {}, orgUserId {}, email {}", company, orgUserDetails.getOrgUserId(), orgUserDetails.getEmail());
+            futures.forEach(f -> f.cancel(true));
+            throw e;
+        }
 
         Long effectiveTimeOutInSecs = MoreObjects.firstNonNull(timeOutInSeconds, DEFAULT_TIMEOUT_IN_SECS);
         long expectedEndTime = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(effectiveTimeOutInSecs);
@@ -132,8 +165,7 @@ public class DevProductivityEngine {
                 .orgUserId(orgUserDetails.getOrgUserId()).fullName(orgUserDetails.getFullName()).email(orgUserDetails.getEmail()).customFields(orgUserDetails.getCustomFields()).order(devProductivityProfile.getOrder())
                 .build();
         log.debug("devProductivityResponse = {}", devProductivityResponse);
-        executorService.shutdownNow();
-       return devProductivityResponse;
+        return devProductivityResponse;
     }
 
     public FeatureBreakDown getFeatureBreakDown(final String company, DevProductivityProfile.Feature feature, DevProductivityProfile devProductivityProfile, final DevProductivityFilter devProductivityFilter, final OrgUserDetails orgUserDetails, final Map<String, Long> latestIngestedAtByIntegrationId, final TenantSCMSettings tenantSCMSettings,
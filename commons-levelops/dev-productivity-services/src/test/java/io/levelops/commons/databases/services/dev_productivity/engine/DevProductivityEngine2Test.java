@@ -18,8 +18,19 @@ import org.junit.Test;
 import java.io.IOException;
 import java.sql.SQLException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 public class DevProductivityEngine2Test {
     private static final ObjectMapper MAPPER = DefaultObjectMapper.get();
@@ -46,8 +57,97 @@ public class DevProductivityEngine2Test {
         Assert.assertNotNull(response);
     }
 
+    @Test
+    public void testFeaturesRunInParallel() {
+        // every feature waits for the others: this only completes if they all run at the same time on the pool
+        CyclicBarrier barrier = new CyclicBarrier(4);
+        DevProductivityEngine engine = new DevProductivityEngine(handlers(order -> {
+            try {
+                barrier.await(10, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }), 4, 10);
+        try {
+            DevProductivityResponse response = calculate(engine, 4, 30L);
+            assertThat(response.getSectionResponses().get(0).getFeatureResponses()).hasSize(4);
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void testTimedOutFeaturesAreLeftOut() {
+        CountDownLatch release = new CountDownLatch(1);
+        DevProductivityEngine engine = new DevProductivityEngine(handlers(order -> {
+            if (order == 0) {
+                await(release);
+            }
+        }), 4, 10);
+        try {
+            long start = System.currentTimeMillis();
+            DevProductivityResponse response = calculate(engine, 3, 1L);
+            assertThat(System.currentTimeMillis() - start).isLessThan(TimeUnit.SECONDS.toMillis(5));
+            assertThat(response.getSectionResponses().get(0).getFeatureResponses())
+                    .extracting(FeatureResponse::getOrder)
+                    .containsExactly(1, 2);
+        } finally {
+            release.countDown();
+            engine.shutdown();
+        }
+    }
+
+    @Test
+    public void testSaturatedPoolFailsTheCalculation() {
+        CountDownLatch release = new CountDownLatch(1);
+        // 1 thread + 1 queued feature: the third feature is rejected instead of running on the calling thread
+        DevProductivityEngine engine = new DevProductivityEngine(handlers(order -> await(release)), 1, 1);
+        try {
+            long start = System.currentTimeMillis();
+            assertThatThrownBy(() -> calculate(engine, 3, 1L)).isInstanceOf(RejectedExecutionException.class);
+            assertThat(System.currentTimeMillis() - start).isLessThan(TimeUnit.SECONDS.toMillis(5));
+        } finally {
+            release.countDown();
+            engine.shutdown();
+        }
+    }
+
+    private static DevProductivityResponse calculate(DevProductivityEngine engine, int featureCount, Long timeOutInSeconds) {
+        DevProductivityProfile profile = DevProductivityProfile.builder()
+                .sections(List.of(DevProductivityProfile.Section.builder()
+                        .order(0)
+                        .enabled(true)
+                        .features(IntStream.range(0, featureCount)
+                                .mapToObj(i -> DevProductivityProfile.Feature.builder()
+                                        .order(i)
+                                        .featureType(DevProductivityProfile.FeatureType.NUMBER_OF_PRS_PER_MONTH)
+                                        .build())
+                                .collect(Collectors.toList()))
+                        .build()))
+                .build();
+        return engine.calculateDevProductivity(COMPANY, profile, DevProductivityFilter.builder().build(),
+                OrgUserDetails.builder().build(), Map.of(), null, timeOutInSeconds);
+    }
+
+    private static Map<DevProductivityProfile.FeatureType, DevProductivityFeatureHandler> handlers(IntConsumer beforeCalculate) {
+        return Map.of(DevProductivityProfile.FeatureType.NUMBER_OF_PRS_PER_MONTH, new DummyHandler() {
+            @Override
+            public FeatureResponse calculateFeature(String company, Integer sectionOrder, DevProductivityProfile.Feature feature, Map<String, Object> profileSettings, DevProductivityFilter devProductivityFilter, OrgUserDetails orgUserDetails, Map<String, Long> latestIngestedAtByIntegrationId, TenantSCMSettings tenantSCMSettings) throws SQLException, IOException {
+                beforeCalculate.accept(feature.getOrder());
+                return super.calculateFeature(company, sectionOrder, feature, profileSettings, devProductivityFilter, orgUserDetails, latestIngestedAtByIntegrationId, tenantSCMSettings);
+            }
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
 
-    public static final class DummyHandler implements DevProductivityFeatureHandler {
+    public static class DummyHandler implements DevProductivityFeatureHandler {
         @Override
         public Set<DevProductivityProfile.FeatureType> getSupportedFeatureTypes() {
             return null;
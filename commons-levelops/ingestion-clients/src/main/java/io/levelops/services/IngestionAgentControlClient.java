@@ -14,13 +14,16 @@ import okhttp3.Request;
 import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Client for the agent callback endpoints of the control-plane.
  */
 public class IngestionAgentControlClient {
 
+    private static final long LONG_POLL_MAX_TIMEOUT_SECS = 60;
     private final ClientHelper<ControlException> clientHelper;
+    private final ClientHelper<ControlException> longPollClientHelper;
     private final ObjectMapper objectMapper;
     private final String controlPlaneUrl;
 
@@ -55,6 +58,14 @@ public class IngestionAgentControlClient {
                 .objectMapper(objectMapper)
                 .exception(ControlException.class)
                 .build();
+        // long-poll requests are held by the control-plane, so they need a longer read timeout
+        longPollClientHelper = ClientHelper.<ControlException>builder()
+                .client(okHttpClient == null ? null : okHttpClient.newBuilder()
+                        .readTimeout(LONG_POLL_MAX_TIMEOUT_SECS + 30, TimeUnit.SECONDS)
+                        .build())
+                .objectMapper(objectMapper)
+                .exception(ControlException.class)
+                .build();
     }
 
     private HttpUrl.Builder baseUrlBuilder() {
@@ -135,6 +146,32 @@ public class IngestionAgentControlClient {
         return response.getRecords();
     }
 
+    /**
+     * Long-poll version of {@link #listJobRequests}: waits until job requests are available
+     * or until the timeout expires, in which case the list is empty.
+     *
+     * @param limit max number of requests to return, typically the free capacity of the agent
+     * @param timeoutInSec how long the control-plane may hold the request (capped to 60 seconds)
+     * @return returns 'lite' requests
+     */
+    public List<CreateJobRequest> pollJobRequests(AgentHandle agentHandle, @Nullable Boolean reserved, int limit, long timeoutInSec) throws ControlException {
+        HttpUrl url = baseUrlBuilder()
+                .addPathSegment("jobs")
+                .addPathSegment("requests")
+                .addPathSegment("poll")
+                .addQueryParameter("reserved", reserved != null ? Boolean.toString(reserved) : null)
+                .addQueryParameter("limit", Integer.toString(limit))
+                .addQueryParameter("timeout_secs", Long.toString(Math.min(timeoutInSec, LONG_POLL_MAX_TIMEOUT_SECS)))
+                .build();
+        Request request = new Request.Builder()
+                .url(url)
+                .post(longPollClientHelper.createJsonRequestBody(agentHandle))
+                .build();
+        ListResponse<CreateJobRequest> response = longPollClientHelper.executeAndParse(request,
+                objectMapper.getTypeFactory().constructParametricType(ListResponse.class, CreateJobRequest.class));
+        return response.getRecords();
+    }
+
     public CreateJobRequest acceptJobRequest(String jobId, String agentId, @Nullable String tenantId) throws ControlException {
         HttpUrl url = baseUrlBuilder()
                 .addPathSegment("jobs")
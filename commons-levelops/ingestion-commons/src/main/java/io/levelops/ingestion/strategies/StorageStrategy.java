@@ -1,7 +1,7 @@
 package io.levelops.ingestion.strategies;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.MoreObjects;
 import io.levelops.commons.inventory.keys.IntegrationKey;
 import io.levelops.commons.models.ListResponse;
 import io.levelops.ingestion.data.BasicData;
@@ -9,36 +9,50 @@ import io.levelops.ingestion.exceptions.IngestException;
 import io.levelops.ingestion.sinks.StorageDataSink;
 import io.levelops.integrations.storage.models.StorageContent;
 import io.levelops.integrations.storage.models.StorageData;
+import io.levelops.integrations.storage.models.StorageFormat;
 import io.levelops.integrations.storage.models.StorageMetadata;
 import io.levelops.integrations.storage.models.StorageResult;
+import io.levelops.integrations.storage.utils.NdjsonStorageCodec;
 import lombok.Builder;
 import lombok.extern.log4j.Log4j2;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.stream.Collectors;
 
 @Log4j2
 public class StorageStrategy implements IStorageStrategy {
 
     private final ObjectMapper objectMapper;
     private final StorageDataSink storageDataSink;
+    private final StorageFormat storageFormat;
 
-    @Builder
     public StorageStrategy(ObjectMapper objectMapper, StorageDataSink storageDataSink) {
+        this(objectMapper, storageDataSink, null);
+    }
+
+    /**
+     * @param storageFormat format of the pages written to storage; defaults to JSON. Only use NDJSON_GZIP when all
+     *                      the consumers of the data type read files through GcsDataResult.getStorageFormat()
+     */
+    @Builder
+    public StorageStrategy(ObjectMapper objectMapper, StorageDataSink storageDataSink, @Nullable StorageFormat storageFormat) {
         this.objectMapper = objectMapper;
         this.storageDataSink = storageDataSink;
+        this.storageFormat = MoreObjects.firstNonNull(storageFormat, StorageFormat.JSON);
     }
 
     public static String getRelativePathPrefix(String dataType) {
         return dataType + "/";
     }
 
-    private static String getFileName(@Nullable String fileNamePrefix, String dataType, @Nullable Integer pageNumber) {
-        return StringUtils.defaultString(fileNamePrefix) + dataType + (pageNumber != null ? "." + pageNumber : "") + ".json";
+    private static String getFileName(@Nullable String fileNamePrefix, String dataType, @Nullable Integer pageNumber, StorageFormat storageFormat) {
+        return StringUtils.defaultString(fileNamePrefix) + dataType + (pageNumber != null ? "." + pageNumber : "") + storageFormat.getFileExtension();
     }
 
-    private static String getRelativePath(String dataType, @Nullable Integer pageNumber, @Nullable String fileNamePrefix) {
-        return getRelativePathPrefix(dataType) + getFileName(fileNamePrefix, dataType, pageNumber);
+    private static String getRelativePath(String dataType, @Nullable Integer pageNumber, @Nullable String fileNamePrefix, StorageFormat storageFormat) {
+        return getRelativePathPrefix(dataType) + getFileName(fileNamePrefix, dataType, pageNumber, storageFormat);
     }
 
     public <D> StorageResult storeOnePage(
@@ -55,25 +69,40 @@ public class StorageStrategy implements IStorageStrategy {
                 .dataType(dataType)
                 .integrationType(integrationType)
                 .pageNumber(pageNumber)
-                .build();
-
-        StorageContent<?> content = StorageContent.builder()
-                .data(data)
-                .storageMetadata(storageMetadata)
+                .format(storageFormat == StorageFormat.JSON ? null : storageFormat)
                 .build();
 
         StorageResult result;
         try {
-            result = storageDataSink.pushOne(BasicData.of(StorageData.class, StorageData.builder()
+            StorageData.StorageDataBuilder storageData = StorageData.builder()
                     .integrationKey(integrationKey)
                     .jobId(jobId)
-                    .relativePath(getRelativePath(dataType, pageNumber, fileNamePrefix))
-                    .jsonContent(objectMapper.writeValueAsString(content))
-                    .build()));
-        } catch (JsonProcessingException e) {
+                    .relativePath(getRelativePath(dataType, pageNumber, fileNamePrefix, storageFormat));
+            if (storageFormat == StorageFormat.NDJSON_GZIP) {
+                storageData
+                        .content(NdjsonStorageCodec.serialize(objectMapper, storageMetadata, data.getRecords()))
+                        .contentType(storageFormat.getContentType());
+            } else {
+                StorageContent<?> content = StorageContent.builder()
+                        .data(data)
+                        .storageMetadata(storageMetadata)
+                        .build();
+                storageData.jsonContent(objectMapper.writeValueAsString(content));
+            }
+            result = storageDataSink.pushOne(BasicData.of(StorageData.class, storageData.build()));
+        } catch (IOException e) {
             throw new IngestException(String.format("Failed to store data for tenant=%s, integrationId=%s, dataType=%s, jobId=%s", integrationKey.getTenantId(), integrationKey.getIntegrationId(), dataType, jobId), e);
         }
 
+        if (storageFormat != StorageFormat.JSON && result.getRecords() != null) {
+            // let readers know how to parse the files without having to rely on the file extension
+            result = result.toBuilder()
+                    .records(result.getRecords().stream()
+                            .map(record -> record.toBuilder().format(storageFormat).build())
+                            .collect(Collectors.toList()))
+                    .build();
+        }
+
         return result.toBuilder()
                 .storageMetadata(storageMetadata)
                 .build();
@@ -1,9 +1,11 @@
 package io.levelops.integrations.gcs.models;
 
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import io.levelops.ingestion.sinks.SinkIngestionResult;
+import io.levelops.integrations.storage.models.StorageFormat;
 import lombok.Builder;
 import lombok.Value;
 
@@ -23,4 +25,19 @@ public class GcsDataResult implements SinkIngestionResult, Serializable {
     @JsonProperty("blob_id")
     private BlobId blobId;
 
+    /**
+     * Format of the blob's content. When missing (files written before formats were introduced), the format is
+     * inferred from the blob name - see {@link #getStorageFormat()}.
+     */
+    @JsonProperty("format")
+    private StorageFormat format;
+
+    @JsonIgnore
+    public StorageFormat getStorageFormat() {
+        if (format != null) {
+            return format;
+        }
+        return StorageFormat.fromFileName(blobId != null ? blobId.getName() : null);
+    }
+
 }
\ No newline at end of file
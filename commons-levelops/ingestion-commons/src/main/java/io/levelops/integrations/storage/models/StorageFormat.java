@@ -0,0 +1,61 @@
+package io.levelops.integrations.storage.models;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonValue;
+import org.apache.commons.lang3.EnumUtils;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nullable;
+
+/**
+ * Serialization format of the ingestion pages pushed to storage.
+ * <p>
+ * JSON: one {@link StorageContent} object per file (legacy format).
+ * NDJSON_GZIP: gzip-compressed newline-delimited json. The first line is a header holding the {@link StorageMetadata}
+ * (including the record count), followed by one record per line. See {@link io.levelops.integrations.storage.utils.NdjsonStorageCodec}.
+ * <p>
+ * No writer uses NDJSON_GZIP yet: only the ETL worker's GcsUtils decodes it. Every reader of a data type must be
+ * made format-aware before the writer of that data type opts in.
+ */
+public enum StorageFormat {
+    JSON(".json", "application/json; charset=UTF-8"),
+    NDJSON_GZIP(".ndjson.gz", "application/x-ndjson");
+
+    private final String fileExtension;
+    private final String contentType;
+
+    StorageFormat(String fileExtension, String contentType) {
+        this.fileExtension = fileExtension;
+        this.contentType = contentType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    /**
+     * Infers the format of a file from its name. Defaults to JSON for unknown extensions.
+     */
+    public static StorageFormat fromFileName(@Nullable String fileName) {
+        if (StringUtils.endsWith(fileName, NDJSON_GZIP.fileExtension)) {
+            return NDJSON_GZIP;
+        }
+        return JSON;
+    }
+
+    @JsonCreator
+    @Nullable
+    public static StorageFormat fromString(@Nullable String value) {
+        return EnumUtils.getEnumIgnoreCase(StorageFormat.class, value);
+    }
+
+    @JsonValue
+    @Override
+    public String toString() {
+        return super.toString().toLowerCase();
+    }
+}
@@ -26,4 +26,16 @@ public class StorageMetadata implements Serializable {
     @JsonProperty("page_number")
     Integer pageNumber;
 
+    /**
+     * Null for the legacy json format.
+     */
+    @JsonProperty("format")
+    StorageFormat format;
+
+    /**
+     * Only set by formats that write a header before the records.
+     */
+    @JsonProperty("record_count")
+    Integer recordCount;
+
 }
@@ -0,0 +1,86 @@
+package io.levelops.integrations.storage.utils;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.levelops.integrations.storage.models.StorageFormat;
+import io.levelops.integrations.storage.models.StorageMetadata;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Reads and writes ingestion pages in the {@link StorageFormat#NDJSON_GZIP} format:
+ * <pre>
+ * gzip(
+ *   {"_metadata":{..., "format":"ndjson_gzip", "record_count":N}}\n
+ *   {record 1}\n
+ *   ...
+ *   {record N}\n
+ * )
+ * </pre>
+ * Records can be consumed one at a time, without materializing the whole page in memory.
+ */
+public class NdjsonStorageCodec {
+
+    public static final String METADATA_FIELD = "_metadata";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final SerializedString LINE_SEPARATOR = new SerializedString("\n");
+
+    public static byte[] serialize(ObjectMapper objectMapper, StorageMetadata storageMetadata, List<?> records) throws IOException {
+        StorageMetadata header = storageMetadata.toBuilder()
+                .format(StorageFormat.NDJSON_GZIP)
+                .recordCount(records != null ? records.size() : 0)
+                .build();
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream, BUFFER_SIZE);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(gzipOutputStream)) {
+            generator.setRootValueSeparator(LINE_SEPARATOR);
+            writer.writeValue(generator, Map.of(METADATA_FIELD, header));
+            if (records != null) {
+                for (Object record : records) {
+                    writer.writeValue(generator, record);
+                }
+            }
+            generator.writeRaw(LINE_SEPARATOR.getValue());
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * Parses a gzip-compressed ndjson page and hands each record to the consumer as soon as it is deserialized.
+     *
+     * @param recordType type of a single record
+     * @return the metadata found in the header
+     */
+    public static <C> StorageMetadata deserialize(ObjectMapper objectMapper, InputStream inputStream, JavaType recordType, Consumer<C> consumer) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(new GZIPInputStream(inputStream, BUFFER_SIZE))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new JsonParseException(parser, "Expected ndjson storage content to start with a header object");
+            }
+            JsonNode header = objectMapper.readTree(parser);
+            StorageMetadata storageMetadata = header.hasNonNull(METADATA_FIELD)
+                    ? objectMapper.treeToValue(header.get(METADATA_FIELD), StorageMetadata.class)
+                    : null;
+            while (parser.nextToken() != null) {
+                C record = objectMapper.readValue(parser, recordType);
+                consumer.accept(record);
+            }
+            return storageMetadata;
+        }
+    }
+}
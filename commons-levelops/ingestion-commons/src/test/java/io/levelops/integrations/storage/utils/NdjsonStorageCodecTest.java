@@ -0,0 +1,102 @@
+package io.levelops.integrations.storage.utils;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.levelops.commons.inventory.keys.IntegrationKey;
+import io.levelops.commons.jackson.DefaultObjectMapper;
+import io.levelops.commons.models.ListResponse;
+import io.levelops.integrations.storage.models.StorageContent;
+import io.levelops.integrations.storage.models.StorageFormat;
+import io.levelops.integrations.storage.models.StorageMetadata;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class NdjsonStorageCodecTest {
+
+    private static final ObjectMapper MAPPER = DefaultObjectMapper.get();
+    private static final StorageMetadata METADATA = StorageMetadata.builder()
+            .key(IntegrationKey.builder().tenantId("foo").integrationId("1").build())
+            .integrationType("jira")
+            .dataType("issues")
+            .pageNumber(2)
+            .build();
+
+    private static List<Map<String, Object>> generateIssues(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> Map.<String, Object>of(
+                        "key", "LEV-" + i,
+                        "fields", Map.of(
+                                "summary", "Issue number " + i + " with a\nmulti-line summary",
+                                "status", i % 2 == 0 ? "DONE" : "IN PROGRESS",
+                                "labels", List.of("backend", "etl"),
+                                "updated", 1650000000000L + i)))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        List<Map<String, Object>> issues = generateIssues(10);
+        byte[] content = NdjsonStorageCodec.serialize(MAPPER, METADATA, issues);
+
+        JavaType type = MAPPER.getTypeFactory().constructMapType(Map.class, String.class, Object.class);
+        List<Map<String, Object>> output = new ArrayList<>();
+        StorageMetadata metadata = NdjsonStorageCodec.deserialize(MAPPER, new ByteArrayInputStream(content), type, output::add);
+
+        assertThat(metadata.getFormat()).isEqualTo(StorageFormat.NDJSON_GZIP);
+        assertThat(metadata.getRecordCount()).isEqualTo(10);
+        assertThat(metadata.getDataType()).isEqualTo("issues");
+        assertThat(metadata.getKey().getTenantId()).isEqualTo("foo");
+        assertThat(output).extracting(r -> r.get("key")).containsExactlyElementsOf(
+                issues.stream().map(r -> r.get("key")).collect(Collectors.toList()));
+        assertThat(output.get(3).get("fields")).isEqualTo(MAPPER.convertValue(issues.get(3).get("fields"), Map.class));
+    }
+
+    @Test
+    public void testEmptyPage() throws IOException {
+        byte[] content = NdjsonStorageCodec.serialize(MAPPER, METADATA, List.of());
+        List<Object> output = new ArrayList<>();
+        StorageMetadata metadata = NdjsonStorageCodec.deserialize(MAPPER, new ByteArrayInputStream(content),
+                MAPPER.constructType(Object.class), output::add);
+        assertThat(metadata.getRecordCount()).isEqualTo(0);
+        assertThat(output).isEmpty();
+    }
+
+    @Test
+    public void testFileName() {
+        assertThat(StorageFormat.fromFileName("issues/issues.3.ndjson.gz")).isEqualTo(StorageFormat.NDJSON_GZIP);
+        assertThat(StorageFormat.fromFileName("issues/issues.3.json")).isEqualTo(StorageFormat.JSON);
+        assertThat(StorageFormat.fromFileName(null)).isEqualTo(StorageFormat.JSON);
+    }
+
+    /**
+     * Compares the size of the legacy json format with ndjson+gzip on a typical page of issues.
+     */
+    @Test
+    public void testCompareWithJsonFormat() throws IOException {
+        List<Map<String, Object>> issues = generateIssues(5000);
+        JavaType type = MAPPER.getTypeFactory().constructMapType(Map.class, String.class, Object.class);
+
+        String json = MAPPER.writeValueAsString(StorageContent.builder()
+                .storageMetadata(METADATA)
+                .data(ListResponse.of(issues))
+                .build());
+        StorageContent<ListResponse<Map<String, Object>>> parsed = MAPPER.readValue(json, StorageContent.getListStorageContentJavaType(MAPPER, type));
+
+        byte[] ndjson = NdjsonStorageCodec.serialize(MAPPER, METADATA, issues);
+        List<Map<String, Object>> output = new ArrayList<>();
+        NdjsonStorageCodec.deserialize(MAPPER, new ByteArrayInputStream(ndjson), type, output::add);
+
+        assertThat(output).hasSize(parsed.getData().getRecords().size());
+        assertThat(ndjson.length).isLessThan(json.getBytes(StandardCharsets.UTF_8).length / 4);
+    }
+}
@@ -17,6 +17,9 @@ import io.levelops.integrations.github.model.GithubContributor;
 import io.levelops.integrations.github.model.GithubConverters;
 import io.levelops.integrations.github.model.GithubInstallationRepositoriesResponse;
 import io.levelops.integrations.github.model.GithubPaginatedResponse;
+import io.levelops.integrations.github.model.GithubPullRequestGraphQlResponse;
+import io.levelops.integrations.github.model.GithubPullRequestGraphQlResponse.Connection;
+import io.levelops.integrations.github.model.GithubPullRequestGraphQlResponse.PullRequestConnections;
 import io.levelops.integrations.github.model.GithubUserGraphQlResponse;
 import io.levelops.integrations.github.model.GithubUserRepos;
 import io.levelops.integrations.github.models.GithubCommit;
@@ -50,6 +53,7 @@ import okhttp3.HttpUrl;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.collections4.MapUtils;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -61,10 +65,15 @@ import org.eclipse.egit.github.core.RepositoryCommit;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -150,6 +159,10 @@ public class GithubClient {
     }
 
     public GraphQlResponse queryGraphQl(String query) throws GithubClientException {
+        return queryGraphQl(query, null);
+    }
+
+    public GraphQlResponse queryGraphQl(String query, @Nullable Map<String, Object> variables) throws GithubClientException {
         HttpUrl url = baseUrlBuilder()
                 .addPathSegment("graphql")
                 .build();
@@ -157,6 +170,7 @@ public class GithubClient {
                 .url(url)
                 .post(clientHelper.createJsonRequestBody(GraphQlQuery.builder()
                         .query(query)
+                        .variables(variables)
                         .build()))
                 .build();
         return executeAndParseRequest(request, GraphQlResponse.class);
@@ -1160,6 +1174,118 @@ public class GithubClient {
         return objectMapper.convertValue(graphQlResponse, GithubUserGraphQlResponse.class);
     }
 
+    /**
+     * Fetches reviews, issue comments and/or commits of a batch of pull requests, following the cursors of the nested
+     * connections until they are exhausted. Follow-up queries only ask for the connections that have more pages,
+     * and are batched across PRs too.
+     */
+    public List<PullRequestConnections> getPullRequestConnections(String repoId, List<Integer> prNumbers, Set<Connection> connections, int pageSize) throws GithubClientException {
+        Map<Integer, Map<Connection, String>> cursorsByPr = new LinkedHashMap<>();
+        for (Integer prNumber : prNumbers) {
+            Map<Connection, String> cursors = new EnumMap<>(Connection.class);
+            connections.forEach(connection -> cursors.put(connection, ""));
+            cursorsByPr.put(prNumber, cursors);
+        }
+        Map<Integer, PullRequestConnections> results = new LinkedHashMap<>();
+        while (!cursorsByPr.isEmpty()) {
+            GithubPullRequestGraphQlResponse response = getPullRequestConnectionsPage(repoId, cursorsByPr, pageSize);
+            cursorsByPr = new LinkedHashMap<>();
+            for (PullRequestConnections page : response.getPullRequests()) {
+                results.merge(page.getNumber(), page, PullRequestConnections::append);
+                if (MapUtils.isNotEmpty(page.getEndCursors())) {
+                    cursorsByPr.put(page.getNumber(), page.getEndCursors());
+                }
+            }
+        }
+        return new ArrayList<>(results.values());
+    }
+
+    /**
+     * PRs that do not exist (e.g. deleted, or transferred) come back as NOT_FOUND errors on their alias and are left
+     * out of the response. Any other error fails the whole page.
+     *
+     * @param cursorsByPr connections to fetch for each PR number, with the cursor to resume from (empty for the first page)
+     */
+    public GithubPullRequestGraphQlResponse getPullRequestConnectionsPage(String repoId, Map<Integer, Map<Connection, String>> cursorsByPr, int pageSize) throws GithubClientException {
+        String[] ownerAndName = repoId.split("/", 2);
+        Validate.isTrue(ownerAndName.length == 2, "repoId must be formatted as 'owner/name'");
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("owner", ownerAndName[0]);
+        variables.put("name", ownerAndName[1]);
+        variables.put("first", pageSize);
+        StringBuilder declarations = new StringBuilder("$owner: String!, $name: String!, $first: Int!");
+        StringBuilder selections = new StringBuilder();
+        cursorsByPr.forEach((prNumber, cursors) -> {
+            selections.append(String.format("    %s: pullRequest(number: %d) {\n", getPullRequestAlias(prNumber), prNumber))
+                    .append("      number\n");
+            cursors.forEach((connection, endCursor) -> {
+                String cursorVariable = String.format("after_%d_%s", prNumber, connection.getField());
+                declarations.append(", $").append(cursorVariable).append(": String");
+                variables.put(cursorVariable, StringUtils.defaultIfEmpty(endCursor, null));
+                selections.append("      ").append(connection.getField()).append("(first: $first, after: $").append(cursorVariable).append(") {\n")
+                        .append("        nodes { ").append(connection.getNodeSelection()).append(" }\n")
+                        .append("        pageInfo {\n")
+                        .append("          endCursor\n")
+                        .append("          hasNextPage\n")
+                        .append("        }\n")
+                        .append("      }\n");
+            });
+            selections.append("    }\n");
+        });
+        String query = "query(" + declarations + ") {\n" +
+                "  repository(owner: $owner, name: $name) {\n" +
+                selections +
+                "  }\n" +
+                "}";
+        GraphQlResponse graphQlResponse = queryGraphQl(query, variables);
+        Set<String> aliases = cursorsByPr.keySet().stream()
+                .map(GithubClient::getPullRequestAlias)
+                .collect(Collectors.toSet());
+        List<Map<String, Object>> errors = ListUtils.emptyIfNull(graphQlResponse.getErrors()).stream()
+                .filter(error -> !isPullRequestNotFound(error, aliases))
+                .collect(Collectors.toList());
+        if (!errors.isEmpty()) {
+            throw new GithubClientException("Failed to get pull request connections for repo " + repoId + ". Errors: " + errors);
+        }
+        if (CollectionUtils.isNotEmpty(graphQlResponse.getErrors())) {
+            log.debug("Pull requests not found in repo {}: {}", repoId, graphQlResponse.getErrors());
+        }
+        GithubPullRequestGraphQlResponse response = objectMapper.convertValue(graphQlResponse, GithubPullRequestGraphQlResponse.class);
+        // GraphQL only has the html url of commits, so build the REST one that the commits endpoint returns
+        return response.toBuilder()
+                .pullRequests(response.getPullRequests().stream()
+                        .map(pr -> pr.toBuilder()
+                                .commits(pr.getCommits().stream()
+                                        .map(commit -> commit.toBuilder()
+                                                .url(baseUrlBuilder()
+                                                        .addPathSegment("repos")
+                                                        .addPathSegments(repoId)
+                                                        .addPathSegment("commits")
+                                                        .addPathSegment(commit.getSha())
+                                                        .build()
+                                                        .toString())
+                                                .build())
+                                        .collect(Collectors.toList()))
+                                .build())
+                        .collect(Collectors.toList()))
+                .build();
+    }
+
+    private static String getPullRequestAlias(Integer prNumber) {
+        return "pr" + prNumber;
+    }
+
+    /**
+     * A NOT_FOUND error whose path is repository.prXXX: that PR does not exist.
+     */
+    private static boolean isPullRequestNotFound(Map<String, Object> error, Set<String> aliases) {
+        if (!"NOT_FOUND".equals(error.get("type")) || !(error.get("path") instanceof List)) {
+            return false;
+        }
+        List<?> path = (List<?>) error.get("path");
+        return path.size() == 2 && "repository".equals(path.get(0)) && aliases.contains(path.get(1));
+    }
+
     // This only works for github apps
     public Stream<GithubOrganization> streamAppInstallationOrgs() throws RuntimeStreamException {
         return stream(RuntimeStreamException.wrap(page -> {
@@ -4,12 +4,16 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import io.levelops.commons.client.caching.ConditionalRequestInterceptor;
+import io.levelops.commons.client.caching.ResponseCacheStats;
+import io.levelops.commons.client.caching.ResponseCacheStore;
 import io.levelops.commons.client.oauth.OauthTokenAuthenticator;
 import io.levelops.commons.client.oauth.OauthTokenInterceptor;
 import io.levelops.commons.client.oauth.OauthTokenProvider;
 import io.levelops.commons.client.oauth.StaticOauthTokenProvider;
 import io.levelops.commons.client.oauth.StaticRoundRobinOauthTokenProvider;
 import io.levelops.commons.client.retrying.RetryingInterceptor;
+import io.levelops.commons.client.throttling.AdaptiveRateLimitInterceptor;
 import io.levelops.commons.databases.models.database.Integration;
 import io.levelops.commons.databases.models.database.Token;
 import io.levelops.commons.databases.models.database.tokens.ApiKey;
@@ -29,6 +33,7 @@ import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.tuple.Pair;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
@@ -47,17 +52,32 @@ public class GithubClientFactory {
     private final ObjectMapper objectMapper;
     private final OkHttpClient okHttpClient;
     private final int throttlingIntervalMs; // disabled if <= 0
+    private static final long RESPONSE_CACHE_MAX_BODY_BYTES = 5 * 1024 * 1024;
     private final LoadingCache<Pair<IntegrationKey, Boolean>, GithubClient> clientCache;
+    @Nullable
+    private final ResponseCacheStore responseCacheStore; // conditional requests are disabled if null
+    // kept here rather than in the interceptors, which are rebuilt whenever the clients expire from the cache
+    private final ResponseCacheStats responseCacheStats = new ResponseCacheStats();
 
     public GithubClientFactory(
             InventoryService inventoryService,
             ObjectMapper objectMapper,
             OkHttpClient okHttpClient,
             int throttlingIntervalMs) {
+        this(inventoryService, objectMapper, okHttpClient, throttlingIntervalMs, null);
+    }
+
+    public GithubClientFactory(
+            InventoryService inventoryService,
+            ObjectMapper objectMapper,
+            OkHttpClient okHttpClient,
+            int throttlingIntervalMs,
+            @Nullable ResponseCacheStore responseCacheStore) {
         this.inventoryService = inventoryService;
         this.objectMapper = objectMapper;
         this.okHttpClient = okHttpClient;
         this.throttlingIntervalMs = throttlingIntervalMs;
+        this.responseCacheStore = responseCacheStore;
         clientCache = CacheBuilder.from("maximumSize=250,expireAfterWrite=15m")
                 .build(CacheLoader.from(this::getInternal));
     }
@@ -157,6 +177,21 @@ public class GithubClientFactory {
     }
 
     private OkHttpClient buildOkHttpClient(IntegrationKey key, List<Token> tokens, boolean useJwtClient, boolean realtime) throws InventoryException {
+        OkHttpClient client = buildAuthenticatedOkHttpClient(key, tokens, useJwtClient, realtime);
+        if (realtime) {
+            return client;
+        }
+        // added last so that they run after the token and retrying interceptors (the latter would retry 304s)
+        OkHttpClient.Builder builder = client.newBuilder()
+                .addInterceptor(new AdaptiveRateLimitInterceptor());
+        if (responseCacheStore != null) {
+            String namespace = key.getTenantId() + "/" + key.getIntegrationId() + (useJwtClient ? "/jwt" : "");
+            builder.addInterceptor(new ConditionalRequestInterceptor(responseCacheStore, responseCacheStats, namespace, RESPONSE_CACHE_MAX_BODY_BYTES));
+        }
+        return builder.build();
+    }
+
+    private OkHttpClient buildAuthenticatedOkHttpClient(IntegrationKey key, List<Token> tokens, boolean useJwtClient, boolean realtime) throws InventoryException {
         return InventoryHelper.handleTokens("Github", key, tokens,
                 forType(OauthToken.TOKEN_TYPE, (Token token, OauthToken oauth) -> {
                     OauthTokenProvider tokenProvider = getTokenProvider(key, useJwtClient, token.getId());
@@ -0,0 +1,199 @@
+package io.levelops.integrations.github.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import io.levelops.commons.jackson.DefaultObjectMapper;
+import io.levelops.integrations.github.models.GithubCommitUser;
+import io.levelops.integrations.github.models.GithubReview;
+import io.levelops.integrations.github.models.GithubUser;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Value;
+import org.apache.commons.collections4.ListUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reviews, issue comments and commits of a batch of pull requests, fetched with a single GraphQL query
+ * (one aliased "pullRequest" field per PR).
+ */
+@Value
+@Builder(toBuilder = true)
+@JsonDeserialize(
+        builder = GithubPullRequestGraphQlResponse.GithubPullRequestGraphQlResponseBuilder.class,
+        using = GithubPullRequestGraphQlResponse.GithubPullRequestGraphQlResponseDeserializer.class)
+public class GithubPullRequestGraphQlResponse {
+    @JsonProperty("pull_requests")
+    List<PullRequestConnections> pullRequests;
+
+    /**
+     * Nested connections of a pull request, with the GraphQL selection of their nodes.
+     */
+    @Getter
+    public enum Connection {
+        REVIEWS("reviews", "databaseId author { __typename login } body state authorAssociation submittedAt commit { oid } url"),
+        COMMENTS("comments", "databaseId author { __typename login } body authorAssociation createdAt url"),
+        COMMITS("commits", "commit { oid message " +
+                "author { name email date user { __typename login } } " +
+                "committer { name email date user { __typename login } } }");
+
+        private final String field;
+        private final String nodeSelection;
+
+        Connection(String field, String nodeSelection) {
+            this.field = field;
+            this.nodeSelection = nodeSelection;
+        }
+    }
+
+    @Value
+    @Builder(toBuilder = true)
+    public static class PullRequestConnections {
+        @JsonProperty("number")
+        Integer number;
+
+        @JsonProperty("reviews")
+        List<GithubReview> reviews;
+
+        // issue comments, converted to reviews with a "COMMENTED" state like the REST client does
+        @JsonProperty("comments")
+        List<GithubReview> comments;
+
+        @JsonProperty("commits")
+        List<GithubApiCommit> commits;
+
+        // end cursors of the connections that have more pages
+        @JsonProperty("end_cursors")
+        Map<Connection, String> endCursors;
+
+        public PullRequestConnections append(PullRequestConnections nextPage) {
+            return toBuilder()
+                    .reviews(ListUtils.union(ListUtils.emptyIfNull(reviews), ListUtils.emptyIfNull(nextPage.getReviews())))
+                    .comments(ListUtils.union(ListUtils.emptyIfNull(comments), ListUtils.emptyIfNull(nextPage.getComments())))
+                    .commits(ListUtils.union(ListUtils.emptyIfNull(commits), ListUtils.emptyIfNull(nextPage.getCommits())))
+                    .endCursors(nextPage.getEndCursors())
+                    .build();
+        }
+    }
+
+    public static class GithubPullRequestGraphQlResponseDeserializer extends StdDeserializer<GithubPullRequestGraphQlResponse> {
+
+        public GithubPullRequestGraphQlResponseDeserializer() {
+            this(null);
+        }
+
+        public GithubPullRequestGraphQlResponseDeserializer(Class<?> vc) {
+            super(vc);
+        }
+
+        @Override
+        public GithubPullRequestGraphQlResponse deserialize(com.fasterxml.jackson.core.JsonParser jp, com.fasterxml.jackson.databind.DeserializationContext ctxt) throws IOException {
+            JsonNode node = jp.getCodec().readTree(jp);
+            ObjectMapper objectMapper = DefaultObjectMapper.get();
+
+            List<PullRequestConnections> pullRequests = new ArrayList<>();
+            // unknown PR numbers come back as null
+            node.get("data").get("repository").forEach(prNode -> {
+                if (prNode == null || prNode.isNull()) {
+                    return;
+                }
+                Map<Connection, String> endCursors = new EnumMap<>(Connection.class);
+                List<GithubReview> reviews = new ArrayList<>();
+                List<GithubReview> comments = new ArrayList<>();
+                List<GithubApiCommit> commits = new ArrayList<>();
+                for (Connection connection : Connection.values()) {
+                    JsonNode connectionNode = prNode.get(connection.getField());
+                    if (connectionNode == null || connectionNode.isNull()) {
+                        continue;
+                    }
+                    if (connectionNode.get("pageInfo").get("hasNextPage").asBoolean()) {
+                        endCursors.put(connection, connectionNode.get("pageInfo").get("endCursor").asText());
+                    }
+                    connectionNode.get("nodes").forEach(n -> {
+                        switch (connection) {
+                            case REVIEWS:
+                                reviews.add(GithubReview.builder()
+                                        .id(getText(n, "databaseId"))
+                                        .user(parseUser(n.get("author")))
+                                        .body(getText(n, "body"))
+                                        .state(getText(n, "state"))
+                                        .authorAssociation(getText(n, "authorAssociation"))
+                                        .submitted_at(objectMapper.convertValue(n.get("submittedAt"), Date.class))
+                                        .commitId(n.hasNonNull("commit") ? getText(n.get("commit"), "oid") : null)
+                                        .htmlUrl(getText(n, "url"))
+                                        .build());
+                                break;
+                            case COMMENTS:
+                                comments.add(GithubReview.builder()
+                                        .id(getText(n, "databaseId"))
+                                        .user(parseUser(n.get("author")))
+                                        .body(getText(n, "body"))
+                                        .state("COMMENTED")
+                                        .authorAssociation(getText(n, "authorAssociation"))
+                                        .submitted_at(objectMapper.convertValue(n.get("createdAt"), Date.class))
+                                        .htmlUrl(getText(n, "url"))
+                                        .build());
+                                break;
+                            case COMMITS:
+                                JsonNode commitNode = n.get("commit");
+                                commits.add(GithubApiCommit.builder()
+                                        .sha(getText(commitNode, "oid"))
+                                        .author(parseUser(commitNode.path("author").get("user")))
+                                        .committer(parseUser(commitNode.path("committer").get("user")))
+                                        .commit(GithubApiCommit.Commit.builder()
+                                                .message(getText(commitNode, "message"))
+                                                .author(parseCommitUser(objectMapper, commitNode.get("author")))
+                                                .committer(parseCommitUser(objectMapper, commitNode.get("committer")))
+                                                .build())
+                                        .build());
+                                break;
+                        }
+                    });
+                }
+                pullRequests.add(PullRequestConnections.builder()
+                        .number(prNode.get("number").asInt())
+                        .reviews(reviews)
+                        .comments(comments)
+                        .commits(commits)
+                        .endCursors(endCursors)
+                        .build());
+            });
+            return GithubPullRequestGraphQlResponse.builder()
+                    .pullRequests(pullRequests)
+                    .build();
+        }
+
+        private static String getText(JsonNode node, String field) {
+            return node.hasNonNull(field) ? node.get(field).asText() : null;
+        }
+
+        private static GithubUser parseUser(JsonNode node) {
+            if (node == null || node.isNull()) {
+                return null;
+            }
+            return GithubUser.builder()
+                    .login(getText(node, "login"))
+                    .type(GithubUser.OwnerType.fromString(getText(node, "__typename")))
+                    .build();
+        }
+
+        private static GithubCommitUser parseCommitUser(ObjectMapper objectMapper, JsonNode node) {
+            if (node == null || node.isNull()) {
+                return null;
+            }
+            return GithubCommitUser.builder()
+                    .name(getText(node, "name"))
+                    .email(getText(node, "email"))
+                    .date(objectMapper.convertValue(node.get("date"), Date.class))
+                    .build();
+        }
+    }
+}
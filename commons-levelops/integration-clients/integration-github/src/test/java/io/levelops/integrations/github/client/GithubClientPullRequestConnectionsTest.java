@@ -0,0 +1,136 @@
+package io.levelops.integrations.github.client;
+
+import io.levelops.commons.client.graphql.GraphQlResponse;
+import io.levelops.commons.jackson.DefaultObjectMapper;
+import io.levelops.integrations.github.model.GithubApiCommit;
+import io.levelops.integrations.github.model.GithubPullRequestGraphQlResponse.Connection;
+import io.levelops.integrations.github.model.GithubPullRequestGraphQlResponse.PullRequestConnections;
+import io.levelops.integrations.github.models.GithubReview;
+import okhttp3.OkHttpClient;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+public class GithubClientPullRequestConnectionsTest {
+
+    private GithubClient client;
+
+    @Before
+    public void setUp() {
+        client = Mockito.spy(GithubClient.builder()
+                .okHttpClient(new OkHttpClient())
+                .objectMapper(DefaultObjectMapper.get())
+                .build());
+    }
+
+    private static Map<String, Object> connection(List<Map<String, Object>> nodes, String endCursor) {
+        Map<String, Object> pageInfo = new HashMap<>();
+        pageInfo.put("endCursor", endCursor);
+        pageInfo.put("hasNextPage", endCursor != null);
+        return Map.of("nodes", nodes, "pageInfo", pageInfo);
+    }
+
+    private static Map<String, Object> review(int id) {
+        return Map.of("databaseId", id, "author", Map.of("__typename", "User", "login", "user" + id), "state", "APPROVED");
+    }
+
+    private static GraphQlResponse response(Map<String, Object> repository, List<Map<String, Object>> errors) {
+        return GraphQlResponse.builder()
+                .data(Map.of("repository", repository))
+                .errors(errors)
+                .build();
+    }
+
+    @Test
+    public void testMultiplePagesAndMissingPullRequest() throws GithubClientException {
+        // first page: PR 1 has a second page of reviews, PR 2 does not exist, PR 3 is complete
+        Map<String, Object> firstPage = new HashMap<>();
+        firstPage.put("pr1", Map.of(
+                "number", 1,
+                "reviews", connection(List.of(review(11)), "cursor-1"),
+                "comments", connection(List.of(), null),
+                "commits", connection(List.of(), null)));
+        firstPage.put("pr2", null);
+        firstPage.put("pr3", Map.of(
+                "number", 3,
+                "reviews", connection(List.of(review(31)), null),
+                "comments", connection(List.of(), null),
+                "commits", connection(List.of(Map.of("commit", Map.of("oid", "abc", "message", "fix"))), null)));
+        // second page: only the reviews of PR 1 are requested
+        Map<String, Object> secondPage = new HashMap<>();
+        secondPage.put("pr1", Map.of(
+                "number", 1,
+                "reviews", connection(List.of(review(12)), null)));
+        ArgumentCaptor<String> queries = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<Map<String, Object>> variables = ArgumentCaptor.forClass(Map.class);
+        doAnswer(invocation -> {
+            Map<String, Object> vars = invocation.getArgument(1);
+            if (vars.containsKey("after_2_reviews")) {
+                return response(firstPage, List.of(Map.of(
+                        "type", "NOT_FOUND",
+                        "path", List.of("repository", "pr2"),
+                        "message", "Could not resolve to a PullRequest with the number of 2.")));
+            }
+            return response(secondPage, null);
+        }).when(client).queryGraphQl(queries.capture(), variables.capture());
+
+        List<PullRequestConnections> prs = client.getPullRequestConnections("owner/repo", List.of(1, 2, 3),
+                EnumSet.of(Connection.REVIEWS, Connection.COMMENTS, Connection.COMMITS), 1);
+
+        assertThat(prs).extracting(PullRequestConnections::getNumber).containsExactly(1, 3);
+        assertThat(prs.get(0).getReviews()).extracting(GithubReview::getId).containsExactly("11", "12");
+        assertThat(prs.get(0).getEndCursors()).isEmpty();
+        assertThat(prs.get(1).getReviews()).extracting(GithubReview::getId).containsExactly("31");
+        assertThat(prs.get(1).getCommits()).extracting(GithubApiCommit::getUrl)
+                .containsExactly("https://api.github.com/repos/owner/repo/commits/abc");
+
+        verify(client, times(2)).queryGraphQl(anyString(), any());
+        assertThat(variables.getAllValues().get(0)).containsEntry("owner", "owner").containsEntry("name", "repo").containsEntry("first", 1);
+        assertThat(variables.getAllValues().get(0).get("after_1_reviews")).isNull();
+        assertThat(variables.getAllValues().get(1)).containsEntry("after_1_reviews", "cursor-1");
+        assertThat(variables.getAllValues().get(1)).doesNotContainKeys("after_1_comments", "after_3_reviews");
+        assertThat(queries.getAllValues().get(1)).contains("pr1: pullRequest(number: 1)").doesNotContain("pr3");
+    }
+
+    @Test
+    public void testUnrelatedErrorFailsThePage() throws GithubClientException {
+        Map<String, Object> repository = new HashMap<>();
+        repository.put("pr1", null);
+        doReturn(response(repository, List.of(Map.of(
+                "type", "RATE_LIMITED",
+                "message", "API rate limit exceeded"))))
+                .when(client).queryGraphQl(anyString(), any());
+
+        assertThatThrownBy(() -> client.getPullRequestConnections("owner/repo", List.of(1), EnumSet.of(Connection.REVIEWS), 10))
+                .isInstanceOf(GithubClientException.class)
+                .hasMessageContaining("RATE_LIMITED");
+    }
+
+    @Test
+    public void testNotFoundOutsideOfTheBatchFailsThePage() throws GithubClientException {
+        // the repository itself could not be resolved
+        doReturn(response(new HashMap<>(), List.of(Map.of(
+                "type", "NOT_FOUND",
+                "path", List.of("repository"),
+                "message", "Could not resolve to a Repository with the name 'owner/repo'."))))
+                .when(client).queryGraphQl(anyString(), any());
+
+        assertThatThrownBy(() -> client.getPullRequestConnections("owner/repo", List.of(1), EnumSet.of(Connection.REVIEWS), 10))
+                .isInstanceOf(GithubClientException.class);
+    }
+}
@@ -0,0 +1,106 @@
+package io.levelops.integrations.github.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.levelops.commons.client.graphql.GraphQlResponse;
+import io.levelops.commons.jackson.DefaultObjectMapper;
+import io.levelops.integrations.github.model.GithubPullRequestGraphQlResponse.Connection;
+import io.levelops.integrations.github.model.GithubPullRequestGraphQlResponse.PullRequestConnections;
+import io.levelops.integrations.github.models.GithubReview;
+import io.levelops.integrations.github.models.GithubUser;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GithubPullRequestGraphQlResponseTest {
+    @Test
+    public void testDeserialize() {
+        Map<String, Object> repository = new HashMap<>();
+        repository.put("pr12", Map.of(
+                "number", 12,
+                "reviews", Map.of(
+                        "nodes", List.of(Map.of(
+                                "databaseId", 1234,
+                                "author", Map.of("__typename", "User", "login", "sid-propelo"),
+                                "body", "lgtm",
+                                "state", "APPROVED",
+                                "authorAssociation", "MEMBER",
+                                "submittedAt", "2023-01-02T03:04:05Z",
+                                "commit", Map.of("oid", "abc"),
+                                "url", "https://github.com/o/r/pull/12#pullrequestreview-1234")),
+                        "pageInfo", Map.of("endCursor", "Y3Vyc29yOjE=", "hasNextPage", true)),
+                "comments", Map.of(
+                        "nodes", List.of(Map.of(
+                                "databaseId", 5678,
+                                "author", Map.of("__typename", "Bot", "login", "ci-bot"),
+                                "body", "build passed",
+                                "authorAssociation", "NONE",
+                                "createdAt", "2023-01-02T03:04:05Z",
+                                "url", "https://github.com/o/r/pull/12#issuecomment-5678")),
+                        "pageInfo", Map.of("endCursor", "Y3Vyc29yOjI=", "hasNextPage", false)),
+                "commits", Map.of(
+                        "nodes", List.of(Map.of("commit", Map.of(
+                                "oid", "def",
+                                "message", "fix bug",
+                                "author", Map.of("name", "Sid", "email", "sid@harness.io", "date", "2023-01-01T00:00:00Z",
+                                        "user", Map.of("__typename", "User", "login", "sid-propelo")),
+                                "committer", Map.of("name", "GitHub", "email", "noreply@github.com", "date", "2023-01-01T00:00:00Z")))),
+                        "pageInfo", Map.of("hasNextPage", false))));
+        // PR that could not be resolved
+        repository.put("pr13", null);
+        var graphQlResponse = GraphQlResponse.builder()
+                .data(Map.of("repository", repository))
+                .build();
+        ObjectMapper mapper = DefaultObjectMapper.get();
+        var response = mapper.convertValue(graphQlResponse, GithubPullRequestGraphQlResponse.class);
+
+        assertThat(response.getPullRequests()).hasSize(1);
+        PullRequestConnections pr = response.getPullRequests().get(0);
+        assertThat(pr.getNumber()).isEqualTo(12);
+        assertThat(pr.getEndCursors()).containsExactlyEntriesOf(Map.of(Connection.REVIEWS, "Y3Vyc29yOjE="));
+
+        GithubReview review = pr.getReviews().get(0);
+        assertThat(review.getId()).isEqualTo("1234");
+        assertThat(review.getUser()).isEqualTo(GithubUser.builder().login("sid-propelo").type(GithubUser.OwnerType.USER).build());
+        assertThat(review.getState()).isEqualTo("APPROVED");
+        assertThat(review.getCommitId()).isEqualTo("abc");
+        assertThat(review.getSubmitted_at()).isNotNull();
+
+        GithubReview comment = pr.getComments().get(0);
+        assertThat(comment.getId()).isEqualTo("5678");
+        assertThat(comment.getState()).isEqualTo("COMMENTED");
+        assertThat(comment.getUser().getLogin()).isEqualTo("ci-bot");
+        assertThat(comment.getUser().getType()).isNull();
+
+        GithubApiCommit commit = pr.getCommits().get(0);
+        assertThat(commit.getSha()).isEqualTo("def");
+        assertThat(commit.getAuthor().getLogin()).isEqualTo("sid-propelo");
+        assertThat(commit.getCommitter()).isNull();
+        assertThat(commit.getCommit().getMessage()).isEqualTo("fix bug");
+        assertThat(commit.getCommit().getAuthor().getEmail()).isEqualTo("sid@harness.io");
+        assertThat(commit.getCommit().getCommitter().getName()).isEqualTo("GitHub");
+    }
+
+    @Test
+    public void testAppend() {
+        PullRequestConnections page1 = PullRequestConnections.builder()
+                .number(1)
+                .reviews(List.of(GithubReview.builder().id("1").build()))
+                .comments(List.of())
+                .commits(List.of())
+                .endCursors(Map.of(Connection.REVIEWS, "c1"))
+                .build();
+        PullRequestConnections page2 = PullRequestConnections.builder()
+                .number(1)
+                .reviews(List.of(GithubReview.builder().id("2").build()))
+                .endCursors(Map.of())
+                .build();
+
+        PullRequestConnections merged = page1.append(page2);
+        assertThat(merged.getReviews()).extracting(GithubReview::getId).containsExactly("1", "2");
+        assertThat(merged.getEndCursors()).isEmpty();
+    }
+}
@@ -195,7 +195,6 @@ public class JiraClient {
                 .addPathSegment("project")
                 .addPathSegment(projectIdOrKey)
                 .addPathSegment("versions")
-                .addEncodedQueryParameter("expand", "description,lead,issueTypes,url,projectKeys,permissions")
                 .build();
         Request request = new Request.Builder()
                 .url(url)
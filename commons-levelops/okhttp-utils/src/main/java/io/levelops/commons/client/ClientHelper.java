@@ -27,6 +27,8 @@ import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
 import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.ByteString;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -46,6 +48,8 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.KeyManagementException;
@@ -64,6 +68,7 @@ public class ClientHelper<E extends Exception> {
     private static final Predicate<Response> FAILED_RESPONSE_DEFAULT_PREDICATE = response -> !response.isSuccessful();
 
     private static final int ERROR_SNIPPET_MAX_SIZE = 1000;
+    private static final int ERROR_BODY_MAX_SIZE = 1024 * 1024;
     private final OkHttpClient client;
     private final ObjectMapper objectMapper;
     private final ExceptionWithCauseSupplier<E> exceptionWithCauseSupplier;
@@ -78,21 +83,15 @@ public class ClientHelper<E extends Exception> {
     }
 
     public <T> T executeAndParse(Request request, JavaType javaType) throws E {
-        String rawResponse = executeRequest(request);
-        return parseResponse(rawResponse, javaType);
+        return this.<T>executeAndParseInternal(request, null, javaType).getBody();
     }
 
     public <T> BodyAndHeaders<T> executeAndParseWithHeaders(Request request, JavaType javaType) throws E {
-        BodyAndHeaders<String> response = executeRequestWithHeadersInternal(request, null);
-        return BodyAndHeaders.<T>builder()
-                .body(parseResponse(response.getBody(), javaType))
-                .headers(response.getHeaders())
-                .build();
+        return executeAndParseInternal(request, null, javaType);
     }
 
     public <T> T executeAndParse(Request request, Class<T> clazz) throws E {
-        String rawResponse = executeRequest(request);
-        return parseResponse(rawResponse, clazz);
+        return this.<T>executeAndParseInternal(request, null, objectMapper.getTypeFactory().constructType(clazz)).getBody();
     }
 
     public <T> BodyAndHeaders<T> executeAndParseWithHeaders(Request request, Class<T> clazz) throws E {
@@ -100,11 +99,7 @@ public class ClientHelper<E extends Exception> {
     }
 
     public <T> BodyAndHeaders<T> executeAndParseWithHeaders(Request request, Predicate<Response> failedResponsePredicate, Class<T> clazz) throws E {
-        BodyAndHeaders<String> response = executeRequestWithHeadersInternal(request, failedResponsePredicate);
-        return BodyAndHeaders.<T>builder()
-                .body(parseResponse(response.getBody(), clazz))
-                .headers(response.getHeaders())
-                .build();
+        return executeAndParseInternal(request, failedResponsePredicate, objectMapper.getTypeFactory().constructType(clazz));
     }
 
     /**
@@ -300,7 +295,12 @@ public class ClientHelper<E extends Exception> {
             String errorBody = null;
             if (body != null) {
                 try {
-                    errorBody = body.string();
+                    BufferedSource source = body.source();
+                    if (source.request(ERROR_BODY_MAX_SIZE + 1)) {
+                        errorBody = source.readUtf8(ERROR_BODY_MAX_SIZE) + "... (truncated)";
+                    } else {
+                        errorBody = body.string();
+                    }
                 } catch (Exception e) {
                     errorBody = e.toString();
                 }
@@ -311,6 +311,57 @@ public class ClientHelper<E extends Exception> {
         return body;
     }
 
+    /**
+     * Deserializes the body straight from the response stream, instead of reading it into a String first:
+     * only the beginning of the body is kept, to report parsing errors.
+     */
+    private <T> BodyAndHeaders<T> executeAndParseInternal(Request request, final Predicate<Response> failedResponsePredicate, JavaType javaType) throws E {
+        Call call = client.newCall(request);
+        Response response = null;
+        ResponseBody body = null;
+        String snippet = null;
+        Exception parsingException = null;
+        try {
+            log.debug("Executing {} request to url={}", request.method(), request.url());
+            response = call.execute();
+            body = processResponse(request.url().toString(), failedResponsePredicate, response);
+            log.debug("Returned {}", response);
+            log.debug("Response headers: {}", response.headers());
+            BufferedSource source = body.source();
+            if (!source.exhausted()) {
+                source.request(ERROR_SNIPPET_MAX_SIZE);
+                ByteString head = source.getBuffer().snapshot((int) Math.min(source.getBuffer().size(), ERROR_SNIPPET_MAX_SIZE));
+                Charset charset = body.contentType() != null ? body.contentType().charset() : null;
+                try {
+                    T parsedResponse;
+                    if (charset == null || StandardCharsets.UTF_8.equals(charset)) {
+                        // Jackson detects the UTF encoding by itself
+                        parsedResponse = objectMapper.readValue(source.inputStream(), javaType);
+                    } else {
+                        parsedResponse = objectMapper.readValue(body.charStream(), javaType);
+                    }
+                    return BodyAndHeaders.<T>builder()
+                            .body(parsedResponse)
+                            .headers(response.headers().toMultimap())
+                            .code(response.code())
+                            .build();
+                } catch (JsonProcessingException | RuntimeException e) {
+                    snippet = charset != null ? head.string(charset) : head.utf8();
+                    parsingException = e;
+                }
+            }
+        } catch (IOException e) {
+            throw exceptionWithCauseSupplier.build(e);
+        } finally {
+            CloseableUtils.closeQuietly(body);
+            CloseableUtils.closeQuietly(response);
+        }
+        if (parsingException != null) {
+            throw exceptionWithCauseAndMessageSupplier.build("Failed to parse response: " + snippet, parsingException);
+        }
+        throw exceptionWithCauseSupplier.build(new NoContentException("No content present."));
+    }
+
     private BodyAndHeaders<String> executeRequestWithHeadersInternal(Request request, final Predicate<Response> failedResponsePredicate) throws E {
         Call call = client.newCall(request);
         Response response = null;
@@ -0,0 +1,22 @@
+package io.levelops.commons.client.caching;
+
+import lombok.Builder;
+import lombok.Value;
+import okhttp3.Headers;
+
+import javax.annotation.Nullable;
+
+/**
+ * Body of a successful response, with the validators needed to revalidate it.
+ */
+@Value
+@Builder(toBuilder = true)
+public class CachedResponse {
+    String key;
+    @Nullable
+    String etag;
+    @Nullable
+    String lastModified;
+    Headers headers;
+    byte[] body;
+}
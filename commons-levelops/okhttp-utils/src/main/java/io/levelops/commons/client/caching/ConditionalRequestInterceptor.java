@@ -0,0 +1,133 @@
+package io.levelops.commons.client.caching;
+
+import lombok.extern.log4j.Log4j2;
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Sends GET requests with If-None-Match / If-Modified-Since when a previous response for the same URL was cached,
+ * and replays the cached body when the server answers 304 Not Modified.
+ * <p>
+ * Must be added after the retrying interceptor (so that it runs closer to the network), otherwise 304 responses
+ * would be considered as failures and retried.
+ */
+@Log4j2
+public class ConditionalRequestInterceptor implements Interceptor {
+
+    private static final int HTTP_NOT_MODIFIED = 304;
+    // headers describing the body of the 304 response, which must not replace the ones of the cached body
+    private static final Set<String> BODY_HEADERS = Set.of("content-length", "content-type", "content-encoding", "transfer-encoding");
+
+    private final ResponseCacheStore store;
+    private final ResponseCacheStats stats;
+    private final String namespace;
+    private final long maxBodyBytes;
+
+    /**
+     * @param stats        shared by the interceptors of the store, so that the counters outlive the clients
+     * @param namespace    prefix of the cache keys, identifying whose credentials are used (e.g. tenant and integration id)
+     * @param maxBodyBytes responses with a larger body are not cached
+     */
+    public ConditionalRequestInterceptor(ResponseCacheStore store, ResponseCacheStats stats, String namespace, long maxBodyBytes) {
+        this.store = store;
+        this.stats = stats;
+        this.namespace = namespace;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    @NotNull
+    @Override
+    public Response intercept(@NotNull Chain chain) throws IOException {
+        Request request = chain.request();
+        if (!isCacheable(request)) {
+            return chain.proceed(request);
+        }
+        String key = namespace + "|" + StringUtils.defaultString(request.header("Accept")) + "|" + request.url();
+        CachedResponse cached = store.get(key);
+        if (cached == null) {
+            stats.recordMiss(namespace);
+            return cacheResponse(key, chain.proceed(request));
+        }
+
+        Request.Builder conditionalRequest = request.newBuilder();
+        if (cached.getEtag() != null) {
+            conditionalRequest.header("If-None-Match", cached.getEtag());
+        }
+        if (cached.getLastModified() != null) {
+            conditionalRequest.header("If-Modified-Since", cached.getLastModified());
+        }
+        Response response = chain.proceed(conditionalRequest.build());
+        if (response.code() != HTTP_NOT_MODIFIED) {
+            stats.recordMiss(namespace);
+            return cacheResponse(key, response);
+        }
+        response.close();
+        stats.recordHit(namespace, cached.getBody().length);
+        return response.newBuilder()
+                .request(request)
+                .code(200)
+                .message("OK")
+                .headers(mergeHeaders(cached.getHeaders(), response.headers()))
+                .body(ResponseBody.create(cached.getBody(), MediaType.parse(StringUtils.defaultString(cached.getHeaders().get("Content-Type")))))
+                .build();
+    }
+
+    private static boolean isCacheable(Request request) {
+        return "GET".equals(request.method())
+                && request.header("If-None-Match") == null
+                && request.header("If-Modified-Since") == null
+                && !StringUtils.containsIgnoreCase(request.header("Cache-Control"), "no-store");
+    }
+
+    private Response cacheResponse(String key, Response response) throws IOException {
+        String etag = response.header("ETag");
+        String lastModified = response.header("Last-Modified");
+        ResponseBody body = response.body();
+        if (response.code() != 200 || body == null || (etag == null && lastModified == null)
+                || StringUtils.containsIgnoreCase(response.header("Cache-Control"), "no-store")) {
+            return response;
+        }
+        BufferedSource source = body.source();
+        if (source.request(maxBodyBytes + 1)) {
+            // too large: the part that was buffered is still readable by the caller
+            return response;
+        }
+        byte[] bytes = source.readByteArray();
+        body.close();
+        store.put(CachedResponse.builder()
+                .key(key)
+                .etag(etag)
+                .lastModified(lastModified)
+                .headers(response.headers())
+                .body(bytes)
+                .build());
+        return response.newBuilder()
+                .body(ResponseBody.create(bytes, body.contentType()))
+                .build();
+    }
+
+    /**
+     * Headers sent with a 304 update the ones of the cached response (RFC 7234 section 4.3.4), e.g. rate limits.
+     */
+    private static Headers mergeHeaders(Headers cached, Headers notModified) {
+        Headers.Builder merged = cached.newBuilder();
+        for (String name : notModified.names()) {
+            if (BODY_HEADERS.contains(name.toLowerCase())) {
+                continue;
+            }
+            merged.removeAll(name);
+            notModified.values(name).forEach(value -> merged.addUnsafeNonAscii(name, value));
+        }
+        return merged.build();
+    }
+}
@@ -0,0 +1,175 @@
+package io.levelops.commons.client.caching;
+
+import com.google.common.hash.Hashing;
+import lombok.extern.log4j.Log4j2;
+import okhttp3.Headers;
+
+import javax.annotation.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Stores each response in its own file (named after the hash of its key) under a directory.
+ * <p>
+ * When the directory grows over maxTotalBytes, the least recently used files are deleted.
+ */
+@Log4j2
+public class DiskResponseCacheStore implements ResponseCacheStore {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final String FILE_EXTENSION = ".response";
+
+    private final Path directory;
+    private final long maxTotalBytes;
+    private final AtomicLong totalBytes = new AtomicLong(0);
+
+    public DiskResponseCacheStore(Path directory, long maxTotalBytes) throws IOException {
+        this.directory = directory;
+        this.maxTotalBytes = maxTotalBytes;
+        Files.createDirectories(directory);
+        try (Stream<Path> files = listFiles()) {
+            files.forEach(file -> totalBytes.addAndGet(file.toFile().length()));
+        }
+    }
+
+    @Nullable
+    @Override
+    public CachedResponse get(String key) {
+        Path file = getFile(key);
+        if (!Files.exists(file)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != FORMAT_VERSION || !key.equals(in.readUTF())) {
+                return null;
+            }
+            String etag = readNullableString(in);
+            String lastModified = readNullableString(in);
+            Headers.Builder headers = new Headers.Builder();
+            int nbHeaders = in.readInt();
+            for (int i = 0; i < nbHeaders; i++) {
+                headers.addUnsafeNonAscii(in.readUTF(), in.readUTF());
+            }
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            // used to evict the least recently used files first
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            return CachedResponse.builder()
+                    .key(key)
+                    .etag(etag)
+                    .lastModified(lastModified)
+                    .headers(headers.build())
+                    .body(body)
+                    .build();
+        } catch (IOException e) {
+            log.warn("Failed to read cached response for key={}", key, e);
+            delete(file);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(CachedResponse response) {
+        Path file = getFile(response.getKey());
+        Path tmpFile = null;
+        try {
+            tmpFile = Files.createTempFile(directory, "tmp-", ".part");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(response.getKey());
+                writeNullableString(out, response.getEtag());
+                writeNullableString(out, response.getLastModified());
+                Headers headers = response.getHeaders();
+                out.writeInt(headers.size());
+                for (int i = 0; i < headers.size(); i++) {
+                    out.writeUTF(headers.name(i));
+                    out.writeUTF(headers.value(i));
+                }
+                out.writeInt(response.getBody().length);
+                out.write(response.getBody());
+            }
+            long previousSize = Files.exists(file) ? file.toFile().length() : 0;
+            long size = tmpFile.toFile().length();
+            Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            if (totalBytes.addAndGet(size - previousSize) > maxTotalBytes) {
+                evict(file);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to cache response for key={}", response.getKey(), e);
+            if (tmpFile != null) {
+                delete(tmpFile);
+            }
+        }
+    }
+
+    /**
+     * Deletes the least recently used files (except the one just written) until the store is back to 90% of its max size.
+     */
+    private synchronized void evict(Path lastWrittenFile) {
+        if (totalBytes.get() <= maxTotalBytes) {
+            return;
+        }
+        List<Path> files;
+        try (Stream<Path> stream = listFiles()) {
+            files = stream
+                    .filter(file -> !file.equals(lastWrittenFile))
+                    .sorted(Comparator.comparingLong(file -> file.toFile().lastModified()))
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            log.warn("Failed to list cached responses in {}", directory, e);
+            return;
+        }
+        long target = maxTotalBytes * 9 / 10;
+        for (Path file : files) {
+            if (totalBytes.get() <= target) {
+                break;
+            }
+            delete(file);
+        }
+    }
+
+    private void delete(Path file) {
+        long size = file.toFile().length();
+        try {
+            if (Files.deleteIfExists(file) && file.toString().endsWith(FILE_EXTENSION)) {
+                totalBytes.addAndGet(-size);
+            }
+        } catch (IOException e) {
+            log.warn("Failed to delete cached response {}", file, e);
+        }
+    }
+
+    private Stream<Path> listFiles() throws IOException {
+        return Files.list(directory)
+                .filter(file -> file.toString().endsWith(FILE_EXTENSION));
+    }
+
+    private Path getFile(String key) {
+        return directory.resolve(Hashing.sha256().hashString(key, StandardCharsets.UTF_8) + FILE_EXTENSION);
+    }
+
+    private static void writeNullableString(DataOutputStream out, @Nullable String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    @Nullable
+    private static String readNullableString(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
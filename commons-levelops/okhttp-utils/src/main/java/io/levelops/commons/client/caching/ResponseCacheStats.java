@@ -0,0 +1,87 @@
+package io.levelops.commons.client.caching;
+
+import lombok.extern.log4j.Log4j2;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the hits, misses and bytes saved by {@link ConditionalRequestInterceptor} for each namespace.
+ * <p>
+ * Meant to live as long as the cache store: interceptors are rebuilt with their clients, the stats are not.
+ * Every namespace is logged at most once per reporting interval, when requests are being made.
+ */
+@Log4j2
+public class ResponseCacheStats {
+
+    private static final Duration DEFAULT_REPORT_INTERVAL = Duration.ofMinutes(10);
+
+    private final Map<String, Counters> countersByNamespace = new ConcurrentHashMap<>();
+    private final long reportIntervalMs;
+    private final AtomicLong lastReportAt;
+
+    public ResponseCacheStats() {
+        this(DEFAULT_REPORT_INTERVAL);
+    }
+
+    public ResponseCacheStats(Duration reportInterval) {
+        this.reportIntervalMs = reportInterval.toMillis();
+        this.lastReportAt = new AtomicLong(System.currentTimeMillis());
+    }
+
+    public void recordHit(String namespace, long bytesSaved) {
+        Counters counters = getCounters(namespace);
+        counters.hits.incrementAndGet();
+        counters.bytesSaved.addAndGet(bytesSaved);
+        reportIfDue();
+    }
+
+    public void recordMiss(String namespace) {
+        getCounters(namespace).misses.incrementAndGet();
+        reportIfDue();
+    }
+
+    public long getHits(String namespace) {
+        Counters counters = countersByNamespace.get(namespace);
+        return counters != null ? counters.hits.get() : 0;
+    }
+
+    public long getMisses(String namespace) {
+        Counters counters = countersByNamespace.get(namespace);
+        return counters != null ? counters.misses.get() : 0;
+    }
+
+    public long getBytesSaved(String namespace) {
+        Counters counters = countersByNamespace.get(namespace);
+        return counters != null ? counters.bytesSaved.get() : 0;
+    }
+
+    /**
+     * Logs the totals of every namespace since startup.
+     */
+    public void report() {
+        countersByNamespace.forEach((namespace, counters) -> log.info("Response cache stats for {}: hits={} misses={} bytes_saved={}",
+                namespace, counters.hits.get(), counters.misses.get(), counters.bytesSaved.get()));
+    }
+
+    private void reportIfDue() {
+        long now = System.currentTimeMillis();
+        long last = lastReportAt.get();
+        // only one of the threads crossing the interval reports
+        if (now - last >= reportIntervalMs && lastReportAt.compareAndSet(last, now)) {
+            report();
+        }
+    }
+
+    private Counters getCounters(String namespace) {
+        return countersByNamespace.computeIfAbsent(namespace, k -> new Counters());
+    }
+
+    private static class Counters {
+        private final AtomicLong hits = new AtomicLong(0);
+        private final AtomicLong misses = new AtomicLong(0);
+        private final AtomicLong bytesSaved = new AtomicLong(0);
+    }
+}
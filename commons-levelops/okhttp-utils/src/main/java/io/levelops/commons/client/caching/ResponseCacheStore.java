@@ -0,0 +1,11 @@
+package io.levelops.commons.client.caching;
+
+import javax.annotation.Nullable;
+
+public interface ResponseCacheStore {
+
+    @Nullable
+    CachedResponse get(String key);
+
+    void put(CachedResponse response);
+}
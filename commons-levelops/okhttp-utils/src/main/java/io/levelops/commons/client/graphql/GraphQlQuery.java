@@ -5,6 +5,8 @@ import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import lombok.Builder;
 import lombok.Value;
 
+import java.util.Map;
+
 @Value
 @Builder(toBuilder = true)
 @JsonDeserialize(builder = GraphQlQuery.GraphQlQueryBuilder.class)
@@ -13,4 +15,8 @@ public class GraphQlQuery {
     @JsonProperty("query")
     String query;
 
+    @JsonProperty("variables")
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    Map<String, Object> variables;
+
 }
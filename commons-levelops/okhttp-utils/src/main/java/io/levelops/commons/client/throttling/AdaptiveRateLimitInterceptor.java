@@ -0,0 +1,95 @@
+package io.levelops.commons.client.throttling;
+
+import com.google.common.hash.Hashing;
+import io.levelops.commons.exceptions.RuntimeInterruptedException;
+import lombok.extern.log4j.Log4j2;
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import org.apache.commons.lang3.StringUtils;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throttles requests using the budget of their token (see {@link RateLimitBudget}).
+ * <p>
+ * Budgets are keyed by host, Authorization header and rate limit resource: GitHub has separate limits for the
+ * core, search, code_search and graphql APIs. The resource of a request is guessed from its path, and the one
+ * named by the X-RateLimit-Resource header of the response wins when it differs.
+ * <p>
+ * Must be added after the interceptor that authenticates requests, and after the retrying interceptor, so that
+ * retries are throttled too.
+ */
+@Log4j2
+public class AdaptiveRateLimitInterceptor implements Interceptor {
+
+    private static final long DEFAULT_MAX_WAIT_MS = TimeUnit.HOURS.toMillis(1);
+    private static final String RESOURCE_HEADER = "X-RateLimit-Resource";
+    private static final String CORE_RESOURCE = "core";
+    private final long maxWaitMs;
+
+    public AdaptiveRateLimitInterceptor() {
+        this(DEFAULT_MAX_WAIT_MS);
+    }
+
+    /**
+     * @param maxWaitMs requests are sent anyway after waiting that long
+     */
+    public AdaptiveRateLimitInterceptor(long maxWaitMs) {
+        this.maxWaitMs = maxWaitMs;
+    }
+
+    @NotNull
+    @Override
+    public Response intercept(@NotNull Chain chain) throws IOException {
+        Request request = chain.request();
+        String tokenKey = getTokenKey(request);
+        String resource = getResource(request);
+        long waitMs = RateLimitBudget.shared(tokenKey + "|" + resource).reserve(System.currentTimeMillis());
+        if (waitMs > 0) {
+            log.debug("Throttling {} request to {} for {}ms", resource, request.url().host(), Math.min(waitMs, maxWaitMs));
+            sleep(Math.min(waitMs, maxWaitMs));
+        }
+        Response response = chain.proceed(request);
+        String responseResource = StringUtils.defaultIfBlank(response.header(RESOURCE_HEADER), resource);
+        RateLimitBudget.shared(tokenKey + "|" + responseResource).update(response.code(), response.headers(), System.currentTimeMillis());
+        return response;
+    }
+
+    private static String getTokenKey(Request request) {
+        String authorization = StringUtils.defaultString(request.header("Authorization"));
+        // don't keep the token itself in memory
+        return request.url().host() + "|" + Hashing.sha256().hashString(authorization, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the GitHub rate limit resource that the request most likely counts against (see /rate_limit)
+     */
+    static String getResource(Request request) {
+        List<String> segments = request.url().pathSegments();
+        // GitHub Enterprise serves the API under /api/v3 and /api/graphql
+        int start = (segments.size() > 1 && "api".equals(segments.get(0))) ? (("v3".equals(segments.get(1))) ? 2 : 1) : 0;
+        String first = segments.size() > start ? segments.get(start) : "";
+        if ("graphql".equals(first)) {
+            return "graphql";
+        }
+        if ("search".equals(first)) {
+            boolean code = segments.size() > start + 1 && "code".equals(segments.get(start + 1));
+            return code ? "code_search" : "search";
+        }
+        return CORE_RESOURCE;
+    }
+
+    protected void sleep(long waitMs) {
+        try {
+            Thread.sleep(waitMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeInterruptedException(e);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package io.levelops.commons.client.throttling;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import lombok.extern.log4j.Log4j2;
+import okhttp3.Headers;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+import javax.annotation.Nullable;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request budget of a token for one rate limit resource, learnt from the rate limit headers of its responses:
+ * <ul>
+ *     <li>X-RateLimit-Remaining / X-RateLimit-Reset (GitHub, Azure DevOps) or RateLimit-Remaining / RateLimit-Reset (GitLab)</li>
+ *     <li>Retry-After (Jira, Azure DevOps, GitHub secondary rate limits)</li>
+ *     <li>X-RateLimit-Delay (Azure DevOps)</li>
+ * </ul>
+ * Instead of using up the remaining requests and then waiting for the reset, requests are spread evenly
+ * until the reset.
+ * <p>
+ * Budgets are shared by every client of the process (see {@link #shared(String)}), so that all the threads and jobs
+ * using the same token draw from the same budget.
+ */
+@Log4j2
+public class RateLimitBudget {
+
+    private static final long EPOCH_SECONDS_THRESHOLD = 1_000_000_000L; // smaller reset values are relative (in seconds)
+    private static final Cache<String, RateLimitBudget> SHARED_BUDGETS = CacheBuilder.newBuilder()
+            .expireAfterAccess(6, TimeUnit.HOURS)
+            .build();
+
+    private long remaining = -1; // unknown
+    private long resetAtMs = 0;
+    private long blockedUntilMs = 0;
+    private long nextSlotMs = 0;
+
+    public static RateLimitBudget shared(String key) {
+        try {
+            return SHARED_BUDGETS.get(key, RateLimitBudget::new);
+        } catch (ExecutionException e) {
+            // the loader cannot fail
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Reserves a request.
+     *
+     * @return how long to wait (in ms) before sending it
+     */
+    public synchronized long reserve(long nowMs) {
+        long startMs = Math.max(nowMs, blockedUntilMs);
+        if (remaining < 0 || resetAtMs <= startMs) {
+            // no budget known, or the window is over
+            return startMs - nowMs;
+        }
+        if (remaining == 0) {
+            return resetAtMs - nowMs;
+        }
+        long intervalMs = (resetAtMs - startMs) / remaining;
+        long slotMs = Math.max(startMs, nextSlotMs);
+        nextSlotMs = slotMs + intervalMs;
+        remaining--;
+        return slotMs - nowMs;
+    }
+
+    public synchronized void update(int code, Headers headers, long nowMs) {
+        Long remainingHeader = parseLong(firstNonNull(headers.get("X-RateLimit-Remaining"), headers.get("RateLimit-Remaining")));
+        Long resetHeader = parseLong(firstNonNull(headers.get("X-RateLimit-Reset"), headers.get("RateLimit-Reset")));
+        if (remainingHeader != null && resetHeader != null) {
+            long newResetAtMs = resetHeader < EPOCH_SECONDS_THRESHOLD ? nowMs + resetHeader * 1000 : resetHeader * 1000;
+            if (newResetAtMs > resetAtMs + 1000) {
+                // new window
+                resetAtMs = newResetAtMs;
+                remaining = remainingHeader;
+                nextSlotMs = 0;
+            } else {
+                // responses of concurrent requests may come back out of order
+                remaining = Math.min(remaining, remainingHeader);
+            }
+            if (remaining == 0 || code == 429) {
+                blockedUntilMs = Math.max(blockedUntilMs, resetAtMs);
+            }
+        }
+        Long retryAfterMs = parseRetryAfterMs(headers.get("Retry-After"), nowMs);
+        if (retryAfterMs != null) {
+            blockedUntilMs = Math.max(blockedUntilMs, nowMs + retryAfterMs);
+        }
+        Double delaySeconds = parseDouble(headers.get("X-RateLimit-Delay"));
+        if (delaySeconds != null && delaySeconds > 0) {
+            // the server is already delaying our requests: slow down by the same amount
+            blockedUntilMs = Math.max(blockedUntilMs, nowMs + Math.round(delaySeconds * 1000));
+        }
+        if (blockedUntilMs > nowMs) {
+            log.debug("Rate limited until {} (code={}, remaining={})", blockedUntilMs, code, remaining);
+        }
+    }
+
+    @Nullable
+    private static Long parseRetryAfterMs(@Nullable String retryAfter, long nowMs) {
+        if (StringUtils.isBlank(retryAfter)) {
+            return null;
+        }
+        Long seconds = parseLong(retryAfter);
+        if (seconds != null) {
+            return seconds * 1000;
+        }
+        try {
+            return ZonedDateTime.parse(retryAfter.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli() - nowMs;
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    @Nullable
+    private static Long parseLong(@Nullable String value) {
+        return NumberUtils.isDigits(StringUtils.trim(value)) ? NumberUtils.toLong(value.trim()) : null;
+    }
+
+    @Nullable
+    private static Double parseDouble(@Nullable String value) {
+        return NumberUtils.isCreatable(StringUtils.trim(value)) ? NumberUtils.toDouble(value.trim()) : null;
+    }
+
+    @Nullable
+    private static String firstNonNull(@Nullable String a, @Nullable String b) {
+        return a != null ? a : b;
+    }
+}
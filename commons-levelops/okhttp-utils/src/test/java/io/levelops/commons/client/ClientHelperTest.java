@@ -1,6 +1,7 @@
 package io.levelops.commons.client;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.levelops.commons.client.exceptions.HttpException;
 import io.levelops.commons.client.exceptions.NoContentException;
 import io.levelops.commons.jackson.DefaultObjectMapper;
 import okhttp3.Call;
@@ -17,7 +18,10 @@ import org.junit.Test;
 import org.mockito.Mockito;
 
 import java.io.IOException;
+import java.util.List;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @SuppressWarnings({"deprecation"})
 public class ClientHelperTest {
@@ -138,6 +142,61 @@ public class ClientHelperTest {
         }
     }
 
+    private static Response mockResponse(OkHttpClient client, Request request, int code, MediaType mediaType, String body) throws IOException {
+        Call call = Mockito.mock(Call.class);
+        Response response = new Response.Builder().request(request).protocol(Protocol.HTTP_2).code(code).message("").body(ResponseBody.create(mediaType, body)).build();
+        Mockito.when(client.newCall(request)).thenReturn(call);
+        Mockito.when(call.execute()).thenReturn(response);
+        return response;
+    }
+
+    @Test
+    public void testStreamingParse() throws IOException, TestException {
+        OkHttpClient client = Mockito.mock(OkHttpClient.class);
+        ClientHelper<TestException> clientHelper = ClientHelper.<TestException>builder()
+                .client(client)
+                .objectMapper(MAPPER)
+                .exception(TestException.class)
+                .build();
+
+        // large page
+        String page = IntStream.range(0, 10000)
+                .mapToObj(i -> "{\"id\": \"" + i + "\"}")
+                .collect(Collectors.joining(",", "[", "]"));
+        Request pageRequest = new Request.Builder().url("https://viraj.com/page").get().build();
+        mockResponse(client, pageRequest, 200, MediaType.parse("application/json"), page);
+        List<TestObj> objs = clientHelper.executeAndParse(pageRequest, MAPPER.getTypeFactory().constructCollectionType(List.class, TestObj.class));
+        Assert.assertEquals(10000, objs.size());
+        Assert.assertEquals("9999", objs.get(9999).getId());
+
+        // non UTF-8 charset
+        Request latinRequest = new Request.Builder().url("https://viraj.com/latin").get().build();
+        mockResponse(client, latinRequest, 200, MediaType.parse("application/json; charset=ISO-8859-1"), "{\"id\": \"caf\u00e9\"}");
+        Assert.assertEquals("caf\u00e9", clientHelper.executeAndParse(latinRequest, TestObj.class).getId());
+
+        // parsing errors report the beginning of the body
+        Request invalidRequest = new Request.Builder().url("https://viraj.com/invalid").get().build();
+        mockResponse(client, invalidRequest, 200, MediaType.parse("application/json"), "not json" + "x".repeat(5000));
+        try {
+            clientHelper.executeAndParse(invalidRequest, TestObj.class);
+            Assert.fail("TestException expected");
+        } catch (TestException e) {
+            Assert.assertTrue(e.getMessage().startsWith("Failed to parse response: not json"));
+            Assert.assertTrue(e.getMessage().length() < 1100);
+        }
+
+        // error bodies are capped
+        Request errorRequest = new Request.Builder().url("https://viraj.com/error").get().build();
+        mockResponse(client, errorRequest, 500, MediaType.parse("text/plain"), "e".repeat(2 * 1024 * 1024));
+        try {
+            clientHelper.executeAndParse(errorRequest, TestObj.class);
+            Assert.fail("TestException expected");
+        } catch (TestException e) {
+            HttpException httpException = (HttpException) e.getCause();
+            Assert.assertTrue(httpException.getBody().endsWith("... (truncated)"));
+            Assert.assertTrue(httpException.getBody().length() < 1024 * 1024 + 100);
+        }
+    }
 
     public static class TestException extends Exception {
 
@@ -0,0 +1,140 @@
+package io.levelops.commons.client.caching;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConditionalRequestInterceptorTest {
+    private static final Request REQUEST = new Request.Builder().url("https://api.github.com/repos/a/b").get().build();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private DiskResponseCacheStore store;
+    private ResponseCacheStats stats;
+    private Interceptor.Chain chain;
+
+    @Before
+    public void setUp() throws IOException {
+        store = new DiskResponseCacheStore(folder.getRoot().toPath(), 1024 * 1024);
+        stats = new ResponseCacheStats();
+        chain = Mockito.mock(Interceptor.Chain.class);
+        when(chain.request()).thenReturn(REQUEST);
+    }
+
+    private static Response response(Request request, int code, String etag, String body) {
+        Response.Builder builder = new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_2)
+                .code(code)
+                .message("")
+                .header("X-RateLimit-Remaining", String.valueOf(code))
+                .body(ResponseBody.create(body, MediaType.parse("application/json")));
+        if (etag != null) {
+            builder.header("ETag", etag);
+        }
+        return builder.build();
+    }
+
+    @Test
+    public void testNotModified() throws IOException {
+        ConditionalRequestInterceptor interceptor = new ConditionalRequestInterceptor(store, stats, "tenant/1", 1000);
+        ArgumentCaptor<Request> requests = ArgumentCaptor.forClass(Request.class);
+        when(chain.proceed(requests.capture())).thenAnswer(invocation -> {
+            Request request = invocation.getArgument(0);
+            if (request.header("If-None-Match") != null) {
+                return response(request, 304, "\"v1\"", "");
+            }
+            return response(request, 200, "\"v1\"", "{\"id\":1}");
+        });
+
+        Response first = interceptor.intercept(chain);
+        assertThat(first.body().string()).isEqualTo("{\"id\":1}");
+        assertThat(requests.getValue().header("If-None-Match")).isNull();
+
+        Response second = interceptor.intercept(chain);
+        assertThat(requests.getValue().header("If-None-Match")).isEqualTo("\"v1\"");
+        assertThat(second.code()).isEqualTo(200);
+        assertThat(second.body().string()).isEqualTo("{\"id\":1}");
+        assertThat(second.body().contentType().toString()).startsWith("application/json");
+        // headers of the 304 are more recent
+        assertThat(second.header("X-RateLimit-Remaining")).isEqualTo("304");
+        assertThat(second.request().header("If-None-Match")).isNull();
+
+        assertThat(stats.getHits("tenant/1")).isEqualTo(1);
+        assertThat(stats.getMisses("tenant/1")).isEqualTo(1);
+        assertThat(stats.getBytesSaved("tenant/1")).isEqualTo(8);
+
+        // the cache is shared but keyed by namespace
+        ConditionalRequestInterceptor otherIntegration = new ConditionalRequestInterceptor(store, stats, "tenant/2", 1000);
+        otherIntegration.intercept(chain);
+        assertThat(requests.getValue().header("If-None-Match")).isNull();
+        assertThat(stats.getMisses("tenant/2")).isEqualTo(1);
+
+        // the counters outlive the interceptor, which is rebuilt with its client
+        ConditionalRequestInterceptor rebuilt = new ConditionalRequestInterceptor(store, stats, "tenant/1", 1000);
+        rebuilt.intercept(chain);
+        assertThat(stats.getHits("tenant/1")).isEqualTo(2);
+        assertThat(stats.getBytesSaved("tenant/1")).isEqualTo(16);
+    }
+
+    @Test
+    public void testNotCached() throws IOException {
+        ConditionalRequestInterceptor interceptor = new ConditionalRequestInterceptor(store, stats, "tenant/1", 5);
+        when(chain.proceed(any())).thenAnswer(invocation -> response(invocation.getArgument(0), 200, "\"v1\"", "{\"id\":1}"));
+
+        // body larger than the limit
+        assertThat(interceptor.intercept(chain).body().string()).isEqualTo("{\"id\":1}");
+        assertThat(interceptor.intercept(chain).body().string()).isEqualTo("{\"id\":1}");
+        verify(chain, times(2)).proceed(REQUEST);
+
+        // no validator
+        Interceptor.Chain noEtagChain = Mockito.mock(Interceptor.Chain.class);
+        when(noEtagChain.request()).thenReturn(REQUEST);
+        when(noEtagChain.proceed(any())).thenAnswer(invocation -> response(invocation.getArgument(0), 200, null, "{}"));
+        ConditionalRequestInterceptor noLimit = new ConditionalRequestInterceptor(store, stats, "tenant/1", 1000);
+        noLimit.intercept(noEtagChain);
+        noLimit.intercept(noEtagChain);
+        verify(noEtagChain, times(2)).proceed(REQUEST);
+        assertThat(stats.getHits("tenant/1")).isEqualTo(0);
+        assertThat(stats.getMisses("tenant/1")).isEqualTo(4);
+    }
+
+    @Test
+    public void testEviction() throws IOException {
+        DiskResponseCacheStore smallStore = new DiskResponseCacheStore(folder.newFolder().toPath(), 1000);
+        for (int i = 0; i < 10; i++) {
+            smallStore.put(CachedResponse.builder()
+                    .key("key" + i)
+                    .etag("\"" + i + "\"")
+                    .headers(okhttp3.Headers.of())
+                    .body(new byte[200])
+                    .build());
+        }
+        int nbCached = 0;
+        for (int i = 0; i < 10; i++) {
+            if (smallStore.get("key" + i) != null) {
+                nbCached++;
+            }
+        }
+        assertThat(nbCached).isBetween(1, 4);
+        assertThat(smallStore.get("key9").getEtag()).isEqualTo("\"9\"");
+    }
+}
@@ -0,0 +1,87 @@
+package io.levelops.commons.client.throttling;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+public class AdaptiveRateLimitInterceptorTest {
+
+    private final List<Long> sleeps = new ArrayList<>();
+    private final AdaptiveRateLimitInterceptor interceptor = new AdaptiveRateLimitInterceptor() {
+        @Override
+        protected void sleep(long waitMs) {
+            sleeps.add(waitMs);
+        }
+    };
+    // budgets are shared by the whole process: use a token of our own
+    private final String token = "token " + UUID.randomUUID();
+
+    @Test
+    public void testResourcesHaveTheirOwnBudget() throws IOException {
+        long resetSeconds = System.currentTimeMillis() / 1000;
+
+        call("/repos/a/b/pulls", "core", 4999, resetSeconds + 3600);
+        // search is exhausted for the next minute
+        call("/search/issues", "search", 0, resetSeconds + 60);
+        call("/graphql", "graphql", 4000, resetSeconds + 3600);
+        assertThat(sleeps).isEmpty();
+
+        // core and graphql requests are not blocked by the search limit
+        call("/repos/a/b/pulls/1", "core", 4998, resetSeconds + 3600);
+        call("/graphql", "graphql", 3999, resetSeconds + 3600);
+        assertThat(sleeps).isEmpty();
+
+        call("/search/issues", "search", 29, resetSeconds + 120);
+        assertThat(sleeps).hasSize(1);
+        assertThat(sleeps.get(0)).isBetween(55_000L, 60_000L);
+    }
+
+    @Test
+    public void testGetResource() {
+        assertThat(AdaptiveRateLimitInterceptor.getResource(request("https://api.github.com/repos/a/b"))).isEqualTo("core");
+        assertThat(AdaptiveRateLimitInterceptor.getResource(request("https://api.github.com/search/issues?q=a"))).isEqualTo("search");
+        assertThat(AdaptiveRateLimitInterceptor.getResource(request("https://api.github.com/search/code?q=a"))).isEqualTo("code_search");
+        assertThat(AdaptiveRateLimitInterceptor.getResource(request("https://api.github.com/graphql"))).isEqualTo("graphql");
+        assertThat(AdaptiveRateLimitInterceptor.getResource(request("https://github.example.com/api/v3/search/commits"))).isEqualTo("search");
+        assertThat(AdaptiveRateLimitInterceptor.getResource(request("https://github.example.com/api/graphql"))).isEqualTo("graphql");
+        assertThat(AdaptiveRateLimitInterceptor.getResource(request("https://github.example.com/api/v3/repos/a/b"))).isEqualTo("core");
+    }
+
+    private void call(String path, String resource, long remaining, long resetSeconds) throws IOException {
+        Request request = new Request.Builder()
+                .url("https://api.github.com" + path)
+                .header("Authorization", token)
+                .get()
+                .build();
+        Interceptor.Chain chain = Mockito.mock(Interceptor.Chain.class);
+        when(chain.request()).thenReturn(request);
+        when(chain.proceed(request)).thenReturn(new Response.Builder()
+                .request(request)
+                .protocol(Protocol.HTTP_2)
+                .code(remaining == 0 ? 403 : 200)
+                .message("")
+                .header("X-RateLimit-Resource", resource)
+                .header("X-RateLimit-Remaining", String.valueOf(remaining))
+                .header("X-RateLimit-Reset", String.valueOf(resetSeconds))
+                .body(ResponseBody.create("{}", MediaType.parse("application/json")))
+                .build());
+        interceptor.intercept(chain);
+    }
+
+    private static Request request(String url) {
+        return new Request.Builder().url(url).get().build();
+    }
+}
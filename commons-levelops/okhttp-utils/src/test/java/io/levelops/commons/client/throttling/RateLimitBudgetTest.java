@@ -0,0 +1,71 @@
+package io.levelops.commons.client.throttling;
+
+import okhttp3.Headers;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimitBudgetTest {
+    private static final long NOW = 1_700_000_000_000L;
+
+    @Test
+    public void testSmoothing() {
+        RateLimitBudget budget = new RateLimitBudget();
+        assertThat(budget.reserve(NOW)).isEqualTo(0);
+
+        // 10 requests left for the next 10s
+        budget.update(200, Headers.of("X-RateLimit-Remaining", "10", "X-RateLimit-Reset", String.valueOf(NOW / 1000 + 10)), NOW);
+        assertThat(budget.reserve(NOW)).isEqualTo(0);
+        assertThat(budget.reserve(NOW)).isEqualTo(1000);
+        assertThat(budget.reserve(NOW)).isBetween(2000L, 2300L);
+
+        // an older response with more remaining requests is ignored
+        budget.update(200, Headers.of("X-RateLimit-Remaining", "9", "X-RateLimit-Reset", String.valueOf(NOW / 1000 + 10)), NOW);
+        assertThat(budget.reserve(NOW)).isBetween(3000L, 3600L);
+
+        // new window
+        budget.update(200, Headers.of("X-RateLimit-Remaining", "5000", "X-RateLimit-Reset", String.valueOf(NOW / 1000 + 3600)), NOW + 10_000);
+        assertThat(budget.reserve(NOW + 10_000)).isEqualTo(0);
+    }
+
+    @Test
+    public void testExhausted() {
+        RateLimitBudget budget = new RateLimitBudget();
+        budget.update(403, Headers.of("X-RateLimit-Remaining", "0", "X-RateLimit-Reset", String.valueOf(NOW / 1000 + 60)), NOW);
+        assertThat(budget.reserve(NOW)).isEqualTo(60_000);
+        assertThat(budget.reserve(NOW + 60_000)).isEqualTo(0);
+
+        // GitLab headers
+        RateLimitBudget gitlabBudget = new RateLimitBudget();
+        gitlabBudget.update(429, Headers.of("RateLimit-Remaining", "0", "RateLimit-Reset", String.valueOf(NOW / 1000 + 5)), NOW);
+        assertThat(gitlabBudget.reserve(NOW)).isEqualTo(5_000);
+    }
+
+    @Test
+    public void testRetryAfter() {
+        RateLimitBudget budget = new RateLimitBudget();
+        budget.update(429, Headers.of("Retry-After", "30"), NOW);
+        assertThat(budget.reserve(NOW)).isEqualTo(30_000);
+        assertThat(budget.reserve(NOW + 10_000)).isEqualTo(20_000);
+
+        RateLimitBudget dateBudget = new RateLimitBudget();
+        dateBudget.update(503, Headers.of("Retry-After", "Tue, 14 Nov 2023 22:14:20 GMT"), NOW);
+        assertThat(dateBudget.reserve(NOW)).isEqualTo(1_700_000_060_000L - NOW);
+    }
+
+    @Test
+    public void testDelay() {
+        RateLimitBudget budget = new RateLimitBudget();
+        budget.update(200, Headers.of("X-RateLimit-Delay", "0.5"), NOW);
+        assertThat(budget.reserve(NOW)).isEqualTo(500);
+
+        budget.update(200, Headers.of("X-RateLimit-Delay", "abc"), NOW + 1000);
+        assertThat(budget.reserve(NOW + 1000)).isEqualTo(0);
+    }
+
+    @Test
+    public void testShared() {
+        assertThat(RateLimitBudget.shared("a")).isSameAs(RateLimitBudget.shared("a"));
+        assertThat(RateLimitBudget.shared("a")).isNotSameAs(RateLimitBudget.shared("b"));
+    }
+}
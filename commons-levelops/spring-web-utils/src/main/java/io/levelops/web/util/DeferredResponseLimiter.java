@@ -0,0 +1,209 @@
+package io.levelops.web.util;
+
+import lombok.Builder;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Bounds the number of deferred responses that are queued or running, overall and per tenant, so that a burst of
+ * slow requests from one tenant can not take every thread of the deferred response pool.
+ * <p>
+ * Requests over the pending limits are rejected right away. Accepted requests of a tenant that already has
+ * maxRunningPerTenant responses on the pool wait in a queue of that tenant, outside of the pool, and are handed
+ * to the pool one by one as the running ones finish.
+ */
+@Log4j2
+public class DeferredResponseLimiter {
+
+    private static final String UNKNOWN_TENANT = "_unknown_";
+    private static final long REJECTION_WARN_INTERVAL_MS = TimeUnit.MINUTES.toMillis(1);
+
+    private final int maxPending;
+    private final int maxPendingPerTenant;
+    private final int maxRunningPerTenant;
+    private final int retryAfterSeconds;
+    private final AtomicInteger pending = new AtomicInteger(0);
+    private final AtomicInteger waiting = new AtomicInteger(0);
+    private final AtomicLong rejected = new AtomicLong(0);
+    private final AtomicLong lastRejectionWarn = new AtomicLong(0);
+    private final AtomicLong rejectedSinceWarn = new AtomicLong(0);
+    // tenants with pending responses; guarded by compute
+    private final Map<String, TenantState> tenants = new ConcurrentHashMap<>();
+
+    private static class TenantState {
+        private int pending;
+        private int running;
+        private final Queue<Runnable> waiting = new ArrayDeque<>();
+
+        private boolean isIdle() {
+            return pending <= 0 && running <= 0 && waiting.isEmpty();
+        }
+    }
+
+    /**
+     * @param maxPending          max number of deferred responses queued or running; 0 or less means no limit
+     * @param maxPendingPerTenant max number of deferred responses queued or running for a single tenant; 0 or less means no limit
+     * @param maxRunningPerTenant max number of deferred responses of a single tenant handed to the pool at once; 0 or less means no limit
+     * @param retryAfterSeconds   value of the Retry-After header sent with rejected requests
+     */
+    @Builder
+    public DeferredResponseLimiter(int maxPending, int maxPendingPerTenant, int maxRunningPerTenant, int retryAfterSeconds) {
+        this.maxPending = maxPending;
+        this.maxPendingPerTenant = maxPendingPerTenant;
+        this.maxRunningPerTenant = maxRunningPerTenant;
+        this.retryAfterSeconds = retryAfterSeconds;
+        log.info("Deferred response limiter: maxPending={}, maxPendingPerTenant={}, maxRunningPerTenant={}, retryAfter={}s",
+                maxPending, maxPendingPerTenant, maxRunningPerTenant, retryAfterSeconds);
+    }
+
+    /**
+     * @return true if a slot was taken for the tenant; it must be given back with {@link #release(String)}
+     */
+    public boolean tryAcquire(@Nullable String tenant) {
+        if (pending.incrementAndGet() > maxPending && maxPending > 0) {
+            pending.decrementAndGet();
+            return reject(tenant);
+        }
+        AtomicBoolean acquired = new AtomicBoolean(false);
+        tenants.compute(normalize(tenant), (k, state) -> {
+            state = state != null ? state : new TenantState();
+            if (maxPendingPerTenant <= 0 || state.pending < maxPendingPerTenant) {
+                state.pending++;
+                acquired.set(true);
+            }
+            return state.isIdle() ? null : state;
+        });
+        if (!acquired.get()) {
+            pending.decrementAndGet();
+            return reject(tenant);
+        }
+        return true;
+    }
+
+    public void release(@Nullable String tenant) {
+        pending.decrementAndGet();
+        tenants.computeIfPresent(normalize(tenant), (k, state) -> {
+            state.pending--;
+            return state.isIdle() ? null : state;
+        });
+    }
+
+    /**
+     * Runs the task of an acquired slot on the executor, or queues it behind the running tasks of the tenant.
+     * Queued tasks are handed to the executor from the thread of the task that finishes before them.
+     *
+     * @throws RejectedExecutionException if the executor rejects a task that was to run right away
+     */
+    public void execute(@Nullable String tenant, Executor executor, Runnable task) {
+        if (maxRunningPerTenant <= 0) {
+            executor.execute(task);
+            return;
+        }
+        String key = normalize(tenant);
+        Runnable tracked = () -> {
+            try {
+                task.run();
+            } finally {
+                onTaskDone(key, executor);
+            }
+        };
+        AtomicBoolean runNow = new AtomicBoolean(false);
+        tenants.compute(key, (k, state) -> {
+            state = state != null ? state : new TenantState();
+            if (state.running < maxRunningPerTenant) {
+                state.running++;
+                runNow.set(true);
+            } else {
+                state.waiting.add(tracked);
+                waiting.incrementAndGet();
+            }
+            return state;
+        });
+        if (!runNow.get()) {
+            return;
+        }
+        try {
+            executor.execute(tracked);
+        } catch (RejectedExecutionException e) {
+            tenants.computeIfPresent(key, (k, state) -> {
+                state.running--;
+                return state.isIdle() ? null : state;
+            });
+            throw e;
+        }
+    }
+
+    private void onTaskDone(String key, Executor executor) {
+        AtomicReference<Runnable> next = new AtomicReference<>();
+        tenants.computeIfPresent(key, (k, state) -> {
+            next.set(state.waiting.poll());
+            if (next.get() == null) {
+                state.running--;
+            } else {
+                waiting.decrementAndGet();
+            }
+            return state.isIdle() ? null : state;
+        });
+        if (next.get() == null) {
+            return;
+        }
+        try {
+            executor.execute(next.get());
+        } catch (RejectedExecutionException e) {
+            // the pool is shutting down: answer the queued request from this thread rather than leaving it hanging
+            log.warn("Deferred response pool rejected a queued response of tenant={}, running it in place", key);
+            next.get().run();
+        }
+    }
+
+    private boolean reject(@Nullable String tenant) {
+        rejected.incrementAndGet();
+        long suppressed = rejectedSinceWarn.incrementAndGet();
+        long now = System.currentTimeMillis();
+        long last = lastRejectionWarn.get();
+        if (now - last >= REJECTION_WARN_INTERVAL_MS && lastRejectionWarn.compareAndSet(last, now)) {
+            rejectedSinceWarn.addAndGet(-suppressed);
+            log.warn("Rejected {} deferred responses in the last {}s, latest for tenant={} (pending={}, waiting={})",
+                    suppressed, TimeUnit.MILLISECONDS.toSeconds(REJECTION_WARN_INTERVAL_MS), tenant, pending.get(), waiting.get());
+        } else {
+            log.debug("Rejected deferred response for tenant={}", tenant);
+        }
+        return false;
+    }
+
+    private static String normalize(@Nullable String tenant) {
+        return StringUtils.defaultIfBlank(tenant, UNKNOWN_TENANT);
+    }
+
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * @return number of accepted deferred responses waiting in a tenant queue, i.e. not handed to the pool yet
+     */
+    public int getWaitingCount() {
+        return waiting.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
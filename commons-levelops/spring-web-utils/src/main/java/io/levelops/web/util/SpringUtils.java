@@ -3,13 +3,16 @@ package io.levelops.web.util;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Stopwatch;
 import io.levelops.commons.client.exceptions.HttpException;
+import io.levelops.commons.functional.CancellationToken;
 import io.levelops.commons.functional.ThrowingSupplier;
+import io.levelops.commons.functional.UncheckedCloseable;
 import io.levelops.commons.jackson.DefaultObjectMapper;
 import lombok.extern.log4j.Log4j2;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.apache.logging.log4j.Level;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.context.request.RequestAttributes;
@@ -18,19 +21,30 @@ import org.springframework.web.context.request.ServletRequestAttributes;
 import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.server.ResponseStatusException;
 
+import javax.annotation.Nullable;
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 @Log4j2
 public class SpringUtils {
 
     private static ForkJoinPool forkJoinPool = ForkJoinPool.commonPool();
     private static int warnThresholdMs = 100;
+    @Nullable
+    private static DeferredResponseLimiter limiter = null;
+    @Nullable
+    private static Long timeoutMs = null;
+    @Nullable
+    private static BiConsumer<String, String> cancellationListener = null;
+    // same as HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE (spring-webmvc is not a dependency of this module)
+    private static final String BEST_MATCHING_PATTERN_ATTRIBUTE = "org.springframework.web.servlet.HandlerMapping.bestMatchingPattern";
 
     public static void setWarnThresholdMs(int warnThresholdMs) {
         SpringUtils.warnThresholdMs = warnThresholdMs;
@@ -41,26 +55,118 @@ public class SpringUtils {
         SpringUtils.forkJoinPool = forkJoinPool;
     }
 
+    /**
+     * Bounds the deferred responses queued or running in the pool; null means unbounded.
+     */
+    public static void setLimiter(@Nullable DeferredResponseLimiter limiter) {
+        SpringUtils.limiter = limiter;
+    }
+
+    /**
+     * Deadline of deferred responses, after which the request fails with 503; null or 0 means the async request
+     * timeout of the servlet container applies.
+     */
+    public static void setTimeoutMs(@Nullable Long timeoutMs) {
+        SpringUtils.timeoutMs = (timeoutMs != null && timeoutMs > 0) ? timeoutMs : null;
+    }
+
+    /**
+     * Called with the report type (the request mapping pattern) and the reason ("timeout" or "error") of every
+     * deferred response that got cancelled before completing.
+     */
+    public static void setCancellationListener(@Nullable BiConsumer<String, String> cancellationListener) {
+        SpringUtils.cancellationListener = cancellationListener;
+    }
+
     public static <T> DeferredResult<ResponseEntity<T>> deferResponse(ThrowingSupplier<ResponseEntity<T>, Exception> bodySupplier) {
         final Optional<String> currentRequestTrace = getCurrentRequestTrace();
-        DeferredResult<ResponseEntity<T>> output = new DeferredResult<>();
-        forkJoinPool.submit(() -> {
+        final DeferredResponseLimiter currentLimiter = limiter;
+        final String tenant = currentLimiter != null ? getCurrentTenant().orElse(null) : null;
+        DeferredResult<ResponseEntity<T>> output = new DeferredResult<>(timeoutMs);
+        if (currentLimiter != null && !currentLimiter.tryAcquire(tenant)) {
+            output.setResult(serviceUnavailable(currentLimiter));
+            return output;
+        }
+        // cancels the statements still running when the request times out or the client goes away
+        final CancellationToken cancellationToken = new CancellationToken();
+        final String reportType = getCurrentReportType().orElse("unknown");
+        output.onTimeout(() -> cancel(cancellationToken, reportType, "timeout", currentRequestTrace));
+        output.onError(e -> cancel(cancellationToken, reportType, "error", currentRequestTrace));
+        Runnable task = () -> {
             Stopwatch stopwatch = Stopwatch.createStarted();
-            try {
+            try (UncheckedCloseable binding = cancellationToken.bind()) {
+                if (output.isSetOrExpired() || cancellationToken.isCancelled()) {
+                    // the request timed out or went away while queued: nobody is waiting for the response anymore
+                    log.warn("Skipping deferred response of {}: expired before it started", currentRequestTrace.orElse("Unknown request"));
+                    return;
+                }
                 ResponseEntity<T> response = wrapClientException(bodySupplier).get();
                 output.setResult(response);
             } catch (Exception e) {
                 log.error(e);
                 output.setErrorResult(e);
             } finally {
+                if (currentLimiter != null) {
+                    currentLimiter.release(tenant);
+                }
                 stopwatch.stop();
                 Level level = stopwatch.elapsed(TimeUnit.MILLISECONDS) >= warnThresholdMs ? Level.WARN : Level.DEBUG;
                 log.log(level, "Deferred response of {} took {}", currentRequestTrace.orElse("Unknown request"), stopwatch.toString());
             }
-        });
+        };
+        try {
+            if (currentLimiter != null) {
+                // tenants over their share of the pool wait in their own queue instead of the pool's
+                currentLimiter.execute(tenant, forkJoinPool, task);
+            } else {
+                forkJoinPool.execute(task);
+            }
+        } catch (RejectedExecutionException e) {
+            log.warn("Deferred response pool rejected {}", currentRequestTrace.orElse("Unknown request"), e);
+            if (currentLimiter != null) {
+                currentLimiter.release(tenant);
+            }
+            output.setResult(serviceUnavailable(currentLimiter));
+        }
         return output;
     }
 
+    private static void cancel(CancellationToken cancellationToken, String reportType, String reason, Optional<String> requestTrace) {
+        if (!cancellationToken.cancel()) {
+            return;
+        }
+        log.warn("Cancelled deferred response of {} ({})", requestTrace.orElse("Unknown request"), reason);
+        BiConsumer<String, String> listener = cancellationListener;
+        if (listener != null) {
+            listener.accept(reportType, reason);
+        }
+    }
+
+    // NEEDS TO BE CALLED FROM REQUEST CONTROLLER THREAD
+    private static Optional<String> getCurrentReportType() {
+        return getCurrentRequest().map(httpReq -> {
+            Object pattern = httpReq.getAttribute(BEST_MATCHING_PATTERN_ATTRIBUTE);
+            return pattern != null ? pattern.toString() : StringUtils.defaultString(httpReq.getRequestURI(), "/UNKNOWN_REQUEST");
+        });
+    }
+
+    private static <T> ResponseEntity<T> serviceUnavailable(@Nullable DeferredResponseLimiter limiter) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE);
+        if (limiter != null && limiter.getRetryAfterSeconds() > 0) {
+            builder.header(HttpHeaders.RETRY_AFTER, String.valueOf(limiter.getRetryAfterSeconds()));
+        }
+        return builder.build();
+    }
+
+    // NEEDS TO BE CALLED FROM REQUEST CONTROLLER THREAD
+    public static Optional<String> getCurrentTenant() {
+        return getCurrentRequest()
+                .map(httpReq -> httpReq.getSession(false))
+                .map(session -> session.getAttribute("company"))
+                .filter(String.class::isInstance)
+                .map(String.class::cast);
+    }
+
     // NEEDS TO BE CALLED FROM REQUEST CONTROLLER THREAD
     public static Optional<HttpServletRequest> getCurrentRequest() {
         RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
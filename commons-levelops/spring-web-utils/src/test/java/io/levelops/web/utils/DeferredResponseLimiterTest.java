@@ -0,0 +1,111 @@
+package io.levelops.web.utils;
+
+import io.levelops.web.util.DeferredResponseLimiter;
+import io.levelops.web.util.SpringUtils;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DeferredResponseLimiterTest {
+
+    @After
+    public void tearDown() {
+        SpringUtils.setLimiter(null);
+    }
+
+    @Test
+    public void testLimits() {
+        DeferredResponseLimiter limiter = DeferredResponseLimiter.builder()
+                .maxPending(3)
+                .maxPendingPerTenant(2)
+                .retryAfterSeconds(5)
+                .build();
+        assertThat(limiter.tryAcquire("a")).isTrue();
+        assertThat(limiter.tryAcquire("a")).isTrue();
+        // tenant limit
+        assertThat(limiter.tryAcquire("a")).isFalse();
+        assertThat(limiter.tryAcquire("b")).isTrue();
+        // global limit
+        assertThat(limiter.tryAcquire("c")).isFalse();
+        assertThat(limiter.getPendingCount()).isEqualTo(3);
+        assertThat(limiter.getRejectedCount()).isEqualTo(2);
+
+        limiter.release("a");
+        assertThat(limiter.tryAcquire("a")).isTrue();
+        limiter.release("b");
+        assertThat(limiter.tryAcquire(null)).isTrue();
+        assertThat(limiter.getPendingCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void testRunningPerTenant() {
+        DeferredResponseLimiter limiter = DeferredResponseLimiter.builder()
+                .maxPendingPerTenant(10)
+                .maxRunningPerTenant(2)
+                .build();
+        // runs the tasks handed to the pool only when polled
+        Queue<Runnable> pool = new ArrayDeque<>();
+        List<String> done = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String name = "a" + i;
+            assertThat(limiter.tryAcquire("a")).isTrue();
+            limiter.execute("a", pool::add, () -> {
+                done.add(name);
+                limiter.release("a");
+            });
+        }
+        assertThat(limiter.tryAcquire("b")).isTrue();
+        limiter.execute("b", pool::add, () -> {
+            done.add("b");
+            limiter.release("b");
+        });
+        // the third task of tenant a waits in its own queue, tenant b is not held up behind it
+        assertThat(pool).hasSize(3);
+        assertThat(limiter.getWaitingCount()).isEqualTo(1);
+        assertThat(limiter.getPendingCount()).isEqualTo(4);
+
+        while (!pool.isEmpty()) {
+            pool.poll().run();
+        }
+        assertThat(done).containsExactly("a0", "a1", "b", "a2");
+        assertThat(limiter.getWaitingCount()).isEqualTo(0);
+        assertThat(limiter.getPendingCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testDeferResponseRejectsWhenSaturated() throws InterruptedException {
+        SpringUtils.setLimiter(DeferredResponseLimiter.builder()
+                .maxPending(1)
+                .retryAfterSeconds(7)
+                .build());
+        CountDownLatch latch = new CountDownLatch(1);
+        DeferredResult<ResponseEntity<String>> first = SpringUtils.deferResponse(() -> {
+            latch.await(5, TimeUnit.SECONDS);
+            return ResponseEntity.ok("ok");
+        });
+        DeferredResult<ResponseEntity<String>> second = SpringUtils.deferResponse(() -> ResponseEntity.ok("ok"));
+
+        assertThat(second.hasResult()).isTrue();
+        ResponseEntity<?> rejected = (ResponseEntity<?>) second.getResult();
+        assertThat(rejected.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(rejected.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("7");
+
+        latch.countDown();
+        for (int i = 0; i < 50 && !first.hasResult(); i++) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        assertThat(((ResponseEntity<?>) first.getResult()).getBody()).isEqualTo("ok");
+    }
+}
@@ -0,0 +1,76 @@
+package io.levelops.commons.functional;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Lets a caller that gave up on a piece of work (request timed out, client went away...) abort what that work
+ * is currently blocked on.
+ * <p>
+ * The work runs with the token bound to its thread (see {@link #bind()}). Blocking calls that know how to abort
+ * themselves (e.g. a JDBC statement) register a canceller for as long as they run.
+ */
+public class CancellationToken {
+
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<>();
+
+    private final Set<Runnable> cancellers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+    /**
+     * @return the token bound to the current thread, if any
+     */
+    public static Optional<CancellationToken> current() {
+        return Optional.ofNullable(CURRENT.get());
+    }
+
+    /**
+     * Binds this token to the current thread until the returned handle is closed.
+     */
+    public UncheckedCloseable bind() {
+        CancellationToken previous = CURRENT.get();
+        CURRENT.set(this);
+        return () -> {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    /**
+     * Registers a canceller until the returned handle is closed. If the token is already cancelled, the canceller
+     * runs right away.
+     */
+    public UncheckedCloseable register(Runnable canceller) {
+        cancellers.add(canceller);
+        if (cancelled.get() && cancellers.remove(canceller)) {
+            canceller.run();
+        }
+        return () -> cancellers.remove(canceller);
+    }
+
+    /**
+     * Runs the registered cancellers. Only the first call has an effect.
+     *
+     * @return true if this call cancelled the token
+     */
+    public boolean cancel() {
+        if (!cancelled.compareAndSet(false, true)) {
+            return false;
+        }
+        for (Runnable canceller : cancellers) {
+            if (cancellers.remove(canceller)) {
+                canceller.run();
+            }
+        }
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled.get();
+    }
+}
@@ -0,0 +1,84 @@
+package io.levelops.commons.regex;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Finds which of a fixed set of literals occur in a text, in a single pass over the text.
+ */
+final class AhoCorasick {
+
+    private final List<Map<Character, Integer>> transitions = new ArrayList<>();
+    private final List<BitSet> outputs = new ArrayList<>();
+    private final int[] failures;
+    private final int literalCount;
+
+    AhoCorasick(List<String> literals) {
+        literalCount = literals.size();
+        newNode();
+        for (int i = 0; i < literals.size(); i++) {
+            int node = 0;
+            for (char c : literals.get(i).toCharArray()) {
+                Integer next = transitions.get(node).get(c);
+                if (next == null) {
+                    next = newNode();
+                    transitions.get(node).put(c, next);
+                }
+                node = next;
+            }
+            outputs.get(node).set(i);
+        }
+
+        failures = new int[transitions.size()];
+        Queue<Integer> queue = new ArrayDeque<>(transitions.get(0).values());
+        while (!queue.isEmpty()) {
+            int node = queue.poll();
+            for (Map.Entry<Character, Integer> transition : transitions.get(node).entrySet()) {
+                int child = transition.getValue();
+                int failure = failures[node];
+                while (failure != 0 && !transitions.get(failure).containsKey(transition.getKey())) {
+                    failure = failures[failure];
+                }
+                int target = transitions.get(failure).getOrDefault(transition.getKey(), 0);
+                failures[child] = (target == child) ? 0 : target;
+                outputs.get(child).or(outputs.get(failures[child]));
+                queue.add(child);
+            }
+        }
+    }
+
+    private int newNode() {
+        transitions.add(new HashMap<>());
+        outputs.add(new BitSet());
+        return transitions.size() - 1;
+    }
+
+    boolean isEmpty() {
+        return literalCount == 0;
+    }
+
+    /**
+     * @return indices (in the constructor's list) of the literals found in the text
+     */
+    BitSet findAll(CharSequence text) {
+        BitSet found = new BitSet(literalCount);
+        if (isEmpty()) {
+            return found;
+        }
+        int node = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            while (node != 0 && !transitions.get(node).containsKey(c)) {
+                node = failures[node];
+            }
+            node = transitions.get(node).getOrDefault(c, 0);
+            found.or(outputs.get(node));
+        }
+        return found;
+    }
+}
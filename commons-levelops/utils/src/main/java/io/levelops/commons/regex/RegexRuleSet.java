@@ -0,0 +1,764 @@
+package io.levelops.commons.regex;
+
+import io.levelops.commons.models.RegexResult;
+import lombok.extern.log4j.Log4j2;
+
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.IntStream;
+
+/**
+ * Set of rules (each rule being a set of regexes) compiled once and evaluated together in a single pass over a text.
+ * <p>
+ * The text is read line by line and most regexes are matched against one line at a time. Before running them on a
+ * line, a literal that every match of the regex must contain is looked up in the line (all literals at once, with
+ * Aho-Corasick), and the regexes whose literal is missing are skipped. Regexes without such a literal are always run.
+ * <p>
+ * Regexes that could match differently within a line (anchors, constructs that can match a line terminator... see
+ * {@link #spansLines}) are matched against a sliding window of the text instead, which keeps the semantics of
+ * {@link RegexService#findRegexHits} on the whole text for matches that are not longer than the window.
+ * Either way, the text is never held in memory.
+ * <p>
+ * Instances are immutable and can be shared between threads.
+ */
+@Log4j2
+public class RegexRuleSet {
+
+    /**
+     * Max number of characters and of lines a match of a regex spanning lines can cover: longer matches are cut
+     * short or missed.
+     */
+    static final int MAX_WINDOW_LENGTH = 16 * 1024;
+    static final int MAX_WINDOW_LINES = 100;
+
+    private static final int MIN_LITERAL_LENGTH = 3;
+    private static final String CASE_INSENSITIVE_FLAG = "(?i)";
+    // escapes followed by characters that are not literals (e.g. \x41, \p{Alpha}, \k<name>)
+    private static final String ESCAPES_WITH_OPERAND = "xupPkNc";
+    // escapes that are anchors or can match (or encode) a line terminator
+    private static final String SPANNING_ESCAPES = "nrsvRHWDAzZGpPxu0cNX";
+    // inline flags that do not change how the literals of a regex are read
+    private static final String PREFIX_SAFE_FLAGS = "imsd";
+
+    private final int blobSize;
+    private final List<Pattern> patterns;
+    private final List<String> regexes;
+    private final int[][] ruleRegexes;
+    private final int[][] regexRules;
+    private final BitSet unfilteredRegexes = new BitSet();
+    private final BitSet windowRegexes = new BitSet();
+    private final String[] windowPrefixes;
+    private final AhoCorasick literals;
+    private final int[] literalRegexes;
+    private final AhoCorasick caseInsensitiveLiterals;
+    private final int[] caseInsensitiveLiteralRegexes;
+
+    /**
+     * @param rules    regexes of each rule; results are returned in the same order
+     * @param blobSize approximate size of the context returned around the first hit of a rule
+     * @param compiler used to compile the regexes (e.g. to share a cache of patterns)
+     */
+    RegexRuleSet(List<? extends Collection<String>> rules, int blobSize, Function<String, Pattern> compiler) {
+        this.blobSize = blobSize;
+        Map<String, Integer> regexIndices = new LinkedHashMap<>();
+        ruleRegexes = new int[rules.size()][];
+        for (int rule = 0; rule < rules.size(); rule++) {
+            ruleRegexes[rule] = new LinkedHashSet<>(rules.get(rule)).stream()
+                    .mapToInt(regex -> regexIndices.computeIfAbsent(regex, k -> regexIndices.size()))
+                    .toArray();
+        }
+        regexes = new ArrayList<>(regexIndices.keySet());
+        regexRules = new int[regexes.size()][];
+        for (int regex = 0; regex < regexes.size(); regex++) {
+            int index = regex;
+            regexRules[regex] = IntStream.range(0, ruleRegexes.length)
+                    .filter(rule -> Arrays.stream(ruleRegexes[rule]).anyMatch(r -> r == index))
+                    .toArray();
+        }
+
+        patterns = new ArrayList<>(regexes.size());
+        windowPrefixes = new String[regexes.size()];
+        List<String> caseSensitive = new ArrayList<>();
+        List<Integer> caseSensitiveRegexes = new ArrayList<>();
+        List<String> caseInsensitive = new ArrayList<>();
+        List<Integer> caseInsensitiveRegexes = new ArrayList<>();
+        for (int i = 0; i < regexes.size(); i++) {
+            String regex = regexes.get(i);
+            Pattern pattern;
+            try {
+                pattern = compiler.apply(regex);
+            } catch (PatternSyntaxException e) {
+                log.warn("Ignoring invalid regex: {}", regex, e);
+                pattern = null;
+            }
+            patterns.add(pattern);
+            if (pattern == null) {
+                continue;
+            }
+            if (spansLines(regex)) {
+                windowRegexes.set(i);
+                windowPrefixes[i] = extractPrefixLiteral(regex);
+                continue;
+            }
+            boolean ignoreCase = regex.startsWith(CASE_INSENSITIVE_FLAG);
+            String literal = extractRequiredLiteral(ignoreCase ? regex.substring(CASE_INSENSITIVE_FLAG.length()) : regex);
+            if (literal == null) {
+                unfilteredRegexes.set(i);
+            } else if (ignoreCase) {
+                caseInsensitive.add(literal.toLowerCase(Locale.ROOT));
+                caseInsensitiveRegexes.add(i);
+            } else {
+                caseSensitive.add(literal);
+                caseSensitiveRegexes.add(i);
+            }
+        }
+        literals = new AhoCorasick(caseSensitive);
+        literalRegexes = caseSensitiveRegexes.stream().mapToInt(Integer::intValue).toArray();
+        caseInsensitiveLiterals = new AhoCorasick(caseInsensitive);
+        caseInsensitiveLiteralRegexes = caseInsensitiveRegexes.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    public int getRuleCount() {
+        return ruleRegexes.length;
+    }
+
+    public List<RegexResult> scan(String text) {
+        try {
+            return scan(new StringReader(text));
+        } catch (IOException e) {
+            throw new IllegalStateException(e); // not thrown by StringReader
+        }
+    }
+
+    /**
+     * Evaluates every rule in one pass over the text. The reader is consumed but not closed.
+     *
+     * @return one result per rule, in the order the rules were given; null for rules without any match.
+     * Line numbers are 1-based and point to the first line of the context of the first hit of the rule.
+     */
+    public List<RegexResult> scan(Reader reader) throws IOException {
+        LineReader lines = new LineReader(reader);
+        ScanState state = new ScanState();
+        String line;
+        while ((line = lines.readLine()) != null) {
+            state.addLine(line, lines.terminator);
+        }
+        state.finish();
+        return state.toResults();
+    }
+
+    private BitSet findCandidates(String line) {
+        BitSet candidates = (BitSet) unfilteredRegexes.clone();
+        BitSet found = literals.findAll(line);
+        for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1)) {
+            candidates.set(literalRegexes[i]);
+        }
+        if (!caseInsensitiveLiterals.isEmpty()) {
+            found = caseInsensitiveLiterals.findAll(line.toLowerCase(Locale.ROOT));
+            for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1)) {
+                candidates.set(caseInsensitiveLiteralRegexes[i]);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Starts the context of a hit with the previous lines that fit in half a blob, followed by the line(s) of the hit.
+     * The caller appends the next lines until half a blob follows the end of the hit.
+     */
+    private PendingContext startContext(Deque<String> previousLines, int lineNumber, String line, int hitStart, int hitEnd) {
+        PendingContext pending = new PendingContext();
+        if (line.length() > blobSize) {
+            // a single huge line: keep a window around the hit only
+            pending.text.append(line, Math.max(0, hitStart - blobSize / 2), Math.min(line.length(), hitEnd + blobSize / 2));
+            pending.firstLine = lineNumber;
+            pending.remaining = 0;
+            return pending;
+        }
+        for (String previousLine : previousLines) {
+            pending.text.append(previousLine).append('\n');
+        }
+        pending.text.append(line);
+        pending.firstLine = lineNumber - previousLines.size();
+        pending.remaining = blobSize / 2 - (line.length() - hitEnd);
+        return pending;
+    }
+
+    private RegexResult buildResult(int rule, int[] regexCounts, PendingContext context) {
+        Map<String, Integer> regexCount = new HashMap<>();
+        for (int regex : ruleRegexes[rule]) {
+            regexCount.put(regexes.get(regex), regexCounts[regex]);
+        }
+        return RegexResult.builder()
+                .firstHitContext(context.text.toString())
+                .firstHitLineNumber(context.firstLine)
+                .totalMatches(Arrays.stream(ruleRegexes[rule]).map(regex -> regexCounts[regex]).sum())
+                .regexCount(regexCount)
+                .build();
+    }
+
+    /**
+     * Whether matching the regex line by line may give different results than matching it against the whole text:
+     * anchors (^, $, \A, \z...), inline flags other than a leading (?i) (e.g. (?m), (?s)) and constructs that can
+     * match a line terminator (\s, \n, negated classes...). Errs on the side of true.
+     */
+    static boolean spansLines(String regex) {
+        String body = regex.startsWith(CASE_INSENSITIVE_FLAG) ? regex.substring(CASE_INSENSITIVE_FLAG.length()) : regex;
+        for (int i = 0; i < body.length(); i++) {
+            char c = body.charAt(i);
+            if (c == '\\') {
+                i++;
+                if (i < body.length() && SPANNING_ESCAPES.indexOf(body.charAt(i)) >= 0) {
+                    return true;
+                }
+            } else if (c == '^' || c == '$' || c == '\n' || c == '\r') {
+                return true;
+            } else if (c == '(' && i + 2 < body.length() && body.charAt(i + 1) == '?'
+                    && (Character.isLetter(body.charAt(i + 2)) || body.charAt(i + 2) == '-')) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the characters that any match of the regex starts with, after the leading anchors and flags, or null if
+     * there are none (or if the regex uses alternations or flags changing how literals are read).
+     */
+    @Nullable
+    static String extractPrefixLiteral(String regex) {
+        if (regex.contains("|")) {
+            return null;
+        }
+        int i = 0;
+        while (i < regex.length()) {
+            if (regex.charAt(i) == '^') {
+                i++;
+            } else if (regex.startsWith("\\A", i) || regex.startsWith("\\b", i)) {
+                i += 2;
+            } else if (regex.startsWith("(?", i)) {
+                int end = regex.indexOf(')', i);
+                if (end < 0 || !regex.substring(i + 2, end).chars().allMatch(flag -> PREFIX_SAFE_FLAGS.indexOf(flag) >= 0)) {
+                    return null;
+                }
+                i = end + 1;
+            } else {
+                break;
+            }
+        }
+        StringBuilder prefix = new StringBuilder();
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            char literal;
+            if (c == '\\' && i + 1 < regex.length() && !Character.isLetterOrDigit(regex.charAt(i + 1))) {
+                literal = regex.charAt(i + 1);
+                i += 2;
+            } else if (c != '\\' && ".^$*+?()[{|".indexOf(c) < 0) {
+                literal = c;
+                i++;
+            } else {
+                break;
+            }
+            char next = (i < regex.length()) ? regex.charAt(i) : 0;
+            if (next == '*' || next == '?' || next == '{') {
+                break;
+            }
+            prefix.append(literal);
+            if (next == '+') {
+                break;
+            }
+        }
+        return (prefix.length() > 0) ? prefix.toString() : null;
+    }
+
+    private static boolean equalsIgnoreCase(char a, char b) {
+        return a == b || Character.toUpperCase(a) == Character.toUpperCase(b) || Character.toLowerCase(a) == Character.toLowerCase(b);
+    }
+
+    /**
+     * Returns the longest run of characters that any match of the regex must contain, or null if there is none
+     * long enough (or if the regex uses alternations or flags, which we don't try to analyze).
+     * Only the top level of the regex is considered: groups, classes, escapes and optional characters end a run.
+     */
+    @Nullable
+    static String extractRequiredLiteral(String regex) {
+        if (regex.contains("|") || regex.contains("(?") || regex.contains("\\Q")) {
+            return null;
+        }
+        String best = "";
+        StringBuilder run = new StringBuilder();
+        int depth = 0;
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            Character literal = null;
+            if (c == '\\') {
+                if (i + 1 < regex.length()) {
+                    char escaped = regex.charAt(i + 1);
+                    if (ESCAPES_WITH_OPERAND.indexOf(escaped) >= 0 || Character.isDigit(escaped)) {
+                        return null;
+                    }
+                    if (!Character.isLetter(escaped)) {
+                        literal = escaped;
+                    }
+                }
+                i += 2;
+            } else if (c == '{') {
+                int end = regex.indexOf('}', i);
+                i = (end < 0) ? regex.length() : end + 1;
+            } else if (c == '[') {
+                i = skipCharacterClass(regex, i);
+            } else if (c == '(') {
+                depth++;
+                i++;
+            } else if (c == ')') {
+                depth--;
+                i++;
+            } else if (".^$*+?}".indexOf(c) >= 0) {
+                i++;
+            } else {
+                literal = c;
+                i++;
+            }
+
+            char next = (i < regex.length()) ? regex.charAt(i) : 0;
+            boolean optional = next == '*' || next == '?' || next == '{';
+            if (literal != null && depth == 0 && !optional) {
+                run.append(literal.charValue());
+                if (next != '+') {
+                    continue;
+                }
+            }
+            if (run.length() > best.length()) {
+                best = run.toString();
+            }
+            run.setLength(0);
+        }
+        if (run.length() > best.length()) {
+            best = run.toString();
+        }
+        return (best.length() >= MIN_LITERAL_LENGTH) ? best : null;
+    }
+
+    private static int skipCharacterClass(String regex, int start) {
+        int i = start + 1;
+        if (i < regex.length() && regex.charAt(i) == '^') {
+            i++;
+        }
+        if (i < regex.length() && regex.charAt(i) == ']') {
+            i++;
+        }
+        int depth = 1;
+        while (i < regex.length() && depth > 0) {
+            char c = regex.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                depth--;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * State of one scan. Besides the counts and the contexts of the first hits, it keeps the recent lines of the
+     * text: the window that the regexes spanning lines are matched against, and half a blob of lines before it for
+     * the contexts.
+     */
+    private class ScanState {
+        private final int[] regexCounts = new int[regexes.size()];
+        private final long[] hitStarts = new long[ruleRegexes.length];
+        private final PendingContext[] contexts = new PendingContext[ruleRegexes.length];
+        private final List<PendingContext> pendingContexts = new ArrayList<>();
+        private int rulesWithoutHit = ruleRegexes.length;
+        private final int[] lineHitStarts = new int[regexes.size()];
+        private final int[] lineHitEnds = new int[regexes.size()];
+        private final Deque<Line> recentLines = new ArrayDeque<>();
+        private int lineNumber = 0;
+        // number of characters read so far
+        private long length = 0;
+        // text of the window, starting at offset windowOffset of the text
+        private final StringBuilder window = new StringBuilder();
+        private long windowOffset = 0;
+        // offset where the next match of each regex spanning lines may start
+        private final long[] windowFrom = new long[regexes.size()];
+        private final Matcher[] windowMatchers = new Matcher[regexes.size()];
+        // offsets of the last lines, to bound the number of lines in the window
+        private final long[] lineStarts = new long[MAX_WINDOW_LINES];
+
+        private void addLine(String text, String terminator) {
+            lineNumber++;
+            Line line = new Line(lineNumber, length, text, terminator.length());
+            length = line.end();
+
+            for (Iterator<PendingContext> it = pendingContexts.iterator(); it.hasNext(); ) {
+                PendingContext pending = it.next();
+                pending.append(text);
+                if (pending.remaining <= 0) {
+                    it.remove();
+                }
+            }
+
+            matchLine(line);
+            recentLines.addLast(line);
+            if (!windowRegexes.isEmpty()) {
+                lineStarts[lineNumber % MAX_WINDOW_LINES] = line.start;
+                window.append(text).append(terminator);
+                matchWindow(false);
+            }
+            trim();
+        }
+
+        private void finish() {
+            if (!windowRegexes.isEmpty()) {
+                matchWindow(true);
+            }
+        }
+
+        private void matchLine(Line line) {
+            BitSet lineHits = new BitSet(regexes.size());
+            BitSet candidates = findCandidates(line.text);
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                Matcher matcher = patterns.get(i).matcher(line.text);
+                while (matcher.find()) {
+                    if (!lineHits.get(i)) {
+                        lineHits.set(i);
+                        lineHitStarts[i] = matcher.start();
+                        lineHitEnds[i] = matcher.end();
+                    }
+                    regexCounts[i]++;
+                }
+            }
+            if (rulesWithoutHit <= 0 || lineHits.isEmpty()) {
+                return;
+            }
+            // a hit on this line always comes after the first hits found so far
+            for (int rule = 0; rule < ruleRegexes.length; rule++) {
+                if (contexts[rule] != null) {
+                    continue;
+                }
+                int hitStart = -1;
+                int hitEnd = -1;
+                for (int regex : ruleRegexes[rule]) {
+                    if (lineHits.get(regex) && (hitStart < 0 || lineHitStarts[regex] < hitStart)) {
+                        hitStart = lineHitStarts[regex];
+                        hitEnd = lineHitEnds[regex];
+                    }
+                }
+                if (hitStart >= 0) {
+                    setFirstHit(rule, line.start + hitStart,
+                            startContext(previousLines(line.number), line.number, line.text, hitStart, hitEnd));
+                }
+            }
+        }
+
+        /**
+         * Looks for the next matches of the regexes spanning lines in the window. A match that depends on the end of
+         * the window (see {@link Matcher#hitEnd()}) could change with the next lines, so it is only counted once they
+         * are read, or at the end of the text.
+         */
+        private void matchWindow(boolean endOfText) {
+            for (int regex = windowRegexes.nextSetBit(0); regex >= 0; regex = windowRegexes.nextSetBit(regex + 1)) {
+                if (windowMatchers[regex] == null) {
+                    // transparent and non-anchoring bounds: lookarounds and anchors see the text before the region
+                    windowMatchers[regex] = patterns.get(regex).matcher(window)
+                            .useTransparentBounds(true)
+                            .useAnchoringBounds(false);
+                }
+                Matcher matcher = windowMatchers[regex].region(windowIndex(windowFrom[regex]), window.length());
+                while (true) {
+                    boolean found = matcher.find();
+                    if (!found && !matcher.hitEnd()) {
+                        // no match can start before the end of the window, whatever follows
+                        windowFrom[regex] = length;
+                        break;
+                    }
+                    if (!found || (matcher.hitEnd() && !endOfText)) {
+                        windowFrom[regex] = windowOffset + firstPossibleStart(matcher, windowPrefixes[regex], windowIndex(windowFrom[regex]));
+                        break;
+                    }
+                    long start = windowOffset + matcher.start();
+                    long end = windowOffset + matcher.end();
+                    windowFrom[regex] = (start == end) ? end + 1 : end;
+                    if (++regexCounts[regex] == 1) {
+                        onFirstWindowHit(regex, start, end);
+                    }
+                }
+                windowFrom[regex] = Math.max(windowFrom[regex], Math.max(length - MAX_WINDOW_LENGTH,
+                        lineStarts[(lineNumber + 1) % MAX_WINDOW_LINES]));
+            }
+        }
+
+        /**
+         * Returns the first offset in the window where a match could start once more lines are read, when the last
+         * find needed more text. {@link Matcher#hitEnd()} tells that some attempt needed more text, but not which one.
+         */
+        private int firstPossibleStart(Matcher matcher, @Nullable String prefix, int from) {
+            for (int start = from; start < window.length(); start++) {
+                if (prefix != null) {
+                    start = indexOfPrefix(prefix, start);
+                    if (start >= window.length()) {
+                        break;
+                    }
+                }
+                matcher.region(start, window.length());
+                if (matcher.lookingAt() || matcher.hitEnd()) {
+                    return start;
+                }
+            }
+            return window.length();
+        }
+
+        /**
+         * @return the first index from which the window starts with the prefix (ignoring case), or ends with the
+         * beginning of it
+         */
+        private int indexOfPrefix(String prefix, int from) {
+            for (int start = from; start < window.length(); start++) {
+                int i = 0;
+                while (i < prefix.length() && start + i < window.length() && equalsIgnoreCase(window.charAt(start + i), prefix.charAt(i))) {
+                    i++;
+                }
+                if (i == prefix.length() || start + i == window.length()) {
+                    return start;
+                }
+            }
+            return window.length();
+        }
+
+        private int windowIndex(long offset) {
+            return (int) Math.min(offset - windowOffset, window.length());
+        }
+
+        private void onFirstWindowHit(int regex, long start, long end) {
+            PendingContext context = null;
+            for (int rule : regexRules[regex]) {
+                if (contexts[rule] != null && hitStarts[rule] <= start) {
+                    continue;
+                }
+                context = (context != null) ? context.copy() : windowContext(start, end);
+                setFirstHit(rule, start, context);
+            }
+        }
+
+        private void setFirstHit(int rule, long start, PendingContext context) {
+            if (contexts[rule] == null) {
+                rulesWithoutHit--;
+            } else {
+                pendingContexts.remove(contexts[rule]);
+            }
+            hitStarts[rule] = start;
+            contexts[rule] = context;
+            if (context.remaining > 0) {
+                pendingContexts.add(context);
+            }
+        }
+
+        /**
+         * Same context as a hit within a line gets, for a hit that may span several lines and that may have been
+         * found after reading some of the lines following it.
+         */
+        private PendingContext windowContext(long start, long end) {
+            Line first = null;
+            Line last = null;
+            StringBuilder hitLines = new StringBuilder();
+            List<String> nextLines = new ArrayList<>();
+            for (Line line : recentLines) {
+                if (line.end() <= start) {
+                    continue;
+                }
+                if (first == null) {
+                    first = line;
+                } else if (last == null) {
+                    hitLines.append('\n');
+                }
+                if (last == null) {
+                    hitLines.append(line.text);
+                    if (line.end() >= end) {
+                        last = line;
+                    }
+                } else {
+                    nextLines.add(line.text);
+                }
+            }
+            last = (last != null) ? last : recentLines.getLast();
+            int hitStart = (int) Math.min(start - first.start, first.text.length());
+            int hitEnd = hitLines.length() - last.text.length() + (int) Math.min(Math.max(0, end - last.start), last.text.length());
+            PendingContext pending = startContext(previousLines(first.number), first.number, hitLines.toString(),
+                    hitStart, Math.max(hitStart, hitEnd));
+            for (Iterator<String> it = nextLines.iterator(); it.hasNext() && pending.remaining > 0; ) {
+                pending.append(it.next());
+            }
+            return pending;
+        }
+
+        /**
+         * @return the lines before the given one that fit in half a blob
+         */
+        private Deque<String> previousLines(int number) {
+            Deque<String> previousLines = new ArrayDeque<>();
+            int previousLinesLength = 0;
+            for (Iterator<Line> it = recentLines.descendingIterator(); it.hasNext(); ) {
+                Line line = it.next();
+                if (line.number >= number) {
+                    continue;
+                }
+                if (previousLinesLength + line.text.length() + 1 > blobSize / 2) {
+                    break;
+                }
+                previousLines.addFirst(line.text);
+                previousLinesLength += line.text.length() + 1;
+            }
+            return previousLines;
+        }
+
+        /**
+         * Drops the lines that can neither be part of a hit nor of the context before one.
+         */
+        private void trim() {
+            long windowStart = length;
+            for (int regex = windowRegexes.nextSetBit(0); regex >= 0; regex = windowRegexes.nextSetBit(regex + 1)) {
+                windowStart = Math.min(windowStart, windowFrom[regex]);
+            }
+
+            // keep one character before the next matches, so that ^ and \A do not match at the start of the window
+            long keepFrom = Math.max(windowOffset, windowStart - 1);
+            if (keepFrom - windowOffset > window.length() / 2) {
+                window.delete(0, (int) (keepFrom - windowOffset));
+                windowOffset = keepFrom;
+            }
+
+            int contextLength = 0;
+            for (Line line : recentLines) {
+                if (line.end() > windowStart) {
+                    break;
+                }
+                contextLength += line.text.length() + 1;
+            }
+            while (contextLength > blobSize / 2 && recentLines.getFirst().end() <= windowStart) {
+                contextLength -= recentLines.removeFirst().text.length() + 1;
+            }
+        }
+
+        private List<RegexResult> toResults() {
+            List<RegexResult> results = new ArrayList<>(ruleRegexes.length);
+            for (int rule = 0; rule < ruleRegexes.length; rule++) {
+                results.add(contexts[rule] == null ? null : buildResult(rule, regexCounts, contexts[rule]));
+            }
+            return results;
+        }
+    }
+
+    private static class PendingContext {
+        private final StringBuilder text = new StringBuilder();
+        private int firstLine;
+        private int remaining;
+
+        private void append(String line) {
+            text.append('\n').append(line);
+            remaining -= line.length() + 1;
+        }
+
+        private PendingContext copy() {
+            PendingContext copy = new PendingContext();
+            copy.text.append(text);
+            copy.firstLine = firstLine;
+            copy.remaining = remaining;
+            return copy;
+        }
+    }
+
+    private static class Line {
+        private final int number;
+        // offset of the line in the text
+        private final long start;
+        private final String text;
+        private final int terminatorLength;
+
+        private Line(int number, long start, String text, int terminatorLength) {
+            this.number = number;
+            this.start = start;
+            this.text = text;
+            this.terminatorLength = terminatorLength;
+        }
+
+        private long end() {
+            return start + text.length() + terminatorLength;
+        }
+    }
+
+    /**
+     * Splits a text in lines like {@link BufferedReader#readLine()} does, but also gives the terminator of each line.
+     */
+    private static class LineReader {
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private int position = 0;
+        private int limit = 0;
+        private String terminator = "";
+
+        private LineReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        @Nullable
+        private String readLine() throws IOException {
+            StringBuilder line = null;
+            while (position < limit || fill()) {
+                int start = position;
+                while (position < limit && buffer[position] != '\n' && buffer[position] != '\r') {
+                    position++;
+                }
+                if (position == limit) {
+                    line = (line != null) ? line : new StringBuilder();
+                    line.append(buffer, start, position - start);
+                    continue;
+                }
+                String text = (line != null) ? line.append(buffer, start, position - start).toString() : new String(buffer, start, position - start);
+                char c = buffer[position++];
+                if (c == '\r' && (position < limit || fill()) && buffer[position] == '\n') {
+                    position++;
+                    terminator = "\r\n";
+                } else {
+                    terminator = String.valueOf(c);
+                }
+                return text;
+            }
+            terminator = "";
+            return (line != null) ? line.toString() : null;
+        }
+
+        private boolean fill() throws IOException {
+            int read;
+            do {
+                read = reader.read(buffer);
+            } while (read == 0);
+            position = 0;
+            limit = Math.max(read, 0);
+            return read > 0;
+        }
+    }
+}
@@ -1,13 +1,17 @@
 package io.levelops.commons.regex;
 
 import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.levelops.commons.models.RegexResult;
 import lombok.extern.log4j.Log4j2;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.regex.Matcher;
@@ -16,6 +20,7 @@ import java.util.regex.Pattern;
 @Log4j2
 public class RegexService {
     private Integer blobSize = 1500;
+    private final Cache<String, Pattern> patternCache = CacheBuilder.from("maximumSize=10000").build();
 
     public RegexService(Integer blobSize) {
         this.blobSize = blobSize;
@@ -32,7 +37,7 @@ public class RegexService {
         final Map<String, Integer> regexMatchCount = new HashMap<>();
         for (String regex : regexes) {
             int hitCountForRegex = 0;
-            Pattern compiled = Pattern.compile(regex);
+            Pattern compiled = getPattern(regex);
             Matcher matcher = compiled.matcher(textBlob);
             while (matcher.find()) {
                 hitCountForRegex += 1;
@@ -51,6 +56,23 @@ public class RegexService {
                 .build();
     }
 
+    /**
+     * Compiles rules (each being a set of regexes) so that they can all be evaluated in a single pass over a text.
+     * See {@link RegexRuleSet}.
+     */
+    public RegexRuleSet compileRuleSet(final List<? extends Collection<String>> rules) {
+        return new RegexRuleSet(rules, blobSize, this::getPattern);
+    }
+
+    private Pattern getPattern(final String regex) {
+        Pattern pattern = patternCache.getIfPresent(regex);
+        if (pattern == null) {
+            pattern = Pattern.compile(regex);
+            patternCache.put(regex, pattern);
+        }
+        return pattern;
+    }
+
     public ImmutablePair<String, Integer> getContextBlob(final String textBlob,
                                                          ImmutablePair<Integer, Integer> indices) {
         int leftIndex = 0;
@@ -0,0 +1,34 @@
+package io.levelops.commons.functional;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CancellationTokenTest {
+
+    @Test
+    public void testCancel() throws Exception {
+        CancellationToken token = new CancellationToken();
+        AtomicInteger cancelled = new AtomicInteger();
+        assertThat(CancellationToken.current()).isEmpty();
+        try (UncheckedCloseable binding = token.bind()) {
+            assertThat(CancellationToken.current()).containsSame(token);
+            UncheckedCloseable done = token.register(cancelled::incrementAndGet);
+            done.close();
+            token.register(cancelled::incrementAndGet);
+        }
+        assertThat(CancellationToken.current()).isEmpty();
+
+        assertThat(token.cancel()).isTrue();
+        assertThat(token.cancel()).isFalse();
+        assertThat(token.isCancelled()).isTrue();
+        // only the registration that was still open got cancelled
+        assertThat(cancelled.get()).isEqualTo(1);
+
+        // late registrations are cancelled right away
+        token.register(cancelled::incrementAndGet);
+        assertThat(cancelled.get()).isEqualTo(2);
+    }
+}
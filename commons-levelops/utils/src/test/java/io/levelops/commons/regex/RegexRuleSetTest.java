@@ -0,0 +1,175 @@
+package io.levelops.commons.regex;
+
+import io.levelops.commons.models.RegexResult;
+import io.levelops.commons.utils.ResourceUtils;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RegexRuleSetTest {
+    RegexService service = new RegexService();
+
+    @Test
+    public void testScan() throws IOException {
+        String txt = ResourceUtils.getResourceAsString("samples/error.log");
+        List<Set<String>> rules = List.of(
+                Set.of("[asd]{8}"),
+                Set.of("(?i)regex"),
+                Set.of("dsl\\.internal\\.WatchConnectionio"),
+                Set.of("(?i)booboo"),
+                Set.of("dsl\\.internal\\.WatchConnectionio", "[asd]{8}"));
+        RegexRuleSet ruleSet = service.compileRuleSet(rules);
+        assertThat(ruleSet.getRuleCount()).isEqualTo(5);
+
+        List<RegexResult> results = ruleSet.scan(new StringReader(txt));
+        assertThat(results).hasSize(5);
+        for (int i = 0; i < rules.size(); i++) {
+            RegexResult expected = service.findRegexHits(rules.get(i), txt);
+            if (expected.getTotalMatches() == 0) {
+                assertThat(results.get(i)).isNull();
+                continue;
+            }
+            assertThat(results.get(i).getTotalMatches()).isEqualTo(expected.getTotalMatches());
+            assertThat(results.get(i).getRegexCount()).isEqualTo(expected.getRegexCount());
+            assertThat(results.get(i).getFirstHitContext()).isNotEmpty();
+        }
+        assertThat(results.get(2).getTotalMatches()).isEqualTo(58);
+        assertThat(results.get(4).getTotalMatches()).isEqualTo(59);
+    }
+
+    @Test
+    public void testLineNumberAndContext() {
+        RegexRuleSet ruleSet = new RegexRuleSet(List.of(Set.of("error: \\w+"), Set.of("warn")), 20, java.util.regex.Pattern::compile);
+        List<RegexResult> results = ruleSet.scan("line 1\nline 2\nerror: boom\nline 4\nline 5\nline 6\nerror: again\n");
+
+        // the line number is the first line of the context
+        assertThat(results.get(0).getFirstHitLineNumber()).isEqualTo(2);
+        assertThat(results.get(0).getTotalMatches()).isEqualTo(2);
+        assertThat(results.get(0).getFirstHitContext()).isEqualTo("line 2\nerror: boom\nline 4\nline 5");
+        assertThat(results.get(1)).isNull();
+    }
+
+    @Test
+    public void testRegexesSpanningLines() {
+        String txt = "error: first\nline 2\nerror: second\nBUILD FAILED\n  at step 3\nline 6\nline 7\n";
+        List<Set<String>> rules = List.of(
+                Set.of("^error"),
+                Set.of("FAILED\\s+at step"),
+                Set.of("(?m)^error"),
+                Set.of("line 6", "step \\d\\n"),
+                Set.of("line 7$"));
+        List<RegexResult> results = new RegexRuleSet(rules, 40, java.util.regex.Pattern::compile).scan(txt);
+
+        // same semantics as findRegexHits on the whole text
+        for (int i = 0; i < results.size(); i++) {
+            RegexResult expected = service.findRegexHits(rules.get(i), txt);
+            assertThat(results.get(i).getTotalMatches()).isEqualTo(expected.getTotalMatches());
+        }
+        assertThat(results.get(0).getTotalMatches()).isEqualTo(1);
+        assertThat(results.get(0).getFirstHitLineNumber()).isEqualTo(1);
+        assertThat(results.get(0).getFirstHitContext()).isEqualTo("error: first\nline 2\nerror: second");
+
+        assertThat(results.get(1).getTotalMatches()).isEqualTo(1);
+        assertThat(results.get(1).getFirstHitLineNumber()).isEqualTo(3);
+        assertThat(results.get(1).getFirstHitContext()).isEqualTo("error: second\nBUILD FAILED\n  at step 3\nline 6\nline 7");
+
+        assertThat(results.get(2).getTotalMatches()).isEqualTo(2);
+
+        // the hit of the whole text regex comes first
+        assertThat(results.get(3).getTotalMatches()).isEqualTo(2);
+        assertThat(results.get(3).getFirstHitLineNumber()).isEqualTo(4);
+        assertThat(results.get(3).getFirstHitContext()).isEqualTo("BUILD FAILED\n  at step 3\nline 6\nline 7");
+
+        assertThat(results.get(4).getTotalMatches()).isEqualTo(1);
+        assertThat(results.get(4).getFirstHitLineNumber()).isEqualTo(5);
+        assertThat(results.get(4).getFirstHitContext()).isEqualTo("  at step 3\nline 6\nline 7");
+    }
+
+    @Test
+    public void testRegexesSpanningLinesWithCrLf() {
+        String txt = "step 1\r\nBUILD FAILED\r\n  at step 2\r\nerror: x\r\nfoo; bar\r\n\r\nend 2";
+        List<Set<String>> rules = List.of(
+                Set.of("FAILED\\s+at"),
+                Set.of("FAILED\\r\\n"),
+                Set.of("2$"),
+                Set.of("(?m)2$"),
+                Set.of("error[^;]*;"),
+                Set.of("(?m)^$"),
+                Set.of("(?i)\\bSTEP\\s"));
+        List<RegexResult> results = new RegexRuleSet(rules, 40, java.util.regex.Pattern::compile).scan(txt);
+
+        for (int i = 0; i < results.size(); i++) {
+            RegexResult expected = service.findRegexHits(rules.get(i), txt);
+            assertThat(results.get(i).getTotalMatches()).as(rules.get(i).toString()).isEqualTo(expected.getTotalMatches());
+        }
+        assertThat(results.get(4).getFirstHitLineNumber()).isEqualTo(3);
+        assertThat(results.get(4).getFirstHitContext()).isEqualTo("  at step 2\nerror: x\nfoo; bar\n\nend 2");
+    }
+
+    @Test
+    public void testMatchesSpanningLinesAreBoundedByTheWindow() {
+        RegexRuleSet ruleSet = new RegexRuleSet(List.of(Set.of("FAILED\\s+at")), 40, java.util.regex.Pattern::compile);
+
+        String txt = "BUILD FAILED\n" + "\n".repeat(RegexRuleSet.MAX_WINDOW_LINES - 2) + "at step\n";
+        assertThat(ruleSet.scan(txt).get(0).getTotalMatches()).isEqualTo(1);
+        txt = "BUILD FAILED\n" + "\n".repeat(RegexRuleSet.MAX_WINDOW_LINES) + "at step\n";
+        assertThat(ruleSet.scan(txt).get(0)).isNull();
+        txt = "BUILD FAILED\n" + (" ".repeat(1000) + "\n").repeat(RegexRuleSet.MAX_WINDOW_LENGTH / 1000 + 1) + "at step\n";
+        assertThat(ruleSet.scan(txt).get(0)).isNull();
+        // a single line is always matched as a whole
+        txt = "BUILD FAILED" + " ".repeat(RegexRuleSet.MAX_WINDOW_LENGTH) + "at step\n";
+        assertThat(ruleSet.scan(txt).get(0).getTotalMatches()).isEqualTo(1);
+    }
+
+    @Test
+    public void testSpansLines() {
+        assertThat(RegexRuleSet.spansLines("BUILD FAILED.*at line \\d+")).isFalse();
+        assertThat(RegexRuleSet.spansLines("(?i)error: \\w+")).isFalse();
+        assertThat(RegexRuleSet.spansLines("\\$\\{foo}")).isFalse();
+        assertThat(RegexRuleSet.spansLines("^error")).isTrue();
+        assertThat(RegexRuleSet.spansLines("error$")).isTrue();
+        assertThat(RegexRuleSet.spansLines("error[^;]*;")).isTrue();
+        assertThat(RegexRuleSet.spansLines("error\\s+at")).isTrue();
+        assertThat(RegexRuleSet.spansLines("(?s)error.*at")).isTrue();
+        assertThat(RegexRuleSet.spansLines("\\Aerror")).isTrue();
+    }
+
+    @Test
+    public void testExtractPrefixLiteral() {
+        assertThat(RegexRuleSet.extractPrefixLiteral("BUILD FAILED\\s+at")).isEqualTo("BUILD FAILED");
+        assertThat(RegexRuleSet.extractPrefixLiteral("(?m)^\\[ERROR]\\s")).isEqualTo("[ERROR]");
+        assertThat(RegexRuleSet.extractPrefixLiteral("(?i)\\berror:?\\s")).isEqualTo("error");
+        assertThat(RegexRuleSet.extractPrefixLiteral("errors?\\s")).isEqualTo("error");
+        assertThat(RegexRuleSet.extractPrefixLiteral("ab+\\s")).isEqualTo("ab");
+        assertThat(RegexRuleSet.extractPrefixLiteral("\\s+at")).isNull();
+        assertThat(RegexRuleSet.extractPrefixLiteral("(?x)a b\\s")).isNull();
+        assertThat(RegexRuleSet.extractPrefixLiteral("error\\s|failure\\s")).isNull();
+    }
+
+    @Test
+    public void testInvalidRegexIsIgnored() {
+        RegexRuleSet ruleSet = service.compileRuleSet(List.of(Set.of("(unclosed"), Set.of("ok")));
+        List<RegexResult> results = ruleSet.scan("ok");
+
+        assertThat(results.get(0)).isNull();
+        assertThat(results.get(1).getTotalMatches()).isEqualTo(1);
+    }
+
+    @Test
+    public void testExtractRequiredLiteral() {
+        assertThat(RegexRuleSet.extractRequiredLiteral("dsl\\.internal\\.WatchConnectionio")).isEqualTo("dsl.internal.WatchConnectionio");
+        assertThat(RegexRuleSet.extractRequiredLiteral("BUILD FAILED.*at line \\d+")).isEqualTo("BUILD FAILED");
+        assertThat(RegexRuleSet.extractRequiredLiteral("Exception(s)? in thread")).isEqualTo(" in thread");
+        assertThat(RegexRuleSet.extractRequiredLiteral("errors?: [0-9]+")).isEqualTo("error");
+        assertThat(RegexRuleSet.extractRequiredLiteral("ab{2}cdef")).isEqualTo("cdef");
+        assertThat(RegexRuleSet.extractRequiredLiteral("[asd]{8}")).isNull();
+        assertThat(RegexRuleSet.extractRequiredLiteral("error|failure")).isNull();
+        assertThat(RegexRuleSet.extractRequiredLiteral("(?m)^error")).isNull();
+        assertThat(RegexRuleSet.extractRequiredLiteral("\\x41BCD")).isNull();
+    }
+}
@@ -1,6 +1,8 @@
 package io.levelops.ingestion.agent.config.integrations;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.levelops.commons.client.caching.DiskResponseCacheStore;
+import io.levelops.commons.client.caching.ResponseCacheStore;
 import io.levelops.commons.inventory.InventoryService;
 import io.levelops.ingestion.agent.ingestion.GithubControllers;
 import io.levelops.ingestion.agent.ingestion.GithubIterativeScanController;
@@ -23,11 +25,14 @@ import io.levelops.integrations.github.sources.GithubRepositoryDataSource.Github
 import io.levelops.integrations.github.sources.GithubUserDataSource;
 import io.levelops.integrations.github.sources.GithubUserDataSource.GithubUserQuery;
 import okhttp3.OkHttpClient;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.EnumSet;
 
 import static io.levelops.integrations.github.sources.GithubRepositoryDataSource.Enrichment.COMMITS;
@@ -43,12 +48,23 @@ public class GithubConfig {
     @Value("${github.onboarding_in_days:7}")
     private Integer githubOnboardingInDays;
 
+    // conditional requests (ETag / If-Modified-Since) are disabled if no directory is set
+    @Value("${github.response_cache.dir:}")
+    private String githubResponseCacheDir;
+
+    @Value("${github.response_cache.max_size_mb:2048}")
+    private Long githubResponseCacheMaxSizeMb;
+
     @Bean
     public GithubClientFactory githubClientFactory(InventoryService inventoryService,
                                                    ObjectMapper objectMapper,
                                                    OkHttpClient okHttpClient,
-                                                   @Qualifier("githubThrottlingMs") int githubThrottlingMs) {
-        return new GithubClientFactory(inventoryService, objectMapper, okHttpClient, githubThrottlingMs);
+                                                   @Qualifier("githubThrottlingMs") int githubThrottlingMs) throws IOException {
+        ResponseCacheStore responseCacheStore = null;
+        if (StringUtils.isNotBlank(githubResponseCacheDir)) {
+            responseCacheStore = new DiskResponseCacheStore(Path.of(githubResponseCacheDir), githubResponseCacheMaxSizeMb * 1024 * 1024);
+        }
+        return new GithubClientFactory(inventoryService, objectMapper, okHttpClient, githubThrottlingMs, responseCacheStore);
     }
 
     @Bean
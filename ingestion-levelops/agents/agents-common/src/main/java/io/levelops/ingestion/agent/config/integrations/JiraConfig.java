@@ -34,6 +34,9 @@ public class JiraConfig {
     @Value("${jira.onboarding_in_days:365}")
     private Integer jiraOnboardingInDays;
 
+    @Value("${jira.version_cache_ttl_minutes:5}")
+    private Long jiraVersionCacheTtlMinutes;
+
     @Bean
     public JiraClientFactory jiraClientFactory(InventoryService inventoryService, ObjectMapper objectMapper, OkHttpClient okHttpClient,
                                                @Qualifier("allowUnsafeSSLJira") Boolean allowUnsafeSSL,
@@ -88,7 +91,7 @@ public class JiraConfig {
     public JiraIssueDataSource jiraIssueDataSource(IngestionEngine ingestionEngine,
                                                    JiraClientFactory jiraClientFactory) {
         return ingestionEngine.add("JiraIssueDataSource",
-                new JiraIssueDataSource(jiraClientFactory));
+                new JiraIssueDataSource(jiraClientFactory, jiraVersionCacheTtlMinutes));
     }
 
     @Bean("jiraIssueController")
@@ -58,6 +58,7 @@ public class GithubIterativeScanController implements DataController<GithubItera
     private static final String GITHUB_FETCH_PR_COMMITS_METADATA_FIELD = "fetch_pr_commits";
     private static final String GITHUB_FETCH_PR_REVIEWS_METADATA_FIELD = "fetch_pr_reviews";
     private static final String GITHUB_FETCH_PR_PATCHES_METADATA_FIELD = "fetch_pr_patches";
+    private static final String GITHUB_FETCH_PRS_WITH_GRAPHQL_METADATA_FIELD = "fetch_prs_with_graphql";
     private static final String GITHUB_FETCH_USERS_METADATA_FIELD = "fetch_users";
     private static final String GITHUB_IS_PUSH_BASED_METADATA_FIELD = "is_push_based";
     private static final String GITHUB_APP_ID_METADATA_FIELD = "app_id";
@@ -107,6 +108,7 @@ public class GithubIterativeScanController implements DataController<GithubItera
         boolean fetchPrCommits = true;
         boolean fetchPrReviews = true;
         boolean fetchPrPatches = true;
+        boolean fetchPrsWithGraphQl = false;
         boolean fetchCommits = true;
         boolean fetchIssues = true;
         boolean fetchProjects = false;
@@ -179,6 +181,9 @@ public class GithubIterativeScanController implements DataController<GithubItera
             if (BooleanUtils.isFalse((Boolean) metadata.get(GITHUB_FETCH_PR_PATCHES_METADATA_FIELD))) {
                 fetchPrPatches = false;
             }
+            if (BooleanUtils.isTrue((Boolean) metadata.get(GITHUB_FETCH_PRS_WITH_GRAPHQL_METADATA_FIELD))) {
+                fetchPrsWithGraphQl = true;
+            }
             if (BooleanUtils.isFalse((Boolean) metadata.get(GITHUB_FETCH_USERS_METADATA_FIELD))) {
                 fetchUsers = false;
             }
@@ -240,6 +245,7 @@ public class GithubIterativeScanController implements DataController<GithubItera
                         .fetchPrCommits(fetchPrCommits)
                         .fetchPrPatches(fetchPrPatches)
                         .fetchPrReviews(fetchPrReviews)
+                        .fetchPrsWithGraphQl(fetchPrsWithGraphQl)
                         .build();
                 results.add(pullRequestController.ingest(jobContext, prQuery));
 
@@ -26,6 +26,10 @@ public class ControlConfig {
     @Value("${SCHEDULING_INTERVAL:30}")
     private Long schedulingInterval;
 
+    // 0 disables long-polling: job requests are then pulled every SCHEDULING_INTERVAL
+    @Value("${LONG_POLL_TIMEOUT:0}")
+    private Long longPollTimeout;
+
     @Value("${AUTO_CLEAR_JOBS:true}")
     private Boolean autoClearJobs;
 
@@ -64,6 +68,7 @@ public class ControlConfig {
                 .jobController(jobController)
                 .enableScheduling(StringUtils.isNotEmpty(controlPlaneUrl))
                 .schedulingIntervalInSec(schedulingInterval)
+                .longPollTimeoutInSec(longPollTimeout)
                 .autoClearJobs(autoClearJobs) // only matters if scheduling is enabled
                 .reservedJobsFilter(false) // make sure we don't pull jobs that are reserved for dedicated agents (satellite, ...)
                 .build();
@@ -5,6 +5,7 @@ import io.levelops.controlplane.discovery.AgentRegistryService;
 import io.levelops.controlplane.discovery.RegisteredAgent;
 import io.levelops.controlplane.models.DbJob;
 import io.levelops.controlplane.models.DbJobConverters;
+import io.levelops.controlplane.services.JobDispatchService;
 import io.levelops.controlplane.services.JobTrackingService;
 import io.levelops.controlplane.services.JobTrackingService.RefreshJobStatusResult;
 import io.levelops.controlplane.services.TriggerResultService;
@@ -28,10 +29,12 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
@@ -46,14 +49,17 @@ public class AgentCallbackController {
     private final AgentRegistryService agentRegistryService;
     private final JobTrackingService jobTrackingService;
     private final TriggerResultService triggerResultService;
+    private final JobDispatchService jobDispatchService;
 
     @Autowired
     public AgentCallbackController(final AgentRegistryService agentRegistryService,
                                    final JobTrackingService jobTrackingService,
-                                   final TriggerResultService triggerResultService) {
+                                   final TriggerResultService triggerResultService,
+                                   final JobDispatchService jobDispatchService) {
         this.agentRegistryService = agentRegistryService;
         this.jobTrackingService = jobTrackingService;
         this.triggerResultService = triggerResultService;
+        this.jobDispatchService = jobDispatchService;
     }
 
     private void validateTenantId(String tenantId, String jobId) throws ForbiddenException, NotFoundException {
@@ -179,14 +185,34 @@ public class AgentCallbackController {
             // @ApiParam(allowEmptyValue = true, defaultValue = "false", type = "boolean")
             @RequestParam(value = "reserved", required = false, defaultValue = "false") Boolean reserved,
             @RequestBody AgentHandle agentHandle) {
-        return ListResponse.of(jobTrackingService.streamJobsByStatus(JobStatus.SCHEDULED, reserved, agentHandle.getTenantId(), agentHandle.getIntegrationIds())
+        return ListResponse.of(findJobRequests(reserved, agentHandle, LIMIT_JOB_REQUESTS_RETURNED));
+    }
+
+    /**
+     * Long-poll version of {@link #listJobRequests}: answers as soon as job requests are available for the agent,
+     * or with an empty list once the timeout expires.
+     *
+     * @param limit how many requests the agent can take, typically its free capacity
+     */
+    @PostMapping("/jobs/requests/poll")
+    public DeferredResult<ListResponse<CreateJobRequest>> pollJobRequests(
+            @RequestParam(value = "reserved", required = false, defaultValue = "false") Boolean reserved,
+            @RequestParam(value = "limit", required = false, defaultValue = "25") Integer limit,
+            @RequestParam(value = "timeout_secs", required = false, defaultValue = "30") Long timeoutSecs,
+            @RequestBody AgentHandle agentHandle) {
+        int effectiveLimit = Math.max(1, Math.min(limit, LIMIT_JOB_REQUESTS_RETURNED));
+        return jobDispatchService.waitFor(() -> findJobRequests(reserved, agentHandle, effectiveLimit), timeoutSecs);
+    }
+
+    private List<CreateJobRequest> findJobRequests(Boolean reserved, AgentHandle agentHandle, int limit) {
+        return jobTrackingService.streamJobsByStatus(JobStatus.SCHEDULED, reserved, agentHandle.getTenantId(), agentHandle.getIntegrationIds())
                 .filter(dbJob -> agentHandle.getControllerNames().contains(dbJob.getControllerName()))
                 .map(dbJob -> CreateJobRequest.builder()
                         .jobId(dbJob.getId())
                         .controllerName(dbJob.getControllerName())
                         .build())
-                .limit(LIMIT_JOB_REQUESTS_RETURNED)
-                .collect(Collectors.toList()));
+                .limit(limit)
+                .collect(Collectors.toList());
     }
 
     @GetMapping("/jobs/requests/accept")
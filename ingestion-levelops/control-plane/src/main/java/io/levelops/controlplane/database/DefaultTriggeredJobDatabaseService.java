@@ -6,6 +6,7 @@ import io.levelops.commons.models.DbListResponse;
 import io.levelops.controlplane.models.DbIteration;
 import io.levelops.controlplane.models.DbTriggeredJob;
 import io.levelops.controlplane.models.DbTriggeredJobsConverters;
+import io.levelops.ingestion.models.controlplane.JobStatus;
 import lombok.extern.log4j.Log4j2;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.BooleanUtils;
@@ -255,6 +256,50 @@ public class DefaultTriggeredJobDatabaseService implements TriggeredJobDatabaseS
         return getTemplate().queryForList(sql, params, Long.class);
     }
 
+    @Override
+    public Map<String, TriggerJobCounts> countJobsByTrigger(@Nonnull List<JobStatus> inFlightStatuses,
+                                                            @Nonnull Map<String, Integer> defaultAttemptMaxByTriggerType,
+                                                            int defaultAttemptMax) {
+        Validate.notEmpty(inFlightStatuses, "inFlightStatuses cannot be null or empty.");
+        Map<String, Object> params = new HashMap<>();
+        params.put("default_attempt_max", defaultAttemptMax);
+
+        String attemptMax = ":default_attempt_max";
+        if (!defaultAttemptMaxByTriggerType.isEmpty()) {
+            List<String> cases = new ArrayList<>();
+            int i = 0;
+            for (Map.Entry<String, Integer> entry : defaultAttemptMaxByTriggerType.entrySet()) {
+                cases.add(String.format(" WHEN :trigger_type_%d THEN :attempt_max_%d", i, i));
+                params.put("trigger_type_" + i, entry.getKey().toLowerCase());
+                params.put("attempt_max_" + i, entry.getValue());
+                i++;
+            }
+            attemptMax = "CASE LOWER(trig.type)" + String.join("", cases) + " ELSE :default_attempt_max END";
+        }
+
+        List<JobStatus> statuses = new ArrayList<>(inFlightStatuses);
+        statuses.add(JobStatus.FAILURE);
+        String sql = "" +
+                " SELECT triggered.trigger_id," +
+                "   COUNT(*) FILTER (WHERE " + JobDatabaseService.generateJobStatusFilter(inFlightStatuses) + ") AS in_flight," +
+                "   COUNT(*) FILTER (WHERE " + JobDatabaseService.generateJobStatusFilter(List.of(JobStatus.FAILURE)) +
+                "     AND COALESCE(attempt_count, 0) < COALESCE(attempt_max, " + attemptMax + ")) AS retryable" +
+                " FROM control_plane.triggered_jobs as triggered" +
+                " JOIN control_plane.jobs as job ON job.id = triggered.job_id " +
+                " LEFT JOIN control_plane.triggers as trig ON trig.id = triggered.trigger_id " +
+                " WHERE " + JobDatabaseService.generateJobStatusFilter(statuses) +
+                " GROUP BY triggered.trigger_id";
+        log.debug("sql={}", sql);
+        Map<String, TriggerJobCounts> countsByTrigger = new HashMap<>();
+        getTemplate().query(sql, params, rs -> {
+            countsByTrigger.put(rs.getString("trigger_id"), TriggerJobCounts.builder()
+                    .inFlight(rs.getInt("in_flight"))
+                    .retryable(rs.getInt("retryable"))
+                    .build());
+        });
+        return countsByTrigger;
+    }
+
     public boolean createTriggeredJob(String jobId, String triggerId, String iterationId, Long iterationTs, boolean partial) {
         Validate.notBlank(jobId, "jobId cannot be null or empty.");
         Validate.notBlank(triggerId, "triggerId cannot be null or empty.");
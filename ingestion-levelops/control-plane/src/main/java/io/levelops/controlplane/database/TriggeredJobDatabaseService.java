@@ -10,6 +10,7 @@ import lombok.Value;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Stream;
 
@@ -51,6 +52,22 @@ public interface TriggeredJobDatabaseService extends DatabaseService<DbTriggered
         Integer belowMaxAttemptsOrDefaultValue;
     }
 
+    /**
+     * Counts the jobs of every trigger in a single query: the jobs in one of the in-flight statuses, and the failed jobs
+     * that can still be retried. Failed jobs without attempt_max use the default of their trigger type
+     * (matched case-insensitively), or defaultAttemptMax. Triggers without any such job are not returned.
+     */
+    Map<String, TriggerJobCounts> countJobsByTrigger(@Nonnull List<JobStatus> inFlightStatuses,
+                                                     @Nonnull Map<String, Integer> defaultAttemptMaxByTriggerType,
+                                                     int defaultAttemptMax);
+
+    @Value
+    @Builder(toBuilder = true)
+    class TriggerJobCounts {
+        int inFlight;
+        int retryable;
+    }
+
     boolean createTriggeredJob(String jobId, String triggerId, String iterationId, Long iterationTs, boolean partial);
 
     int deleteTriggeredJobs(String triggerId);
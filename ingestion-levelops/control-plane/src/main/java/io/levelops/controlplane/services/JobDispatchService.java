@@ -0,0 +1,131 @@
+package io.levelops.controlplane.services;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.levelops.commons.models.ListResponse;
+import lombok.extern.log4j.Log4j2;
+import org.apache.commons.collections4.CollectionUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import javax.annotation.PreDestroy;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Holds the long-poll requests of agents waiting for job requests.
+ * <p>
+ * Waiting agents are answered as soon as a job gets scheduled on this instance. Jobs scheduled by another
+ * control-plane instance are picked up by a periodic re-check, so that an agent never waits longer than
+ * the re-check interval for work that is already there.
+ */
+@Log4j2
+@Service
+public class JobDispatchService {
+
+    public static final long MAX_WAIT_SECS = 60;
+    private final ScheduledExecutorService executor;
+    private final Set<Waiter<?>> waiters = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean checkPending = new AtomicBoolean(false);
+
+    private static class Waiter<T> {
+        private final DeferredResult<ListResponse<T>> result;
+        private final Supplier<List<T>> finder;
+
+        private Waiter(DeferredResult<ListResponse<T>> result, Supplier<List<T>> finder) {
+            this.result = result;
+            this.finder = finder;
+        }
+
+        /**
+         * @return true if the waiter is done (answered or expired)
+         */
+        private boolean check() {
+            if (result.isSetOrExpired()) {
+                return true;
+            }
+            List<T> found = finder.get();
+            if (CollectionUtils.isEmpty(found)) {
+                return false;
+            }
+            result.setResult(ListResponse.of(found));
+            return true;
+        }
+    }
+
+    @Autowired
+    public JobDispatchService(@Value("${JOB_DISPATCH_RECHECK_INTERVAL_SECS:5}") long recheckIntervalSecs) {
+        executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("job-dispatch-%d")
+                .build());
+        executor.scheduleWithFixedDelay(this::checkWaiters, recheckIntervalSecs, recheckIntervalSecs, TimeUnit.SECONDS);
+        log.info("Job dispatch long-poll enabled (recheck_interval={}sec)", recheckIntervalSecs);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Returns what the finder finds right away if it is not empty; otherwise waits until it finds something
+     * or until the timeout expires, in which case the result is an empty list.
+     */
+    public <T> DeferredResult<ListResponse<T>> waitFor(Supplier<List<T>> finder, long timeoutSecs) {
+        long timeout = Math.max(1, Math.min(timeoutSecs, MAX_WAIT_SECS));
+        DeferredResult<ListResponse<T>> result = new DeferredResult<>(TimeUnit.SECONDS.toMillis(timeout), ListResponse.of(Collections.emptyList()));
+        Waiter<T> waiter = new Waiter<>(result, finder);
+        result.onCompletion(() -> waiters.remove(waiter));
+        // register before the first check, so that a job scheduled in between is not missed
+        waiters.add(waiter);
+        boolean waiting = false;
+        try {
+            waiting = !waiter.check();
+        } finally {
+            // answered right away, or the finder failed and the error goes back to the caller
+            if (!waiting) {
+                waiters.remove(waiter);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Wakes up the waiting agents. Calls made while a check is pending are coalesced into that check.
+     */
+    public void notifyJobsScheduled() {
+        if (waiters.isEmpty() || !checkPending.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            checkPending.set(false);
+            checkWaiters();
+        });
+    }
+
+    int getWaiterCount() {
+        return waiters.size();
+    }
+
+    private void checkWaiters() {
+        for (Waiter<?> waiter : waiters) {
+            try {
+                if (waiter.check()) {
+                    waiters.remove(waiter);
+                }
+            } catch (Exception e) {
+                log.warn("Failed to look up job requests for a waiting agent", e);
+                waiter.result.setErrorResult(e);
+                waiters.remove(waiter);
+            }
+        }
+    }
+}
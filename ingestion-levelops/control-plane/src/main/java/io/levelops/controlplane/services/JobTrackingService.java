@@ -39,16 +39,19 @@ public class JobTrackingService {
     private final JobDatabaseService jobDatabaseService;
     private final AgentRegistryService agentRegistryService;
     private final IngestionResultMergingService ingestionResultMergingService;
+    private final JobDispatchService jobDispatchService;
 
     @Autowired
     public JobTrackingService(ObjectMapper objectMapper,
                               JobDatabaseService jobDatabaseService,
                               AgentRegistryService agentRegistryService,
-                              IngestionResultMergingService ingestionResultMergingService) {
+                              IngestionResultMergingService ingestionResultMergingService,
+                              JobDispatchService jobDispatchService) {
         this.objectMapper = objectMapper;
         this.jobDatabaseService = jobDatabaseService;
         this.agentRegistryService = agentRegistryService;
         this.ingestionResultMergingService = ingestionResultMergingService;
+        this.jobDispatchService = jobDispatchService;
     }
 
     // region multi jobs
@@ -109,6 +112,7 @@ public class JobTrackingService {
         jobDatabaseService.updateJob(dbJob.getId(), DbJobUpdate.builder()
                 .status(JobStatus.SCHEDULED)
                 .build());
+        jobDispatchService.notifyJobsScheduled();
         return JobStatus.SCHEDULED;
     }
 
@@ -139,10 +143,15 @@ public class JobTrackingService {
 
 
     public boolean updateJobStatus(String jobId, String agentId, JobStatus jobStatus) {
-        return jobDatabaseService.updateJob(jobId, DbJobUpdate.builder()
+        boolean updated = jobDatabaseService.updateJob(jobId, DbJobUpdate.builder()
                 .agentId(agentId)
                 .status(jobStatus)
                 .build());
+        if (updated && jobStatus == JobStatus.SCHEDULED) {
+            // rejected by an agent that was too busy: another agent can take it
+            jobDispatchService.notifyJobsScheduled();
+        }
+        return updated;
     }
 
     public boolean hasJobAlreadyCompletedSuccessfully(@Nullable DbJob job) {
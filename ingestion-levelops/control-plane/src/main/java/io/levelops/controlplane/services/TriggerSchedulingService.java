@@ -4,7 +4,7 @@ import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.levelops.commons.dates.DateUtils;
 import io.levelops.controlplane.database.TriggerDatabaseService;
 import io.levelops.controlplane.database.TriggeredJobDatabaseService;
-import io.levelops.controlplane.database.TriggeredJobDatabaseService.TriggeredJobFilter;
+import io.levelops.controlplane.database.TriggeredJobDatabaseService.TriggerJobCounts;
 import io.levelops.controlplane.models.DbTrigger;
 import io.levelops.controlplane.trigger.TriggerRunnable;
 import io.levelops.controlplane.trigger.TriggerRunnableRegistry;
@@ -28,6 +28,8 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Log4j2
 @Service
@@ -36,6 +38,10 @@ public class TriggerSchedulingService {
     private static final int PAGE_SIZE = 100;
     private static final int TRIGGER_EXECUTOR_THREADS = 10;
     private static final int FORCED_LOGGING_PERIOD_SECS = (int) TimeUnit.MINUTES.toSeconds(30);
+    private static final List<JobStatus> IN_FLIGHT_STATUSES = List.of(JobStatus.SCHEDULED, JobStatus.UNASSIGNED, JobStatus.PENDING);
+    private static final Map<String, Integer> DEFAULT_ATTEMPT_MAX_BY_TRIGGER_TYPE = Stream.of(TriggerBackPressureStrategy.values())
+            .filter(strategy -> strategy.getTriggerType() != null)
+            .collect(Collectors.toMap(TriggerBackPressureStrategy::getTriggerType, TriggerBackPressureStrategy::getFailedJobsMaxAttempt));
     private final ScheduledExecutorService scheduler;
     private final ExecutorService triggerExecutor;
     private final TriggerDatabaseService triggerDatabaseService;
@@ -141,6 +147,7 @@ public class TriggerSchedulingService {
     }
 
     public void scheduleAllTriggers(Instant current) {
+        Map<String, TriggerJobCounts> jobCountsByTrigger = countJobsByTrigger();
         MutableLong total = new MutableLong(0);
         MutableLong disabled = new MutableLong(0);
         MutableLong schedulableCount = new MutableLong(0);
@@ -160,7 +167,7 @@ public class TriggerSchedulingService {
                     return schedulable;
                 })
                 .filter(trigger -> {
-                    if (this.isTriggerBackPressured(trigger)) {
+                    if (this.isTriggerBackPressured(trigger, jobCountsByTrigger)) {
                         int backPressureThreshold = getBackPressureThreshold(trigger);
                         log.debug("⊝ Back pressure (more than {} jobs) for trigger_type={}, tenant={}, integration={}, trigger_id={}", backPressureThreshold, trigger.getType(), trigger.getTenantId(), trigger.getIntegrationId(), trigger.getId());
                         backPressureCount.increment();
@@ -177,26 +184,30 @@ public class TriggerSchedulingService {
         }
     }
 
-    public boolean isTriggerBackPressured(DbTrigger trigger) {
+    /**
+     * Counts the in-flight and retryable jobs of all the triggers with one query per scheduling tick,
+     * instead of two queries per trigger.
+     */
+    private Map<String, TriggerJobCounts> countJobsByTrigger() {
+        return triggeredJobDatabaseService.countJobsByTrigger(IN_FLIGHT_STATUSES, DEFAULT_ATTEMPT_MAX_BY_TRIGGER_TYPE,
+                TriggerBackPressureStrategy.DEFAULT.getFailedJobsMaxAttempt());
+    }
+
+    public boolean isTriggerBackPressured(DbTrigger trigger, Map<String, TriggerJobCounts> jobCountsByTrigger) {
         int backPressureThreshold = getBackPressureThreshold(trigger);
-        TriggerBackPressureStrategy strategy = TriggerBackPressureStrategy.forTriggerType(trigger.getType());
-        int jobCount = 0;
+        TriggerJobCounts jobCounts = jobCountsByTrigger.get(trigger.getId());
+        if (jobCounts == null) {
+            return false;
+        }
 
         // -- count in progress jobs (or soon to be)
-        TriggeredJobFilter filter = TriggeredJobFilter.builder()
-                .statuses(List.of(JobStatus.SCHEDULED, JobStatus.UNASSIGNED, JobStatus.PENDING))
-                .build();
-        jobCount += triggeredJobDatabaseService.filterTriggeredJobs(0, backPressureThreshold, trigger.getId(), filter, null).getRecords().size();
+        int jobCount = jobCounts.getInFlight();
         if (jobCount >= backPressureThreshold) {
             return true;
         }
 
         // -- count retryable jobs
-        filter = TriggeredJobFilter.builder()
-                .statuses(List.of(JobStatus.FAILURE))
-                .belowMaxAttemptsOrDefaultValue(strategy.getFailedJobsMaxAttempt())
-                .build();
-        jobCount += triggeredJobDatabaseService.filterTriggeredJobs(0, backPressureThreshold, trigger.getId(), filter, null).getRecords().size();
+        jobCount += jobCounts.getRetryable();
         // TODO remove debug log
         if (jobCount >= backPressureThreshold) {
             log.debug("(Back-pressured because of failed jobs for triggerType={}, triggerId={}, total={}/{})", trigger.getType(), trigger.getId(), jobCount, backPressureThreshold);
@@ -1,6 +1,7 @@
 package io.levelops.controlplane.database;
 
 import io.levelops.commons.jackson.DefaultObjectMapper;
+import io.levelops.controlplane.database.TriggeredJobDatabaseService.TriggerJobCounts;
 import io.levelops.controlplane.database.TriggeredJobDatabaseService.TriggeredJobFilter;
 import io.levelops.controlplane.models.DbIteration;
 import io.levelops.controlplane.models.DbTriggeredJob;
@@ -14,6 +15,7 @@ import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 
 import javax.sql.DataSource;
 import java.util.List;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -345,4 +347,39 @@ public class DefaultTriggeredJobDatabaseServiceTest {
         // max attempt
         assertThat(triggeredJobDatabaseService.filterTriggeredJobs(0, 2, triggerId, TriggeredJobFilter.builder().belowMaxAttemptsOrDefaultValue(10).build(), null).getRecords().stream().map(DbTriggeredJob::getJobId)).containsExactly(jobId3, jobId2);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testCountJobsByTrigger() {
+        new DefaultTriggerDatabaseService(triggeredJobDatabaseService.getTemplate(), DefaultObjectMapper.get()).ensureTableExistence();
+        String githubTriggerId = "f0240868-b1ff-4ce1-b00a-a2a48cb9d51a";
+        String jiraTriggerId = "f1240868-b1ff-4ce1-b00a-a2a48cb9d51a";
+        String idleTriggerId = "f2240868-b1ff-4ce1-b00a-a2a48cb9d51a";
+        String iterationId = "10000000-252b-41a9-925a-3faf8da4d7cb";
+        triggeredJobDatabaseService.getTemplate().getJdbcTemplate().execute(String.format("INSERT INTO control_plane.triggers (id, type) VALUES ('%s'::uuid, 'GitHub'), ('%s'::uuid, 'jira'), ('%s'::uuid, 'jira');", githubTriggerId, jiraTriggerId, idleTriggerId));
+
+        // github: 2 in flight, 2 failures below the github default of 10 attempts, 1 failure above its own max
+        createJob("10000000-1fdd-439a-bd99-aa515bda1bf9", githubTriggerId, iterationId, JobStatus.SCHEDULED, null, null);
+        createJob("20000000-1fdd-439a-bd99-aa515bda1bf9", githubTriggerId, iterationId, JobStatus.PENDING, null, null);
+        createJob("30000000-1fdd-439a-bd99-aa515bda1bf9", githubTriggerId, iterationId, JobStatus.FAILURE, 7, null);
+        createJob("40000000-1fdd-439a-bd99-aa515bda1bf9", githubTriggerId, iterationId, JobStatus.FAILURE, null, null);
+        createJob("50000000-1fdd-439a-bd99-aa515bda1bf9", githubTriggerId, iterationId, JobStatus.FAILURE, 3, 3);
+        createJob("60000000-1fdd-439a-bd99-aa515bda1bf9", githubTriggerId, iterationId, JobStatus.SUCCESS, null, null);
+        // jira: 1 unassigned, the failure with 7 attempts is above the default of 5
+        createJob("70000000-1fdd-439a-bd99-aa515bda1bf9", jiraTriggerId, iterationId, JobStatus.UNASSIGNED, null, null);
+        createJob("80000000-1fdd-439a-bd99-aa515bda1bf9", jiraTriggerId, iterationId, JobStatus.FAILURE, 7, null);
+        // idle: only done jobs
+        createJob("90000000-1fdd-439a-bd99-aa515bda1bf9", idleTriggerId, iterationId, JobStatus.SUCCESS, null, null);
+
+        Map<String, TriggerJobCounts> counts = triggeredJobDatabaseService.countJobsByTrigger(
+                List.of(JobStatus.SCHEDULED, JobStatus.UNASSIGNED, JobStatus.PENDING), Map.of("github", 10), 5);
+        assertThat(counts).containsOnlyKeys(githubTriggerId, jiraTriggerId);
+        assertThat(counts.get(githubTriggerId)).isEqualTo(TriggerJobCounts.builder().inFlight(2).retryable(2).build());
+        assertThat(counts.get(jiraTriggerId)).isEqualTo(TriggerJobCounts.builder().inFlight(1).retryable(0).build());
+    }
+
+    private void createJob(String jobId, String triggerId, String iterationId, JobStatus status, Integer attemptCount, Integer attemptMax) {
+        triggeredJobDatabaseService.createTriggeredJob(jobId, triggerId, iterationId, 10L, false);
+        triggeredJobDatabaseService.getTemplate().getJdbcTemplate().update("INSERT INTO control_plane.jobs (id, status, attempt_count, attempt_max) VALUES (?::uuid, ?::job_status_t, ?, ?)",
+                jobId, status.toString(), attemptCount, attemptMax);
+    }
+}
@@ -37,6 +37,8 @@ public class DefaultTriggeredJobServiceTest {
 
     @Mock
     AgentRegistryService agentRegistryService;
+    @Mock
+    JobDispatchService jobDispatchService;
 
     @Before
     public void setUp() throws Exception {
@@ -47,7 +49,7 @@ public class DefaultTriggeredJobServiceTest {
         triggeredJobDatabaseService = new DefaultTriggeredJobDatabaseService(template, DefaultObjectMapper.get());
         jobDatabaseService = new JobDatabaseService(template, DefaultObjectMapper.get());
         IngestionResultMergingService ingestionResultMergingService = new IngestionResultMergingService();
-        jobTrackingService = new JobTrackingService(objectMapper, jobDatabaseService, agentRegistryService, ingestionResultMergingService);
+        jobTrackingService = new JobTrackingService(objectMapper, jobDatabaseService, agentRegistryService, ingestionResultMergingService, jobDispatchService);
         defaultTriggeredJobService = new DefaultTriggeredJobService(jobTrackingService, triggeredJobDatabaseService);
 
         List.of(
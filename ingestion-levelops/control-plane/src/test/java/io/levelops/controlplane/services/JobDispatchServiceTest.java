@@ -0,0 +1,63 @@
+package io.levelops.controlplane.services;
+
+import io.levelops.commons.models.ListResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class JobDispatchServiceTest {
+
+    private JobDispatchService jobDispatchService;
+
+    @Before
+    public void setUp() {
+        // long recheck interval so that only notifications wake up waiters
+        jobDispatchService = new JobDispatchService(3600);
+    }
+
+    @After
+    public void tearDown() {
+        jobDispatchService.shutdown();
+    }
+
+    @Test
+    public void testAvailableRightAway() {
+        DeferredResult<ListResponse<String>> result = jobDispatchService.waitFor(() -> List.of("job1"), 30);
+        assertThat(result.hasResult()).isTrue();
+        assertThat(((ListResponse<?>) result.getResult()).getRecords()).containsExactly("job1");
+        assertThat(jobDispatchService.getWaiterCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testFailedFirstCheckIsNotKept() {
+        assertThatThrownBy(() -> jobDispatchService.waitFor(() -> {
+            throw new IllegalStateException("db down");
+        }, 30)).isInstanceOf(IllegalStateException.class);
+        assertThat(jobDispatchService.getWaiterCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void testWakeUpOnNotify() throws InterruptedException {
+        List<String> jobs = new CopyOnWriteArrayList<>();
+        DeferredResult<ListResponse<String>> result = jobDispatchService.waitFor(() -> List.copyOf(jobs), 30);
+        assertThat(result.hasResult()).isFalse();
+
+        jobDispatchService.notifyJobsScheduled();
+        jobs.add("job1");
+        jobDispatchService.notifyJobsScheduled();
+
+        for (int i = 0; i < 50 && !result.hasResult(); i++) {
+            TimeUnit.MILLISECONDS.sleep(100);
+        }
+        assertThat(result.hasResult()).isTrue();
+        assertThat(((ListResponse<?>) result.getResult()).getRecords()).containsExactly("job1");
+    }
+}
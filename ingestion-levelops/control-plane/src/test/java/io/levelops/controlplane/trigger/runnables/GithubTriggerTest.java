@@ -9,6 +9,7 @@ import io.levelops.controlplane.database.TriggerDatabaseService;
 import io.levelops.controlplane.discovery.AgentRegistryService;
 import io.levelops.controlplane.models.DbTrigger;
 import io.levelops.controlplane.services.DefaultTriggeredJobService;
+import io.levelops.controlplane.services.JobDispatchService;
 import io.levelops.controlplane.services.JobTrackingService;
 import io.levelops.controlplane.services.TriggeredJobService;
 import io.levelops.ingestion.integrations.github.models.GithubIterativeScanQuery;
@@ -52,6 +53,8 @@ public class GithubTriggerTest {
     @Mock
     private AgentRegistryService agentRegistryService;
     @Mock
+    private JobDispatchService jobDispatchService;
+    @Mock
     private TriggeredJobService mockTriggeredJobService;
 
     @Before
@@ -62,7 +65,7 @@ public class GithubTriggerTest {
         mapper = DefaultObjectMapper.get();
         jobDatabaseService = new JobDatabaseService(template, mapper);
         var ingestionMergingService = new IngestionResultMergingService();
-        jobTrackingService = new JobTrackingService(mapper, jobDatabaseService, agentRegistryService, ingestionMergingService);
+        jobTrackingService = new JobTrackingService(mapper, jobDatabaseService, agentRegistryService, ingestionMergingService, jobDispatchService);
         var triggeredJobDatabaseService = new DefaultTriggeredJobDatabaseService(template, mapper);
 
         TriggeredJobService triggeredJobService = new DefaultTriggeredJobService(jobTrackingService, triggeredJobDatabaseService);
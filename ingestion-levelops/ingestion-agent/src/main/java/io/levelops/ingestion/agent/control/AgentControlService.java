@@ -40,6 +40,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -50,6 +51,8 @@ import java.util.stream.Collectors;
  * Service responsible of pulling job requests from control-plane and reporting jobs status back,
  * as well as sending a heartbeat for agent registration purposes.
  * Uses a scheduled thread with a fixed interval.
+ * If long-polling is enabled, job requests are instead pulled by a dedicated thread that waits on the control-plane
+ * until work is available, so that new jobs start right away without polling at a high rate.
  */
 @Slf4j
 @Getter
@@ -57,6 +60,7 @@ public class AgentControlService {
 
     private static final int WARMUP_DELAY_SECS = 5;
     private static final long WAIT_IN_S_WHEN_RATE_LIMITED = 5;
+    private static final long WAIT_IN_S_WHEN_BUSY = 1;
     private final IngestionAgentControlClient controlClient;
     private final String agentId;
     private final String agentType;
@@ -70,6 +74,7 @@ public class AgentControlService {
     private final IngestionEngine ingestionEngine;
     private final JobController jobController;
     private final ScheduledExecutorService scheduler;
+    private final ExecutorService jobFeedExecutor;
 
     /**
      * Jobs marked as reserved belong to integrations that must be ingested by a dedicated agent,
@@ -83,6 +88,7 @@ public class AgentControlService {
     private boolean autoClearJobs;
     private boolean enableScheduling;
     private long schedulingIntervalInSec;
+    private long longPollTimeoutInSec;
 
     private boolean firstRegistrationDone = false;
 
@@ -111,6 +117,39 @@ public class AgentControlService {
 
     }
 
+    @Slf4j
+    private static class JobFeedTask implements Runnable {
+
+        private final AgentControlService agentControlService;
+
+        public JobFeedTask(AgentControlService agentControlService) {
+            this.agentControlService = agentControlService;
+        }
+
+        @Override
+        public void run() {
+            try {
+                TimeUnit.SECONDS.sleep(WARMUP_DELAY_SECS);
+                while (!Thread.currentThread().isInterrupted()) {
+                    try {
+                        agentControlService.waitForJobs();
+                    } catch (IngestionAgentControlClient.ControlException e) {
+                        log.warn("Could not poll job requests from control-plane", e);
+                        TimeUnit.SECONDS.sleep(agentControlService.schedulingIntervalInSec);
+                    } catch (RuntimeInterruptedException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        log.error("Error while polling job requests", e);
+                        TimeUnit.SECONDS.sleep(agentControlService.schedulingIntervalInSec);
+                    }
+                }
+            } catch (InterruptedException | RuntimeInterruptedException e) {
+                log.info("Job feed stopped");
+            }
+        }
+
+    }
+
     @Builder
     public AgentControlService(IngestionAgentControlClient controlClient,
                                String agentId,
@@ -124,6 +163,7 @@ public class AgentControlService {
                                Boolean autoClearJobs,
                                Boolean enableScheduling,
                                Long schedulingIntervalInSec,
+                               Long longPollTimeoutInSec,
                                Boolean reservedJobsFilter) {
         // TODO add state validation, e.g. disable if controlClient is not initialized?
         this.controlClient = controlClient;
@@ -138,9 +178,23 @@ public class AgentControlService {
         this.autoClearJobs = Boolean.TRUE.equals(autoClearJobs);
         this.enableScheduling = Boolean.TRUE.equals(enableScheduling);
         this.schedulingIntervalInSec = ObjectUtils.defaultIfNull(schedulingIntervalInSec, TimeUnit.MINUTES.toSeconds(1));
+        this.longPollTimeoutInSec = ObjectUtils.defaultIfNull(longPollTimeoutInSec, 0L);
         this.reservedJobsFilter = reservedJobsFilter;
-        log.info("control_plane_scheduling={}, scheduling_interval_sec={}, auto_clear_jobs={}", enableScheduling, schedulingIntervalInSec, autoClearJobs);
+        log.info("control_plane_scheduling={}, scheduling_interval_sec={}, long_poll_timeout_sec={}, auto_clear_jobs={}", enableScheduling, schedulingIntervalInSec, this.longPollTimeoutInSec, autoClearJobs);
         this.scheduler = this.enableScheduling ? initScheduling(this, this.schedulingIntervalInSec) : null;
+        this.jobFeedExecutor = this.enableScheduling && isLongPollEnabled() ? initJobFeed(this) : null;
+    }
+
+    private static ExecutorService initJobFeed(AgentControlService agentControlService) {
+        ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("job-feed-%d")
+                .build());
+        executor.submit(new JobFeedTask(agentControlService));
+        return executor;
+    }
+
+    public boolean isLongPollEnabled() {
+        return longPollTimeoutInSec > 0;
     }
 
     private static ScheduledExecutorService initScheduling(AgentControlService agentControlService, long schedulingIntervalInSec) {
@@ -231,10 +285,28 @@ public class AgentControlService {
     }
 
     public void syncJobs() {
-        findJobs();
+        if (!isLongPollEnabled()) {
+            findJobs();
+        }
         reportJobs();
     }
 
+    /**
+     * Waits on the control-plane for as many job requests as the engine can take, and starts them.
+     */
+    public void waitForJobs() throws IngestionAgentControlClient.ControlException, InterruptedException {
+        int capacity = ingestionEngine.getAvailableCapacity();
+        if (capacity <= 0) {
+            TimeUnit.SECONDS.sleep(WAIT_IN_S_WHEN_BUSY);
+            return;
+        }
+        List<CreateJobRequest> createJobRequestList = controlClient.pollJobRequests(generateMyHandle(false), reservedJobsFilter, capacity, longPollTimeoutInSec);
+        if (CollectionUtils.isNotEmpty(createJobRequestList)) {
+            log.info("Found {} scheduled job request(s)", createJobRequestList.size());
+            startJobs(createJobRequestList);
+        }
+    }
+
     public void findJobs() {
         if (!ingestionEngine.canAcceptJobs()) {
             log.debug("Too busy, will not look for jobs");
@@ -245,7 +317,10 @@ public class AgentControlService {
         if (createJobRequestList.size() > 0) {
             log.info("Found {} scheduled job request(s)", createJobRequestList.size());
         }
+        startJobs(createJobRequestList);
+    }
 
+    private void startJobs(Collection<CreateJobRequest> createJobRequestList) {
         MutableInt createdJobs = new MutableInt(0);
         for (CreateJobRequest createJobRequest : createJobRequestList) {
             // NB: only id and controller name are available
@@ -260,7 +335,7 @@ public class AgentControlService {
 
             if (!ingestionEngine.canAcceptJobs()) {
                 log.debug("Too busy, will not look for any more jobs");
-                return;
+                break;
             }
         }
 
@@ -138,13 +138,21 @@ public class IngestionEngine {
     }
 
     public boolean canAcceptJobs() {
+        return getAvailableCapacity() > 0;
+    }
+
+    /**
+     * Number of jobs that can still be submitted before the engine is busy.
+     */
+    public int getAvailableCapacity() {
         if (jobs.size() > JOB_RETENTION_MAX_COUNT) {
             log.warn("Exceeded maximum job retention count... Clearing out jobs marked as done!");
             clearJobs();
         }
-        return jobs.values().stream()
+        long runningJobs = jobs.values().stream()
                 .filter(job -> !job.isDone())
-                .count() < nbOfThreads;
+                .count();
+        return (int) Math.max(0, nbOfThreads - runningJobs);
     }
 
     public synchronized <Q extends DataQuery> Optional<EngineJob> submitJob(DataController<Q> controller,
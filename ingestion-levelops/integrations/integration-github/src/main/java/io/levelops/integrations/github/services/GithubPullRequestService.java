@@ -1,21 +1,29 @@
 package io.levelops.integrations.github.services;
 
+import io.levelops.commons.functional.StreamUtils;
 import io.levelops.integrations.github.client.GithubClientException;
 import io.levelops.integrations.github.client.GithubClient;
 import io.levelops.integrations.github.model.GithubApiCommit;
 import io.levelops.integrations.github.model.GithubConverters;
+import io.levelops.integrations.github.model.GithubPullRequestGraphQlResponse.Connection;
+import io.levelops.integrations.github.model.GithubPullRequestGraphQlResponse.PullRequestConnections;
 import io.levelops.integrations.github.models.GithubCommit;
 import io.levelops.integrations.github.models.GithubPullRequest;
 import io.levelops.integrations.github.models.GithubReview;
 import lombok.extern.log4j.Log4j2;
 import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.mutable.MutableInt;
 
 import java.time.Instant;
 import java.util.Collections;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
@@ -23,14 +31,32 @@ import java.util.stream.StreamSupport;
 @Log4j2
 public class GithubPullRequestService {
 
+    // GraphQL node limit is 500k per query: 50 PRs * 3 connections * 100 nodes stays far below it
+    private static final int GRAPHQL_BATCH_SIZE = 50;
+    private static final int GRAPHQL_PAGE_SIZE = 100;
+
     public List<GithubPullRequest> getPullRequests(GithubClient client, String repoId, Instant from, Instant to, boolean fetchPrCommits, boolean fetchPrReviews, boolean fetchPrPatches) {
+        return getPullRequests(client, repoId, from, to, fetchPrCommits, fetchPrReviews, fetchPrPatches, false);
+    }
+
+    /**
+     * @param useGraphQl if true, reviews, comments and commits are fetched for batches of PRs with GraphQL queries
+     *                   instead of paginating through 3 REST endpoints per PR
+     */
+    public List<GithubPullRequest> getPullRequests(GithubClient client, String repoId, Instant from, Instant to, boolean fetchPrCommits, boolean fetchPrReviews, boolean fetchPrPatches, boolean useGraphQl) {
 
         MutableInt nbPullRequests = new MutableInt(0);
         MutableInt nbReviews = new MutableInt(0);
-        return StreamSupport.stream(client.streamPullRequests(repoId).spliterator(), false)
+        Stream<GithubPullRequest> pullRequests = StreamSupport.stream(client.streamPullRequests(repoId).spliterator(), false)
                 .filter(pr -> pr.getUpdatedAt() != null && pr.getUpdatedAt().toInstant().isBefore(to))
-                .takeWhile(pr -> pr.getUpdatedAt() != null && pr.getUpdatedAt().toInstant().isAfter(from))
-                .map(pr -> enrichPullRequest(client, repoId, pr, fetchPrCommits, fetchPrReviews, fetchPrPatches))
+                .takeWhile(pr -> pr.getUpdatedAt() != null && pr.getUpdatedAt().toInstant().isAfter(from));
+        if (useGraphQl && (fetchPrCommits || fetchPrReviews)) {
+            pullRequests = StreamUtils.partition(pullRequests, GRAPHQL_BATCH_SIZE)
+                    .flatMap(batch -> enrichPullRequestsWithGraphQl(client, repoId, batch, fetchPrCommits, fetchPrReviews, fetchPrPatches).stream());
+        } else {
+            pullRequests = pullRequests.map(pr -> enrichPullRequest(client, repoId, pr, fetchPrCommits, fetchPrReviews, fetchPrPatches));
+        }
+        return pullRequests
                 .filter(Objects::nonNull)
                 .peek(pr -> {
                     nbPullRequests.increment();
@@ -42,6 +68,48 @@ public class GithubPullRequestService {
                 .collect(Collectors.toList());
     }
 
+    private List<GithubPullRequest> enrichPullRequestsWithGraphQl(GithubClient client, String repoId, List<GithubPullRequest> prs, boolean fetchPrCommits, boolean fetchPrReviews, boolean fetchPrPatches) {
+        Set<Connection> connections = EnumSet.noneOf(Connection.class);
+        if (fetchPrReviews) {
+            connections.add(Connection.REVIEWS);
+            connections.add(Connection.COMMENTS);
+        }
+        if (fetchPrCommits) {
+            connections.add(Connection.COMMITS);
+        }
+        List<Integer> prNumbers = prs.stream()
+                .filter(Objects::nonNull)
+                .map(GithubPullRequest::getNumber)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        Map<Integer, PullRequestConnections> connectionsByPr;
+        try {
+            connectionsByPr = client.getPullRequestConnections(repoId, prNumbers, connections, GRAPHQL_PAGE_SIZE).stream()
+                    .collect(Collectors.toMap(PullRequestConnections::getNumber, Function.identity(), (a, b) -> a));
+        } catch (GithubClientException e) {
+            log.warn("Failed to fetch PRs with GraphQL for repo={}, falling back to REST for this batch", repoId, e);
+            connectionsByPr = Map.of();
+        }
+        Map<Integer, PullRequestConnections> finalConnectionsByPr = connectionsByPr;
+        return prs.stream()
+                .map(pr -> {
+                    PullRequestConnections prConnections = (pr == null || pr.getNumber() == null) ? null : finalConnectionsByPr.get(pr.getNumber());
+                    if (prConnections == null) {
+                        return enrichPullRequest(client, repoId, pr, fetchPrCommits, fetchPrReviews, fetchPrPatches);
+                    }
+                    List<GithubReview> reviews = fetchPrReviews
+                            ? ListUtils.union(ListUtils.emptyIfNull(prConnections.getReviews()), ListUtils.emptyIfNull(prConnections.getComments()))
+                            : Collections.emptyList();
+                    List<GithubCommit> commits = fetchPrCommits
+                            ? ListUtils.emptyIfNull(prConnections.getCommits()).stream()
+                            .map(GithubConverters::parseGithubApiCommit)
+                            .collect(Collectors.toList())
+                            : Collections.emptyList();
+                    return buildPullRequest(client, repoId, pr, reviews, commits, fetchPrPatches);
+                })
+                .collect(Collectors.toList());
+    }
+
     private GithubPullRequest enrichPullRequest(GithubClient client, String repoId, GithubPullRequest pr, boolean fetchPrCommits, boolean fetchPrReviews, boolean fetchPrPatches) {
         if (pr == null || pr.getNumber() == null) {
             return pr;
@@ -56,7 +124,10 @@ public class GithubPullRequestService {
                 .map(GithubConverters::parseGithubApiCommit)
                 .collect(Collectors.toList())
                 : Collections.emptyList();
+        return buildPullRequest(client, repoId, pr, reviews, commits, fetchPrPatches);
+    }
 
+    private GithubPullRequest buildPullRequest(GithubClient client, String repoId, GithubPullRequest pr, List<GithubReview> reviews, List<GithubCommit> commits, boolean fetchPrPatches) {
         List<String> patches = null;
         GithubApiCommit mergeCommit = null;
         if (fetchPrPatches && StringUtils.isNotBlank(pr.getMergeCommitSha())) {
@@ -112,7 +112,8 @@ public class GithubRepositoryDataSource implements DataSource<GithubRepository,
                     integrationKey, repository, from, to, onboarding,
                     BooleanUtils.isNotFalse(query.getFetchPrCommits()),
                     BooleanUtils.isNotFalse(query.getFetchPrReviews()),
-                    BooleanUtils.isNotFalse(query.getFetchPrPatches()));
+                    BooleanUtils.isNotFalse(query.getFetchPrPatches()),
+                    BooleanUtils.isTrue(query.getFetchPrsWithGraphQl()));
             return BasicData.of(GithubRepository.class, githubRepository);
         } catch (GithubClientException e) {
             throw new FetchException("Failed to fetch Github repository for query=" + query, e);
@@ -204,7 +205,8 @@ public class GithubRepositoryDataSource implements DataSource<GithubRepository,
                                 levelopsClient, integrationKey, repo, from, to, onboarding,
                                 BooleanUtils.isNotFalse(query.getFetchPrCommits()),
                                 BooleanUtils.isNotFalse(query.getFetchPrReviews()),
-                                BooleanUtils.isNotFalse(query.getFetchPrPatches())));
+                                BooleanUtils.isNotFalse(query.getFetchPrPatches()),
+                                BooleanUtils.isTrue(query.getFetchPrsWithGraphQl())));
                         log.info("Successfully processed repo={} (enrichments={}, jobId={})", getRepoName(repo), enrichments, jobContext.getJobId());
                         return enrichedRepository;
                     } catch (Exception e) {
@@ -268,7 +270,8 @@ public class GithubRepositoryDataSource implements DataSource<GithubRepository,
                                                       boolean onboarding,
                                                       boolean fetchPrCommits,
                                                       boolean fetchPrReviews,
-                                                      boolean fetchPrPatches) throws FetchException {
+                                                      boolean fetchPrPatches,
+                                                      boolean fetchPrsWithGraphQl) throws FetchException {
         Map<String, Long> languages = null;
         List<GithubEvent> events = null;
         List<GithubPullRequest> pullRequests = null;
@@ -283,7 +286,7 @@ public class GithubRepositoryDataSource implements DataSource<GithubRepository,
             events = githubEventService.getEvents(repository.getId(), from, to, levelopsClient);
         }
         if (enrichments.contains(Enrichment.PULL_REQUESTS)) {
-            pullRequests = pullRequestService.getPullRequests(levelopsClient, repository.getId(), from, to, fetchPrCommits, fetchPrReviews, fetchPrPatches);
+            pullRequests = pullRequestService.getPullRequests(levelopsClient, repository.getId(), from, to, fetchPrCommits, fetchPrReviews, fetchPrPatches, fetchPrsWithGraphQl);
         }
         if (enrichments.contains(Enrichment.TAGS)) {
             tags = githubTagService.getTags(levelopsClient, repository.getOwner().getLogin(), repository.getName(), DEFAULT_PER_PAGE);
@@ -338,6 +341,8 @@ public class GithubRepositoryDataSource implements DataSource<GithubRepository,
         Boolean fetchPrReviews;
         @JsonProperty("fetch_pr_patches")
         Boolean fetchPrPatches;
+        @JsonProperty("fetch_prs_with_graphql")
+        Boolean fetchPrsWithGraphQl; // batch PR reviews/comments/commits with GraphQL
         // endregion
     }
 
@@ -0,0 +1,102 @@
+package io.levelops.integrations.github.services;
+
+import io.levelops.integrations.github.client.GithubClient;
+import io.levelops.integrations.github.client.GithubClientException;
+import io.levelops.integrations.github.model.GithubApiCommit;
+import io.levelops.integrations.github.model.GithubPullRequestGraphQlResponse.PullRequestConnections;
+import io.levelops.integrations.github.models.GithubCommit;
+import io.levelops.integrations.github.models.GithubPullRequest;
+import io.levelops.integrations.github.models.GithubReview;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class GithubPullRequestServiceTest {
+    private static final String REPO_ID = "owner/repo";
+    private static final Instant NOW = Instant.now();
+
+    private GithubClient client;
+    private GithubPullRequestService service;
+
+    @Before
+    public void setUp() {
+        client = Mockito.mock(GithubClient.class);
+        service = new GithubPullRequestService();
+        // sorted by updated_at desc, like the API returns them
+        when(client.streamPullRequests(REPO_ID)).thenAnswer(invocation -> Stream.of(1, 2, 3)
+                .map(number -> GithubPullRequest.builder()
+                        .number(number)
+                        .updatedAt(Date.from(NOW.minus(number, ChronoUnit.HOURS)))
+                        .build()));
+        when(client.streamReviews(eq(REPO_ID), anyInt())).thenAnswer(invocation -> Stream.of(
+                GithubReview.builder().id("rest-review-" + invocation.getArgument(1)).build()));
+        when(client.streamIssueComments(eq(REPO_ID), anyInt())).thenAnswer(invocation -> Stream.of(
+                GithubReview.builder().id("rest-comment-" + invocation.getArgument(1)).build()));
+        when(client.streamPullRequestCommits(eq(REPO_ID), anyInt())).thenAnswer(invocation -> Stream.of(
+                GithubApiCommit.builder().sha("rest-commit-" + invocation.getArgument(1)).build()));
+    }
+
+    private List<GithubPullRequest> getPullRequests() {
+        return service.getPullRequests(client, REPO_ID, NOW.minus(1, ChronoUnit.DAYS), NOW, true, true, false, true);
+    }
+
+    @Test
+    public void testGraphQlFailureFallsBackToRestForTheBatch() throws GithubClientException {
+        when(client.getPullRequestConnections(anyString(), any(), any(), anyInt()))
+                .thenThrow(new GithubClientException("Failed to get pull request connections"));
+
+        List<GithubPullRequest> prs = getPullRequests();
+
+        assertThat(prs).extracting(GithubPullRequest::getNumber).containsExactly(1, 2, 3);
+        prs.forEach(pr -> {
+            assertThat(pr.getReviews()).extracting(GithubReview::getId)
+                    .containsExactly("rest-review-" + pr.getNumber(), "rest-comment-" + pr.getNumber());
+            assertThat(pr.getCommits()).extracting(GithubCommit::getSha)
+                    .containsExactly("rest-commit-" + pr.getNumber());
+        });
+        verify(client, times(1)).getPullRequestConnections(anyString(), any(), any(), anyInt());
+        verify(client, times(3)).streamReviews(eq(REPO_ID), anyInt());
+    }
+
+    @Test
+    public void testMissingPullRequestFallsBackToRest() throws GithubClientException {
+        // PR 2 was not returned by GraphQL
+        when(client.getPullRequestConnections(anyString(), any(), any(), anyInt())).thenReturn(Stream.of(1, 3)
+                .map(number -> PullRequestConnections.builder()
+                        .number(number)
+                        .reviews(List.of(GithubReview.builder().id("graphql-review-" + number).build()))
+                        .comments(List.of(GithubReview.builder().id("graphql-comment-" + number).build()))
+                        .commits(List.of(GithubApiCommit.builder().sha("graphql-commit-" + number).build()))
+                        .build())
+                .collect(Collectors.toList()));
+
+        List<GithubPullRequest> prs = getPullRequests();
+
+        assertThat(prs).extracting(GithubPullRequest::getNumber).containsExactly(1, 2, 3);
+        assertThat(prs.get(0).getReviews()).extracting(GithubReview::getId).containsExactly("graphql-review-1", "graphql-comment-1");
+        assertThat(prs.get(0).getCommits()).extracting(GithubCommit::getSha).containsExactly("graphql-commit-1");
+        assertThat(prs.get(1).getReviews()).extracting(GithubReview::getId).containsExactly("rest-review-2", "rest-comment-2");
+        assertThat(prs.get(1).getCommits()).extracting(GithubCommit::getSha).containsExactly("rest-commit-2");
+        assertThat(prs.get(2).getReviews()).extracting(GithubReview::getId).containsExactly("graphql-review-3", "graphql-comment-3");
+        verify(client, times(1)).streamReviews(REPO_ID, 2);
+        verify(client, never()).streamReviews(REPO_ID, 1);
+        verify(client, never()).streamPullRequestCommits(REPO_ID, 3);
+    }
+}
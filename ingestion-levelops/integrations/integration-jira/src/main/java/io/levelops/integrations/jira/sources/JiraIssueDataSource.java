@@ -2,6 +2,8 @@ package io.levelops.integrations.jira.sources;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import io.levelops.commons.inventory.keys.IntegrationKey;
 import io.levelops.ingestion.controllers.generic.IntegrationQuery;
 import io.levelops.ingestion.data.BasicData;
@@ -23,10 +25,14 @@ import lombok.extern.log4j.Log4j2;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.Validate;
+import org.apache.commons.lang3.tuple.Pair;
 
+import javax.annotation.Nullable;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -36,10 +42,28 @@ public class JiraIssueDataSource implements DataSource<JiraIssue, JiraIssueDataS
     private static final Set<String> EXPAND = Set.of("changelog");
     private static final Set<String> FIELDS = Set.of("*all");
 
+    private static final long DEFAULT_VERSION_CACHE_TTL_MINUTES = 5;
+
     private final JiraClientFactory jiraClientFactory;
+    // versions are shared by all the issues of a project: cache them across the pages of a job
+    private final Cache<Pair<IntegrationKey, String>, JiraVersion> versionCache;
+    // projects whose versions were bulk loaded into versionCache (false if that failed)
+    private final Cache<Pair<IntegrationKey, String>, Boolean> loadedProjects;
 
     public JiraIssueDataSource(JiraClientFactory jiraClientFactory) {
+        this(jiraClientFactory, DEFAULT_VERSION_CACHE_TTL_MINUTES);
+    }
+
+    public JiraIssueDataSource(JiraClientFactory jiraClientFactory, long versionCacheTtlMinutes) {
         this.jiraClientFactory = jiraClientFactory;
+        this.versionCache = CacheBuilder.newBuilder()
+                .maximumSize(100000)
+                .expireAfterWrite(versionCacheTtlMinutes, TimeUnit.MINUTES)
+                .build();
+        this.loadedProjects = CacheBuilder.newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(versionCacheTtlMinutes, TimeUnit.MINUTES)
+                .build();
     }
 
     @Override
@@ -59,7 +83,7 @@ public class JiraIssueDataSource implements DataSource<JiraIssue, JiraIssueDataS
             if (CollectionUtils.isEmpty(searchResult.getIssues())) {
                 return BasicData.empty(JiraIssue.class);
             }
-            return BasicData.of(JiraIssue.class, enrichJiraIssue(searchResult.getIssues().get(0), jiraClient));
+            return BasicData.of(JiraIssue.class, enrichJiraIssue(searchResult.getIssues().get(0), query.getIntegrationKey(), jiraClient));
         } catch (JiraClientException e) {
             throw new FetchException("Could not fetch Jira projects", e);
         }
@@ -69,6 +93,10 @@ public class JiraIssueDataSource implements DataSource<JiraIssue, JiraIssueDataS
     public Stream<Data<JiraIssue>> fetchMany(JiraIssueQuery query) throws FetchException {
         Validate.notNull(query, "query cannot be null.");
         Validate.notNull(query.getIntegrationKey(), "query.getIntegrationKey() cannot be null.");
+        if (query.getSkip() == null || query.getSkip() == 0) {
+            // first page of a job: do not reuse the versions loaded by a previous job
+            invalidateVersions(query.getIntegrationKey());
+        }
         try {
             JiraClient jiraClient = jiraClientFactory.get(query.getIntegrationKey());
             String jql = StringUtils.defaultIfBlank(query.getJql(), "");
@@ -80,43 +108,92 @@ public class JiraIssueDataSource implements DataSource<JiraIssue, JiraIssueDataS
                     .maxResults(query.getLimit())
                     .build());
             return searchResult.getIssues().stream()
-                    .map(jiraIssue -> enrichJiraIssue(jiraIssue, jiraClient))
+                    .map(jiraIssue -> enrichJiraIssue(jiraIssue, query.getIntegrationKey(), jiraClient))
                     .map(BasicData.mapper(JiraIssue.class));
         } catch (JiraClientException e) {
             throw new FetchException("Could not fetch Jira issues", e);
         }
     }
 
-    private JiraIssue enrichJiraIssue(JiraIssue issue, JiraClient jiraClient) {
+    private void invalidateVersions(IntegrationKey integrationKey) {
+        loadedProjects.asMap().keySet().removeIf(key -> integrationKey.equals(key.getLeft()));
+        versionCache.asMap().keySet().removeIf(key -> integrationKey.equals(key.getLeft()));
+    }
+
+    private JiraIssue enrichJiraIssue(JiraIssue issue, IntegrationKey integrationKey, JiraClient jiraClient) {
         return issue.toBuilder()
-                .fields(enrichJiraIssueFields(issue, jiraClient))
+                .fields(enrichJiraIssueFields(issue, integrationKey, jiraClient))
                 .build();
     }
 
-    private JiraIssueFields enrichJiraIssueFields(final JiraIssue issue, final JiraClient jiraClient) {
+    private JiraIssueFields enrichJiraIssueFields(final JiraIssue issue, final IntegrationKey integrationKey, final JiraClient jiraClient) {
         var originalFields = issue.getFields();
+        String projectId = originalFields.getProject() != null ? originalFields.getProject().getId() : null;
         var newFields = issue.getFields().toBuilder()
-                        .versions(getJiraVersions(jiraClient, issue.getFields().getVersions()))
-                        .fixVersions(getJiraVersions(jiraClient, issue.getFields().getFixVersions()))
+                        .versions(getJiraVersions(jiraClient, integrationKey, projectId, issue.getFields().getVersions()))
+                        .fixVersions(getJiraVersions(jiraClient, integrationKey, projectId, issue.getFields().getFixVersions()))
                         .build();
         // quick fix for LEV-3569. Best fix would be to fix the serialization/builder issue with dynamicFields in JiraIssueFields
         originalFields.getDynamicFields().entrySet().forEach(entry -> newFields.addDynamicField(entry.getKey(), entry.getValue()));
         return newFields;
     }
 
-    private List<JiraVersion> getJiraVersions(JiraClient jiraClient, List<JiraVersion> versions) {
+    private List<JiraVersion> getJiraVersions(JiraClient jiraClient, IntegrationKey integrationKey, @Nullable String projectId, List<JiraVersion> versions) {
         List<JiraVersion> jiraVersions = Collections.emptyList();
         if (CollectionUtils.isNotEmpty(versions)) {
-            jiraVersions = versions.stream().map(jiraVersion -> {
+            jiraVersions = versions.stream()
+                    .map(jiraVersion -> getJiraVersion(jiraClient, integrationKey, StringUtils.firstNonBlank(jiraVersion.getProjectId(), projectId), jiraVersion))
+                    .collect(Collectors.toList());
+        }
+        return jiraVersions;
+    }
+
+    private JiraVersion getJiraVersion(JiraClient jiraClient, IntegrationKey integrationKey, @Nullable String projectId, JiraVersion jiraVersion) {
+        if (jiraVersion.getId() == null) {
+            return jiraVersion;
+        }
+        Pair<IntegrationKey, String> versionKey = Pair.of(integrationKey, jiraVersion.getId());
+        JiraVersion cachedVersion = versionCache.getIfPresent(versionKey);
+        if (cachedVersion == null && projectId != null && loadProjectVersions(jiraClient, integrationKey, projectId)) {
+            cachedVersion = versionCache.getIfPresent(versionKey);
+        }
+        if (cachedVersion != null) {
+            return cachedVersion;
+        }
+        // not in the project's versions (e.g. created since they were loaded)
+        try {
+            JiraVersion version = jiraClient.getJiraVersion(jiraVersion);
+            versionCache.put(versionKey, version);
+            return version;
+        } catch (JiraClientException e) {
+            log.error("Unable to fetch jira fixVersion with id : " + jiraVersion.getId(), e);
+            return jiraVersion;
+        }
+    }
+
+    /**
+     * Loads all the versions of a project into the cache with a single call, at most once per job (or TTL).
+     *
+     * @return false if the versions could not be loaded
+     */
+    private boolean loadProjectVersions(JiraClient jiraClient, IntegrationKey integrationKey, String projectId) {
+        try {
+            return loadedProjects.get(Pair.of(integrationKey, projectId), () -> {
                 try {
-                    return jiraClient.getJiraVersion(jiraVersion);
+                    List<JiraVersion> projectVersions = jiraClient.getProjectVersions(projectId);
+                    CollectionUtils.emptyIfNull(projectVersions).stream()
+                            .filter(version -> version.getId() != null)
+                            .forEach(version -> versionCache.put(Pair.of(integrationKey, version.getId()), version));
+                    log.debug("Loaded {} versions of jira project {}", CollectionUtils.size(projectVersions), projectId);
+                    return true;
                 } catch (JiraClientException e) {
-                    log.error("Unable to fetch jira fixVersion with id : " + jiraVersion.getId(), e);
-                    return jiraVersion;
+                    log.warn("Unable to fetch the versions of jira project {}, falling back to fetching them one by one", projectId, e);
+                    return false;
                 }
-            }).collect(Collectors.toList());
+            });
+        } catch (ExecutionException e) {
+            return false;
         }
-        return jiraVersions;
     }
 
     @Value
@@ -2,21 +2,37 @@ package io.levelops.integrations.jira.sources;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import io.levelops.commons.functional.IngestionFailure;
+import io.levelops.commons.inventory.keys.IntegrationKey;
 import io.levelops.commons.jackson.DefaultObjectMapper;
 import io.levelops.ingestion.data.BasicData;
 import io.levelops.ingestion.data.Data;
+import io.levelops.ingestion.exceptions.FetchException;
+import io.levelops.integrations.jira.client.JiraClient;
+import io.levelops.integrations.jira.client.JiraClientException;
+import io.levelops.integrations.jira.client.JiraClientFactory;
 import io.levelops.integrations.jira.models.JiraApiSearchResult;
 import io.levelops.integrations.jira.models.JiraIssue;
+import io.levelops.integrations.jira.models.JiraVersion;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.tuple.ImmutablePair;
 import org.junit.Test;
+import org.mockito.Mockito;
 
+import java.io.IOException;
 import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
 public class JiraIssueDataSourceTest  {
     private Stream<Data<JiraIssue>> getData() throws JsonProcessingException {
         String serialized = "{\"startAt\":0,\"maxResults\":50,\"total\":2,\"issues\":[]}";
@@ -41,4 +57,52 @@ public class JiraIssueDataSourceTest  {
         List<ImmutablePair<List<JiraIssue>, List<IngestionFailure>>> results = stream.collect(Collectors.toList());
         System.out.println(results.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testVersionCache() throws IOException, JiraClientException, FetchException {
+        String serialized = "{\"startAt\":0,\"maxResults\":50,\"total\":2,\"issues\":[" +
+                "{\"id\":\"1\",\"key\":\"LEV-1\",\"fields\":{\"project\":{\"id\":\"100\"},\"versions\":[{\"id\":\"1\"}],\"fixVersions\":[{\"id\":\"2\"}]}}," +
+                "{\"id\":\"2\",\"key\":\"LEV-2\",\"fields\":{\"project\":{\"id\":\"100\"},\"fixVersions\":[{\"id\":\"2\"},{\"id\":\"3\"}]}}]}";
+        JiraApiSearchResult searchResult = DefaultObjectMapper.get().readValue(serialized, JiraApiSearchResult.class);
+        JiraClient jiraClient = Mockito.mock(JiraClient.class);
+        when(jiraClient.search(any())).thenReturn(searchResult);
+        when(jiraClient.getProjectVersions("100")).thenReturn(List.of(
+                JiraVersion.builder().id("1").name("v1").build(),
+                JiraVersion.builder().id("2").name("v2").build()));
+        // created after the project's versions were loaded
+        when(jiraClient.getJiraVersion(argThat(version -> version != null && "3".equals(version.getId()))))
+                .thenReturn(JiraVersion.builder().id("3").name("v3").build());
+        JiraClientFactory jiraClientFactory = Mockito.mock(JiraClientFactory.class);
+        when(jiraClientFactory.get(any(IntegrationKey.class))).thenReturn(jiraClient);
+
+        JiraIssueDataSource dataSource = new JiraIssueDataSource(jiraClientFactory);
+        for (int page = 0; page < 2; page++) {
+            JiraIssueDataSource.JiraIssueQuery query = JiraIssueDataSource.JiraIssueQuery.builder()
+                    .integrationKey(new IntegrationKey("coke", "jira"))
+                    .jql("")
+                    .skip(page * 2)
+                    .limit(2)
+                    .build();
+            List<JiraIssue> issues = dataSource.fetchMany(query)
+                    .map(Data::getPayload)
+                    .collect(Collectors.toList());
+            assertThat(issues).hasSize(2);
+            assertThat(issues.get(0).getFields().getVersions()).extracting(JiraVersion::getName).containsExactly("v1");
+            assertThat(issues.get(0).getFields().getFixVersions()).extracting(JiraVersion::getName).containsExactly("v2");
+            assertThat(issues.get(1).getFields().getFixVersions()).extracting(JiraVersion::getName).containsExactly("v2", "v3");
+        }
+        verify(jiraClient, times(1)).getProjectVersions("100");
+        verify(jiraClient, times(1)).getJiraVersion(any());
+        verify(jiraClient, never()).getJiraVersion(argThat(version -> version != null && "1".equals(version.getId())));
+
+        // the next job loads them again
+        dataSource.fetchMany(JiraIssueDataSource.JiraIssueQuery.builder()
+                .integrationKey(new IntegrationKey("coke", "jira"))
+                .jql("")
+                .skip(0)
+                .limit(2)
+                .build()).collect(Collectors.toList());
+        verify(jiraClient, times(2)).getProjectVersions("100");
+        verify(jiraClient, times(2)).getJiraVersion(any());
+    }
+}